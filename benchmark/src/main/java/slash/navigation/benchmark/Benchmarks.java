@@ -0,0 +1,99 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+
+/**
+ * Runs the benchmarks for all writable formats with the GC profiler
+ * and reports operations per second and bytes allocated per position
+ * or per operation for the benchmarks which don't read positions.
+ *
+ * Usage: java -jar benchmarks.jar [benchmark regexp] [position counts separated by commas]
+ * [format class names separated by commas]
+ *
+ * @author Christian Pesch
+ */
+
+public class Benchmarks {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "slash.navigation.benchmark.*Benchmark";
+        String[] positions = args.length > 1 ? args[1].split(",") : new String[]{"1000", "100000", "1000000"};
+
+        List<String> formats = args.length > 2 ? asList(args[2].split(",")) : SyntheticRoutes.getWriteFormatNames();
+        ChainedOptionsBuilder options = new OptionsBuilder().
+                include(include).
+                addProfiler(GCProfiler.class).
+                param("format", formats.toArray(new String[formats.size()])).
+                param("pair", ConvertBenchmark.PAIRS).
+                param("positions", positions);
+
+        Collection<RunResult> results = new Runner(options.build()).run();
+        report(results);
+    }
+
+    private static Result getAllocationPerOperation(RunResult result) {
+        Map<String, Result> secondaryResults = result.getAggregatedResult().getSecondaryResults();
+        for (String key : secondaryResults.keySet()) {
+            if (key.endsWith("gc.alloc.rate.norm"))
+                return secondaryResults.get(key);
+        }
+        return null;
+    }
+
+    private static void report(Collection<RunResult> results) {
+        System.out.println();
+        System.out.println(format("%-60s %12s %14s %16s", "Benchmark", "Positions", "ops/s", "bytes/position"));
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            if (params.getParam("positions") == null) {
+                // benchmarks like InputOutputBenchmark which are not about positions
+                Result allocation = getAllocationPerOperation(result);
+                System.out.println(format("%-60s %12s %14.3f %16.1f", params.getBenchmark(), params.getParam("megaBytes"),
+                        result.getPrimaryResult().getScore(), allocation != null ? allocation.getScore() : Double.NaN));
+                continue;
+            }
+
+            String subject = params.getParam("format") != null ? params.getParam("format") :
+                    params.getParam("pair") != null ? params.getParam("pair") : "";
+            int positions = Integer.parseInt(params.getParam("positions"));
+            double operationsPerSecond = result.getPrimaryResult().getScore();
+            Result allocation = getAllocationPerOperation(result);
+            double bytesPerPosition = allocation != null ? allocation.getScore() / positions : Double.NaN;
+            System.out.println(format("%-60s %12d %14.3f %16.1f", params.getBenchmark() + " " + subject,
+                    positions, operationsPerSecond, bytesPerPosition));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import slash.navigation.base.BaseNavigationFormat;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.NavigationFileParser;
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.NavigationFormats;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static slash.navigation.benchmark.SyntheticRoutes.getInput;
+import static slash.navigation.benchmark.SyntheticRoutes.getWriteFormat;
+
+/**
+ * Measures {@link NavigationFormats#asFormat(BaseRoute, NavigationFormat)}
+ * between the major pairs of formats.
+ *
+ * @author Christian Pesch
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConvertBenchmark {
+    static final String[] PAIRS = new String[]{
+            "Gpx11Format->Kml22Format",
+            "Kml22Format->Gpx11Format",
+            "Gpx11Format->NmeaFormat",
+            "NmeaFormat->Gpx11Format",
+            "Gpx11Format->Tcx2Format",
+            "Tcx2Format->Gpx11Format",
+            "Gpx11Format->TomTom8RouteFormat",
+            "Gpx11Format->Nmn7Format",
+            "Gpx11Format->NavigatingPoiWarnerFormat",
+            "NavigatingPoiWarnerFormat->Gpx11Format"
+    };
+
+    @Param({"Gpx11Format->Kml22Format"})
+    public String pair;
+
+    @Param({"1000", "100000", "1000000"})
+    public int positions;
+
+    private BaseRoute<BaseNavigationPosition, BaseNavigationFormat> source;
+    private NavigationFormat target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] formats = pair.split("->");
+        NavigationFileParser parser = new NavigationFileParser();
+        if (!parser.read(getInput(formats[0], positions), Arrays.asList(getWriteFormat(formats[0]))))
+            throw new IllegalStateException("Cannot read " + formats[0]);
+        source = parser.getTheRoute();
+        target = getWriteFormat(formats[1]);
+    }
+
+    @Benchmark
+    public BaseRoute convert() throws IOException {
+        return NavigationFormats.asFormat(source, target);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import slash.navigation.base.NavigationFileParser;
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.NavigationFormats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the format detection of {@link NavigationFileParser#read(File, List)}
+ * over all read formats for a synthetic track in each writable format.
+ *
+ * @author Christian Pesch
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DetectBenchmark {
+    @Param({"Gpx11Format"})
+    public String format;
+
+    @Param({"1000", "100000", "1000000"})
+    public int positions;
+
+    private File input;
+    private List<NavigationFormat> readFormats;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = SyntheticRoutes.getInput(format, positions);
+        readFormats = NavigationFormats.getReadFormats();
+    }
+
+    @Benchmark
+    public NavigationFormat detect() throws IOException {
+        NavigationFileParser parser = new NavigationFileParser();
+        if (!parser.read(input, readFormats))
+            throw new IllegalStateException("Cannot detect " + format + " in " + input);
+        return parser.getFormat();
+    }
+}
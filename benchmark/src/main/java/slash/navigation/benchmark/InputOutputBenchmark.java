@@ -0,0 +1,141 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import slash.common.io.InputOutput;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link InputOutput} helpers with the chunked copies they replaced
+ * for reading a file into memory and copying it to another file. Besides the
+ * throughput, the peak heap usage of each iteration is printed.
+ *
+ * @author Christian Pesch
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InputOutputBenchmark {
+    private static final int LEGACY_CHUNK_SIZE = (4 * 1024);
+
+    @Param({"1", "50", "500"})
+    public int megaBytes;
+
+    private File input;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = File.createTempFile("inputoutput", ".bin");
+        input.deleteOnExit();
+        output = File.createTempFile("inputoutput", ".copy");
+        output.deleteOnExit();
+
+        byte[] chunk = new byte[1024 * 1024];
+        new Random(megaBytes).nextBytes(chunk);
+        OutputStream outputStream = new FileOutputStream(input);
+        try {
+            for (int i = 0; i < megaBytes; i++)
+                outputStream.write(chunk);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!input.delete() || !output.delete())
+            System.out.println("Cannot delete " + input + " or " + output);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.println(String.format(" peak heap %d MB", peak / (1024 * 1024)));
+    }
+
+    private static int legacyCopy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[LEGACY_CHUNK_SIZE];
+        int count = 0;
+        int read;
+        try {
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+                count += read;
+            }
+        } finally {
+            input.close();
+            output.close();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public byte[] readBytesLegacy() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        legacyCopy(new FileInputStream(input), out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] readBytes() throws IOException {
+        return InputOutput.readBytes(input);
+    }
+
+    @Benchmark
+    public int copyFileLegacy() throws IOException {
+        return legacyCopy(new FileInputStream(input), new FileOutputStream(output));
+    }
+
+    @Benchmark
+    public long copyFile() throws IOException {
+        return InputOutput.copy(new FileInputStream(input), new FileOutputStream(output));
+    }
+
+    @Benchmark
+    public long copyStreamToFile() throws IOException {
+        // a buffered stream hides the file channel like a socket stream does
+        return InputOutput.copy(new BufferedInputStream(new FileInputStream(input)), output);
+    }
+}
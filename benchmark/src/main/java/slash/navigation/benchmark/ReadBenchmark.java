@@ -0,0 +1,75 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.NavigationFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static slash.common.io.InputOutput.readBytes;
+import static slash.navigation.benchmark.SyntheticRoutes.getInput;
+import static slash.navigation.benchmark.SyntheticRoutes.getWriteFormat;
+
+/**
+ * Measures the raw {@link NavigationFormat#read(InputStream)} of a synthetic
+ * track without detection for each writable format.
+ *
+ * @author Christian Pesch
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadBenchmark {
+    @Param({"Gpx11Format"})
+    public String format;
+
+    @Param({"1000", "100000", "1000000"})
+    public int positions;
+
+    private byte[] input;
+    private NavigationFormat navigationFormat;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        navigationFormat = getWriteFormat(format);
+        // read from memory to measure parsing and not the disk
+        input = readBytes(getInput(format, positions));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<BaseRoute> read() throws IOException {
+        List<BaseRoute> routes = navigationFormat.read(new ByteArrayInputStream(input));
+        if (routes == null || routes.size() == 0)
+            throw new IllegalStateException("Cannot read " + format);
+        return routes;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.util.RouteComments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static slash.navigation.benchmark.SyntheticRoutes.createRoute;
+
+/**
+ * Measures {@link RouteComments#commentRoutePositions(List)} for a file
+ * with ten routes that share their positions with the neighbouring routes.
+ *
+ * @author Christian Pesch
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouteCommentsBenchmark {
+    private static final int ROUTE_COUNT = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int positions;
+
+    private List<GpxRoute> routes;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        // commentRoutePositions() completes the positions, so every invocation needs fresh routes
+        GpxRoute track = createRoute(positions);
+        List<GpxPosition> trackPositions = track.getPositions();
+        int routeLength = positions / ROUTE_COUNT;
+        routes = new ArrayList<GpxRoute>(ROUTE_COUNT);
+        for (int i = 0; i < ROUTE_COUNT; i++) {
+            // overlap each route by half with the previous one and let only every other position keep its comment
+            int from = Math.max(i * routeLength - routeLength / 2, 0);
+            int to = Math.min((i + 1) * routeLength, positions);
+            List<GpxPosition> routePositions = new ArrayList<GpxPosition>(to - from);
+            for (int j = from; j < to; j++) {
+                GpxPosition position = trackPositions.get(j);
+                routePositions.add(new GpxPosition(position.getLongitude(), position.getLatitude(),
+                        j % 2 == 0 ? position.getElevation() : null, position.getSpeed(),
+                        j % 3 == 0 ? position.getTime() : null, j % 2 == 0 ? position.getComment() : null));
+            }
+            routes.add(new GpxRoute(track.getFormat(), track.getCharacteristics(), track.getName(), null, routePositions));
+        }
+    }
+
+    @Benchmark
+    public List<GpxRoute> commentRoutePositions() {
+        RouteComments.commentRoutePositions(routes);
+        return routes;
+    }
+}
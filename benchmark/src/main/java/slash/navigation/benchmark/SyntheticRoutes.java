@@ -0,0 +1,129 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import slash.common.io.CompactCalendar;
+import slash.navigation.babel.BabelFormat;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.NavigationFileParser;
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.NavigationFormats;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+/**
+ * Creates synthetic tracks and writes them in all formats to have
+ * inputs for the benchmarks which don't depend on test files.
+ *
+ * @author Christian Pesch
+ */
+
+public class SyntheticRoutes {
+    private static final Logger log = Logger.getLogger(SyntheticRoutes.class.getName());
+    private static final File DIRECTORY = new File(System.getProperty("java.io.tmpdir"), "routeconverter-benchmark");
+    private static final long START_TIME = 1293840000000L; // 2011-01-01T00:00:00Z
+
+    public static GpxRoute createRoute(int positionCount) {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>(positionCount);
+        double longitude = 11.5, latitude = 48.1;
+        for (int i = 0; i < positionCount; i++) {
+            // a meandering walk with about 10 meters between positions, one position per second
+            longitude += 0.0001 * Math.cos(i / 500.0);
+            latitude += 0.0001 * Math.sin(i / 700.0);
+            double elevation = 500.0 + 100.0 * Math.sin(i / 1000.0);
+            CompactCalendar time = CompactCalendar.fromMillis(START_TIME + i * 1000L);
+            positions.add(new GpxPosition(longitude, latitude, elevation, 36.0, time, "Position " + (i + 1)));
+        }
+        return new Gpx11Format().createRoute(Track, "Synthetic track with " + positionCount + " positions", positions);
+    }
+
+    public static List<NavigationFormat> getWriteFormats() {
+        List<NavigationFormat> formats = new ArrayList<NavigationFormat>();
+        for (NavigationFormat format : NavigationFormats.getWriteFormats()) {
+            // BabelFormats need an external gpsbabel process
+            if (!(format instanceof BabelFormat))
+                formats.add(format);
+        }
+        return formats;
+    }
+
+    public static NavigationFormat getWriteFormat(String formatName) {
+        for (NavigationFormat format : getWriteFormats()) {
+            if (format.getClass().getSimpleName().equals(formatName))
+                return format;
+        }
+        throw new IllegalArgumentException("Unknown write format " + formatName);
+    }
+
+    public static List<String> getWriteFormatNames() {
+        List<String> names = new ArrayList<String>();
+        for (NavigationFormat format : getWriteFormats())
+            names.add(format.getClass().getSimpleName());
+        return names;
+    }
+
+    static File getFile(String formatName, int positionCount) {
+        NavigationFormat format = getWriteFormat(formatName);
+        return new File(DIRECTORY, formatName + "-" + positionCount + format.getExtension());
+    }
+
+    /**
+     * Returns a file with a synthetic track in the given format which
+     * is created on the first request and reused afterwards.
+     *
+     * @param formatName the simple class name of the {@link NavigationFormat}
+     * @param positionCount the number of positions of the track
+     * @return the file with the synthetic track
+     * @throws IOException if the file cannot be written
+     */
+    public static synchronized File getInput(String formatName, int positionCount) throws IOException {
+        File file = getFile(formatName, positionCount);
+        if (!file.exists() || file.length() == 0) {
+            if (!DIRECTORY.exists() && !DIRECTORY.mkdirs())
+                throw new IOException("Cannot create directory " + DIRECTORY);
+            write(createRoute(positionCount), getWriteFormat(formatName), file);
+        }
+        return file;
+    }
+
+    private static void write(BaseRoute route, NavigationFormat format, File file) throws IOException {
+        long start = System.currentTimeMillis();
+        OutputStream target = new FileOutputStream(file);
+        try {
+            new NavigationFileParser().write(route, format, false, true, target);
+        } finally {
+            target.close();
+        }
+        log.info("Wrote synthetic " + format.getName() + " input " + file + " with " + route.getPositionCount() +
+                " positions in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.NavigationFormats;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static slash.navigation.benchmark.SyntheticRoutes.createRoute;
+import static slash.navigation.benchmark.SyntheticRoutes.getWriteFormat;
+
+/**
+ * Measures {@link NavigationFormat#write(BaseRoute, OutputStream, int, int)}
+ * of a synthetic track for each writable format.
+ *
+ * @author Christian Pesch
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WriteBenchmark {
+    @Param({"Gpx11Format"})
+    public String format;
+
+    @Param({"1000", "100000", "1000000"})
+    public int positions;
+
+    private NavigationFormat navigationFormat;
+    private BaseRoute route;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        navigationFormat = getWriteFormat(format);
+        route = NavigationFormats.asFormat(createRoute(positions), navigationFormat);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count = 0;
+
+        public void write(int b) {
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public long write() throws IOException {
+        CountingOutputStream target = new CountingOutputStream();
+        navigationFormat.write(route, target, 0, route.getPositionCount());
+        return target.count;
+    }
+}
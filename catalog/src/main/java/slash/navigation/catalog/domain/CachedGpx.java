@@ -0,0 +1,53 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.catalog.domain;
+
+import slash.navigation.gpx.binding11.GpxType;
+
+/**
+ * A GPX document fetched via {@link RouteCatalog} together with the
+ * validators to revalidate it with a conditional GET.
+ *
+ * @author Christian Pesch
+ */
+
+class CachedGpx {
+    private final GpxType gpx;
+    private final String eTag, lastModified;
+
+    CachedGpx(GpxType gpx, String eTag, String lastModified) {
+        this.gpx = gpx;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    GpxType getGpx() {
+        return gpx;
+    }
+
+    String getETag() {
+        return eTag;
+    }
+
+    String getLastModified() {
+        return lastModified;
+    }
+}
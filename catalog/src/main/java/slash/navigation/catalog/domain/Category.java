@@ -40,7 +40,8 @@ import java.util.List;
 public class Category {
     private final RouteCatalog routeCatalog;
     private String url, name;
-    private GpxType gpx;
+    private volatile CachedGpx gpx;
+    private volatile boolean valid = false;
 
     public Category(RouteCatalog routeCatalog, String url, String name) {
         this.routeCatalog = routeCatalog;
@@ -49,20 +50,33 @@ public class Category {
     }
 
     private synchronized GpxType getGpx() throws IOException {
-        if (gpx == null) {
-            gpx = routeCatalog.fetchGpx(url);
+        if (gpx == null || !valid) {
+            // revalidates a previously fetched document with a conditional GET
+            gpx = routeCatalog.fetchGpx(url, gpx);
 
             // avoid subsequent NullPointerExceptions on server errors
             if (gpx == null) {
-                gpx = new GpxType();
-                gpx.setMetadata(new MetadataType());
+                GpxType empty = new GpxType();
+                empty.setMetadata(new MetadataType());
+                gpx = new CachedGpx(empty, null, null);
             }
+            valid = true;
         }
-        return gpx;
+        return gpx.getGpx();
+    }
+
+    /**
+     * Returns if the GPX document of this category has been fetched and is valid,
+     * i.e. if the methods of this category can be called without network I/O.
+     *
+     * @return if the GPX document of this category is available without network I/O
+     */
+    public boolean isCached() {
+        return gpx != null && valid;
     }
 
     private synchronized void invalidate() {
-        gpx = null;
+        valid = false;
         name = null;
     }
 
@@ -75,7 +89,7 @@ public class Category {
     private List<Category> getCachedSubCategories() {
         List<Category> categories = new ArrayList<Category>();
         if (gpx != null)
-            for (LinkType linkType : gpx.getMetadata().getLink()) {
+            for (LinkType linkType : gpx.getGpx().getMetadata().getLink()) {
                 categories.add(new Category(routeCatalog, linkType.getHref(), linkType.getText()));
             }
         return categories;
@@ -64,12 +64,27 @@ public class RouteCatalog {
     }
 
     GpxType fetchGpx(String url) throws IOException {
+        CachedGpx result = fetchGpx(url, null);
+        return result != null ? result.getGpx() : null;
+    }
+
+    CachedGpx fetchGpx(String url, CachedGpx cached) throws IOException {
         log.fine("Fetching gpx from " + url);
         Get get = new Get(url);
+        if (cached != null) {
+            if (cached.getETag() != null)
+                get.setIfNoneMatch(cached.getETag());
+            if (cached.getLastModified() != null)
+                get.setIfModifiedSince(cached.getLastModified());
+        }
         String result = get.execute();
+        if (cached != null && get.isNotModified()) {
+            log.fine("Gpx from " + url + " is not modified");
+            return cached;
+        }
         if (get.isSuccessful())
             try {
-                return GpxUtil.unmarshal11(result);
+                return new CachedGpx(GpxUtil.unmarshal11(result), get.getETag(), get.getLastModified());
             } catch (JAXBException e) {
                 IOException io = new IOException("Cannot unmarshall " + result + ": " + e.getMessage());
                 io.setStackTrace(e.getStackTrace());
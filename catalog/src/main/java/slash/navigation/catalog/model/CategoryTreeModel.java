@@ -21,6 +21,10 @@
 package slash.navigation.catalog.model;
 
 import javax.swing.tree.DefaultTreeModel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 /**
  * Swing model for a tree of {@link CategoryTreeNode}s.
@@ -29,6 +33,16 @@ import javax.swing.tree.DefaultTreeModel;
  */
 
 public class CategoryTreeModel extends DefaultTreeModel {
+    private static final int LOADER_THREADS = 4;
+    private final ExecutorService loader = newFixedThreadPool(LOADER_THREADS, new ThreadFactory() {
+        private int count = 1;
+
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "CategoryTreeLoader-" + count++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     public CategoryTreeModel(CategoryTreeNode root) {
         super(root, true);
@@ -37,6 +51,15 @@ public class CategoryTreeModel extends DefaultTreeModel {
 
     public boolean isLeaf(Object node) {
         // this would go through the whole tree ((CategoryTreeNode) node).getChildCount() == 0;
-        return false;
+        // the placeholders shown while loading are leafs
+        return !(node instanceof CategoryTreeNode);
+    }
+
+    void load(Runnable runnable) {
+        loader.execute(runnable);
+    }
+
+    public void dispose() {
+        loader.shutdownNow();
     }
 }
@@ -23,6 +23,7 @@ package slash.navigation.catalog.model;
 import slash.navigation.catalog.domain.Category;
 import slash.navigation.catalog.domain.Route;
 
+import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
 import java.io.File;
@@ -36,6 +37,10 @@ import java.util.logging.Logger;
 /**
  * Swing model for a {@link Category}.
  *
+ * Children are loaded in the background if they are requested from the AWT EventQueue
+ * and a placeholder is shown in the meantime. The children of the children are
+ * prefetched to have them available without network I/O once they are expanded.
+ *
  * @author Christian Pesch
  */
 
@@ -74,19 +79,76 @@ public class CategoryTreeNode extends DefaultMutableTreeNode {
 
     private void ensureInited() {
         if (children == null) {
-            try {
-                List<Category> categories = getCategory().getSubCategories();
-                Category[] categoriesArray = categories.toArray(new Category[categories.size()]);
-                Arrays.sort(categoriesArray, categoryComparator);
-                for (Category child : categoriesArray) {
-                    insert(new CategoryTreeNode(child), children == null ? 0 : getChildCount());
+            CategoryTreeModel treeModel = getTreeModel();
+            if (treeModel != null && SwingUtilities.isEventDispatchThread() && !getCategory().isCached())
+                loadChildrenAsynchronously(treeModel);
+            else {
+                Category[] categories = loadChildren();
+                if (categories != null) {
+                    insertChildren(categories);
+                    if (treeModel != null)
+                        prefetch(treeModel, categories);
                 }
-            } catch (Exception e) {
-                log.severe("Cannot get child categories: " + e.getMessage());
             }
         }
     }
 
+    private Category[] loadChildren() {
+        try {
+            List<Category> categories = getCategory().getSubCategories();
+            Category[] categoriesArray = categories.toArray(new Category[categories.size()]);
+            Arrays.sort(categoriesArray, categoryComparator);
+            return categoriesArray;
+        } catch (Exception e) {
+            log.severe("Cannot get child categories: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void insertChildren(Category[] categories) {
+        for (Category child : categories) {
+            insert(new CategoryTreeNode(child), children == null ? 0 : getChildCount());
+        }
+    }
+
+    private void loadChildrenAsynchronously(final CategoryTreeModel treeModel) {
+        // the placeholder prevents loading twice and is rendered as loading
+        insert(new DefaultMutableTreeNode(null, false), 0);
+
+        treeModel.load(new Runnable() {
+            public void run() {
+                final Category[] categories = loadChildren();
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        removeAllChildren();
+                        if (categories != null)
+                            insertChildren(categories);
+                        treeModel.nodeStructureChanged(CategoryTreeNode.this);
+                    }
+                });
+                if (categories != null)
+                    prefetch(treeModel, categories);
+            }
+        });
+    }
+
+    private void prefetch(CategoryTreeModel treeModel, Category[] categories) {
+        for (final Category category : categories) {
+            if (category.isCached())
+                continue;
+
+            treeModel.load(new Runnable() {
+                public void run() {
+                    try {
+                        category.getSubCategories();
+                    } catch (Exception e) {
+                        log.fine("Cannot prefetch child categories: " + e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
     private CategoryTreeModel treeModel;
 
     CategoryTreeModel getTreeModel() {
@@ -113,9 +175,9 @@ public class CategoryTreeNode extends DefaultMutableTreeNode {
 
     public CategoryTreeNode getSubCategory(String name) {
         for (int i = 0; i < getChildCount(); i++) {
-            CategoryTreeNode child = (CategoryTreeNode) getChildAt(i);
-            if (child.getName().equals(name))
-                return child;
+            TreeNode child = getChildAt(i);
+            if (child instanceof CategoryTreeNode && ((CategoryTreeNode) child).getName().equals(name))
+                return (CategoryTreeNode) child;
         }
         return null;
     }
@@ -0,0 +1,122 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.catalog;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stub of the RouteCatalog service which serves categories
+ * with an injected latency and supports conditional GETs.
+ *
+ * @author Christian Pesch
+ */
+
+public class StubCatalogServer {
+    private final HttpServer server;
+    private final long latency;
+    private final Map<String, String> categories = new HashMap<String, String>();
+    private final AtomicInteger requests = new AtomicInteger(), notModified = new AtomicInteger();
+
+    public StubCatalogServer(long latency) throws IOException {
+        this.latency = latency;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/catalog/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    public String getRootUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/catalog/";
+    }
+
+    public String getCategoryUrl(String path) {
+        return getRootUrl() + "categories/" + path + ".gpx";
+    }
+
+    public void addCategory(String path, String name, String... subCategories) {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        buffer.append("<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\" creator=\"StubCatalogServer\">\n");
+        buffer.append("<metadata><name>").append(name).append("</name>\n");
+        for (String subCategory : subCategories) {
+            String subPath = path.length() > 0 ? path + "/" + subCategory : subCategory;
+            buffer.append("<link href=\"").append(getCategoryUrl(subPath)).append("\"><text>").
+                    append(subCategory).append("</text></link>\n");
+        }
+        buffer.append("</metadata>\n</gpx>\n");
+        categories.put("/catalog/categories/" + path + ".gpx", buffer.toString());
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            // intentionally left empty
+        }
+
+        String body = categories.get(exchange.getRequestURI().getPath());
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        String eTag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        exchange.getResponseHeaders().add("ETag", eTag);
+        if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "application/gpx+xml");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.catalog.domain;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.catalog.StubCatalogServer;
+import slash.navigation.rest.SimpleCredentials;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RouteCatalogTest {
+    private StubCatalogServer server;
+    private RouteCatalog catalog;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubCatalogServer(0);
+        server.addCategory("", "", "A");
+        catalog = new RouteCatalog(server.getRootUrl(), new SimpleCredentials("test", "test"));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testRevalidatesWithConditionalGet() throws IOException {
+        String url = server.getCategoryUrl("");
+        CachedGpx first = catalog.fetchGpx(url, null);
+        assertEquals("A", first.getGpx().getMetadata().getLink().get(0).getText());
+        assertEquals(0, server.getNotModifiedCount());
+
+        CachedGpx second = catalog.fetchGpx(url, first);
+        assertSame(first, second);
+        assertEquals(1, server.getNotModifiedCount());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testRefetchesModifiedCategory() throws IOException {
+        String url = server.getCategoryUrl("");
+        CachedGpx first = catalog.fetchGpx(url, null);
+
+        server.addCategory("", "", "A", "B");
+        CachedGpx second = catalog.fetchGpx(url, first);
+        assertNotSame(first, second);
+        assertEquals(2, second.getGpx().getMetadata().getLink().size());
+        assertEquals(0, server.getNotModifiedCount());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.catalog.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.catalog.StubCatalogServer;
+import slash.navigation.catalog.domain.RouteCatalog;
+import slash.navigation.rest.SimpleCredentials;
+
+import javax.swing.tree.TreeNode;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import static javax.swing.SwingUtilities.invokeAndWait;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CategoryTreeNodeTest {
+    private static final long LATENCY = 500;
+    private StubCatalogServer server;
+    private CategoryTreeNode root;
+    private CategoryTreeModel model;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubCatalogServer(LATENCY);
+        server.addCategory("", "", "A", "B");
+        server.addCategory("A", "A", "AA");
+        server.addCategory("B", "B");
+        server.addCategory("A/AA", "AA");
+        RouteCatalog catalog = new RouteCatalog(server.getRootUrl(), new SimpleCredentials("test", "test"));
+        root = new CategoryTreeNode(catalog.getRootCategory());
+        model = new CategoryTreeModel(root);
+    }
+
+    @After
+    public void tearDown() {
+        model.dispose();
+        server.stop();
+    }
+
+    private <T> T onEventDispatchThread(Callable<T> callable) throws Exception {
+        FutureTask<T> task = new FutureTask<T>(callable);
+        invokeAndWait(task);
+        return task.get();
+    }
+
+    private long childCountTime;
+
+    private int getChildCountOnEventDispatchThread(final CategoryTreeNode node) throws Exception {
+        return onEventDispatchThread(new Callable<Integer>() {
+            public Integer call() {
+                long start = System.currentTimeMillis();
+                int count = node.getChildCount();
+                childCountTime = System.currentTimeMillis() - start;
+                return count;
+            }
+        });
+    }
+
+    private TreeNode getChildAtOnEventDispatchThread(final CategoryTreeNode node, final int index) throws Exception {
+        return onEventDispatchThread(new Callable<TreeNode>() {
+            public TreeNode call() {
+                return node.getChildAt(index);
+            }
+        });
+    }
+
+    private void waitForChildren(CategoryTreeNode node, int count) throws Exception {
+        long end = System.currentTimeMillis() + 20 * LATENCY;
+        while (System.currentTimeMillis() < end) {
+            if (getChildCountOnEventDispatchThread(node) == count &&
+                    getChildAtOnEventDispatchThread(node, 0) instanceof CategoryTreeNode)
+                return;
+            Thread.sleep(LATENCY / 10);
+        }
+        throw new AssertionError("No " + count + " children loaded for " + node.getName());
+    }
+
+    @Test
+    public void testNoNetworkOnEventDispatchThread() throws Exception {
+        assertEquals(1, getChildCountOnEventDispatchThread(root));
+        assertTrue(childCountTime < LATENCY);
+        assertFalse(getChildAtOnEventDispatchThread(root, 0) instanceof CategoryTreeNode);
+
+        waitForChildren(root, 2);
+        CategoryTreeNode a = (CategoryTreeNode) getChildAtOnEventDispatchThread(root, 0);
+        assertEquals("A", a.getName());
+        assertEquals("B", ((CategoryTreeNode) getChildAtOnEventDispatchThread(root, 1)).getName());
+
+        // wait for the prefetching of the next level
+        long end = System.currentTimeMillis() + 20 * LATENCY;
+        while (!a.getCategory().isCached() && System.currentTimeMillis() < end)
+            Thread.sleep(LATENCY / 10);
+        assertTrue(a.getCategory().isCached());
+
+        assertEquals(1, getChildCountOnEventDispatchThread(a));
+        assertTrue(childCountTime < LATENCY);
+        assertEquals("AA", ((CategoryTreeNode) getChildAtOnEventDispatchThread(a, 0)).getName());
+    }
+
+    @Test
+    public void testLoadsSynchronouslyOutsideOfEventDispatchThread() throws Exception {
+        assertEquals(2, root.getChildCount());
+        assertEquals("A", ((CategoryTreeNode) root.getChildAt(0)).getName());
+        assertEquals("A", root.getSubCategory("A").getName());
+    }
+}
+
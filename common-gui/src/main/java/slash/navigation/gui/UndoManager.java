@@ -22,57 +22,155 @@ package slash.navigation.gui;
 
 import javax.swing.event.ChangeListener;
 import javax.swing.event.EventListenerList;
+import javax.swing.undo.CompoundEdit;
 import javax.swing.undo.UndoableEdit;
 import java.util.prefs.Preferences;
 
 /**
  * Manages the {@link UndoAction} and {@link RedoAction} of an {@link Application}.
  *
+ * The history is bounded by the number of edits and by the estimated memory
+ * the edits retain: if the estimate exceeds the limit, the oldest edits are
+ * discarded. Edits that are added between {@link #beginCompoundEdit()} and
+ * {@link #endCompoundEdit()} are undone and redone as one. Edits made from
+ * a background task are collected with {@link #record(CompoundEdit, Runnable)}
+ * and added as one once the task ended.
+ *
  * @author Christian Pesch
  */
 
 public class UndoManager {
     private static final Preferences preferences = Preferences.userNodeForPackage(UndoManager.class);
-    private javax.swing.undo.UndoManager delegate = new javax.swing.undo.UndoManager();
+    private static final long DEFAULT_EDIT_SIZE = 64;
+
+    private BoundedUndoManager delegate = new BoundedUndoManager();
     private EventListenerList listenerList = new EventListenerList();
+    private final long memoryLimit;
+    private SizedCompoundEdit compoundEdit;
+    private int compoundDepth = 0;
+    private CompoundEdit recordingEdit;
 
     public UndoManager() {
-        delegate.setLimit(preferences.getInt("undoLimit", -1));
+        this(preferences.getInt("undoLimit", -1), preferences.getLong("undoMemoryLimit", 32 * 1024 * 1024));
+    }
+
+    public UndoManager(int limit, long memoryLimit) {
+        delegate.setLimit(limit);
+        this.memoryLimit = memoryLimit;
     }
 
-    public boolean canUndo() {
+    public synchronized boolean canUndo() {
         return delegate.canUndo();
     }
 
-    public boolean canRedo() {
+    public synchronized boolean canRedo() {
         return delegate.canRedo();
     }
 
-    public String getUndoPresentationName() {
+    public synchronized String getUndoPresentationName() {
         return delegate.getUndoPresentationName();
     }
 
-    public String getRedoPresentationName() {
+    public synchronized String getRedoPresentationName() {
         return delegate.getRedoPresentationName();
     }
 
+    public synchronized long getEstimatedSize() {
+        return delegate.getEstimatedSize();
+    }
+
     public void undo() {
-        delegate.undo();
+        synchronized (this) {
+            delegate.undo();
+        }
         fireChanged();
     }
 
     public void redo() {
-        delegate.redo();
+        synchronized (this) {
+            delegate.redo();
+        }
         fireChanged();
     }
 
     public void addEdit(UndoableEdit undoableEdit) {
-        delegate.addEdit(undoableEdit);
+        synchronized (this) {
+            if (recordingEdit != null) {
+                recordingEdit.addEdit(undoableEdit);
+                return;
+            }
+            if (compoundEdit != null) {
+                compoundEdit.addEdit(undoableEdit);
+                return;
+            }
+            delegate.addEdit(undoableEdit);
+            delegate.trimToSize(memoryLimit);
+        }
+        fireChanged();
+    }
+
+    public synchronized void beginCompoundEdit() {
+        if (compoundDepth++ == 0)
+            compoundEdit = new SizedCompoundEdit();
+    }
+
+    public void endCompoundEdit() {
+        synchronized (this) {
+            if (compoundDepth == 0)
+                throw new IllegalStateException("no compound edit in progress");
+            if (--compoundDepth > 0)
+                return;
+
+            SizedCompoundEdit edit = compoundEdit;
+            compoundEdit = null;
+            edit.end();
+            if (edit.isEmpty())
+                return;
+            delegate.addEdit(edit);
+            delegate.trimToSize(memoryLimit);
+        }
         fireChanged();
     }
 
+    /**
+     * Creates a compound edit for {@link #record(CompoundEdit, Runnable)} which
+     * estimates the memory of its edits like the history does.
+     *
+     * @return a new compound edit
+     */
+    public CompoundEdit createCompoundEdit() {
+        return new SizedCompoundEdit();
+    }
+
+    /**
+     * Runs the given runnable and adds the edits it makes to the given compound edit
+     * instead of the history. Call it from the event dispatch thread, which makes all
+     * edits, so that no edit of the user is collected.
+     *
+     * @param edit     the compound edit to add the edits to
+     * @param runnable the runnable that makes the edits
+     */
+    public void record(CompoundEdit edit, Runnable runnable) {
+        synchronized (this) {
+            if (recordingEdit != null)
+                throw new IllegalStateException("already recording edits");
+            recordingEdit = edit;
+        }
+        try {
+            runnable.run();
+        } finally {
+            synchronized (this) {
+                recordingEdit = null;
+            }
+        }
+    }
+
     public void discardAllEdits() {
-        delegate.discardAllEdits();
+        synchronized (this) {
+            delegate.discardAllEdits();
+            if (compoundEdit != null)
+                compoundEdit = new SizedCompoundEdit();
+        }
         fireChanged();
     }
 
@@ -88,4 +186,61 @@ public class UndoManager {
     public void addChangeListener(ChangeListener l) {
         listenerList.add(ChangeListener.class, l);
     }
+
+    private static long getEstimatedSize(UndoableEdit edit) {
+        return edit instanceof SizedUndoableEdit ? ((SizedUndoableEdit) edit).getEstimatedSize() : DEFAULT_EDIT_SIZE;
+    }
+
+    private static class BoundedUndoManager extends javax.swing.undo.UndoManager {
+        private long estimatedSize = 0;
+
+        public synchronized boolean addEdit(UndoableEdit edit) {
+            boolean added = super.addEdit(edit);
+            if (added && !edits.isEmpty() && edits.lastElement() == edit)
+                estimatedSize += UndoManager.getEstimatedSize(edit);
+            return added;
+        }
+
+        protected void trimEdits(int from, int to) {
+            for (int i = Math.max(from, 0); i <= to && i < edits.size(); i++)
+                estimatedSize -= UndoManager.getEstimatedSize(edits.elementAt(i));
+            super.trimEdits(from, to);
+        }
+
+        public synchronized void discardAllEdits() {
+            super.discardAllEdits();
+            estimatedSize = 0;
+        }
+
+        synchronized long getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        synchronized void trimToSize(long maximum) {
+            if (maximum < 0)
+                return;
+            // always keep the most recent edit
+            while (estimatedSize > maximum && edits.size() > 1)
+                trimEdits(0, 0);
+        }
+    }
+
+    private static class SizedCompoundEdit extends CompoundEdit implements SizedUndoableEdit {
+        private long estimatedSize = 0;
+
+        public boolean addEdit(UndoableEdit edit) {
+            boolean added = super.addEdit(edit);
+            if (added)
+                estimatedSize += UndoManager.getEstimatedSize(edit);
+            return added;
+        }
+
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        boolean isEmpty() {
+            return edits.isEmpty();
+        }
+    }
 }
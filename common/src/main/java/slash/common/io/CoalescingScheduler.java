@@ -0,0 +1,240 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks that are keyed by the kind of update they perform on a single thread.
+ * <p/>
+ * A task runs immediately if no task with the same key ran within its window,
+ * otherwise at the end of the window. Scheduling a key again before its task ran
+ * replaces the pending task, so bursts of changes are coalesced into one run.
+ * The thread sleeps as long as there are no pending tasks.
+ *
+ * @author Christian Pesch
+ */
+
+public class CoalescingScheduler {
+    private static final Logger log = Logger.getLogger(CoalescingScheduler.class.getName());
+
+    /**
+     * The source of the current time, replaceable for tests.
+     */
+    public interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private static class Task {
+        private final String key;
+        private final Runnable runnable;
+        private final long due;
+
+        private Task(String key, Runnable runnable, long due) {
+            this.key = key;
+            this.runnable = runnable;
+            this.due = due;
+        }
+    }
+
+    private final Clock clock;
+    private final Object mutex = new Object();
+    private final Map<String, Task> pending = new HashMap<String, Task>();
+    private final Map<String, Long> lastRuns = new HashMap<String, Long>();
+    private Thread thread;
+    private boolean running = true;
+
+    public CoalescingScheduler(String name) {
+        this(SYSTEM_CLOCK);
+        thread = new Thread(new Runnable() {
+            public void run() {
+                loop();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Creates a scheduler without a thread whose tasks are run by {@link #runDueTasks()}.
+     *
+     * @param clock the source of the current time
+     */
+    public CoalescingScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules a task to run immediately if no task with the same key ran within the
+     * given window and at the end of the window otherwise.
+     *
+     * @param key      the kind of update the task performs
+     * @param window   the minimum time in milliseconds between two runs of tasks with the key
+     * @param runnable the task
+     */
+    public void schedule(String key, long window, Runnable runnable) {
+        synchronized (mutex) {
+            Long lastRun = lastRuns.get(key);
+            long due = clock.currentTimeMillis();
+            if (lastRun != null)
+                due = Math.max(due, lastRun + window);
+            enqueue(key, runnable, due);
+        }
+    }
+
+    /**
+     * Schedules a task to run after the given delay.
+     *
+     * @param key      the kind of update the task performs
+     * @param delay    the delay in milliseconds
+     * @param runnable the task
+     */
+    public void scheduleDelayed(String key, long delay, Runnable runnable) {
+        synchronized (mutex) {
+            enqueue(key, runnable, clock.currentTimeMillis() + delay);
+        }
+    }
+
+    private void enqueue(String key, Runnable runnable, long due) {
+        if (!running)
+            return;
+        Task task = pending.get(key);
+        // the new task supersedes the pending one but is not delayed by it
+        if (task != null)
+            due = Math.min(due, task.due);
+        pending.put(key, new Task(key, runnable, due));
+        mutex.notifyAll();
+    }
+
+    public void cancel(String key) {
+        synchronized (mutex) {
+            pending.remove(key);
+        }
+    }
+
+    public boolean isPending(String key) {
+        synchronized (mutex) {
+            return pending.containsKey(key);
+        }
+    }
+
+    /**
+     * Runs the tasks that are due.
+     *
+     * @return the time when the next task is due or {@link Long#MAX_VALUE} if there is none
+     */
+    public long runDueTasks() {
+        List<Task> due = new ArrayList<Task>();
+        synchronized (mutex) {
+            long now = clock.currentTimeMillis();
+            for (Task task : new ArrayList<Task>(pending.values())) {
+                if (task.due <= now) {
+                    due.add(task);
+                    pending.remove(task.key);
+                    lastRuns.put(task.key, now);
+                }
+            }
+        }
+
+        Collections.sort(due, new Comparator<Task>() {
+            public int compare(Task t1, Task t2) {
+                return t1.due < t2.due ? -1 : t1.due > t2.due ? 1 : 0;
+            }
+        });
+        for (Task task : due) {
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                log.severe("Cannot run task " + task.key + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        synchronized (mutex) {
+            return getNextDue();
+        }
+    }
+
+    private long getNextDue() {
+        long next = Long.MAX_VALUE;
+        for (Task task : pending.values())
+            next = Math.min(next, task.due);
+        return next;
+    }
+
+    private void loop() {
+        while (true) {
+            runDueTasks();
+
+            synchronized (mutex) {
+                if (!running)
+                    return;
+                long next = getNextDue();
+                try {
+                    if (next == Long.MAX_VALUE)
+                        mutex.wait();
+                    else {
+                        long wait = next - clock.currentTimeMillis();
+                        if (wait > 0)
+                            mutex.wait(wait);
+                    }
+                } catch (InterruptedException e) {
+                    // intentionally left empty
+                }
+                if (!running)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Discards the pending tasks and waits for a running task to finish.
+     */
+    public void shutdown() {
+        synchronized (mutex) {
+            running = false;
+            pending.clear();
+            mutex.notifyAll();
+        }
+
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(500);
+                thread.interrupt();
+                thread.join();
+            } catch (InterruptedException e) {
+                // intentionally left empty
+            }
+        }
+    }
+}
@@ -25,6 +25,12 @@ import java.util.*;
 /**
  * A compact representation of a calendar, that saves some memory.
  * A {@link Calendar} needs about 250 bytes, this guy needs only 20.
+ * <p/>
+ * The time is kept as milliseconds since the epoch and the time zone as an
+ * index into a table of the time zones in use. Comparisons, arithmetic and
+ * the fields of the date and time are computed from these without creating
+ * a {@link Calendar}. A {@link Calendar} is only created by {@link #getCalendar()}
+ * and for times before the Gregorian calendar was complete in 1583.
  *
  * @author Christian Pesch
  */
@@ -32,11 +38,16 @@ import java.util.*;
 public class CompactCalendar {
     public static final TimeZone UTC = TimeZone.getTimeZone("UTC");
 
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    // the first year which is completely after the Gregorian cutover of a GregorianCalendar
+    private static final long FIRST_GREGORIAN_YEAR = daysFromCivil(1583, 1, 1) * MILLIS_PER_DAY;
+    private static final int UTC_INDEX = 0;
+
     private final long timeInMillis;
-    private final String timeZoneId;
+    private final int timeZoneIndex;
 
     public static CompactCalendar fromMillisAndTimeZone(long timeInMillis, String timeZoneId) {
-        return new CompactCalendar(timeInMillis, timeZoneId);
+        return new CompactCalendar(timeInMillis, getTimeZoneIndex(timeZoneId));
     }
 
     public static CompactCalendar fromCalendar(Calendar calendar) {
@@ -44,25 +55,21 @@ public class CompactCalendar {
     }
 
     public static CompactCalendar fromDate(Date date) {
-        Calendar calendar = Calendar.getInstance(UTC);
-        calendar.setTime(date);
-        return fromCalendar(calendar);
+        return fromMillis(date.getTime());
     }
 
 
     public static CompactCalendar fromMillis(long timeInMillis) {
-        Calendar calendar = Calendar.getInstance(UTC);
-        calendar.setTimeInMillis(timeInMillis);
-        return fromCalendar(calendar);
+        return new CompactCalendar(timeInMillis, UTC_INDEX);
     }
 
     public static CompactCalendar getInstance(String timeZoneId) {
-        return fromCalendar(Calendar.getInstance(TimeZone.getTimeZone(timeZoneId)));
+        return fromMillisAndTimeZone(System.currentTimeMillis(), timeZoneId);
     }
 
-    private CompactCalendar(long timeInMillis, String timeZoneId) {
+    private CompactCalendar(long timeInMillis, int timeZoneIndex) {
         this.timeInMillis = timeInMillis;
-        this.timeZoneId = timeZoneId.equals("UTC") ? "UTC" : timeZoneId.intern();
+        this.timeZoneIndex = timeZoneIndex;
     }
 
     public long getTimeInMillis() {
@@ -70,7 +77,7 @@ public class CompactCalendar {
     }
 
     public String getTimeZoneId() {
-        return timeZoneId;
+        return timeZoneIds[timeZoneIndex];
     }
 
     public Calendar getCalendar() {
@@ -80,33 +87,214 @@ public class CompactCalendar {
     }
 
     public Date getTime() {
-        return getCalendar().getTime();
+        return new Date(getTimeInMillis());
+    }
+
+    public boolean before(CompactCalendar other) {
+        return getTimeInMillis() < other.getTimeInMillis();
     }
 
-    private static volatile Map<String, TimeZone> timeZones = Collections.emptyMap();
+    public boolean after(CompactCalendar other) {
+        return getTimeInMillis() > other.getTimeInMillis();
+    }
 
-    private TimeZone getTimeZone() {
-        if ("UTC".equals(getTimeZoneId()))
-            return UTC;
+    /**
+     * Returns a calendar in the same time zone which is the given amount of
+     * milliseconds later, or earlier for negative amounts.
+     *
+     * @param millis the milliseconds to add
+     * @return the calendar with the milliseconds added
+     */
+    public CompactCalendar plusMillis(long millis) {
+        return new CompactCalendar(getTimeInMillis() + millis, timeZoneIndex);
+    }
+
+    /**
+     * Returns a calendar with the given date and the time of this calendar.
+     *
+     * @param year the year
+     * @param month the month from 1 to 12
+     * @param dayOfMonth the day of the month from 1 to 31
+     * @return the calendar with the given date
+     */
+    public CompactCalendar withDate(int year, int month, int dayOfMonth) {
+        if (timeZoneIndex == UTC_INDEX && !isBeforeGregorianCutover() && year > 1582) {
+            long days = daysFromCivil(year, month, dayOfMonth);
+            return new CompactCalendar(days * MILLIS_PER_DAY + floorMod(timeInMillis, MILLIS_PER_DAY), timeZoneIndex);
+        }
+        Calendar calendar = getCalendar();
+        calendar.set(Calendar.YEAR, year);
+        calendar.set(Calendar.MONTH, month - 1);
+        calendar.set(Calendar.DAY_OF_MONTH, dayOfMonth);
+        return fromCalendar(calendar);
+    }
+
+    /**
+     * Returns if this and the other calendar are on the same day, each of
+     * them seen in its own time zone.
+     *
+     * @param other the other calendar
+     * @return if both calendars have the same year, month and day of month
+     */
+    public boolean isSameDay(CompactCalendar other) {
+        return getYear() == other.getYear() && getMonth() == other.getMonth() &&
+                getDayOfMonth() == other.getDayOfMonth();
+    }
+
+    public int getYear() {
+        if (isBeforeGregorianCutover())
+            return getCalendar().get(Calendar.YEAR);
+        long days = getLocalDays();
+        int month = monthFromDays(days);
+        return yearOfEra(days) + (month <= 2 ? 1 : 0);
+    }
+
+    /**
+     * @return the month from 1 to 12, unlike {@link Calendar#MONTH}
+     */
+    public int getMonth() {
+        if (isBeforeGregorianCutover())
+            return getCalendar().get(Calendar.MONTH) + 1;
+        return monthFromDays(getLocalDays());
+    }
+
+    public int getDayOfMonth() {
+        if (isBeforeGregorianCutover())
+            return getCalendar().get(Calendar.DAY_OF_MONTH);
+        long days = getLocalDays();
+        int dayOfYear = marchBasedDayOfYear(days);
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        return dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+    }
+
+    public int getDayOfYear() {
+        if (isBeforeGregorianCutover())
+            return getCalendar().get(Calendar.DAY_OF_YEAR);
+        long days = getLocalDays();
+        return (int) (days - daysFromCivil(getYear(), 1, 1)) + 1;
+    }
+
+    public int getHour() {
+        return (int) (getLocalMillisOfDay() / (60 * 60 * 1000L));
+    }
+
+    public int getMinute() {
+        return (int) (getLocalMillisOfDay() / (60 * 1000L) % 60);
+    }
+
+    public int getSecond() {
+        return (int) (getLocalMillisOfDay() / 1000L % 60);
+    }
+
+    public int getMillisecond() {
+        return (int) (getLocalMillisOfDay() % 1000L);
+    }
+
+    private boolean isBeforeGregorianCutover() {
+        // leave a day for the time zone offset
+        return timeInMillis < FIRST_GREGORIAN_YEAR + MILLIS_PER_DAY;
+    }
+
+    private long getLocalMillis() {
+        if (timeZoneIndex == UTC_INDEX)
+            return timeInMillis;
+        return timeInMillis + getTimeZone().getOffset(timeInMillis);
+    }
+
+    private long getLocalDays() {
+        return floorDiv(getLocalMillis(), MILLIS_PER_DAY);
+    }
+
+    private long getLocalMillisOfDay() {
+        return floorMod(getLocalMillis(), MILLIS_PER_DAY);
+    }
+
+    private static long floorDiv(long dividend, long divisor) {
+        long result = dividend / divisor;
+        return (dividend % divisor < 0) ? result - 1 : result;
+    }
+
+    private static long floorMod(long dividend, long divisor) {
+        long result = dividend % divisor;
+        return result < 0 ? result + divisor : result;
+    }
+
+    // the conversions between days since the epoch and the proleptic Gregorian calendar
+    // count years from March on, so that the leap day is the last day of a year
+
+    private static long eraOfDays(long days) {
+        return floorDiv(days + 719468, 146097);
+    }
+
+    private static int dayOfEra(long days) {
+        return (int) (days + 719468 - eraOfDays(days) * 146097);
+    }
+
+    private static int yearOfEraIndex(int dayOfEra) {
+        return (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    }
+
+    private static int yearOfEra(long days) {
+        return (int) (yearOfEraIndex(dayOfEra(days)) + eraOfDays(days) * 400);
+    }
+
+    private static int marchBasedDayOfYear(long days) {
+        int dayOfEra = dayOfEra(days);
+        int yearOfEra = yearOfEraIndex(dayOfEra);
+        return dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    }
+
+    private static int monthFromDays(long days) {
+        int monthIndex = (5 * marchBasedDayOfYear(days) + 2) / 153;
+        return monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+    }
+
+    private static long daysFromCivil(int year, int month, int dayOfMonth) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // the interned time zones, only ever appended to under the class lock
+    private static volatile String[] timeZoneIds = new String[]{"UTC"};
+    private static volatile TimeZone[] timeZones = new TimeZone[]{UTC};
+    private static volatile Map<String, Integer> timeZoneIndexes = Collections.singletonMap("UTC", UTC_INDEX);
+
+    private static int getTimeZoneIndex(String timeZoneId) {
         // try global read-only map. No synchronization necessary because the field is volatile.
-        // (this is only *guaranteed* to work with the Java 5 revised memory model, but works on older JVMs anyway)
-        TimeZone result = timeZones.get(getTimeZoneId());
+        Integer result = timeZoneIndexes.get(timeZoneId);
         if (result != null)
             return result;
         synchronized (CompactCalendar.class) {
             // the time zone might have been added while we waited for monitor entry
-            result = timeZones.get(getTimeZoneId());
+            result = timeZoneIndexes.get(timeZoneId);
             if (result != null)
                 return result;
-            // add new timezone to new version of global map.
+            // add new timezone to new versions of the global table.
             // The following call is allegedly expensive (that's why we go through all this trouble)
-            result = TimeZone.getTimeZone(getTimeZoneId());
-            Map<String, TimeZone> newTimeZones = new HashMap<String, TimeZone>(timeZones);
-            newTimeZones.put(getTimeZoneId(), result);
-            newTimeZones = Collections.unmodifiableMap(newTimeZones); // paranoia
+            TimeZone timeZone = TimeZone.getTimeZone(timeZoneId);
+            int index = timeZoneIds.length;
+            String[] newTimeZoneIds = new String[index + 1];
+            System.arraycopy(timeZoneIds, 0, newTimeZoneIds, 0, index);
+            newTimeZoneIds[index] = timeZoneId.intern();
+            TimeZone[] newTimeZones = new TimeZone[index + 1];
+            System.arraycopy(timeZones, 0, newTimeZones, 0, index);
+            newTimeZones[index] = timeZone;
+            // publish the arrays before the map that hands out the new index
+            timeZoneIds = newTimeZoneIds;
             timeZones = newTimeZones;
+            Map<String, Integer> newTimeZoneIndexes = new HashMap<String, Integer>(timeZoneIndexes);
+            newTimeZoneIndexes.put(timeZoneId, index);
+            timeZoneIndexes = Collections.unmodifiableMap(newTimeZoneIndexes); // paranoia
+            return index;
         }
-        return result;
+    }
+
+    private TimeZone getTimeZone() {
+        return timeZones[timeZoneIndex];
     }
 
     public boolean equals(Object o) {
@@ -115,13 +303,12 @@ public class CompactCalendar {
 
         CompactCalendar that = (CompactCalendar) o;
 
-        return timeInMillis == that.timeInMillis && !(timeZoneId != null ?
-                !timeZoneId.equals(that.timeZoneId) : that.timeZoneId != null);        
+        return timeInMillis == that.timeInMillis && timeZoneIndex == that.timeZoneIndex;
     }
 
     public int hashCode() {
         int result = (int) (timeInMillis ^ (timeInMillis >>> 32));
-        result = 31 * result + (timeZoneId != null ? timeZoneId.hashCode() : 0);
+        result = 31 * result + timeZoneIndex;
         return result;
     }
 }
@@ -0,0 +1,67 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} which counts the bytes read from the underlying {@link InputStream}.
+ *
+ * @author Christian Pesch
+ */
+
+public class CountingInputStream extends FilterInputStream {
+    private long count = 0;
+
+    public CountingInputStream(InputStream delegate) {
+        super(delegate);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void resetCount() {
+        count = 0;
+    }
+
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1)
+            count++;
+        return result;
+    }
+
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int result = super.read(buffer, offset, length);
+        if (result != -1)
+            count += result;
+        return result;
+    }
+
+    public long skip(long n) throws IOException {
+        long result = super.skip(n);
+        count += result;
+        return result;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes bytes with one encoding into a growing character buffer and splits
+ * it into lines.
+ * <p/>
+ * The characters are decoded chunk by chunk when a line beyond the already
+ * decoded text is requested. Lines end like with {@link BufferedReader#readLine()}
+ * at a line feed, a carriage return or a carriage return followed by a line feed.
+ * Malformed input is replaced like by an {@link java.io.InputStreamReader}.
+ *
+ * @author Christian Pesch
+ */
+
+public class DecodedText {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    private char[] chars = new char[0];
+    private int length = 0;
+    private boolean flushing = false, decoded = false;
+
+    private int[] lineStarts = new int[16], lineEnds = new int[16];
+    private int lineCount = 0, lineStart = 0, scanned = 0;
+
+    public DecodedText(byte[] bytes, int length, String encoding) throws UnsupportedEncodingException {
+        this(ByteBuffer.wrap(bytes, 0, length), encoding);
+    }
+
+    /**
+     * Creates a text from the remaining bytes of the buffer, which are not copied.
+     *
+     * @param bytes the bytes to decode; the position of the buffer is advanced while decoding
+     * @param encoding the encoding of the bytes
+     * @throws UnsupportedEncodingException if the encoding is not supported
+     */
+    public DecodedText(ByteBuffer bytes, String encoding) throws UnsupportedEncodingException {
+        this.bytes = bytes;
+        try {
+            this.decoder = Charset.forName(encoding).newDecoder().
+                    onMalformedInput(CodingErrorAction.REPLACE).
+                    onUnmappableCharacter(CodingErrorAction.REPLACE);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+    }
+
+    private boolean decodeChunk() {
+        if (decoded)
+            return false;
+
+        if (chars.length - length < CHUNK_SIZE) {
+            char[] grown = new char[Math.max(chars.length * 2, length + CHUNK_SIZE)];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+        }
+        CharBuffer target = CharBuffer.wrap(chars, length, chars.length - length);
+        // all bytes are available, so the end of the input is reached with every call
+        if (!flushing && decoder.decode(bytes, target, true).isUnderflow())
+            flushing = true;
+        if (flushing) {
+            CoderResult result = decoder.flush(target);
+            if (result.isUnderflow())
+                decoded = true;
+        }
+        length = target.position();
+        return true;
+    }
+
+    private void addLine(int start, int end) {
+        if (lineCount == lineStarts.length) {
+            int[] grownStarts = new int[lineCount * 2], grownEnds = new int[lineCount * 2];
+            System.arraycopy(lineStarts, 0, grownStarts, 0, lineCount);
+            System.arraycopy(lineEnds, 0, grownEnds, 0, lineCount);
+            lineStarts = grownStarts;
+            lineEnds = grownEnds;
+        }
+        lineStarts[lineCount] = start;
+        lineEnds[lineCount] = end;
+        lineCount++;
+    }
+
+    private void scanLines() {
+        int i = scanned;
+        while (i < length) {
+            char c = chars[i];
+            if (c == '\n') {
+                addLine(lineStart, i);
+                lineStart = i + 1;
+            } else if (c == '\r') {
+                // wait for the next chunk to see if a line feed follows
+                if (i + 1 == length && !decoded)
+                    break;
+                addLine(lineStart, i);
+                if (i + 1 < length && chars[i + 1] == '\n')
+                    i++;
+                lineStart = i + 1;
+            }
+            i++;
+        }
+        scanned = i;
+
+        if (decoded && scanned == length && lineStart < length) {
+            addLine(lineStart, length);
+            lineStart = length;
+        }
+    }
+
+    private boolean hasLine(int index) {
+        // readers may have decoded chunks which are not scanned for lines yet
+        scanLines();
+        while (index >= lineCount) {
+            if (!decodeChunk())
+                return false;
+            scanLines();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the line with the given index without the line terminator.
+     *
+     * @param index the index of the line starting with 0
+     * @return the line or null if the text has less lines
+     */
+    public String getLine(int index) {
+        if (!hasLine(index))
+            return null;
+        return new String(chars, lineStarts[index], lineEnds[index] - lineStarts[index]);
+    }
+
+    /**
+     * Returns the number of lines; decodes all bytes.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        hasLine(Integer.MAX_VALUE);
+        return lineCount;
+    }
+
+    /**
+     * Creates a reader which returns the lines of this text from the shared line
+     * index, starting with the first line. Characters may be read as well; the
+     * readers of a text share its decoded characters and lines.
+     *
+     * @return a new reader
+     */
+    public BufferedReader createReader() {
+        return new LineReader();
+    }
+
+    private int getTerminatorLength(int lineEnd) {
+        if (lineEnd >= length)
+            return 0;
+        return chars[lineEnd] == '\r' && lineEnd + 1 < length && chars[lineEnd + 1] == '\n' ? 2 : 1;
+    }
+
+    private class LineReader extends BufferedReader {
+        private int position = 0, line = 0;
+
+        private LineReader() {
+            super(new CharArrayReader(new char[0]), 1);
+        }
+
+        private boolean hasCharacter() {
+            while (position >= length) {
+                if (!decodeChunk())
+                    return false;
+            }
+            return true;
+        }
+
+        public String readLine() {
+            // characters read before may have moved the position beyond the start of the line
+            while (hasLine(line) && lineEnds[line] + getTerminatorLength(lineEnds[line]) <= position)
+                line++;
+            if (!hasLine(line))
+                return null;
+
+            // within a carriage return and line feed the rest of the line is empty
+            int start = Math.min(Math.max(lineStarts[line], position), lineEnds[line]);
+            String result = new String(chars, start, lineEnds[line] - start);
+            position = lineEnds[line] + getTerminatorLength(lineEnds[line]);
+            line++;
+            return result;
+        }
+
+        public int read() {
+            if (!hasCharacter())
+                return -1;
+            return chars[position++];
+        }
+
+        public int read(char[] buffer, int offset, int count) {
+            if (count == 0)
+                return 0;
+            if (!hasCharacter())
+                return -1;
+            int result = Math.min(count, length - position);
+            System.arraycopy(chars, position, buffer, offset, result);
+            position += result;
+            return result;
+        }
+
+        public long skip(long count) {
+            long skipped = 0;
+            while (skipped < count && hasCharacter()) {
+                int step = (int) Math.min(count - skipped, length - position);
+                position += step;
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        public boolean ready() {
+            return hasCharacter();
+        }
+
+        public boolean markSupported() {
+            return false;
+        }
+
+        public void mark(int readAheadLimit) throws IOException {
+            throw new IOException("mark() not supported");
+        }
+
+        public void reset() throws IOException {
+            throw new IOException("reset() not supported");
+        }
+
+        public void close() {
+            // intentionally left empty since the text is shared
+        }
+    }
+}
@@ -72,7 +72,7 @@ public class Externalization {
             return null;
 
         log.info("Extracting " + fileName + " to " + target);
-        InputOutput.copy(in, new FileOutputStream(target));
+        InputOutput.copy(in, target);
         if (!target.setLastModified(lastModifiedInClassPath))
             log.warning("Cannot set last modified date for " + target);
         return target;
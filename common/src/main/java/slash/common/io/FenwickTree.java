@@ -0,0 +1,121 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+/**
+ * A binary indexed tree that keeps a list of values and answers
+ * prefix and range sums in O(log n).
+ * <p/>
+ * Setting a value takes O(log n), inserting and removing values
+ * rebuilds the tree in O(n).
+ *
+ * @author Christian Pesch
+ */
+
+public class FenwickTree {
+    private double[] values, tree;
+    private int size;
+
+    public FenwickTree(int capacity) {
+        this.values = new double[Math.max(capacity, 1)];
+        this.tree = new double[values.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public void set(int index, double value) {
+        checkIndex(index);
+        double delta = value - values[index];
+        values[index] = value;
+        if (delta != 0.0)
+            for (int i = index; i < size; i |= i + 1)
+                tree[i] += delta;
+    }
+
+    /**
+     * Returns the sum of the values from 0 to the given index, exclusive.
+     *
+     * @param toIndex the index of the first value that is not summed up
+     * @return the sum of the values from 0 to the given index, exclusive
+     */
+    public double sum(int toIndex) {
+        double sum = 0.0;
+        for (int i = Math.min(toIndex, size) - 1; i >= 0; i = (i & (i + 1)) - 1)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the values from the first to the second index, exclusive.
+     *
+     * @param fromIndex the index of the first value that is summed up
+     * @param toIndex   the index of the first value that is not summed up
+     * @return the sum of the values from the first to the second index, exclusive
+     */
+    public double sum(int fromIndex, int toIndex) {
+        return fromIndex < toIndex ? sum(toIndex) - sum(fromIndex) : 0.0;
+    }
+
+    public void insert(int index, int count) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (size + count > values.length) {
+            double[] grown = new double[Math.max(size + count, values.length * 3 / 2 + 1)];
+            System.arraycopy(values, 0, grown, 0, size);
+            values = grown;
+            tree = new double[grown.length];
+        }
+        System.arraycopy(values, index, values, index + count, size - index);
+        for (int i = index; i < index + count; i++)
+            values[i] = 0.0;
+        size += count;
+        rebuild();
+    }
+
+    public void remove(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+        System.arraycopy(values, toIndex, values, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        rebuild();
+    }
+
+    private void rebuild() {
+        System.arraycopy(values, 0, tree, 0, size);
+        for (int i = 0; i < size; i++) {
+            int parent = i | (i + 1);
+            if (parent < size)
+                tree[parent] += tree[i];
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+}
@@ -25,6 +25,8 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -271,38 +273,65 @@ public class Files {
     }
 
     /**
-     * Collects files/directories with the given extension in the given
-     * list. If path is a directory, it recursively descends the directory
-     * tree. If no extension is given, all files are collected.
+     * Checks if the given name ends with one of the given extensions
+     * without creating lower case copies of the name.
      *
-     * @param path               the path to collect files below
-     * @param collectDirectories decides whether directories are collected
-     * @param collectFiles       decides whether file are collected
-     * @param extension          the extension in lower case
-     * @param list               the list to add hits to
+     * @param name       the name to check
+     * @param extensions the extensions to compare case insensitively or null for any extension
+     * @return if the name ends with one of the extensions
      */
-    private static void recursiveCollect(File path,
-                                         final boolean collectDirectories,
-                                         final boolean collectFiles,
-                                         final String extension,
-                                         final List<File> list) {
-        if (path.isFile()) {
-            if (collectFiles &&
-                    (extension == null || getExtension(path).toLowerCase().equals(extension)))
-                list.add(path);
+    private static boolean hasExtension(String name, String[] extensions) {
+        if (extensions == null)
+            return true;
+        for (String extension : extensions) {
+            int offset = name.length() - extension.length();
+            if (offset >= 0 && name.regionMatches(true, offset, extension, 0, extension.length()))
+                return true;
+        }
+        return false;
+    }
 
-        } else {
-            if (collectDirectories)
-                list.add(path);
-
-            //noinspection ResultOfMethodCallIgnored
-            path.listFiles(new FileFilter() {
-                public boolean accept(File file) {
-                    recursiveCollect(file, collectDirectories, collectFiles, extension, list);
-                    return true;
+    /**
+     * Collects the files below the given paths with one of the given extensions.
+     * Directories are walked iteratively with an explicit stack: the files of a
+     * directory are collected in the order of their names before its sub directories
+     * are descended. The names are checked against the extensions before the file
+     * system is asked whether they are files.
+     *
+     * @param paths      the files and directories to collect files below
+     * @param extensions the case insensitively compared extensions or null for all files
+     * @return the list of files found below the given paths and with one of the given extensions
+     */
+    public static List<File> collectFiles(List<File> paths, String... extensions) {
+        List<File> list = new ArrayList<File>();
+        for (File path : paths) {
+            if (path.isFile()) {
+                if (hasExtension(path.getName(), extensions))
+                    list.add(path);
+                continue;
+            }
+
+            LinkedList<File> directories = new LinkedList<File>();
+            directories.add(path);
+            while (!directories.isEmpty()) {
+                File directory = directories.removeFirst();
+                String[] names = directory.list();
+                if (names == null)
+                    continue;
+                Arrays.sort(names);
+
+                List<File> subDirectories = new ArrayList<File>();
+                for (String name : names) {
+                    File file = new File(directory, name);
+                    if (hasExtension(name, extensions) && file.isFile())
+                        list.add(file);
+                    else if (file.isDirectory())
+                        subDirectories.add(file);
                 }
-            });
+                directories.addAll(0, subDirectories);
+            }
         }
+        return list;
     }
 
     /**
@@ -316,10 +345,7 @@ public class Files {
      *         with the given extension
      */
     public static List<File> collectFiles(File path, String extension) {
-        List<File> list = new ArrayList<File>(1);
-        extension = extension != null ? extension.toLowerCase() : null;
-        recursiveCollect(path, false, true, extension, list);
-        return list;
+        return collectFiles(Arrays.asList(path), extension != null ? new String[]{extension} : null);
     }
 
     public static File findExistingPath(File path) {
@@ -22,30 +22,88 @@ package slash.common.io;
 
 import java.io.*;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * As a pipe reads from input and writes to output.
+ * <p/>
+ * Copies between files are done by the operating system with {@link FileChannel#transferTo},
+ * reads into memory allocate a buffer of the expected size once instead of growing and
+ * trimming copies of it.
  *
  * @author Christian Pesch
  */
 
 public class InputOutput {
-    private static final int CHUNK_SIZE = (4 * 1024);
+    private static final int CHUNK_SIZE = (64 * 1024);
+    private static final int DEFAULT_SIZE = (4 * 1024);
+    private static final int MAXIMUM_CONTENT_LENGTH_HINT = (16 * 1024 * 1024);
 
-    public static int copy(InputStream input, OutputStream output) throws IOException {
-        byte[] buffer = new byte[CHUNK_SIZE];
-        int count = 0;
-        int read;
+    public static long copy(InputStream input, OutputStream output) throws IOException {
         try {
+            if (input instanceof FileInputStream && output instanceof FileOutputStream)
+                return transfer(((FileInputStream) input).getChannel(), ((FileOutputStream) output).getChannel());
+
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long count = 0;
+            int read;
             while ((read = input.read(buffer)) != -1) {
                 output.write(buffer, 0, read);
                 count += read;
             }
+            return count;
+        } finally {
+            input.close();
+            output.close();
+        }
+    }
+
+    private static long transfer(FileChannel input, FileChannel output) throws IOException {
+        long size = input.size();
+        long start = input.position();
+        long position = start;
+        while (position < size) {
+            long transferred = input.transferTo(position, size - position, output);
+            if (transferred <= 0)
+                break;
+            position += transferred;
+        }
+        return position - start;
+    }
+
+    /**
+     * Copies the input to the given file. If the input is a file, the copy is done
+     * by the operating system, otherwise the file channel reads from the input directly
+     * without an intermediate buffer of this class.
+     *
+     * @param input the input to copy
+     * @param target the file to write to
+     * @return the number of bytes copied
+     * @throws IOException if the copy fails
+     */
+    public static long copy(InputStream input, File target) throws IOException {
+        FileOutputStream output = new FileOutputStream(target);
+        try {
+            if (input instanceof FileInputStream)
+                return transfer(((FileInputStream) input).getChannel(), output.getChannel());
+
+            ReadableByteChannel channel = Channels.newChannel(input);
+            FileChannel fileChannel = output.getChannel();
+            long position = 0;
+            while (true) {
+                long transferred = fileChannel.transferFrom(channel, position, CHUNK_SIZE);
+                if (transferred <= 0)
+                    break;
+                position += transferred;
+            }
+            return position;
         } finally {
             input.close();
             output.close();
         }
-        return count;
     }
 
     public static int copy(Reader input, Writer output) throws IOException {
@@ -62,12 +120,76 @@ public class InputOutput {
     }
 
     public static byte[] readBytes(URL url) throws IOException {
-        return readBytes(url.openStream());
+        URLConnection connection = url.openConnection();
+        return readBytes(connection.getInputStream(), getExpectedSize(url, connection));
+    }
+
+    public static byte[] readBytes(File file) throws IOException {
+        return readBytes(new FileInputStream(file), file.length());
     }
 
     public static byte[] readBytes(InputStream in) throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        copy(in, out);
-        return out.toByteArray();
+        return readBytes(in, -1);
+    }
+
+    /**
+     * Reads the input into an array which is allocated once with the expected size.
+     * Only if the input turns out to be longer or shorter, the array is resized.
+     *
+     * @param in the input to read
+     * @param expectedSize the expected number of bytes or -1 if unknown
+     * @return the bytes read
+     * @throws IOException if reading fails
+     */
+    public static byte[] readBytes(InputStream in, long expectedSize) throws IOException {
+        ReadBuffer buffer = read(in, expectedSize);
+        if (buffer.count == buffer.bytes.length)
+            return buffer.bytes;
+        byte[] result = new byte[buffer.count];
+        System.arraycopy(buffer.bytes, 0, result, 0, buffer.count);
+        return result;
+    }
+
+    private static long getExpectedSize(URL url, URLConnection connection) {
+        File file = Files.toFile(url);
+        if (file != null && file.isFile())
+            return file.length();
+        // the content length is sent by the server and only a hint for the first allocation
+        long contentLength = connection.getContentLength();
+        return contentLength >= 0 ? Math.min(contentLength, MAXIMUM_CONTENT_LENGTH_HINT) : -1;
+    }
+
+    private static class ReadBuffer {
+        private byte[] bytes;
+        private int count;
+    }
+
+    private static ReadBuffer read(InputStream in, long expectedSize) throws IOException {
+        if (expectedSize > Integer.MAX_VALUE - 8)
+            throw new IOException("Cannot read " + expectedSize + " bytes into memory");
+
+        ReadBuffer buffer = new ReadBuffer();
+        buffer.bytes = new byte[expectedSize >= 0 ? (int) expectedSize : DEFAULT_SIZE];
+        try {
+            while (true) {
+                if (buffer.count == buffer.bytes.length) {
+                    // probe for the end of the input before growing a full buffer
+                    int next = in.read();
+                    if (next == -1)
+                        break;
+                    byte[] grown = new byte[Math.max(buffer.bytes.length * 2, DEFAULT_SIZE)];
+                    System.arraycopy(buffer.bytes, 0, grown, 0, buffer.count);
+                    buffer.bytes = grown;
+                    buffer.bytes[buffer.count++] = (byte) next;
+                }
+                int read = in.read(buffer.bytes, buffer.count, buffer.bytes.length - buffer.count);
+                if (read == -1)
+                    break;
+                buffer.count += read;
+            }
+        } finally {
+            in.close();
+        }
+        return buffer;
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link BufferedInputStream} which offers the bytes from the mark on without
+ * copying them, if the remaining input fits into the buffer.
+ *
+ * @author Christian Pesch
+ */
+
+public class MarkableBufferedInputStream extends BufferedInputStream {
+    public MarkableBufferedInputStream(InputStream in, int size) {
+        super(in, size);
+    }
+
+    /**
+     * Reads the remaining input into the buffer and returns the bytes from the
+     * mark to the end of the input. The bytes are shared with the buffer and the
+     * position of the stream is not changed.
+     *
+     * @return the bytes from the mark on or null if the stream is not marked or
+     *         if the remaining input does not fit into the mark limit
+     * @throws IOException if the stream cannot be read
+     */
+    public synchronized ByteBuffer getMarkedBytes() throws IOException {
+        if (markpos < 0)
+            return null;
+
+        int offset = pos - markpos;
+        try {
+            while (true) {
+                // filling a full buffer with the limit reached would drop the mark
+                if (count == buf.length && markpos == 0 && buf.length >= marklimit)
+                    return null;
+                pos = count;
+                if (super.read() == -1)
+                    return ByteBuffer.wrap(buf, markpos, count - markpos).slice();
+            }
+        } finally {
+            // filling may move the marked bytes to the start of the buffer
+            pos = markpos + offset;
+        }
+    }
+}
@@ -57,6 +57,10 @@ public class NotClosingUnderlyingInputStream extends InputStream {
         return delegate.read();
     }
 
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return delegate.read(buffer, offset, length);
+    }
+
     public void closeUnderlyingInputStream() throws IOException {
         delegate.close();
     }
@@ -0,0 +1,399 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static slash.common.io.Files.getExtension;
+
+/**
+ * Reads the entries of a ZIP archive via its central directory.
+ * <p/>
+ * Entries which cannot contain navigation data like images and sounds are skipped
+ * without inflating them, the remaining entries are inflated in parallel into buffers
+ * sized from their uncompressed size and read one after another. Archives that are only available as a stream
+ * are spilled to a temporary file first.
+ *
+ * @author Christian Pesch
+ */
+
+public class ZipArchive {
+    private static final Logger log = Logger.getLogger(ZipArchive.class.getName());
+    private static final byte[] LOCAL_FILE_HEADER = new byte[]{'P', 'K', 3, 4};
+    private static final Set<String> BINARY_EXTENSIONS = new HashSet<String>(Arrays.asList(
+            ".bmp", ".dae", ".gif", ".ico", ".jpeg", ".jpg", ".mp3", ".png", ".tif", ".tiff", ".wav"
+    ));
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final AtomicInteger archiveCount = new AtomicInteger();
+
+    /**
+     * Reads an entry of an archive.
+     */
+    public interface EntryReader<T> {
+        /**
+         * @param entry the entry to read
+         * @param input the content of the entry
+         * @return the result or null if the entry contains nothing to read
+         * @throws IOException if the entry cannot be read
+         */
+        T read(ZipEntry entry, InputStream input) throws IOException;
+    }
+
+    private final ZipFile zipFile;
+    private final File temporaryFile;
+
+    private ZipArchive(ZipFile zipFile, File temporaryFile) {
+        this.zipFile = zipFile;
+        this.temporaryFile = temporaryFile;
+    }
+
+    /**
+     * Opens the archive in the given file.
+     *
+     * @param file the file to open
+     * @return the archive or null if the file is no ZIP archive
+     * @throws IOException if the file cannot be read
+     */
+    public static ZipArchive open(File file) throws IOException {
+        if (!hasLocalFileHeader(readHeader(file)))
+            return null;
+        try {
+            return new ZipArchive(new ZipFile(file), null);
+        } catch (ZipException e) {
+            log.fine("Error reading zip entries from " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the archive from the given stream. Since the central directory is at the
+     * end of the archive, the stream is copied to a temporary file unless it does not
+     * start with a ZIP header. Consumes the stream but does not close it.
+     *
+     * @param input the stream to read
+     * @return the archive or null if the stream contains no ZIP archive
+     * @throws IOException if the stream cannot be read
+     */
+    public static ZipArchive open(InputStream input) throws IOException {
+        byte[] header = new byte[LOCAL_FILE_HEADER.length];
+        int count = 0;
+        while (count < header.length) {
+            int read = input.read(header, count, header.length - count);
+            if (read < 0)
+                break;
+            count += read;
+        }
+        if (count < header.length || !hasLocalFileHeader(header))
+            return null;
+
+        // the temporary file is deleted when the archive is closed
+        File file = File.createTempFile("routeconverter", ".zip");
+        try {
+            InputOutput.copy(new SequenceInputStream(new ByteArrayInputStream(header), new NotClosingUnderlyingInputStream(input)), file);
+            return new ZipArchive(new ZipFile(file), file);
+        } catch (ZipException e) {
+            log.fine("Error reading zip entries from " + input + ": " + e.getMessage());
+            deleteTemporaryFile(file);
+            return null;
+        } catch (IOException e) {
+            deleteTemporaryFile(file);
+            throw e;
+        }
+    }
+
+    private static byte[] readHeader(File file) throws IOException {
+        byte[] header = new byte[LOCAL_FILE_HEADER.length];
+        InputStream input = new FileInputStream(file);
+        try {
+            int count = 0;
+            while (count < header.length) {
+                int read = input.read(header, count, header.length - count);
+                if (read < 0)
+                    return null;
+                count += read;
+            }
+            return header;
+        } finally {
+            input.close();
+        }
+    }
+
+    private static boolean hasLocalFileHeader(byte[] header) {
+        return header != null && Arrays.equals(header, LOCAL_FILE_HEADER);
+    }
+
+    private static void deleteTemporaryFile(File file) {
+        if (!file.delete())
+            log.fine("Cannot delete temporary file " + file);
+    }
+
+    static boolean isCandidate(ZipEntry entry) {
+        if (entry.isDirectory() || entry.getSize() == 0)
+            return false;
+        String name = entry.getName();
+        // entries of Mac OS X archives with resource forks
+        if (name.startsWith("__MACOSX/"))
+            return false;
+        return !BINARY_EXTENSIONS.contains(getExtension(name).toLowerCase());
+    }
+
+    /**
+     * Returns the entries that may contain navigation data in the order of the central directory.
+     *
+     * @return the candidate entries
+     */
+    public List<ZipEntry> getCandidates() {
+        List<ZipEntry> result = new ArrayList<ZipEntry>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (isCandidate(entry))
+                result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry after inflation as recorded in the central directory.
+     *
+     * @param entry the entry
+     * @return the uncompressed size or -1 if it is unknown
+     */
+    public static int getSize(ZipEntry entry) {
+        long size = entry.getSize();
+        return size >= 0 && size < Integer.MAX_VALUE ? (int) size : -1;
+    }
+
+    /**
+     * Opens a buffered stream for the entry that supports marking the whole entry.
+     *
+     * @param entry the entry to open
+     * @return the stream
+     * @throws IOException if the entry cannot be read
+     */
+    public InputStream getInputStream(ZipEntry entry) throws IOException {
+        int size = getSize(entry);
+        InputStream input = zipFile.getInputStream(entry);
+        return new MarkableBufferedInputStream(input, size > 0 ? size + 1 : DEFAULT_BUFFER_SIZE);
+    }
+
+    private <T> T read(ZipEntry entry, EntryReader<T> reader) {
+        try {
+            InputStream input = getInputStream(entry);
+            try {
+                return reader.read(entry, input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            log.fine("Error reading " + entry.getName() + " from " + zipFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ExecutorService createExecutor(int parallelism) {
+        final int archive = archiveCount.incrementAndGet();
+        return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ZipArchive-" + archive + "-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static int getParallelism(int entryCount) {
+        return Math.min(entryCount, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    }
+
+    private byte[] inflate(ZipEntry entry) {
+        try {
+            return InputOutput.readBytes(zipFile.getInputStream(entry), getSize(entry));
+        } catch (IOException e) {
+            log.fine("Error inflating " + entry.getName() + " from " + zipFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Future<byte[]> submit(ExecutorService executor, final ZipEntry entry) {
+        return executor.submit(new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                return inflate(entry);
+            }
+        });
+    }
+
+    private <T> T read(ZipEntry entry, byte[] bytes, EntryReader<T> reader) {
+        try {
+            InputStream input = new MarkableBufferedInputStream(new ByteArrayInputStream(bytes), bytes.length + 1);
+            try {
+                return reader.read(entry, input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            log.fine("Error reading " + entry.getName() + " from " + zipFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException("Cannot read entry: " + cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading entry");
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        // the archive must not be closed while an entry is still being inflated
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private <T> List<T> read(EntryReader<T> reader, boolean firstOnly) throws IOException {
+        List<ZipEntry> entries = getCandidates();
+        List<T> result = new ArrayList<T>();
+        int parallelism = getParallelism(entries.size());
+        if (parallelism <= 1) {
+            for (ZipEntry entry : entries) {
+                T value = read(entry, reader);
+                if (value != null) {
+                    result.add(value);
+                    if (firstOnly)
+                        break;
+                }
+            }
+            return result;
+        }
+
+        ExecutorService executor = createExecutor(parallelism);
+        try {
+            List<Future<byte[]>> inflated = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < entries.size(); i++) {
+                // the next entries are inflated while the reader processes this one
+                while (inflated.size() < entries.size() && inflated.size() <= i + parallelism)
+                    inflated.add(submit(executor, entries.get(inflated.size())));
+
+                byte[] bytes = get(inflated.get(i));
+                inflated.set(i, null);
+                T value = bytes != null ? read(entries.get(i), bytes, reader) : null;
+                if (value != null) {
+                    result.add(value);
+                    if (firstOnly)
+                        break;
+                }
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+    }
+
+    /**
+     * Inflates the candidate entries in parallel and passes them to the reader one
+     * after another in the order of the entries until the reader returns a result.
+     * The remaining entries are cancelled.
+     *
+     * @param reader the reader for the entries
+     * @return the first non-null result or null if no entry could be read
+     * @throws IOException if reading is interrupted
+     */
+    public <T> T readFirst(EntryReader<T> reader) throws IOException {
+        List<T> result = read(reader, true);
+        return result.size() > 0 ? result.get(0) : null;
+    }
+
+    /**
+     * Inflates the candidate entries in parallel and passes them to the reader one
+     * after another in the order of the entries.
+     *
+     * @param reader the reader for the entries
+     * @return the non-null results in the order of the entries
+     * @throws IOException if reading is interrupted
+     */
+    public <T> List<T> readAll(EntryReader<T> reader) throws IOException {
+        return read(reader, false);
+    }
+
+    File getTemporaryFile() {
+        return temporaryFile;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[" + zipFile.getName() + "]";
+    }
+
+    /**
+     * Closes the archive and deletes the temporary file of archives opened from a stream.
+     */
+    public void close() {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            log.fine("Error closing zip " + zipFile.getName() + ": " + e.getMessage());
+        }
+        if (temporaryFile != null)
+            deleteTemporaryFile(temporaryFile);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An {@link OutputStream} which streams its content into a single deflated entry
+ * of a ZIP archive.
+ * <p/>
+ * Size and CRC of the entry are written in a data descriptor after its content,
+ * so the content never has to be held in memory. {@link #close()}ing the stream
+ * completes the archive and closes the underlying {@link OutputStream}.
+ *
+ * @author Christian Pesch
+ */
+
+public class ZippingOutputStream extends FilterOutputStream {
+    private final ZipOutputStream zip;
+    private boolean closed = false;
+
+    public ZippingOutputStream(OutputStream target, String entryName) throws IOException {
+        this(new ZipOutputStream(target), entryName);
+    }
+
+    private ZippingOutputStream(ZipOutputStream zip, String entryName) throws IOException {
+        super(zip);
+        this.zip = zip;
+        ZipEntry entry = new ZipEntry(entryName);
+        entry.setMethod(ZipEntry.DEFLATED);
+        zip.putNextEntry(entry);
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        zip.write(bytes, offset, length);
+    }
+
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+        } finally {
+            zip.close();
+        }
+    }
+}
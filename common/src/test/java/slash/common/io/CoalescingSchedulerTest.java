@@ -0,0 +1,145 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingSchedulerTest {
+    private long now = 1000;
+    private final List<String> runs = new ArrayList<String>();
+    private CoalescingScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new CoalescingScheduler(new CoalescingScheduler.Clock() {
+            public long currentTimeMillis() {
+                return now;
+            }
+        });
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            public void run() {
+                runs.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void testFirstChangeRunsImmediately() {
+        scheduler.schedule("route", 500, task("a"));
+        assertEquals(Long.MAX_VALUE, scheduler.runDueTasks());
+        assertEquals(1, runs.size());
+        assertEquals("a", runs.get(0));
+    }
+
+    @Test
+    public void testBurstIsCoalesced() {
+        scheduler.schedule("route", 500, task("a"));
+        scheduler.runDueTasks();
+
+        now += 100;
+        scheduler.schedule("route", 500, task("b"));
+        now += 100;
+        scheduler.schedule("route", 500, task("c"));
+        assertEquals(1500, scheduler.runDueTasks());
+        assertEquals(1, runs.size());
+
+        now = 1500;
+        assertEquals(Long.MAX_VALUE, scheduler.runDueTasks());
+        assertEquals(2, runs.size());
+        assertEquals("c", runs.get(1));
+    }
+
+    @Test
+    public void testImmediateSupersedesDelayed() {
+        scheduler.schedule("route", 500, task("a"));
+        scheduler.runDueTasks();
+
+        now += 100;
+        scheduler.schedule("route", 500, task("b"));
+        scheduler.schedule("route", 0, task("c"));
+        scheduler.runDueTasks();
+        assertEquals(2, runs.size());
+        assertEquals("c", runs.get(1));
+    }
+
+    @Test
+    public void testKeysAreIndependent() {
+        scheduler.schedule("route", 500, task("a"));
+        scheduler.runDueTasks();
+        scheduler.schedule("route", 500, task("b"));
+        scheduler.schedule("selection", 500, task("c"));
+        scheduler.runDueTasks();
+        assertEquals(2, runs.size());
+        assertEquals("c", runs.get(1));
+        assertTrue(scheduler.isPending("route"));
+    }
+
+    @Test
+    public void testCancel() {
+        scheduler.scheduleDelayed("route", 100, task("a"));
+        assertTrue(scheduler.isPending("route"));
+        scheduler.cancel("route");
+        assertFalse(scheduler.isPending("route"));
+        now += 100;
+        scheduler.runDueTasks();
+        assertEquals(0, runs.size());
+    }
+
+    @Test
+    public void testShutdownDiscardsPendingTasks() {
+        scheduler.scheduleDelayed("route", 100, task("a"));
+        scheduler.shutdown();
+        assertFalse(scheduler.isPending("route"));
+        scheduler.schedule("route", 0, task("b"));
+        scheduler.runDueTasks();
+        assertEquals(0, runs.size());
+    }
+
+    @Test
+    public void testShutdownStopsThread() throws InterruptedException {
+        CoalescingScheduler scheduler = new CoalescingScheduler("CoalescingSchedulerTest");
+        final Object mutex = new Object();
+        synchronized (mutex) {
+            scheduler.schedule("route", 0, new Runnable() {
+                public void run() {
+                    synchronized (mutex) {
+                        runs.add("a");
+                        mutex.notifyAll();
+                    }
+                }
+            });
+            mutex.wait(5000);
+        }
+        scheduler.shutdown();
+        assertEquals(1, runs.size());
+    }
+}
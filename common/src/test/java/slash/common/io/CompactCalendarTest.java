@@ -0,0 +1,131 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.CompactCalendar.fromMillis;
+import static slash.common.io.CompactCalendar.fromMillisAndTimeZone;
+
+public class CompactCalendarTest {
+    private static final String[] TIME_ZONE_IDS = new String[]{
+            "UTC", "GMT", "Europe/Berlin", "America/St_Johns", "Asia/Kathmandu", "Pacific/Kiritimati", "Unknown/Zone"
+    };
+
+    private void checkFields(CompactCalendar compactCalendar) {
+        Calendar calendar = compactCalendar.getCalendar();
+        String message = compactCalendar.getTimeZoneId() + " " + compactCalendar.getTimeInMillis();
+        assertEquals(message, calendar.get(Calendar.YEAR), compactCalendar.getYear());
+        assertEquals(message, calendar.get(Calendar.MONTH) + 1, compactCalendar.getMonth());
+        assertEquals(message, calendar.get(Calendar.DAY_OF_MONTH), compactCalendar.getDayOfMonth());
+        assertEquals(message, calendar.get(Calendar.DAY_OF_YEAR), compactCalendar.getDayOfYear());
+        assertEquals(message, calendar.get(Calendar.HOUR_OF_DAY), compactCalendar.getHour());
+        assertEquals(message, calendar.get(Calendar.MINUTE), compactCalendar.getMinute());
+        assertEquals(message, calendar.get(Calendar.SECOND), compactCalendar.getSecond());
+        assertEquals(message, calendar.get(Calendar.MILLISECOND), compactCalendar.getMillisecond());
+    }
+
+    @Test
+    public void testFieldsEqualCalendar() {
+        Random random = new Random(4711);
+        for (String timeZoneId : TIME_ZONE_IDS) {
+            checkFields(fromMillisAndTimeZone(0, timeZoneId));
+            checkFields(fromMillisAndTimeZone(-1, timeZoneId));
+            checkFields(fromMillisAndTimeZone(951782400000L, timeZoneId)); // 2000-02-29
+            checkFields(fromMillisAndTimeZone(-12219292800000L, timeZoneId)); // Gregorian cutover
+            checkFields(fromMillisAndTimeZone(-12219292800001L, timeZoneId));
+            for (int i = 0; i < 20000; i++) {
+                // from about 1000 to 2500
+                long millis = (long) ((random.nextDouble() * 1500 - 970) * 365.25 * 24 * 60 * 60 * 1000);
+                checkFields(fromMillisAndTimeZone(millis, timeZoneId));
+            }
+        }
+    }
+
+    @Test
+    public void testWithDate() {
+        Random random = new Random(4711);
+        for (String timeZoneId : TIME_ZONE_IDS) {
+            for (int i = 0; i < 5000; i++) {
+                long millis = (long) ((random.nextDouble() * 100 - 20) * 365.25 * 24 * 60 * 60 * 1000);
+                CompactCalendar time = fromMillisAndTimeZone(millis, timeZoneId);
+                int year = 1900 + random.nextInt(200), month = 1 + random.nextInt(12), day = 1 + random.nextInt(31);
+
+                Calendar expected = time.getCalendar();
+                expected.set(Calendar.YEAR, year);
+                expected.set(Calendar.MONTH, month - 1);
+                expected.set(Calendar.DAY_OF_MONTH, day);
+                assertEquals(CompactCalendar.fromCalendar(expected), time.withDate(year, month, day));
+            }
+        }
+    }
+
+    @Test
+    public void testIsSameDay() {
+        CompactCalendar morning = fromMillis(1275375600000L); // 2010-06-01 07:00 UTC
+        CompactCalendar evening = morning.plusMillis(15 * 60 * 60 * 1000L);
+        assertTrue(morning.isSameDay(evening));
+        assertFalse(morning.isSameDay(evening.plusMillis(2 * 60 * 60 * 1000L)));
+        // 2010-06-02 00:30 in Berlin is still 2010-06-01 in UTC
+        CompactCalendar berlin = fromMillisAndTimeZone(1275431400000L, "Europe/Berlin");
+        assertFalse(berlin.isSameDay(morning));
+        assertTrue(berlin.isSameDay(morning.plusMillis(24 * 60 * 60 * 1000L)));
+    }
+
+    @Test
+    public void testComparisonAndArithmetic() {
+        CompactCalendar time = fromMillisAndTimeZone(1000, "Europe/Berlin");
+        CompactCalendar later = time.plusMillis(500);
+        assertEquals(1500, later.getTimeInMillis());
+        assertEquals("Europe/Berlin", later.getTimeZoneId());
+        assertTrue(time.before(later));
+        assertTrue(later.after(time));
+        assertFalse(time.after(time));
+        assertFalse(time.before(time));
+    }
+
+    @Test
+    public void testEqualsWithTimeZone() {
+        assertEquals(fromMillis(1000), fromMillisAndTimeZone(1000, "UTC"));
+        assertEquals(fromMillisAndTimeZone(1000, "Europe/Berlin"), fromMillisAndTimeZone(1000, "Europe/Berlin"));
+        assertFalse(fromMillis(1000).equals(fromMillisAndTimeZone(1000, "Europe/Berlin")));
+        assertFalse(fromMillisAndTimeZone(1000, "GMT").equals(fromMillisAndTimeZone(1000, "Unknown/Zone")));
+        assertEquals(fromMillisAndTimeZone(1000, "Europe/Berlin").hashCode(), fromMillisAndTimeZone(1000, "Europe/Berlin").hashCode());
+    }
+
+    @Test
+    public void testTimeZoneIdIsKept() {
+        assertEquals("Unknown/Zone", fromMillisAndTimeZone(0, "Unknown/Zone").getTimeZoneId());
+        assertSame(fromMillisAndTimeZone(0, new String("America/St_Johns")).getTimeZoneId(),
+                fromMillisAndTimeZone(1, "America/St_Johns").getTimeZoneId());
+        assertEquals(TimeZone.getTimeZone("Asia/Kathmandu"), fromMillisAndTimeZone(0, "Asia/Kathmandu").getCalendar().getTimeZone());
+        assertNotSame(fromMillis(0).getCalendar(), fromMillis(0).getCalendar());
+    }
+}
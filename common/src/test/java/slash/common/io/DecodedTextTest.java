@@ -0,0 +1,140 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DecodedTextTest {
+
+    private List<String> readLines(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        String line;
+        while ((line = reader.readLine()) != null)
+            lines.add(line);
+        return lines;
+    }
+
+    private void assertLinesLikeBufferedReader(byte[] bytes, String encoding) throws IOException {
+        List<String> expected = readLines(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), encoding)));
+        DecodedText text = new DecodedText(bytes, bytes.length, encoding);
+        assertEquals(expected, readLines(text.createReader()));
+        assertEquals(expected.size(), text.getLineCount());
+    }
+
+    @Test
+    public void testLineTerminators() throws IOException {
+        assertLinesLikeBufferedReader("".getBytes(), "ISO8859-1");
+        assertLinesLikeBufferedReader("a".getBytes(), "ISO8859-1");
+        assertLinesLikeBufferedReader("a\n".getBytes(), "ISO8859-1");
+        assertLinesLikeBufferedReader("a\r\nb\rc\n\nd\r\r\ne\r".getBytes(), "ISO8859-1");
+        assertLinesLikeBufferedReader("\n\r\n\r".getBytes(), "ISO8859-1");
+    }
+
+    @Test
+    public void testLinesAcrossChunks() throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 50000; i++)
+            buffer.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\r" : "\n");
+        assertLinesLikeBufferedReader(buffer.toString().getBytes("UTF-8"), "UTF-8");
+    }
+
+    @Test
+    public void testEncodings() throws IOException {
+        String string = "\u00e4\u00f6\u00fc\u00df\n\u20ac 1\n";
+        assertLinesLikeBufferedReader(string.getBytes("UTF-8"), "UTF-8");
+        assertLinesLikeBufferedReader(string.getBytes("UTF-8"), "ISO8859-1");
+        assertLinesLikeBufferedReader(string.getBytes("UTF-16"), "UTF-16");
+        assertLinesLikeBufferedReader(string.getBytes("ISO8859-1"), "UTF-8");
+    }
+
+    @Test
+    public void testReadersShareText() throws IOException {
+        byte[] bytes = "first\nsecond\n".getBytes();
+        DecodedText text = new DecodedText(bytes, bytes.length, "ISO8859-1");
+        BufferedReader reader1 = text.createReader();
+        assertEquals("first", reader1.readLine());
+        BufferedReader reader2 = text.createReader();
+        assertEquals("first", reader2.readLine());
+        assertEquals("second", reader1.readLine());
+        assertNull(reader1.readLine());
+        assertEquals("second", text.getLine(1));
+        assertNull(text.getLine(2));
+    }
+
+    @Test
+    public void testReadCharacters() throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 50000; i++)
+            buffer.append("line ").append(i).append('\n');
+        String string = buffer.toString();
+        DecodedText text = new DecodedText(ByteBuffer.wrap(string.getBytes("UTF-8")), "UTF-8");
+
+        BufferedReader reader = text.createReader();
+        assertEquals('l', reader.read());
+        char[] chars = new char[4];
+        assertEquals(4, reader.read(chars, 0, chars.length));
+        assertEquals("ine ", new String(chars));
+        assertEquals("0", reader.readLine());
+        assertEquals("line 1", reader.readLine());
+
+        StringBuilder read = new StringBuilder();
+        Reader all = text.createReader();
+        char[] chunk = new char[1000];
+        int count;
+        while ((count = all.read(chunk, 0, chunk.length)) != -1)
+            read.append(chunk, 0, count);
+        assertEquals(string, read.toString());
+        assertEquals(50000, text.getLineCount());
+    }
+
+    private void assertMixedReadsLikeBufferedReader(String string, int characters) throws IOException {
+        BufferedReader expected = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(string.getBytes()), "ISO8859-1"));
+        byte[] bytes = string.getBytes();
+        BufferedReader actual = new DecodedText(bytes, bytes.length, "ISO8859-1").createReader();
+        for (int i = 0; i < characters; i++)
+            assertEquals(expected.read(), actual.read());
+        assertEquals(readLines(expected), readLines(actual));
+    }
+
+    @Test
+    public void testMixReadingCharactersAndLines() throws IOException {
+        String string = "ab\r\ncd\ref\n\ngh";
+        for (int i = 0; i <= string.length() + 1; i++)
+            assertMixedReadsLikeBufferedReader(string, i);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedEncoding() throws IOException {
+        new DecodedText(new byte[0], 0, "no-such-encoding");
+    }
+}
@@ -0,0 +1,66 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FenwickTreeTest {
+    private FenwickTree createTree(double... values) {
+        FenwickTree tree = new FenwickTree(2);
+        tree.insert(0, values.length);
+        for (int i = 0; i < values.length; i++)
+            tree.set(i, values[i]);
+        return tree;
+    }
+
+    @Test
+    public void testSum() {
+        FenwickTree tree = createTree(1.0, 2.0, 3.0, 4.0, 5.0);
+        assertEquals(5, tree.size());
+        assertEquals(15.0, tree.sum(5), 0.0);
+        assertEquals(6.0, tree.sum(3), 0.0);
+        assertEquals(9.0, tree.sum(1, 4), 0.0);
+        assertEquals(0.0, tree.sum(3, 3), 0.0);
+
+        tree.set(2, 10.0);
+        assertEquals(22.0, tree.sum(5), 0.0);
+        assertEquals(10.0, tree.get(2), 0.0);
+    }
+
+    @Test
+    public void testInsertAndRemove() {
+        FenwickTree tree = createTree(1.0, 2.0, 3.0);
+        tree.insert(1, 2);
+        assertEquals(5, tree.size());
+        assertEquals(0.0, tree.get(1), 0.0);
+        assertEquals(2.0, tree.get(3), 0.0);
+        tree.set(1, 7.0);
+        assertEquals(13.0, tree.sum(5), 0.0);
+
+        tree.remove(0, 2);
+        assertEquals(3, tree.size());
+        assertEquals(0.0, tree.get(0), 0.0);
+        assertEquals(5.0, tree.sum(3), 0.0);
+        assertEquals(5.0, tree.sum(1, 3), 0.0);
+    }
+}
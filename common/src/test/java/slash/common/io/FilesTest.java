@@ -26,6 +26,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -160,6 +161,28 @@ public class FilesTest {
                 shortenPath("http://maps.google.de/maps?f=d&hl=de&geocode=14250095960720490931,54.083160,13.475246%3B13832872253745319564,54.096925,13.383573%3B4731465831403354564,54.114440,13.528310&saddr=54.096925,+13.383573&daddr=54.08316,13.475246+to:54.114440,+13.528310&mra=ps&mrcr=0,1&sll=54.105307,13.490181&sspn=0.132448,0.318604&ie=UTF8&z=12", 60));
     }
 
+    @Test
+    public void testCollectFiles() throws IOException {
+        File root = new File(file.getParentFile(), "collect" + System.currentTimeMillis());
+        File sub = new File(root, "b");
+        assertTrue(sub.mkdirs());
+        File first = new File(root, "a.GPX");
+        File second = new File(sub, "c.gpx");
+        File third = new File(sub, "d.kml");
+        File fourth = new File(root, "e.itn");
+        for (File f : new File[]{first, second, third, fourth})
+            assertTrue(f.createNewFile());
+        try {
+            assertEquals(Arrays.asList(first, second), collectFiles(root, ".gpx"));
+            assertEquals(Arrays.asList(first, fourth, second, third), collectFiles(Arrays.asList(root), ".gpx", ".kml", ".itn"));
+            assertEquals(Arrays.asList(third), collectFiles(Arrays.asList(third, fourth), ".kml"));
+            assertEquals(4, collectFiles(root, null).size());
+        } finally {
+            for (File f : new File[]{first, second, third, fourth, sub, root})
+                assertTrue(f.delete());
+        }
+    }
+
     @Test
     public void testLastPathFragment() {
         assertEquals("file.gpx", lastPathFragment("file.gpx"));
@@ -0,0 +1,73 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class InputOutputTest {
+    private byte[] createBytes(int count) {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++)
+            bytes[i] = (byte) i;
+        return bytes;
+    }
+
+    @Test
+    public void testReadBytesWithExpectedSize() throws IOException {
+        byte[] bytes = createBytes(10000);
+        assertArrayEquals(bytes, InputOutput.readBytes(new ByteArrayInputStream(bytes), 10000));
+        assertArrayEquals(bytes, InputOutput.readBytes(new ByteArrayInputStream(bytes), 100));
+        assertArrayEquals(bytes, InputOutput.readBytes(new ByteArrayInputStream(bytes), 20000));
+        assertArrayEquals(bytes, InputOutput.readBytes(new ByteArrayInputStream(bytes), -1));
+        assertArrayEquals(new byte[0], InputOutput.readBytes(new ByteArrayInputStream(new byte[0]), 0));
+    }
+
+    @Test
+    public void testCopyToFile() throws IOException {
+        byte[] bytes = createBytes(200000);
+        File source = Files.writeToTempFile(bytes);
+        File target = File.createTempFile("inputoutput", ".copy");
+        try {
+            assertEquals(200000, InputOutput.copy(new ByteArrayInputStream(bytes), target));
+            assertArrayEquals(bytes, InputOutput.readBytes(target));
+
+            assertEquals(200000, InputOutput.copy(new FileInputStream(source), target));
+            assertArrayEquals(bytes, InputOutput.readBytes(target));
+
+            assertEquals(200000, InputOutput.copy(new FileInputStream(source), new FileOutputStream(target)));
+            assertTrue(Arrays.equals(bytes, InputOutput.readBytes(target.toURI().toURL())));
+
+            // the count starts at the position the input has been read to
+            FileInputStream input = new FileInputStream(source);
+            assertEquals(1000, input.skip(1000));
+            assertEquals(199000, InputOutput.copy(input, new FileOutputStream(target)));
+            assertEquals(199000, target.length());
+        } finally {
+            assertTrue(source.delete());
+            assertTrue(target.delete());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MarkableBufferedInputStreamTest {
+    private byte[] createBytes(int count) {
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++)
+            bytes[i] = (byte) i;
+        return bytes;
+    }
+
+    @Test
+    public void testMarkedBytesShareBuffer() throws IOException {
+        byte[] bytes = createBytes(10000);
+        MarkableBufferedInputStream input = new MarkableBufferedInputStream(new ByteArrayInputStream(bytes), 100);
+        input.mark(bytes.length + 1);
+        assertEquals(0, input.read());
+        assertEquals(1, input.read());
+
+        ByteBuffer marked = input.getMarkedBytes();
+        assertEquals(bytes.length, marked.remaining());
+        for (int i = 0; i < bytes.length; i++)
+            assertEquals(bytes[i], marked.get(i));
+
+        // the position is kept and the mark is still valid
+        assertEquals(2, input.read());
+        input.reset();
+        assertEquals(0, input.read());
+    }
+
+    @Test
+    public void testMarkedBytesAfterMarkInTheMiddle() throws IOException {
+        byte[] bytes = createBytes(1000);
+        MarkableBufferedInputStream input = new MarkableBufferedInputStream(new ByteArrayInputStream(bytes), 100);
+        assertEquals(90, input.skip(90));
+        input.mark(bytes.length);
+        ByteBuffer marked = input.getMarkedBytes();
+        assertEquals(910, marked.remaining());
+        assertEquals(bytes[90], marked.get(0));
+        assertEquals(bytes[999], marked.get(909));
+        assertEquals(bytes[90], (byte) input.read());
+    }
+
+    @Test
+    public void testInputBeyondMarkLimit() throws IOException {
+        byte[] bytes = createBytes(1000);
+        MarkableBufferedInputStream input = new MarkableBufferedInputStream(new ByteArrayInputStream(bytes), 100);
+        input.mark(100);
+        assertNull(input.getMarkedBytes());
+        assertEquals(0, input.read());
+        input.reset();
+        assertEquals(0, input.read());
+    }
+
+    @Test
+    public void testNotMarked() throws IOException {
+        MarkableBufferedInputStream input = new MarkableBufferedInputStream(new ByteArrayInputStream(createBytes(10)), 100);
+        assertNull(input.getMarkedBytes());
+        assertEquals(0, input.read());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.InputOutput.readBytes;
+
+public class ZipArchiveTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("ziparchivetest", ".zip");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            putEntry(output, "doc.kml", "first");
+            putEntry(output, "files/", null);
+            putEntry(output, "files/image.PNG", "image");
+            putEntry(output, "files/empty.kml", "");
+            putEntry(output, "files/second.kml", "second");
+            putEntry(output, "files/third.gpx", "third");
+        } finally {
+            output.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (file.exists())
+            assertEquals(true, file.delete());
+    }
+
+    private void putEntry(ZipOutputStream output, String name, String content) throws IOException {
+        output.putNextEntry(new ZipEntry(name));
+        if (content != null)
+            output.write(content.getBytes());
+        output.closeEntry();
+    }
+
+    private List<String> getNames(List<ZipEntry> entries) {
+        List<String> result = new ArrayList<String>();
+        for (ZipEntry entry : entries)
+            result.add(entry.getName());
+        return result;
+    }
+
+    private ZipArchive.EntryReader<String> contentReader(final String skip) {
+        return new ZipArchive.EntryReader<String>() {
+            public String read(ZipEntry entry, InputStream input) throws IOException {
+                String content = new String(readBytes(input, ZipArchive.getSize(entry)));
+                return content.equals(skip) ? null : content;
+            }
+        };
+    }
+
+    @Test
+    public void testCandidates() throws IOException {
+        ZipArchive archive = ZipArchive.open(file);
+        try {
+            List<String> names = getNames(archive.getCandidates());
+            assertEquals(3, names.size());
+            assertEquals("doc.kml", names.get(0));
+            assertEquals("files/second.kml", names.get(1));
+            assertEquals("files/third.gpx", names.get(2));
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    public void testReadAllInOrderOfEntries() throws IOException {
+        ZipArchive archive = ZipArchive.open(file);
+        try {
+            List<String> contents = archive.readAll(contentReader("second"));
+            assertEquals(2, contents.size());
+            assertEquals("first", contents.get(0));
+            assertEquals("third", contents.get(1));
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    public void testReadFirst() throws IOException {
+        ZipArchive archive = ZipArchive.open(file);
+        try {
+            assertEquals("second", archive.readFirst(contentReader("first")));
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    public void testReadsEntriesInCallingThread() throws IOException {
+        final Thread caller = Thread.currentThread();
+        final List<String> names = new ArrayList<String>();
+        ZipArchive archive = ZipArchive.open(file);
+        try {
+            List<String> contents = archive.readAll(new ZipArchive.EntryReader<String>() {
+                public String read(ZipEntry entry, InputStream input) throws IOException {
+                    assertEquals(caller, Thread.currentThread());
+                    names.add(entry.getName());
+                    return new String(readBytes(input));
+                }
+            });
+            assertEquals(3, contents.size());
+            assertEquals(getNames(archive.getCandidates()), names);
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    public void testOpenStreamSpillsToTemporaryFile() throws IOException {
+        ZipArchive archive = ZipArchive.open(new ByteArrayInputStream(readBytes(file)));
+        try {
+            assertEquals(3, archive.getCandidates().size());
+            assertEquals("first", archive.readFirst(contentReader(null)));
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Test
+    public void testCloseDeletesTemporaryFile() throws IOException {
+        ZipArchive archive = ZipArchive.open(new ByteArrayInputStream(readBytes(file)));
+        File temporaryFile = archive.getTemporaryFile();
+        assertTrue(temporaryFile.exists());
+        archive.close();
+        assertFalse(temporaryFile.exists());
+
+        ZipArchive fileArchive = ZipArchive.open(file);
+        assertNull(fileArchive.getTemporaryFile());
+        fileArchive.close();
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void testOpenNoArchive() throws IOException {
+        assertNull(ZipArchive.open(new ByteArrayInputStream("<?xml version=\"1.0\"?>".getBytes())));
+        assertNull(ZipArchive.open(new ByteArrayInputStream(new byte[]{'P'})));
+
+        File text = File.createTempFile("ziparchivetest", ".txt");
+        try {
+            assertNull(ZipArchive.open(text));
+        } finally {
+            assertEquals(true, text.delete());
+        }
+    }
+}
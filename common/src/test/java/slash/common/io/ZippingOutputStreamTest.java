@@ -0,0 +1,58 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static slash.common.io.InputOutput.readBytes;
+
+public class ZippingOutputStreamTest {
+    @Test
+    public void testStreamsSingleEntry() throws IOException {
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) (i % 7);
+
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        ZippingOutputStream output = new ZippingOutputStream(target, "doc.kml");
+        output.write(content, 0, 50000);
+        output.write(content, 50000, 50000);
+        output.close();
+        output.close();
+        assertEquals(true, target.size() < content.length);
+
+        ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(target.toByteArray()));
+        ZipEntry entry = input.getNextEntry();
+        assertEquals("doc.kml", entry.getName());
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        assertArrayEquals(content, readBytes(new NotClosingUnderlyingInputStream(input)));
+        assertNull(input.getNextEntry());
+    }
+}
@@ -25,7 +25,6 @@ import slash.common.io.NotClosingUnderlyingInputStream;
 import slash.navigation.rest.Get;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -106,7 +105,7 @@ public class HgtFileDownloader {
             while (entry != null) {
                 if (!entry.isDirectory()) {
                     File extracted = File.createTempFile("routeconverter", ".hgt");
-                    InputOutput.copy(new NotClosingUnderlyingInputStream(zipInputStream), new FileOutputStream(extracted));
+                    InputOutput.copy(new NotClosingUnderlyingInputStream(zipInputStream), extracted);
                     zipInputStream.closeEntry();
 
                     if (entry.getName().equals(key))
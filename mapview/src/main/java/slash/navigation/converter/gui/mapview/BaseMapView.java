@@ -20,6 +20,7 @@
 
 package slash.navigation.converter.gui.mapview;
 
+import slash.common.io.CoalescingScheduler;
 import slash.common.io.CompactCalendar;
 import slash.common.io.Transfer;
 import slash.navigation.base.BaseNavigationPosition;
@@ -51,7 +52,6 @@ import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -69,9 +69,7 @@ import java.util.regex.Pattern;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.lang.Thread.sleep;
-import static java.util.Calendar.SECOND;
 import static javax.swing.event.TableModelEvent.ALL_COLUMNS;
-import static slash.common.io.CompactCalendar.fromCalendar;
 import static slash.common.io.Transfer.ceiling;
 import static slash.common.io.Transfer.isEmpty;
 import static slash.common.io.Transfer.parseDouble;
@@ -141,7 +139,7 @@ public abstract class BaseMapView implements MapView {
     private BaseNavigationPosition center;
 
     private ServerSocket callbackListenerServerSocket;
-    private Thread positionListUpdater, selectionUpdater, callbackListener, callbackPoller;
+    private Thread callbackListener;
 
     protected final Object notificationMutex = new Object();
     protected boolean initialized = false;
@@ -156,6 +154,21 @@ public abstract class BaseMapView implements MapView {
     private int meters = 0, seconds = 0, lastZoomLevel = -1;
     private PositionAugmenter positionAugmenter;
     private ExecutorService executor = Executors.newCachedThreadPool();
+    private static final String ROUTE_UPDATE = "route", SELECTION_UPDATE = "selection", CALLBACK_POLL = "callbacks";
+    private static final long ROUTE_UPDATE_WINDOW = 5 * 1000, SELECTION_UPDATE_WINDOW = 500, CALLBACK_POLL_DELAY = 250;
+    private final CoalescingScheduler scheduler = new CoalescingScheduler("MapViewUpdater");
+    // polls on its own thread so that callbacks are not queued behind slow route updates
+    private volatile CoalescingScheduler callbackPoller;
+    private final Runnable routeUpdater = new Runnable() {
+        public void run() {
+            updateRouteOnMap();
+        }
+    };
+    private final Runnable selectionUpdater = new Runnable() {
+        public void run() {
+            updateSelectionOnMap();
+        }
+    };
 
     // initialization
 
@@ -250,145 +263,131 @@ public abstract class BaseMapView implements MapView {
         getComponent().addComponentListener(new ComponentListener() {
             public void componentResized(ComponentEvent e) {
                 resize();
+                // updates are skipped while the map is not visible
+                synchronized (notificationMutex) {
+                    scheduleUpdates();
+                }
             }
 
             public void componentMoved(ComponentEvent e) {
             }
 
             public void componentShown(ComponentEvent e) {
+                synchronized (notificationMutex) {
+                    scheduleUpdates();
+                }
             }
 
             public void componentHidden(ComponentEvent e) {
             }
         });
+    }
 
-        positionListUpdater = new Thread(new Runnable() {
-            public void run() {
-                long lastTime = 0;
-                boolean recenter;
-                while (true) {
-                    List<BaseNavigationPosition> copiedPositions;
-                    synchronized (notificationMutex) {
-                        try {
-                            notificationMutex.wait(1000);
-                        } catch (InterruptedException e) {
-                            // ignore this
-                        }
+    private void scheduleUpdates() {
+        if (haveToRepaintRouteImmediately || haveToReplaceRoute)
+            scheduler.schedule(ROUTE_UPDATE, 0, routeUpdater);
+        else if (haveToUpdateRoute)
+            scheduler.schedule(ROUTE_UPDATE, ROUTE_UPDATE_WINDOW, routeUpdater);
 
-                        if (!running)
-                            return;
-                        if (!hasPositions())
-                            continue;
-                        if (!isVisible())
-                            continue;
-
-                        /*
-                           Update conditions:
-
-                           - new route was loaded
-                             - clear cache
-                             - center map
-                             - set zoom level according to route bounds
-                             - repaint immediately
-                           - user has moved position
-                             - clear cache
-                             - stay on current zoom level
-                             - center map to position
-                             - repaint
-                           - user has removed position
-                             - clear cache
-                             - stay on current zoom level
-                             - repaint
-                           - user has zoomed map
-                             - repaint if zooming into the map as it reveals more details
-                           - user has moved map
-                             - repaint if moved
-                         */
-                        long currentTime = System.currentTimeMillis();
-                        if (haveToRepaintRouteImmediately ||
-                                haveToReplaceRoute ||
-                                (haveToUpdateRoute && (currentTime - lastTime > 5 * 1000))) {
-                            log.fine("Woke up to update route: " + routeUpdateReason +
-                                    " haveToUpdateRoute:" + haveToUpdateRoute +
-                                    " haveToReplaceRoute:" + haveToReplaceRoute +
-                                    " haveToRepaintRouteImmediately:" + haveToRepaintRouteImmediately);
-                            copiedPositions = filterPositionsWithoutCoordinates(positions);
-                            recenter = haveToReplaceRoute;
-                            haveToUpdateRoute = false;
-                            haveToReplaceRoute = false;
-                            haveToRepaintRouteImmediately = false;
-                        } else
-                            continue;
-                    }
+        if (haveToRecenterMap || haveToRepaintSelectionImmediately)
+            scheduler.schedule(SELECTION_UPDATE, 0, selectionUpdater);
+        else if (haveToRepaintSelection)
+            scheduler.schedule(SELECTION_UPDATE, SELECTION_UPDATE_WINDOW, selectionUpdater);
+    }
 
-                    setCenterOfMap(copiedPositions, recenter);
-                    List<BaseNavigationPosition> render = reducePositions(copiedPositions, getMaximumPositionCount());
-                    switch (positionsModel.getRoute().getCharacteristics()) {
-                        case Route:
-                            addDirectionsToMap(render);
-                            break;
-                        case Waypoints:
-                            addMarkersToMap(render);
-                            break;
-                        default:
-                            addPolylinesToMap(render);
-                    }
-                    log.info("Position list updated for " + render.size() + " positions of type " +
-                            positionsModel.getRoute().getCharacteristics() + ", recentering: " + recenter);
-                    lastTime = System.currentTimeMillis();
-                }
-            }
-        }, "MapViewPositionListUpdater");
-        positionListUpdater.start();
+    private void updateRouteOnMap() {
+        List<BaseNavigationPosition> copiedPositions;
+        boolean recenter;
+        synchronized (notificationMutex) {
+            if (!running)
+                return;
+            if (!hasPositions())
+                return;
+            if (!isVisible())
+                return;
+
+            /*
+               Update conditions:
+
+               - new route was loaded
+                 - clear cache
+                 - center map
+                 - set zoom level according to route bounds
+                 - repaint immediately
+               - user has moved position
+                 - clear cache
+                 - stay on current zoom level
+                 - center map to position
+                 - repaint
+               - user has removed position
+                 - clear cache
+                 - stay on current zoom level
+                 - repaint
+               - user has zoomed map
+                 - repaint if zooming into the map as it reveals more details
+               - user has moved map
+                 - repaint if moved
+             */
+            if (!(haveToRepaintRouteImmediately || haveToReplaceRoute || haveToUpdateRoute))
+                return;
+            log.fine("Woke up to update route: " + routeUpdateReason +
+                    " haveToUpdateRoute:" + haveToUpdateRoute +
+                    " haveToReplaceRoute:" + haveToReplaceRoute +
+                    " haveToRepaintRouteImmediately:" + haveToRepaintRouteImmediately);
+            copiedPositions = filterPositionsWithoutCoordinates(positions);
+            recenter = haveToReplaceRoute;
+            haveToUpdateRoute = false;
+            haveToReplaceRoute = false;
+            haveToRepaintRouteImmediately = false;
+        }
 
-        selectionUpdater = new Thread(new Runnable() {
-            public void run() {
-                long lastTime = 0;
-                while (true) {
-                    int[] copiedSelectedPositionIndices;
-                    List<BaseNavigationPosition> copiedPositions;
-                    boolean recenter;
-                    synchronized (notificationMutex) {
-                        try {
-                            notificationMutex.wait(100);
-                        } catch (InterruptedException e) {
-                            // ignore this
-                        }
+        setCenterOfMap(copiedPositions, recenter);
+        List<BaseNavigationPosition> render = reducePositions(copiedPositions, getMaximumPositionCount());
+        switch (positionsModel.getRoute().getCharacteristics()) {
+            case Route:
+                addDirectionsToMap(render);
+                break;
+            case Waypoints:
+                addMarkersToMap(render);
+                break;
+            default:
+                addPolylinesToMap(render);
+        }
+        log.info("Position list updated for " + render.size() + " positions of type " +
+                positionsModel.getRoute().getCharacteristics() + ", recentering: " + recenter);
+    }
 
-                        if (!running)
-                            return;
-                        if (!hasPositions())
-                            continue;
-                        if (!isVisible())
-                            continue;
-
-                        long currentTime = System.currentTimeMillis();
-                        if (haveToRecenterMap || haveToRepaintSelectionImmediately ||
-                                (haveToRepaintSelection && (currentTime - lastTime > 500))) {
-                            log.fine("Woke up to update selected positions: " + selectionUpdateReason +
-                                    " haveToRepaintSelection: " + haveToRepaintSelection +
-                                    " haveToRepaintSelectionImmediately: " + haveToRepaintSelectionImmediately +
-                                    " haveToRecenterMap: " + haveToRecenterMap);
-                            recenter = haveToRecenterMap;
-                            haveToRecenterMap = false;
-                            haveToRepaintSelectionImmediately = false;
-                            haveToRepaintSelection = false;
-                            copiedSelectedPositionIndices = new int[selectedPositionIndices.length];
-                            System.arraycopy(selectedPositionIndices, 0, copiedSelectedPositionIndices, 0, copiedSelectedPositionIndices.length);
-                            copiedPositions = filterPositionsWithoutCoordinates(positions);
-                        } else
-                            continue;
-                    }
+    private void updateSelectionOnMap() {
+        int[] copiedSelectedPositionIndices;
+        List<BaseNavigationPosition> copiedPositions;
+        boolean recenter;
+        synchronized (notificationMutex) {
+            if (!running)
+                return;
+            if (!hasPositions())
+                return;
+            if (!isVisible())
+                return;
+            if (!(haveToRecenterMap || haveToRepaintSelectionImmediately || haveToRepaintSelection))
+                return;
+
+            log.fine("Woke up to update selected positions: " + selectionUpdateReason +
+                    " haveToRepaintSelection: " + haveToRepaintSelection +
+                    " haveToRepaintSelectionImmediately: " + haveToRepaintSelectionImmediately +
+                    " haveToRecenterMap: " + haveToRecenterMap);
+            recenter = haveToRecenterMap;
+            haveToRecenterMap = false;
+            haveToRepaintSelectionImmediately = false;
+            haveToRepaintSelection = false;
+            copiedSelectedPositionIndices = new int[selectedPositionIndices.length];
+            System.arraycopy(selectedPositionIndices, 0, copiedSelectedPositionIndices, 0, copiedSelectedPositionIndices.length);
+            copiedPositions = filterPositionsWithoutCoordinates(positions);
+        }
 
-                    List<BaseNavigationPosition> render = reducePositions(copiedPositions, copiedSelectedPositionIndices);
-                    BaseNavigationPosition centerPosition = center != null ? center : render.size() > 0 ? render.get(0) : null;
-                    selectPositions(render, recenter ? centerPosition : null);
-                    log.info("Selected positions updated for " + render.size() + " positions, recentering: " + recenter + " to: " + centerPosition);
-                    lastTime = System.currentTimeMillis();
-                }
-            }
-        }, "MapViewSelectionUpdater");
-        selectionUpdater.start();
+        List<BaseNavigationPosition> render = reducePositions(copiedPositions, copiedSelectedPositionIndices);
+        BaseNavigationPosition centerPosition = center != null ? center : render.size() > 0 ? render.get(0) : null;
+        selectPositions(render, recenter ? centerPosition : null);
+        log.info("Selected positions updated for " + render.size() + " positions, recentering: " + recenter + " to: " + centerPosition);
     }
 
     private ServerSocket createCallbackListenerServerSocket() {
@@ -455,32 +454,26 @@ public abstract class BaseMapView implements MapView {
     }
 
     protected void initializeCallbackPoller() {
-        callbackPoller = new Thread(new Runnable() {
+        callbackPoller = new CoalescingScheduler("MapViewCallbackPoller");
+        callbackPoller.scheduleDelayed(CALLBACK_POLL, 0, new Runnable() {
             public void run() {
-                while (true) {
-                    synchronized (notificationMutex) {
-                        if (!running) {
-                            return;
-                        }
-                    }
-
-                    String callbacks = Transfer.trim(executeScriptWithResult("return getCallbacks();"));
-                    if (callbacks != null) {
-                        String[] lines = callbacks.split("--");
-                        for (String line : lines) {
-                            processCallback(line);
-                        }
+                synchronized (notificationMutex) {
+                    if (!running) {
+                        return;
                     }
+                }
 
-                    try {
-                        sleep(250);
-                    } catch (InterruptedException e) {
-                        // intentionally left empty
+                String callbacks = Transfer.trim(executeScriptWithResult("return getCallbacks();"));
+                if (callbacks != null) {
+                    String[] lines = callbacks.split("--");
+                    for (String line : lines) {
+                        processCallback(line);
                     }
                 }
+
+                callbackPoller.scheduleDelayed(CALLBACK_POLL, CALLBACK_POLL_DELAY, this);
             }
-        }, "MapViewCallbackPoller");
-        callbackPoller.start();
+        });
     }
 
     protected void checkLocalhostResolution() {
@@ -569,31 +562,16 @@ public abstract class BaseMapView implements MapView {
         long start = System.currentTimeMillis();
         synchronized (notificationMutex) {
             running = false;
-            notificationMutex.notifyAll();
         }
 
-        if (selectionUpdater != null) {
-            try {
-                selectionUpdater.join(500);
-                selectionUpdater.interrupt();
-                selectionUpdater.join();
-            } catch (InterruptedException e) {
-                // intentionally left empty
-            }
-            long end = System.currentTimeMillis();
-            log.info("PositionUpdater stopped after " + (end - start) + " ms");
-        }
+        scheduler.shutdown();
+        long schedulerEnd = System.currentTimeMillis();
+        log.info("MapViewUpdater stopped after " + (schedulerEnd - start) + " ms");
 
-        if (positionListUpdater != null) {
-            try {
-                positionListUpdater.join(500);
-                positionListUpdater.interrupt();
-                positionListUpdater.join();
-            } catch (InterruptedException e) {
-                // intentionally left empty
-            }
+        if (callbackPoller != null) {
+            callbackPoller.shutdown();
             long end = System.currentTimeMillis();
-            log.info("RouteUpdater stopped after " + (end - start) + " ms");
+            log.info("MapViewCallbackPoller stopped after " + (end - start) + " ms");
         }
 
         if (callbackListenerServerSocket != null) {
@@ -616,17 +594,6 @@ public abstract class BaseMapView implements MapView {
             log.info("CallbackListener stopped after " + (end - start) + " ms");
         }
 
-        if (callbackPoller != null) {
-            try {
-                if (callbackPoller.isAlive())
-                    callbackPoller.join();
-            } catch (InterruptedException e) {
-                // intentionally left empty
-            }
-            long end = System.currentTimeMillis();
-            log.info("CallbackPoller stopped after " + (end - start) + " ms");
-        }
-
         executor.shutdownNow();
         long end = System.currentTimeMillis();
         log.info("Executors stopped after " + (end - start) + " ms");
@@ -675,7 +642,7 @@ public abstract class BaseMapView implements MapView {
             haveToRepaintSelection = true;
             selectionUpdateReason = "selected " + selectedPositions.length + " positions; " +
                     "replacing selection: " + replaceSelection;
-            notificationMutex.notifyAll();
+            scheduleUpdates();
         }
     }
 
@@ -935,7 +902,7 @@ public abstract class BaseMapView implements MapView {
                 selectionUpdateReason = "replace route";
                 significantPositionCache.clear();
             }
-            notificationMutex.notifyAll();
+            scheduleUpdates();
         }
     }
 
@@ -945,7 +912,7 @@ public abstract class BaseMapView implements MapView {
             haveToRepaintRouteImmediately = true;
             routeUpdateReason = "update route but don't recenter";
             significantPositionCache.clear();
-            notificationMutex.notifyAll();
+            scheduleUpdates();
         }
     }
 
@@ -953,7 +920,7 @@ public abstract class BaseMapView implements MapView {
         synchronized (notificationMutex) {
             haveToRepaintSelection = true;
             selectionUpdateReason = "update selection";
-            notificationMutex.notifyAll();
+            scheduleUpdates();
         }
     }
 
@@ -1408,7 +1375,7 @@ public abstract class BaseMapView implements MapView {
                     int currentZoomLevel = getCurrentZoomLevel();
                     selectionUpdateReason = "zoomed from " + lastZoomLevel + " to " + currentZoomLevel;
                     lastZoomLevel = currentZoomLevel;
-                    notificationMutex.notifyAll();
+                    scheduleUpdates();
                 }
             }
             return true;
@@ -1427,7 +1394,7 @@ public abstract class BaseMapView implements MapView {
                     synchronized (notificationMutex) {
                         haveToRepaintRouteImmediately = true;
                         routeUpdateReason = "repaint not visible positions";
-                        notificationMutex.notifyAll();
+                        scheduleUpdates();
                     }
                 }
             }
@@ -1534,9 +1501,7 @@ public abstract class BaseMapView implements MapView {
             Double longitude = parseDouble(coordinates.get(i - 3));
             Double latitude = parseDouble(coordinates.get(i - 4));
             if (seconds != null && time != null) {
-                Calendar calendar = time.getCalendar();
-                calendar.add(SECOND, -seconds.intValue());
-                time = fromCalendar(calendar);
+                time = time.plusMillis(-seconds.intValue() * 1000L);
             }
             int positionNumber = positionsModel.getRowCount() + (positionInsertionCount - route.getPositionCount()) - 1;
             String comment = instructions != null ? instructions : positionAugmenter.createComment(positionNumber);
@@ -1635,6 +1600,7 @@ public abstract class BaseMapView implements MapView {
             significantPositionCache.clear();
             haveToRepaintSelectionImmediately = true;
             selectionUpdateReason = "move position";
+            scheduleUpdates();
         }
         positionsModel.fireTableRowsUpdated(minimum, size, ALL_COLUMNS);
     }
@@ -1662,7 +1628,7 @@ public abstract class BaseMapView implements MapView {
                     synchronized (notificationMutex) {
                         haveToRepaintRouteImmediately = true;
                         routeUpdateReason = "delete position";
-                        notificationMutex.notifyAll();
+                        scheduleUpdates();
                     }
                 }
             });
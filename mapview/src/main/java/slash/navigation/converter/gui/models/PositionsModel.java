@@ -66,5 +66,7 @@ public interface PositionsModel extends TableModel {
     void down(int[] rowIndices, int delta);
     void bottom(int[] rowIndices);
 
+    void fireTableRowsInserted(int firstIndex, int lastIndex);
     void fireTableRowsUpdated(int firstIndex, int lastIndex, int columnIndex);
+    void fireTableRowsDeleted(int firstIndex, int lastIndex);
 }
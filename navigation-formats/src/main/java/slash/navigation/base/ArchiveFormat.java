@@ -0,0 +1,46 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.io.CompactCalendar;
+import slash.common.io.ZipArchive;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A navigation format that reads its routes from the entries of a ZIP archive.
+ *
+ * @author Christian Pesch
+ */
+
+public interface ArchiveFormat<R extends BaseRoute> extends NavigationFormat<R> {
+    /**
+     * Reads the routes from an archive that has been opened once for all archive formats.
+     * Does not close the archive.
+     *
+     * @param archive the archive to read
+     * @param startDate the start date for positions without date
+     * @return the routes or null if the archive contains no routes
+     * @throws IOException if the archive cannot be read
+     */
+    List<R> read(ZipArchive archive, CompactCalendar startDate) throws IOException;
+}
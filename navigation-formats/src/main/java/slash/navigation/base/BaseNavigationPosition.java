@@ -31,7 +31,6 @@ import slash.navigation.nmea.NmeaPosition;
 import slash.navigation.nmn.NmnPosition;
 import slash.navigation.tour.TourPosition;
 
-import java.util.Calendar;
 
 import static java.lang.Double.isNaN;
 import static java.lang.Math.*;
@@ -123,12 +122,7 @@ public abstract class BaseNavigationPosition {
      */
     public void setStartDate(CompactCalendar startDate) {
         if (getTime() != null && startDate != null) {
-            Calendar calendar = getTime().getCalendar();
-            Calendar startDateCalendar = startDate.getCalendar();
-            calendar.set(Calendar.YEAR, startDateCalendar.get(Calendar.YEAR));
-            calendar.set(Calendar.MONTH, startDateCalendar.get(Calendar.MONTH));
-            calendar.set(Calendar.DAY_OF_MONTH, startDateCalendar.get(Calendar.DAY_OF_MONTH));
-            setTime(CompactCalendar.fromCalendar(calendar));
+            setTime(getTime().withDate(startDate.getYear(), startDate.getMonth(), startDate.getDayOfMonth()));
         }
     }
 
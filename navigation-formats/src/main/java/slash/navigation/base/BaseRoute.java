@@ -81,6 +81,19 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
 
     public abstract int getPositionCount();
 
+    /**
+     * Compares this route including all of its positions with the given route.
+     * Routes are identified by their instance in models, undo edits and menus,
+     * thus {@link #equals(Object)} and {@link #hashCode()} are not overridden and
+     * do not depend on the number of positions.
+     *
+     * @param o the route to compare with
+     * @return true if the routes have the same content
+     */
+    public abstract boolean contentEquals(Object o);
+
+    public abstract int contentHashCode();
+
     private void move(int index, int upOrDown) {
         List<P> positions = getPositions();
         P move = positions.get(index);
@@ -120,6 +133,32 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         return positions.remove(index);
     }
 
+    /**
+     * Inserts the given positions at the given index with a single shift
+     * of the following {@link #getPositions() positions}
+     *
+     * @param index the index to insert the positions at
+     * @param positions the positions to insert
+     */
+    public void addAll(int index, List<P> positions) {
+        getPositions().addAll(index, positions);
+    }
+
+    /**
+     * Removes the {@link #getPositions() positions} from the first index
+     * (inclusive) to the last index (exclusive) with a single shift
+     *
+     * @param firstIndex the index of the first position to remove
+     * @param lastIndex the index after the last position to remove
+     * @return the removed positions
+     */
+    public List<P> removeRange(int firstIndex, int lastIndex) {
+        List<P> range = getPositions().subList(firstIndex, lastIndex);
+        List<P> removed = new ArrayList<P>(range);
+        range.clear();
+        return removed;
+    }
+
     /**
      * Removes duplicate adjacent {@link #getPositions() positions} from this route, leaving
      * only distinct neighbours
@@ -149,7 +188,7 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         List<P> positions = getPositions();
         P first = positions.get(0);
         if(first.getTime() == null)
-            first.setTime(CompactCalendar.fromCalendar(Calendar.getInstance(CompactCalendar.UTC)));
+            first.setTime(CompactCalendar.fromMillis(System.currentTimeMillis()));
 
         P previous = first;
         for (int i = 1; i < positions.size(); i++) {
@@ -160,7 +199,7 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
                 Long millis = distance != null ? (long) (distance / averageSpeed * 1000) : null;
                 if(millis == null || millis < 1000)
                     millis = 1000L;
-                next.setTime(CompactCalendar.fromMillisAndTimeZone(previous.getTime().getTimeInMillis() + millis, previous.getTime().getTimeZoneId()));
+                next.setTime(previous.getTime().plusMillis(millis));
             }
             previous = next;
         }
@@ -239,7 +278,7 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public long getTime() {
-        Calendar minimum = null, maximum = null;
+        CompactCalendar minimum = null, maximum = null;
         long totalTimeMilliSeconds = 0;
         List<P> positions = getPositions();
         P previous = null;
@@ -250,13 +289,13 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
                     totalTimeMilliSeconds += time;
             }
 
-            Calendar calendar = next.getTime() != null ? next.getTime().getCalendar() : null;
-            if (calendar == null)
+            CompactCalendar nextTime = next.getTime();
+            if (nextTime == null)
                 continue;
-            if (minimum == null || calendar.before(minimum))
-                minimum = calendar;
-            if (maximum == null || calendar.after(maximum))
-                maximum = calendar;
+            if (minimum == null || nextTime.before(minimum))
+                minimum = nextTime;
+            if (maximum == null || nextTime.after(maximum))
+                maximum = nextTime;
 
             previous = next;
         }
@@ -0,0 +1,192 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.net.URL;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static slash.common.io.Files.getExtension;
+import static slash.navigation.base.NavigationFormats.getReadFormatsPreferredByExtension;
+
+/**
+ * Parses a batch of urls with a bounded number of threads and delivers the
+ * results in the order of the urls as soon as they are available.
+ *
+ * @author Christian Pesch
+ */
+
+public class BatchNavigationFileParser {
+    private static final Logger log = Logger.getLogger(BatchNavigationFileParser.class.getName());
+    private static final AtomicInteger batchCount = new AtomicInteger();
+
+    private final List<URL> urls;
+    private final List<NavigationFormat> formats;
+    private final int parallelism;
+    private final List<NavigationFileParserListener> navigationFileParserListeners = new CopyOnWriteArrayList<NavigationFileParserListener>();
+    private volatile boolean cancelled = false;
+    private volatile ExecutorService executor;
+
+    public BatchNavigationFileParser(List<URL> urls, List<NavigationFormat> formats, int parallelism) {
+        this.urls = urls;
+        this.formats = formats;
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    public BatchNavigationFileParser(List<URL> urls) {
+        this(urls, null, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    }
+
+    public void addNavigationFileParserListener(NavigationFileParserListener listener) {
+        navigationFileParserListeners.add(listener);
+    }
+
+    public void removeNavigationFileParserListener(NavigationFileParserListener listener) {
+        navigationFileParserListeners.remove(listener);
+    }
+
+    private void fireProgress(URL url, int processed, int total) {
+        for (NavigationFileParserListener listener : navigationFileParserListeners) {
+            listener.progress(url, processed, total);
+        }
+    }
+
+    private void fireCancelled(int processed, int total) {
+        for (NavigationFileParserListener listener : navigationFileParserListeners) {
+            listener.cancelled(processed, total);
+        }
+    }
+
+    /**
+     * Stops the batch: urls which are not yet parsed are skipped and the
+     * results of the urls which are being parsed are discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+        ExecutorService executor = this.executor;
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private Callable<NavigationFileParser> createParseTask(final URL url) {
+        return new Callable<NavigationFileParser>() {
+            public NavigationFileParser call() throws Exception {
+                NavigationFileParser parser = new NavigationFileParser();
+                List<NavigationFormat> readFormats = formats != null ? formats :
+                        getReadFormatsPreferredByExtension(getExtension(url.getFile()));
+                return parser.read(url, readFormats) ? parser : null;
+            }
+        };
+    }
+
+    private ExecutorService createExecutor() {
+        final int batch = batchCount.incrementAndGet();
+        return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "BatchNavigationFileParser-" + batch + "-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        // let the urls that are being parsed finish to leave no parsing behind
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+                log.fine("Waiting for the parsing of the batch to finish");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parses the urls and calls the callback for each url in the order of the urls.
+     * At most twice as many urls as threads are parsed ahead of the url that is
+     * delivered next to bound the memory held by parsed routes. Blocks until all
+     * urls are delivered or the batch is cancelled.
+     *
+     * @param callback the callback that receives the results
+     */
+    public void read(BatchNavigationFileParserCallback callback) {
+        int total = urls.size();
+        int processed = 0;
+        executor = createExecutor();
+        try {
+            LinkedList<Future<NavigationFileParser>> pending = new LinkedList<Future<NavigationFileParser>>();
+            int submitted = 0;
+            while (processed < total && !cancelled) {
+                while (submitted < total && pending.size() < 2 * parallelism && !cancelled)
+                    pending.add(executor.submit(createParseTask(urls.get(submitted++))));
+
+                URL url = urls.get(processed);
+                Future<NavigationFileParser> future = pending.removeFirst();
+                try {
+                    NavigationFileParser parser = future.get();
+                    if (cancelled)
+                        break;
+                    if (parser != null)
+                        callback.parsed(url, parser);
+                    else
+                        callback.unsupported(url);
+                } catch (ExecutionException e) {
+                    if (cancelled)
+                        break;
+                    callback.failed(url, e.getCause());
+                } catch (CancellationException e) {
+                    break;
+                } catch (InterruptedException e) {
+                    cancel();
+                    break;
+                }
+                processed++;
+                fireProgress(url, processed, total);
+            }
+        } catch (RejectedExecutionException e) {
+            // the executor has been shut down by cancel()
+            log.fine("Batch cancelled while submitting: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+
+        if (cancelled)
+            fireCancelled(processed, total);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.net.URL;
+
+/**
+ * Receives the results of a {@link BatchNavigationFileParser} in the order of the urls.
+ *
+ * @author Christian Pesch
+ */
+
+public interface BatchNavigationFileParserCallback {
+    /**
+     * Called if a format could read the url.
+     *
+     * @param url the url that has been read
+     * @param parser the parser holding the routes read from the url
+     */
+    void parsed(URL url, NavigationFileParser parser);
+
+    /**
+     * Called if no format could read the url.
+     *
+     * @param url the url that could not be read
+     */
+    void unsupported(URL url);
+
+    /**
+     * Called if reading the url failed.
+     *
+     * @param url the url that could not be read
+     * @param throwable the cause of the failure
+     */
+    void failed(URL url, Throwable throwable);
+}
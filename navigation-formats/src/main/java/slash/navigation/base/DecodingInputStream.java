@@ -0,0 +1,115 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.io.DecodedText;
+import slash.common.io.MarkableBufferedInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link InputStream} which is offered to the formats during the detection.
+ * The {@link TextNavigationFormat}s share one {@link DecodedText} per encoding
+ * instead of decoding and splitting the bytes into lines again and again.
+ * The bytes are taken from the buffer of the marked stream without copying
+ * them; if the input does not fit into it, the formats read the stream.
+ *
+ * @author Christian Pesch
+ */
+
+class DecodingInputStream extends FilterInputStream {
+    private final Map<String, DecodedText> texts = new HashMap<String, DecodedText>();
+    private final MarkableBufferedInputStream marked;
+    private ByteBuffer bytes;
+    private boolean unavailable = false;
+    private long position = 0;
+
+    DecodingInputStream(InputStream delegate, MarkableBufferedInputStream marked) {
+        super(delegate);
+        this.marked = marked;
+    }
+
+    DecodingInputStream(InputStream delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Returns the text for the given encoding if nothing has been read since
+     * the stream has been {@link #reset()} and the whole input is held by the
+     * buffer of the marked stream.
+     *
+     * @param encoding the encoding of the text
+     * @return the text or null if the stream has been read already or if the
+     *         input does not fit into the buffer
+     * @throws IOException if the stream cannot be read
+     */
+    DecodedText getText(String encoding) throws IOException {
+        if (position != 0 || marked == null || unavailable)
+            return null;
+
+        DecodedText text = texts.get(encoding);
+        if (text == null) {
+            if (bytes == null) {
+                bytes = marked.getMarkedBytes();
+                // reading beyond the mark would prevent the detection of the other formats
+                if (bytes == null) {
+                    unavailable = true;
+                    return null;
+                }
+                // consume the input like reading it would
+                while (super.skip(bytes.remaining()) > 0) ;
+            }
+            text = new DecodedText(bytes.duplicate(), encoding);
+            texts.put(encoding, text);
+        }
+        return text;
+    }
+
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1)
+            position++;
+        return result;
+    }
+
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int result = super.read(buffer, offset, length);
+        if (result != -1)
+            position += result;
+        return result;
+    }
+
+    public long skip(long n) throws IOException {
+        long result = super.skip(n);
+        position += result;
+        return result;
+    }
+
+    public synchronized void reset() throws IOException {
+        super.reset();
+        position = 0;
+    }
+}
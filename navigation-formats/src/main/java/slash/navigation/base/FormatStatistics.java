@@ -0,0 +1,100 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the attempts of a {@link NavigationFormat} to read an input
+ * and the time and bytes it spent on them.
+ *
+ * @author Christian Pesch
+ */
+
+public class FormatStatistics implements FormatStatisticsMBean {
+    private final String format;
+    private final AtomicLong attempts = new AtomicLong(), successes = new AtomicLong(),
+            nanoSeconds = new AtomicLong(), failureNanoSeconds = new AtomicLong(),
+            bytes = new AtomicLong(), failureBytes = new AtomicLong(), positions = new AtomicLong();
+
+    public FormatStatistics(String format) {
+        this.format = format;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    public long getSuccesses() {
+        return successes.get();
+    }
+
+    public long getFailures() {
+        return getAttempts() - getSuccesses();
+    }
+
+    public long getTimeSpentMillis() {
+        return nanoSeconds.get() / 1000000;
+    }
+
+    public long getTimeSpentOnFailuresMillis() {
+        return failureNanoSeconds.get() / 1000000;
+    }
+
+    public long getBytesConsumed() {
+        return bytes.get();
+    }
+
+    public long getBytesConsumedOnFailures() {
+        return failureBytes.get();
+    }
+
+    public long getPositionsRead() {
+        return positions.get();
+    }
+
+    void read(boolean successful, int positionCount, long bytesRead, long nanoSeconds) {
+        attempts.incrementAndGet();
+        this.nanoSeconds.addAndGet(nanoSeconds);
+        bytes.addAndGet(bytesRead);
+        if (successful) {
+            successes.incrementAndGet();
+            positions.addAndGet(positionCount);
+        } else {
+            failureNanoSeconds.addAndGet(nanoSeconds);
+            failureBytes.addAndGet(bytesRead);
+        }
+    }
+
+    public void reset() {
+        attempts.set(0);
+        successes.set(0);
+        nanoSeconds.set(0);
+        failureNanoSeconds.set(0);
+        bytes.set(0);
+        failureBytes.set(0);
+        positions.set(0);
+    }
+}
@@ -21,12 +21,17 @@
 package slash.navigation.base;
 
 import slash.common.io.CompactCalendar;
+import slash.common.io.CountingInputStream;
+import slash.common.io.InputOutput;
+import slash.common.io.MarkableBufferedInputStream;
 import slash.common.io.NotClosingUnderlyingInputStream;
 import slash.common.io.Transfer;
+import slash.common.io.ZipArchive;
 import slash.navigation.bcr.BcrFormat;
 import slash.navigation.copilot.CoPilotFormat;
 import slash.navigation.gpx.GpxFormat;
 import slash.navigation.itn.TomTomRouteFormat;
+import slash.navigation.kml.KmzFormat;
 import slash.navigation.nmn.NmnFormat;
 import slash.navigation.simple.GoogleMapsUrlFormat;
 import slash.navigation.tcx.TcxFormat;
@@ -42,7 +47,6 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * Parses files with navigation information via NavigationFormat classes.
@@ -53,6 +57,7 @@ import java.util.zip.ZipInputStream;
 public class NavigationFileParser {
     private static final Logger log = Logger.getLogger(NavigationFileParser.class.getName());
     private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final int WRITE_PARALLELISM = Math.min(Runtime.getRuntime().availableProcessors(), 4);
 
     static {
         System.setProperty("sun.zip.encoding", "default");
@@ -60,6 +65,11 @@ public class NavigationFileParser {
 
     private final List<NavigationFileParserListener> navigationFileParserListeners = new CopyOnWriteArrayList<NavigationFileParserListener>();
     private FormatAndRoutes formatAndRoutes;
+    private ParsedRouteCache parsedRouteCache;
+
+    public NavigationFileParser() {
+        addNavigationFileParserListener(NavigationFileParserStatistics.getInstance());
+    }
 
     public void addNavigationFileParserListener(NavigationFileParserListener listener) {
         navigationFileParserListeners.add(listener);
@@ -69,6 +79,10 @@ public class NavigationFileParser {
         navigationFileParserListeners.remove(listener);
     }
 
+    public void setParsedRouteCache(ParsedRouteCache parsedRouteCache) {
+        this.parsedRouteCache = parsedRouteCache;
+    }
+
     public NavigationFormat getFormat() {
         return formatAndRoutes.getFormat();
     }
@@ -100,22 +114,87 @@ public class NavigationFileParser {
         return positionCounts;
     }
 
+    private int getPositionCount(List<BaseRoute> routes) {
+        int positionCount = 0;
+        if (routes != null)
+            for (BaseRoute route : routes)
+                positionCount += route.getPositionCount();
+        return positionCount;
+    }
+
     private void notifyReading(NavigationFormat<BaseRoute> format) {
         for (NavigationFileParserListener listener : navigationFileParserListeners) {
             listener.reading(format);
         }
     }
 
+    private void notifyRead(NavigationFormat<BaseRoute> format, boolean successful, int positionCount, long bytesRead, long nanoSeconds) {
+        for (NavigationFileParserListener listener : navigationFileParserListeners) {
+            listener.read(format, successful, positionCount, bytesRead, nanoSeconds);
+        }
+    }
+
+    private void notifyProcessed(NavigationFileParserPhase phase, NavigationFormat format, int positionCount, long startNanoSeconds) {
+        long nanoSeconds = System.nanoTime() - startNanoSeconds;
+        for (NavigationFileParserListener listener : navigationFileParserListeners) {
+            listener.processed(phase, format, positionCount, nanoSeconds);
+        }
+    }
+
+    private void notifyRead(long startNanoSeconds) {
+        notifyProcessed(NavigationFileParserPhase.Read, formatAndRoutes != null ? formatAndRoutes.getFormat() : null,
+                formatAndRoutes != null ? getPositionCount(formatAndRoutes.getRoutes()) : 0, startNanoSeconds);
+    }
+
+    /**
+     * Opens the ZIP archive of a source at most once for all formats that read archives.
+     */
+    private static class ArchiveSource {
+        private final File file;
+        private ZipArchive archive;
+        private boolean opened = false;
+
+        private ArchiveSource(File file) {
+            this.file = file;
+        }
+
+        ZipArchive open(InputStream input) throws IOException {
+            if (!opened) {
+                opened = true;
+                archive = file != null ? ZipArchive.open(file) : ZipArchive.open(input);
+            }
+            return archive;
+        }
+
+        void close() {
+            if (archive != null)
+                archive.close();
+        }
+    }
+
     @SuppressWarnings("unchecked")
-    private FormatAndRoutes internalRead(InputStream buffer, int readBufferSize, Calendar startDate,
-                                         List<NavigationFormat> formats) throws IOException {
+    private FormatAndRoutes internalRead(InputStream buffer, MarkableBufferedInputStream marked, int readBufferSize,
+                                         Calendar startDate, List<NavigationFormat> formats,
+                                         ArchiveSource archiveSource) throws IOException {
         try {
             CompactCalendar compactStartDate = startDate != null ? CompactCalendar.fromCalendar(startDate) : null;
+            CountingInputStream counting = new CountingInputStream(buffer);
+            DecodingInputStream decoding = new DecodingInputStream(counting, marked);
             for (NavigationFormat<BaseRoute> format : formats) {
                 notifyReading(format);
 
-                List<BaseRoute> routes = format.read(buffer, compactStartDate);
-                if (routes != null && routes.size() > 0) {
+                counting.resetCount();
+                long start = System.nanoTime();
+                List<BaseRoute> routes;
+                if (format instanceof ArchiveFormat) {
+                    // all archive formats share one archive instead of spilling the stream each
+                    ZipArchive archive = archiveSource.open(decoding);
+                    routes = archive != null ? ((ArchiveFormat<BaseRoute>) format).read(archive, compactStartDate) : null;
+                } else
+                    routes = format.read(decoding, compactStartDate);
+                boolean successful = routes != null && routes.size() > 0;
+                notifyRead(format, successful, successful ? getPositionCount(routes) : 0, counting.getCount(), System.nanoTime() - start);
+                if (successful) {
                     log.info("Detected '" + format.getName() + "' file with " + routes.size() + " route(s) and " +
                             getPositionCounts(routes) + " positions");
                     commentRoutes(routes);
@@ -123,7 +202,7 @@ public class NavigationFileParser {
                 }
 
                 try {
-                    buffer.reset();
+                    decoding.reset();
                 } catch (IOException e) {
                     // Resetting to invalid mark - if the read buffer is not large enough
                     log.severe("No known format found within " + readBufferSize + " bytes; increase the read buffer");
@@ -150,14 +229,24 @@ public class NavigationFileParser {
         Calendar startDate = Calendar.getInstance(CompactCalendar.UTC);
         startDate.setTimeInMillis(source.lastModified());
         FileInputStream fis = new FileInputStream(source);
-        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(fis, (int)source.length() + 1));
+        MarkableBufferedInputStream marked = new MarkableBufferedInputStream(fis, (int)source.length() + 1);
+        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(marked);
         buffer.mark((int)source.length() + 1);
+        long start = System.nanoTime();
+        ArchiveSource archiveSource = new ArchiveSource(source);
         try {
-            this.formatAndRoutes = internalRead(buffer, (int) source.length(), startDate, formats);
+            this.formatAndRoutes = internalRead(buffer, marked, (int) source.length(), startDate, formats, archiveSource);
+            if (formatAndRoutes == null) {
+                ZipArchive archive = archiveSource.open(buffer);
+                if (archive != null)
+                    formatAndRoutes = zipRead(archive, startDate, formats);
+            }
             return formatAndRoutes != null;
         }
         finally {
+            archiveSource.close();
             buffer.closeUnderlyingInputStream();
+            notifyRead(start);
         }
     }
 
@@ -189,48 +278,57 @@ public class NavigationFileParser {
         }
     }
 
-    private FormatAndRoutes zipRead(InputStream source, int readBufferSize, Calendar startDate,
-                                    List<NavigationFormat> formats) {
-        ZipInputStream zip = new ZipInputStream(source);
+    private FormatAndRoutes zipRead(ZipArchive archive, final Calendar startDate,
+                                    final List<NavigationFormat> formats) {
         try {
-            ZipEntry entry;
-            while ((entry = zip.getNextEntry()) != null) {
-                NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(zip, (int) entry.getSize() + 1));
-                buffer.mark(readBufferSize + 1);
-                FormatAndRoutes formatAndRoutes = internalRead(buffer, (int)entry.getSize() + 1, startDate, formats);
-                if (formatAndRoutes != null)
-                    return formatAndRoutes;
-                zip.closeEntry();
-            }
+            // the entries are inflated in parallel and detected in order, the first entry with routes wins
+            return archive.readFirst(new ZipArchive.EntryReader<FormatAndRoutes>() {
+                public FormatAndRoutes read(ZipEntry entry, InputStream input) throws IOException {
+                    int size = ZipArchive.getSize(entry);
+                    int readBufferSize = size >= 0 ? size : READ_BUFFER_SIZE;
+                    input.mark(readBufferSize + 1);
+                    ArchiveSource archiveSource = new ArchiveSource(null);
+                    try {
+                        MarkableBufferedInputStream marked = input instanceof MarkableBufferedInputStream ?
+                                (MarkableBufferedInputStream) input : null;
+                        return internalRead(input, marked, readBufferSize, startDate, formats, archiveSource);
+                    } finally {
+                        archiveSource.close();
+                    }
+                }
+            });
         }
         catch (IOException e) {
-            log.fine("Error reading invalid zip entry names from " + source + ": " + e.getMessage());
+            log.fine("Error reading zip entries: " + e.getMessage());
             return null;
         }
-        finally {
-            try {
-                zip.close();
-            } catch (IOException e) {
-                log.fine("Error closing zip from " + source + ": " + e.getMessage());
-            }
+        catch (IllegalArgumentException e) {
+            log.fine("Error reading invalid zip entry names: " + e.getMessage());
+            return null;
         }
-        return null;
     }
 
     public boolean read(InputStream source, int readBufferSize, Calendar startDate,
                         List<NavigationFormat> formats) throws IOException {
         log.fine("Reading '" + source + "' with a buffer of " + readBufferSize + " bytes by " + formats.size() + " formats");
-        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(source, readBufferSize + 1));
+        MarkableBufferedInputStream marked = new MarkableBufferedInputStream(source, readBufferSize + 1);
+        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(marked);
         buffer.mark(readBufferSize + 1);
+        long start = System.nanoTime();
+        ArchiveSource archiveSource = new ArchiveSource(null);
         try {
-            formatAndRoutes = internalRead(buffer, readBufferSize, startDate, formats);
+            formatAndRoutes = internalRead(buffer, marked, readBufferSize, startDate, formats, archiveSource);
             if(formatAndRoutes == null) {
-                formatAndRoutes = zipRead(buffer, readBufferSize, startDate, formats);
+                ZipArchive archive = archiveSource.open(buffer);
+                if (archive != null)
+                    formatAndRoutes = zipRead(archive, startDate, formats);
             }
             return formatAndRoutes != null;
         }
         finally {
+            archiveSource.close();
             buffer.closeUnderlyingInputStream();
+            notifyRead(start);
         }
     }
 
@@ -244,9 +342,50 @@ public class NavigationFileParser {
         }
         int readBufferSize = getSize(url);
         log.info("Reading '" + url + "' with a buffer of " + readBufferSize + " bytes");
+        if (parsedRouteCache != null && parsedRouteCache.isEnabled())
+            return cachedRead(url, readBufferSize, formats);
         return read(url.openStream(), readBufferSize, getStartDate(url), formats);
     }
 
+    private boolean cachedRead(URL url, int readBufferSize, List<NavigationFormat> formats) throws IOException {
+        File file = toFile(url);
+        byte[] content = null;
+        String identity;
+        if (file != null)
+            identity = parsedRouteCache.createIdentity(file);
+        else {
+            // urls are identified by their content which is parsed from memory then
+            content = InputOutput.readBytes(url);
+            identity = parsedRouteCache.createIdentity(content);
+            readBufferSize = content.length;
+        }
+
+        long start = System.nanoTime();
+        FormatAndRoutes cached = parsedRouteCache.load(identity, formats);
+        if (cached != null) {
+            log.info("Loaded '" + cached.getFormat().getName() + "' file with " + cached.getRoutes().size() +
+                    " route(s) from cache");
+            formatAndRoutes = cached;
+            notifyReading(cached.getFormat());
+            notifyRead(start);
+            return true;
+        }
+
+        InputStream source = content != null ? new ByteArrayInputStream(content) : url.openStream();
+        boolean successful = read(source, readBufferSize, getStartDate(url), formats);
+        if (successful)
+            parsedRouteCache.store(identity, formats, formatAndRoutes);
+        return successful;
+    }
+
+    private File toFile(URL url) throws IOException {
+        try {
+            return url.getProtocol().equals("file") ? new File(url.toURI()) : null;
+        } catch (URISyntaxException e) {
+            throw new IOException("Cannot determine file from URL: " + e.getMessage());
+        }
+    }
+
     public boolean read(URL url) throws IOException {
         return read(url, NavigationFormats.getReadFormats());
     }
@@ -256,15 +395,27 @@ public class NavigationFileParser {
         return Transfer.ceiling(route.getPositionCount() + (duplicateFirstPosition ? 1 : 0), format.getMaximumPositionCount(), true);
     }
 
-    @SuppressWarnings("unchecked")
     public void write(BaseRoute route, NavigationFormat format,
                       boolean duplicateFirstPosition,
                       boolean ignoreMaximumPositionCount,
                       OutputStream... targets) throws IOException {
+        write(route, format, duplicateFirstPosition, ignoreMaximumPositionCount, targets, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(BaseRoute route, NavigationFormat format,
+                       boolean duplicateFirstPosition,
+                       boolean ignoreMaximumPositionCount,
+                       OutputStream[] targets, SplitFileWriter splitFileWriter) throws IOException {
         log.info("Writing '" + format.getName() + "' position lists with 1 route and " + route.getPositionCount() + " positions");
 
+        long start = System.nanoTime();
         BaseRoute routeToWrite = NavigationFormats.asFormat(route, format);
+        notifyProcessed(NavigationFileParserPhase.AsFormat, format, route.getPositionCount(), start);
+
+        start = System.nanoTime();
         preprocessRoute(routeToWrite, format, duplicateFirstPosition);
+        notifyProcessed(NavigationFileParserPhase.Preprocess, format, routeToWrite.getPositionCount(), start);
 
         int positionsToWrite = routeToWrite.getPositionCount();
         int writeInOneChunk = format.getMaximumPositionCount();
@@ -278,15 +429,19 @@ public class NavigationFileParser {
                         " format may only contain " + writeInOneChunk + " positions in one position list.");
         }
 
+        start = System.nanoTime();
         int startIndex = 0;
         for (int i = 0; i < targets.length; i++) {
             OutputStream target = targets[i];
             int endIndex = Math.min(startIndex + writeInOneChunk, positionsToWrite);
             renameRoute(route, routeToWrite, startIndex, endIndex, i, targets);
             format.write(routeToWrite, target, startIndex, endIndex);
+            if (splitFileWriter != null)
+                splitFileWriter.written(i);
             log.info("Wrote position list from " + startIndex + " to " + endIndex);
             startIndex += writeInOneChunk;
         }
+        notifyProcessed(NavigationFileParserPhase.Write, format, positionsToWrite, start);
 
         postProcessRoute(routeToWrite, format, duplicateFirstPosition);
 
@@ -297,10 +452,14 @@ public class NavigationFileParser {
                       boolean duplicateFirstPosition,
                       boolean ignoreMaximumPositionCount,
                       File... targets) throws IOException {
-        OutputStream[] targetStreams = new OutputStream[targets.length];
-        for (int i = 0; i < targetStreams.length; i++)
-            targetStreams[i] = new FileOutputStream(targets[i]);
-        write(route, format, duplicateFirstPosition, ignoreMaximumPositionCount, targetStreams);
+        SplitFileWriter splitFileWriter = new SplitFileWriter(targets, navigationFileParserListeners, WRITE_PARALLELISM);
+        try {
+            write(route, format, duplicateFirstPosition, ignoreMaximumPositionCount,
+                    splitFileWriter.getOutputStreams(), splitFileWriter);
+            splitFileWriter.commit();
+        } finally {
+            splitFileWriter.discard();
+        }
         for (File target : targets)
             log.info("Wrote '" + target.getAbsolutePath() + "'");
     }
@@ -343,13 +502,27 @@ public class NavigationFileParser {
 
         List<BaseRoute> routesToWrite = new ArrayList<BaseRoute>(routes.size());
         for (BaseRoute route : routes) {
+            long start = System.nanoTime();
             BaseRoute routeToWrite = NavigationFormats.asFormat(route, format);
+            notifyProcessed(NavigationFileParserPhase.AsFormat, format, route.getPositionCount(), start);
+
+            start = System.nanoTime();
             preprocessRoute(routeToWrite, format, false);
+            notifyProcessed(NavigationFileParserPhase.Preprocess, format, routeToWrite.getPositionCount(), start);
             routesToWrite.add(routeToWrite);
             postProcessRoute(routeToWrite, format, false);
         }
 
-        format.write(routesToWrite, new FileOutputStream(target));
+        long start = System.nanoTime();
+        SplitFileWriter splitFileWriter = new SplitFileWriter(new File[]{target}, navigationFileParserListeners, 1);
+        try {
+            format.write(routesToWrite, splitFileWriter.getOutputStreams()[0]);
+            splitFileWriter.written(0);
+            splitFileWriter.commit();
+        } finally {
+            splitFileWriter.discard();
+        }
+        notifyProcessed(NavigationFileParserPhase.Write, format, getPositionCount(routesToWrite), start);
         log.info("Wrote '" + target.getAbsolutePath() + "'");
 
         this.formatAndRoutes = new FormatAndRoutes(format, routesToWrite);
@@ -0,0 +1,51 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.io.File;
+import java.net.URL;
+
+/**
+ * An empty implementation of the {@link NavigationFileParserListener}
+ * for listeners which are interested in some of the events only.
+ *
+ * @author Christian Pesch
+ */
+
+public abstract class NavigationFileParserAdapter implements NavigationFileParserListener {
+    public void reading(NavigationFormat<BaseRoute> format) {
+    }
+
+    public void read(NavigationFormat<BaseRoute> format, boolean successful, int positionCount, long bytesRead, long nanoSeconds) {
+    }
+
+    public void processed(NavigationFileParserPhase phase, NavigationFormat format, int positionCount, long nanoSeconds) {
+    }
+
+    public void written(File target, int written, int total) {
+    }
+
+    public void progress(URL url, int processed, int total) {
+    }
+
+    public void cancelled(int processed, int total) {
+    }
+}
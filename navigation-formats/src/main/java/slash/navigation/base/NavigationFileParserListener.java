@@ -20,6 +20,9 @@
 
 package slash.navigation.base;
 
+import java.io.File;
+import java.net.URL;
+
 /**
  * Interface for events from a {@link NavigationFileParser}
  *
@@ -27,5 +30,59 @@ package slash.navigation.base;
  */
 
 public interface NavigationFileParserListener {
+    /**
+     * Called before the given format tries to read the input.
+     *
+     * @param format the format that is about to read
+     */
     void reading(NavigationFormat<BaseRoute> format);
+
+    /**
+     * Called after the given format tried to read the input.
+     *
+     * @param format the format that tried to read
+     * @param successful if the format read at least one route
+     * @param positionCount the number of positions read
+     * @param bytesRead the number of bytes the format consumed
+     * @param nanoSeconds the time the format needed
+     */
+    void read(NavigationFormat<BaseRoute> format, boolean successful, int positionCount, long bytesRead, long nanoSeconds);
+
+    /**
+     * Called after a phase of reading or writing has been processed.
+     *
+     * @param phase the phase that has been processed
+     * @param format the format that has been read or written
+     * @param positionCount the number of positions processed
+     * @param nanoSeconds the time the phase needed
+     */
+    void processed(NavigationFileParserPhase phase, NavigationFormat format, int positionCount, long nanoSeconds);
+
+    /**
+     * Called after a file of a position list has been written completely.
+     * The file replaces the target file only after all files of the position
+     * list have been written. May be called from a thread that writes the files.
+     *
+     * @param target the target file which has been written
+     * @param written the number of files written so far
+     * @param total the number of files of the position list
+     */
+    void written(File target, int written, int total);
+
+    /**
+     * Called after a {@link BatchNavigationFileParser} delivered the result for an url.
+     *
+     * @param url the url that has been parsed
+     * @param processed the number of urls processed so far
+     * @param total the number of urls of the batch
+     */
+    void progress(URL url, int processed, int total);
+
+    /**
+     * Called after a {@link BatchNavigationFileParser} has been cancelled.
+     *
+     * @param processed the number of urls processed before the cancellation
+     * @param total the number of urls of the batch
+     */
+    void cancelled(int processed, int total);
 }
@@ -0,0 +1,136 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Records per {@link NavigationFormat} and per {@link NavigationFileParserPhase} how
+ * often and how long the {@link NavigationFileParser} tried to read, preprocess, convert
+ * and write and publishes the results as JMX MBeans. Optionally logs a summary line
+ * for every read and write operation.
+ *
+ * @author Christian Pesch
+ */
+
+public class NavigationFileParserStatistics extends NavigationFileParserAdapter implements NavigationFileParserStatisticsMBean {
+    private static final Logger log = Logger.getLogger(NavigationFileParserStatistics.class.getName());
+    private static final String DOMAIN = "slash.navigation";
+    private static final NavigationFileParserStatistics instance = new NavigationFileParserStatistics();
+
+    private final Map<String, FormatStatistics> formatStatistics = new ConcurrentHashMap<String, FormatStatistics>();
+    private final Map<NavigationFileParserPhase, PhaseStatistics> phaseStatistics = new ConcurrentHashMap<NavigationFileParserPhase, PhaseStatistics>();
+    private final ThreadLocal<List<String>> summary = new ThreadLocal<List<String>>() {
+        protected List<String> initialValue() {
+            return new ArrayList<String>();
+        }
+    };
+    private volatile boolean logSummary = Boolean.getBoolean(NavigationFileParser.class.getName() + ".logSummary");
+
+    private NavigationFileParserStatistics() {
+        register(this, "type=NavigationFileParser");
+        for (NavigationFileParserPhase phase : NavigationFileParserPhase.values()) {
+            PhaseStatistics statistics = new PhaseStatistics(phase);
+            phaseStatistics.put(phase, statistics);
+            register(statistics, "type=Phase,name=" + phase.name());
+        }
+    }
+
+    public static NavigationFileParserStatistics getInstance() {
+        return instance;
+    }
+
+    private static void register(Object mbean, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":" + name);
+            if (!server.isRegistered(objectName))
+                server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            log.warning("Cannot register MBean " + name + ": " + e.getMessage());
+        } catch (SecurityException e) {
+            log.warning("Not allowed to register MBean " + name + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isLogSummary() {
+        return logSummary;
+    }
+
+    public void setLogSummary(boolean logSummary) {
+        this.logSummary = logSummary;
+    }
+
+    public FormatStatistics getFormatStatistics(NavigationFormat format) {
+        String name = format.getClass().getSimpleName();
+        FormatStatistics statistics = formatStatistics.get(name);
+        if (statistics == null) {
+            synchronized (formatStatistics) {
+                statistics = formatStatistics.get(name);
+                if (statistics == null) {
+                    statistics = new FormatStatistics(name);
+                    formatStatistics.put(name, statistics);
+                    register(statistics, "type=Format,name=" + name);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    public PhaseStatistics getPhaseStatistics(NavigationFileParserPhase phase) {
+        return phaseStatistics.get(phase);
+    }
+
+    public void reset() {
+        for (FormatStatistics statistics : formatStatistics.values())
+            statistics.reset();
+        for (PhaseStatistics statistics : phaseStatistics.values())
+            statistics.reset();
+    }
+
+    public void read(NavigationFormat<BaseRoute> format, boolean successful, int positionCount, long bytesRead, long nanoSeconds) {
+        getFormatStatistics(format).read(successful, positionCount, bytesRead, nanoSeconds);
+        if (logSummary)
+            summary.get().add(String.format("%s %s %d bytes %d ms", format.getClass().getSimpleName(),
+                    successful ? "read " + positionCount + " positions from" : "failed after",
+                    bytesRead, nanoSeconds / 1000000));
+    }
+
+    public void processed(NavigationFileParserPhase phase, NavigationFormat format, int positionCount, long nanoSeconds) {
+        getPhaseStatistics(phase).processed(positionCount, nanoSeconds);
+        if (logSummary) {
+            List<String> entries = summary.get();
+            entries.add(String.format("%s of %d positions %d ms", phase.name(), positionCount, nanoSeconds / 1000000));
+            if (phase.equals(NavigationFileParserPhase.Read) || phase.equals(NavigationFileParserPhase.Write)) {
+                log.info((format != null ? format.getName() : "No format") + ": " + entries);
+                entries.clear();
+            }
+        }
+    }
+}
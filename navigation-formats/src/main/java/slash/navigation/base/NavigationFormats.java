@@ -64,7 +64,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Contains a list of all navigation formats.
@@ -225,6 +227,16 @@ public final class NavigationFormats {
         return sortByName(getWriteFormats());
     }
 
+    public static String[] getReadFormatExtensions() {
+        Set<String> extensions = new LinkedHashSet<String>();
+        for (NavigationFormat format : getReadFormats()) {
+            String extension = format.getExtension();
+            if (extension != null && extension.length() > 0)
+                extensions.add(extension);
+        }
+        return extensions.toArray(new String[extensions.size()]);
+    }
+
     public static List<NavigationFormat> getReadFormatsPreferredByExtension(String preferredExtension) {
         List<NavigationFormat> preferredFormats = new ArrayList<NavigationFormat>();
         for(NavigationFormat format : getReadFormats()) {
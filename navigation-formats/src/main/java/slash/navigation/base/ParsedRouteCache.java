@@ -0,0 +1,571 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.io.CompactCalendar;
+import slash.navigation.nmea.BaseNmeaFormat;
+import slash.navigation.nmea.NmeaPosition;
+import slash.navigation.nmea.NmeaRoute;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Caches the parsed {@link FormatAndRoutes} of files and urls in a directory
+ * to skip the format detection and parsing when they are read again.
+ * <p/>
+ * Entries are keyed by the path, size and modification time of local files or
+ * the content of other urls, the formats to read with and a stamp of the parser
+ * code. The least recently used entries are evicted if the directory grows beyond
+ * its maximum size. Only routes which are completely described by their positions
+ * are cached: {@link Wgs84Route}s with {@link Wgs84Position}s and {@link NmeaRoute}s
+ * with {@link NmeaPosition}s. Routes which keep format specific data to write
+ * it again, like GPX or KML, are always parsed. The cache is disabled if the
+ * stamp of the parser code cannot be determined.
+ *
+ * @author Christian Pesch
+ */
+
+public class ParsedRouteCache {
+    private static final Logger log = Logger.getLogger(ParsedRouteCache.class.getName());
+    private static final int MAGIC = 0x52434331;
+    private static final int ENTRY_VERSION = 1;
+    private static final String ENTRY_EXTENSION = ".routes";
+    private static final String CODE_STAMP = createCodeStamp();
+
+    private static final byte WGS84_ROUTE = 1;
+    private static final byte NMEA_ROUTE = 2;
+
+    private static final int ELEVATION = 1;
+    private static final int SPEED = 1 << 1;
+    private static final int TIME = 1 << 2;
+    private static final int LONGITUDE = 1 << 3;
+    private static final int LATITUDE = 1 << 4;
+    private static final int HEADING = 1 << 5;
+    private static final int HDOP = 1 << 6;
+    private static final int VDOP = 1 << 7;
+    private static final int PDOP = 1 << 8;
+    private static final int SATELLITES = 1 << 9;
+    private static final int COMMENT = 1 << 10;
+    private static final int EAST_OR_WEST = 1 << 11;
+    private static final int NORTH_OR_SOUTH = 1 << 12;
+
+    private static final int MINIMUM_ROUTE_SIZE = 9;
+    private static final int MINIMUM_POSITION_SIZE = 2;
+
+    private final File directory;
+    private final long maximumSize;
+
+    public ParsedRouteCache(File directory, long maximumSize) {
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+    }
+
+    private static String createCodeStamp() {
+        // the jar or the class file of the parser changes with every build
+        try {
+            CodeSource source = ParsedRouteCache.class.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null && "file".equals(source.getLocation().getProtocol())) {
+                File file = new File(source.getLocation().toURI());
+                if (file.isFile())
+                    return file.length() + "-" + file.lastModified();
+            }
+            URL url = NavigationFileParser.class.getResource("NavigationFileParser.class");
+            if (url != null) {
+                long lastModified = url.openConnection().getLastModified();
+                if (lastModified != 0)
+                    return Long.toString(lastModified);
+            }
+        } catch (URISyntaxException e) {
+            log.fine("Cannot determine code stamp: " + e.getMessage());
+        } catch (IOException e) {
+            log.fine("Cannot determine code stamp: " + e.getMessage());
+        } catch (SecurityException e) {
+            log.fine("Cannot determine code stamp: " + e.getMessage());
+        }
+        // without a stamp entries of another parser version could be loaded
+        log.warning("Cannot determine code stamp, disabling the cache of parsed routes");
+        return null;
+    }
+
+    /**
+     * Returns if routes are cached, which requires a stamp of the parser code.
+     *
+     * @return true if routes are loaded and stored
+     */
+    public boolean isEnabled() {
+        return CODE_STAMP != null;
+    }
+
+    /**
+     * Identifies a local file by its path, size and modification time.
+     *
+     * @param file the local file
+     * @return the identity of the file
+     */
+    public String createIdentity(File file) {
+        return "file:" + file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    /**
+     * Identifies content by its hash.
+     *
+     * @param content the content of an url
+     * @return the identity of the content
+     */
+    public String createIdentity(byte[] content) {
+        return "sha1:" + toHex(createDigest().digest(content)) + ":" + content.length;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder buffer = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buffer.append(Character.forDigit((b >> 4) & 0xf, 16));
+            buffer.append(Character.forDigit(b & 0xf, 16));
+        }
+        return buffer.toString();
+    }
+
+    private static String createStamp(String identity, List<NavigationFormat> formats) {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ENTRY_VERSION).append('|').append(CODE_STAMP).append('|').append(identity);
+        for (NavigationFormat format : formats)
+            buffer.append('|').append(format.getClass().getName());
+        return buffer.toString();
+    }
+
+    private File getEntryFile(String stamp) {
+        try {
+            return new File(directory, toHex(createDigest().digest(stamp.getBytes("UTF-8"))) + ENTRY_EXTENSION);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+    }
+
+    /**
+     * Loads the routes which have been parsed from the given identity by the given formats.
+     *
+     * @param identity the identity of a file or content
+     * @param formats  the formats the routes would be read with
+     * @return the cached routes or null if there is no valid entry
+     */
+    public synchronized FormatAndRoutes load(String identity, List<NavigationFormat> formats) {
+        if (!isEnabled())
+            return null;
+
+        String stamp = createStamp(identity, formats);
+        File file = getEntryFile(stamp);
+        if (!file.exists())
+            return null;
+
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+            try {
+                FormatAndRoutes formatAndRoutes = readEntry(input, file.length(), stamp, formats);
+                if (formatAndRoutes != null) {
+                    if (!file.setLastModified(System.currentTimeMillis()))
+                        log.fine("Cannot mark " + file + " as recently used");
+                    return formatAndRoutes;
+                }
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            log.fine("Cannot load " + file + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.warning("Cannot load " + file + ": " + e.getMessage());
+        }
+
+        // stale or corrupted
+        if (!file.delete())
+            log.fine("Cannot delete " + file);
+        return null;
+    }
+
+    /**
+     * Stores the routes parsed from the given identity by the given formats
+     * if all of them can be cached.
+     *
+     * @param identity        the identity of a file or content
+     * @param formats         the formats the routes have been read with
+     * @param formatAndRoutes the parsed format and routes
+     * @return true if the routes have been stored
+     */
+    public synchronized boolean store(String identity, List<NavigationFormat> formats, FormatAndRoutes formatAndRoutes) {
+        if (!isEnabled() || !isCacheable(formatAndRoutes))
+            return false;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            log.warning("Cannot create cache directory " + directory);
+            return false;
+        }
+
+        String stamp = createStamp(identity, formats);
+        File file = getEntryFile(stamp);
+        File temporaryFile = null;
+        try {
+            temporaryFile = File.createTempFile("." + file.getName() + "-", ".tmp", directory);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 64 * 1024));
+            try {
+                writeEntry(output, stamp, formatAndRoutes);
+            } finally {
+                output.close();
+            }
+            if (!temporaryFile.renameTo(file) && !(file.delete() && temporaryFile.renameTo(file)))
+                throw new IOException("Cannot rename " + temporaryFile + " to " + file);
+            temporaryFile = null;
+        } catch (IOException e) {
+            log.warning("Cannot store " + file + ": " + e.getMessage());
+            return false;
+        } finally {
+            if (temporaryFile != null && temporaryFile.exists() && !temporaryFile.delete())
+                log.fine("Cannot delete " + temporaryFile);
+        }
+
+        evict();
+        return true;
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public synchronized void clear() {
+        for (File file : getEntryFiles())
+            if (!file.delete())
+                log.fine("Cannot delete " + file);
+    }
+
+    private File[] getEntryFiles() {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return new File[0];
+        List<File> entries = new ArrayList<File>();
+        for (File file : files)
+            if (file.getName().endsWith(ENTRY_EXTENSION))
+                entries.add(file);
+        return entries.toArray(new File[entries.size()]);
+    }
+
+    private void evict() {
+        File[] files = getEntryFiles();
+        final long[] lastModified = new long[files.length];
+        long size = 0;
+        for (int i = 0; i < files.length; i++)
+            size += files[i].length();
+        if (size <= maximumSize)
+            return;
+
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return lastModified[i1] < lastModified[i2] ? -1 : lastModified[i1] == lastModified[i2] ? 0 : 1;
+            }
+        });
+
+        for (int i = 0; i < order.length && size > maximumSize; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+                log.fine("Evicted " + file);
+            }
+        }
+    }
+
+    static boolean isCacheable(FormatAndRoutes formatAndRoutes) {
+        for (Object route : formatAndRoutes.getRoutes()) {
+            if (route.getClass().equals(Wgs84Route.class)) {
+                for (Object position : ((Wgs84Route) route).getPositions())
+                    if (!position.getClass().equals(Wgs84Position.class))
+                        return false;
+            } else if (route.getClass().equals(NmeaRoute.class)) {
+                for (Object position : ((NmeaRoute) route).getPositions())
+                    if (!position.getClass().equals(NmeaPosition.class))
+                        return false;
+            } else
+                return false;
+        }
+        return formatAndRoutes.getRoutes().size() > 0;
+    }
+
+    private static NavigationFormat findFormat(String className, List<NavigationFormat> formats) {
+        for (NavigationFormat format : formats)
+            if (format.getClass().getName().equals(className))
+                return format;
+        return null;
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        output.writeBoolean(string != null);
+        if (string != null)
+            output.writeUTF(string);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeEntry(DataOutputStream output, String stamp, FormatAndRoutes formatAndRoutes) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeUTF(stamp);
+        output.writeUTF(formatAndRoutes.getFormat().getClass().getName());
+        List<BaseRoute> routes = formatAndRoutes.getRoutes();
+        output.writeInt(routes.size());
+        for (BaseRoute route : routes) {
+            boolean nmea = route instanceof NmeaRoute;
+            output.writeByte(nmea ? NMEA_ROUTE : WGS84_ROUTE);
+            output.writeUTF(route.getFormat().getClass().getName());
+            output.writeUTF(route.getCharacteristics().name());
+            writeString(output, ((SimpleRoute) route).name);
+            List<BaseNavigationPosition> positions = route.getPositions();
+            output.writeInt(positions.size());
+            for (BaseNavigationPosition position : positions) {
+                if (nmea)
+                    writePosition(output, (NmeaPosition) position);
+                else
+                    writePosition(output, (Wgs84Position) position);
+            }
+        }
+        output.writeInt(MAGIC);
+    }
+
+    private static int getFlags(BaseNavigationPosition position) {
+        int flags = 0;
+        if (position.getElevation() != null)
+            flags |= ELEVATION;
+        if (position.getSpeed() != null)
+            flags |= SPEED;
+        if (position.getTime() != null)
+            flags |= TIME;
+        return flags;
+    }
+
+    private static int getFlags(Double longitude, Double latitude, Double heading, Double hdop, Double vdop,
+                                Double pdop, Integer satellites, String comment) {
+        int flags = 0;
+        if (longitude != null)
+            flags |= LONGITUDE;
+        if (latitude != null)
+            flags |= LATITUDE;
+        if (heading != null)
+            flags |= HEADING;
+        if (hdop != null)
+            flags |= HDOP;
+        if (vdop != null)
+            flags |= VDOP;
+        if (pdop != null)
+            flags |= PDOP;
+        if (satellites != null)
+            flags |= SATELLITES;
+        if (comment != null)
+            flags |= COMMENT;
+        return flags;
+    }
+
+    private static void writeBase(DataOutputStream output, int flags, BaseNavigationPosition position) throws IOException {
+        output.writeShort(flags);
+        if ((flags & ELEVATION) != 0)
+            output.writeDouble(position.getElevation());
+        if ((flags & SPEED) != 0)
+            output.writeDouble(position.getSpeed());
+        if ((flags & TIME) != 0) {
+            output.writeLong(position.getTime().getTimeInMillis());
+            output.writeUTF(position.getTime().getTimeZoneId());
+        }
+    }
+
+    private static void writeDetails(DataOutputStream output, int flags, Double longitude, Double latitude,
+                                     Double heading, Double hdop, Double vdop, Double pdop,
+                                     Integer satellites, String comment) throws IOException {
+        if ((flags & LONGITUDE) != 0)
+            output.writeDouble(longitude);
+        if ((flags & LATITUDE) != 0)
+            output.writeDouble(latitude);
+        if ((flags & HEADING) != 0)
+            output.writeDouble(heading);
+        if ((flags & HDOP) != 0)
+            output.writeDouble(hdop);
+        if ((flags & VDOP) != 0)
+            output.writeDouble(vdop);
+        if ((flags & PDOP) != 0)
+            output.writeDouble(pdop);
+        if ((flags & SATELLITES) != 0)
+            output.writeInt(satellites);
+        if ((flags & COMMENT) != 0)
+            output.writeUTF(comment);
+    }
+
+    private static void writePosition(DataOutputStream output, Wgs84Position position) throws IOException {
+        int flags = getFlags(position) | getFlags(position.longitude, position.latitude, position.heading,
+                position.hdop, position.vdop, position.pdop, position.satellites, position.comment);
+        writeBase(output, flags, position);
+        writeDetails(output, flags, position.longitude, position.latitude, position.heading,
+                position.hdop, position.vdop, position.pdop, position.satellites, position.comment);
+    }
+
+    private static void writePosition(DataOutputStream output, NmeaPosition position) throws IOException {
+        int flags = getFlags(position) | getFlags(position.getLongitudeAsDdmm(), position.getLatitudeAsDdmm(),
+                position.getHeading(), position.getHdop(), position.getVdop(), position.getPdop(),
+                position.getSatellites(), position.getComment());
+        if (position.getEastOrWest() != null)
+            flags |= EAST_OR_WEST;
+        if (position.getNorthOrSouth() != null)
+            flags |= NORTH_OR_SOUTH;
+        writeBase(output, flags, position);
+        writeDetails(output, flags, position.getLongitudeAsDdmm(), position.getLatitudeAsDdmm(),
+                position.getHeading(), position.getHdop(), position.getVdop(), position.getPdop(),
+                position.getSatellites(), position.getComment());
+        if ((flags & EAST_OR_WEST) != 0)
+            output.writeUTF(position.getEastOrWest());
+        if ((flags & NORTH_OR_SOUTH) != 0)
+            output.writeUTF(position.getNorthOrSouth());
+    }
+
+    private static int readCount(DataInputStream input, long entrySize, int minimumSize) throws IOException {
+        int count = input.readInt();
+        // a corrupted count must not allocate more elements than the entry can hold
+        if (count < 0 || (long) count * minimumSize > entrySize)
+            throw new IOException("Invalid count " + count + " for an entry of " + entrySize + " bytes");
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private FormatAndRoutes readEntry(DataInputStream input, long entrySize, String stamp, List<NavigationFormat> formats) throws IOException {
+        if (input.readInt() != MAGIC || !stamp.equals(input.readUTF()))
+            return null;
+        NavigationFormat format = findFormat(input.readUTF(), formats);
+        if (format == null)
+            return null;
+
+        int routeCount = readCount(input, entrySize, MINIMUM_ROUTE_SIZE);
+        List<BaseRoute> routes = new ArrayList<BaseRoute>(routeCount);
+        for (int i = 0; i < routeCount; i++) {
+            byte type = input.readByte();
+            NavigationFormat routeFormat = findFormat(input.readUTF(), formats);
+            RouteCharacteristics characteristics = RouteCharacteristics.valueOf(input.readUTF());
+            String name = readString(input);
+            int positionCount = readCount(input, entrySize, MINIMUM_POSITION_SIZE);
+
+            SimpleRoute route;
+            if (type == WGS84_ROUTE && routeFormat instanceof SimpleFormat) {
+                List<Wgs84Position> positions = new ArrayList<Wgs84Position>(positionCount);
+                for (int j = 0; j < positionCount; j++)
+                    positions.add(readWgs84Position(input));
+                route = new Wgs84Route((SimpleFormat) routeFormat, characteristics, positions);
+            } else if (type == NMEA_ROUTE && routeFormat instanceof BaseNmeaFormat) {
+                List<NmeaPosition> positions = new ArrayList<NmeaPosition>(positionCount);
+                for (int j = 0; j < positionCount; j++)
+                    positions.add(readNmeaPosition(input));
+                route = new NmeaRoute((BaseNmeaFormat) routeFormat, characteristics, positions);
+            } else
+                return null;
+            route.name = name;
+            routes.add(route);
+        }
+
+        if (input.readInt() != MAGIC)
+            throw new EOFException("Missing end of entry");
+        return new FormatAndRoutes(format, routes);
+    }
+
+    private static Double readDouble(DataInputStream input, int flags, int flag) throws IOException {
+        return (flags & flag) != 0 ? input.readDouble() : null;
+    }
+
+    private static CompactCalendar readTime(DataInputStream input, int flags) throws IOException {
+        if ((flags & TIME) == 0)
+            return null;
+        long timeInMillis = input.readLong();
+        return CompactCalendar.fromMillisAndTimeZone(timeInMillis, input.readUTF());
+    }
+
+    private static Wgs84Position readWgs84Position(DataInputStream input) throws IOException {
+        int flags = input.readUnsignedShort();
+        Double elevation = readDouble(input, flags, ELEVATION);
+        Double speed = readDouble(input, flags, SPEED);
+        CompactCalendar time = readTime(input, flags);
+        Double longitude = readDouble(input, flags, LONGITUDE);
+        Double latitude = readDouble(input, flags, LATITUDE);
+        // the comment has already been parsed into the other fields
+        Wgs84Position position = new Wgs84Position(longitude, latitude, elevation, speed, time, null);
+        position.heading = readDouble(input, flags, HEADING);
+        position.hdop = readDouble(input, flags, HDOP);
+        position.vdop = readDouble(input, flags, VDOP);
+        position.pdop = readDouble(input, flags, PDOP);
+        position.satellites = (flags & SATELLITES) != 0 ? input.readInt() : null;
+        position.comment = (flags & COMMENT) != 0 ? input.readUTF() : null;
+        return position;
+    }
+
+    private static NmeaPosition readNmeaPosition(DataInputStream input) throws IOException {
+        int flags = input.readUnsignedShort();
+        Double elevation = readDouble(input, flags, ELEVATION);
+        Double speed = readDouble(input, flags, SPEED);
+        CompactCalendar time = readTime(input, flags);
+        Double longitude = readDouble(input, flags, LONGITUDE);
+        Double latitude = readDouble(input, flags, LATITUDE);
+        Double heading = readDouble(input, flags, HEADING);
+        Double hdop = readDouble(input, flags, HDOP);
+        Double vdop = readDouble(input, flags, VDOP);
+        Double pdop = readDouble(input, flags, PDOP);
+        Integer satellites = (flags & SATELLITES) != 0 ? input.readInt() : null;
+        String comment = (flags & COMMENT) != 0 ? input.readUTF() : null;
+        String eastOrWest = (flags & EAST_OR_WEST) != 0 ? input.readUTF() : null;
+        String northOrSouth = (flags & NORTH_OR_SOUTH) != 0 ? input.readUTF() : null;
+        NmeaPosition position = new NmeaPosition(longitude, eastOrWest, latitude, northOrSouth, elevation, speed, heading, time, comment);
+        position.setHdop(hdop);
+        position.setVdop(vdop);
+        position.setPdop(pdop);
+        position.setSatellites(satellites);
+        return position;
+    }
+}
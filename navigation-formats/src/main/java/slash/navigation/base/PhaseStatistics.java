@@ -0,0 +1,78 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often a {@link NavigationFileParserPhase} has been processed
+ * and the time spent on it.
+ *
+ * @author Christian Pesch
+ */
+
+public class PhaseStatistics implements PhaseStatisticsMBean {
+    private final NavigationFileParserPhase phase;
+    private final AtomicLong count = new AtomicLong(), positions = new AtomicLong(),
+            nanoSeconds = new AtomicLong(), maximumNanoSeconds = new AtomicLong();
+
+    public PhaseStatistics(NavigationFileParserPhase phase) {
+        this.phase = phase;
+    }
+
+    public String getPhase() {
+        return phase.name();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getPositions() {
+        return positions.get();
+    }
+
+    public long getTimeSpentMillis() {
+        return nanoSeconds.get() / 1000000;
+    }
+
+    public long getMaximumTimeMillis() {
+        return maximumNanoSeconds.get() / 1000000;
+    }
+
+    void processed(int positionCount, long nanoSeconds) {
+        count.incrementAndGet();
+        positions.addAndGet(positionCount);
+        this.nanoSeconds.addAndGet(nanoSeconds);
+        while (true) {
+            long maximum = maximumNanoSeconds.get();
+            if (nanoSeconds <= maximum || maximumNanoSeconds.compareAndSet(maximum, nanoSeconds))
+                break;
+        }
+    }
+
+    public void reset() {
+        count.set(0);
+        positions.set(0);
+        nanoSeconds.set(0);
+        maximumNanoSeconds.set(0);
+    }
+}
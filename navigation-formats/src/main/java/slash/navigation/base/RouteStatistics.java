@@ -0,0 +1,236 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.io.CompactCalendar;
+import slash.common.io.FenwickTree;
+
+import java.util.List;
+
+/**
+ * Keeps the distance, time, elevation ascend and descend of the segments
+ * of a list of {@link BaseNavigationPosition}s. Changes of the positions only
+ * recalculate the affected segments; totals and sums over ranges of positions
+ * are answered in O(log n).
+ * <p/>
+ * The segment with index i connects the positions with index i-1 and i.
+ *
+ * @author Christian Pesch
+ */
+
+public class RouteStatistics {
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final FenwickTree distances, times, ascends, descends;
+    private long[] timeMillis;
+    private long minimumTime = NO_TIME, maximumTime = NO_TIME;
+
+    public RouteStatistics(List<? extends BaseNavigationPosition> positions) {
+        int size = positions.size();
+        distances = new FenwickTree(size);
+        times = new FenwickTree(size);
+        ascends = new FenwickTree(size);
+        descends = new FenwickTree(size);
+        timeMillis = new long[Math.max(size, 1)];
+        insertSlots(0, size);
+        for (int i = 0; i < size; i++) {
+            setTime(i, positions.get(i));
+            calculateSegment(positions, i);
+        }
+    }
+
+    public int size() {
+        return distances.size();
+    }
+
+    /**
+     * Updates the statistics after positions have been inserted.
+     *
+     * @param positions the positions after the insert
+     * @param first     the index of the first inserted position
+     * @param last      the index of the last inserted position
+     */
+    public void inserted(List<? extends BaseNavigationPosition> positions, int first, int last) {
+        insertSlots(first, last - first + 1);
+        for (int i = first; i <= last; i++)
+            setTime(i, positions.get(i));
+        calculateSegments(positions, first, last + 1);
+    }
+
+    /**
+     * Updates the statistics after positions have been removed.
+     *
+     * @param positions the positions after the remove
+     * @param first     the index of the first removed position
+     * @param last      the index of the last removed position
+     */
+    public void removed(List<? extends BaseNavigationPosition> positions, int first, int last) {
+        distances.remove(first, last + 1);
+        times.remove(first, last + 1);
+        ascends.remove(first, last + 1);
+        descends.remove(first, last + 1);
+
+        boolean extremeRemoved = false;
+        for (int i = first; i <= last; i++)
+            extremeRemoved |= isExtremeTime(timeMillis[i]);
+        System.arraycopy(timeMillis, last + 1, timeMillis, first, size() - first);
+        if (extremeRemoved)
+            recalculateTimeRange();
+
+        calculateSegments(positions, first, first);
+    }
+
+    /**
+     * Updates the statistics after positions have been changed.
+     *
+     * @param positions the positions after the change
+     * @param first     the index of the first changed position
+     * @param last      the index of the last changed position
+     */
+    public void updated(List<? extends BaseNavigationPosition> positions, int first, int last) {
+        for (int i = first; i <= last; i++)
+            setTime(i, positions.get(i));
+        calculateSegments(positions, first, last + 1);
+    }
+
+    public double getDistance() {
+        return distances.sum(size());
+    }
+
+    public double getDistance(int first, int last) {
+        return distances.sum(first + 1, last + 1);
+    }
+
+    /**
+     * Returns the time in milliseconds: the larger one of the sum of the positive
+     * time differences of the segments and the time between the earliest and the
+     * latest position.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTime() {
+        long summedUp = (long) times.sum(size());
+        long maxMinusMin = minimumTime != NO_TIME ? maximumTime - minimumTime : 0;
+        return Math.max(summedUp, maxMinusMin);
+    }
+
+    public long getTime(int first, int last) {
+        return (long) times.sum(first + 1, last + 1);
+    }
+
+    public double getElevationAscend() {
+        return ascends.sum(size());
+    }
+
+    public double getElevationAscend(int first, int last) {
+        return ascends.sum(first + 1, last + 1);
+    }
+
+    public double getElevationDescend() {
+        return descends.sum(size());
+    }
+
+    public double getElevationDescend(int first, int last) {
+        return descends.sum(first + 1, last + 1);
+    }
+
+    private void insertSlots(int index, int count) {
+        distances.insert(index, count);
+        times.insert(index, count);
+        ascends.insert(index, count);
+        descends.insert(index, count);
+
+        int size = size();
+        if (size > timeMillis.length) {
+            long[] grown = new long[Math.max(size, timeMillis.length * 3 / 2 + 1)];
+            System.arraycopy(timeMillis, 0, grown, 0, size - count);
+            timeMillis = grown;
+        }
+        System.arraycopy(timeMillis, index, timeMillis, index + count, size - count - index);
+        for (int i = index; i < index + count; i++)
+            timeMillis[i] = NO_TIME;
+    }
+
+    private void calculateSegments(List<? extends BaseNavigationPosition> positions, int first, int last) {
+        for (int i = Math.max(first, 0); i <= last && i < size(); i++)
+            calculateSegment(positions, i);
+    }
+
+    private void calculateSegment(List<? extends BaseNavigationPosition> positions, int index) {
+        double distance = 0.0, ascend = 0.0, descend = 0.0;
+        long time = 0;
+        if (index > 0) {
+            BaseNavigationPosition previous = positions.get(index - 1);
+            BaseNavigationPosition next = positions.get(index);
+            Double segmentDistance = previous.calculateDistance(next);
+            if (segmentDistance != null)
+                distance = segmentDistance;
+            Long segmentTime = previous.calculateTime(next);
+            if (segmentTime != null && segmentTime > 0)
+                time = segmentTime;
+            Double elevation = previous.calculateElevation(next);
+            if (elevation != null) {
+                if (elevation > 0)
+                    ascend = elevation;
+                else
+                    descend = -elevation;
+            }
+        }
+        distances.set(index, distance);
+        times.set(index, time);
+        ascends.set(index, ascend);
+        descends.set(index, descend);
+    }
+
+    private boolean isExtremeTime(long time) {
+        return time != NO_TIME && (time == minimumTime || time == maximumTime);
+    }
+
+    private void setTime(int index, BaseNavigationPosition position) {
+        CompactCalendar calendar = position.getTime();
+        long previous = timeMillis[index];
+        long next = calendar != null ? calendar.getTimeInMillis() : NO_TIME;
+        timeMillis[index] = next;
+
+        if (isExtremeTime(previous) && previous != next)
+            recalculateTimeRange();
+        else if (next != NO_TIME) {
+            if (minimumTime == NO_TIME || next < minimumTime)
+                minimumTime = next;
+            if (maximumTime == NO_TIME || next > maximumTime)
+                maximumTime = next;
+        }
+    }
+
+    private void recalculateTimeRange() {
+        minimumTime = NO_TIME;
+        maximumTime = NO_TIME;
+        for (int i = 0; i < size(); i++) {
+            long time = timeMillis[i];
+            if (time == NO_TIME)
+                continue;
+            if (minimumTime == NO_TIME || time < minimumTime)
+                minimumTime = time;
+            if (maximumTime == NO_TIME || time > maximumTime)
+                maximumTime = time;
+        }
+    }
+}
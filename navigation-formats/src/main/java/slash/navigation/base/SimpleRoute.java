@@ -476,7 +476,7 @@ public abstract class SimpleRoute<P extends BaseNavigationPosition, F extends Si
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -487,7 +487,7 @@ public abstract class SimpleRoute<P extends BaseNavigationPosition, F extends Si
                 positions.equals(route.positions);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result;
         result = (name != null ? name.hashCode() : 0);
         result = 29 * result + characteristics.hashCode();
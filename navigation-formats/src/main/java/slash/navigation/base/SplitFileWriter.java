@@ -0,0 +1,279 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Writes the files of a position list behind the formats. For a single file
+ * the format writes into a buffered temporary file. If the position list is
+ * split into several files, every format writes into a buffer, and a bounded
+ * pool of threads writes that buffer to a temporary file while the format
+ * writes the next file.
+ * <p/>
+ * The temporary files are created next to the target files. They replace the
+ * target files only after all of them have been written. The existing target
+ * files are moved aside before and restored if a replacement fails, so a
+ * failure never leaves an incomplete or a half replaced set of files behind.
+ *
+ * @author Christian Pesch
+ */
+
+class SplitFileWriter {
+    private static final Logger log = Logger.getLogger(SplitFileWriter.class.getName());
+    private static final AtomicInteger writerCount = new AtomicInteger();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File[] targets;
+    private final File[] temporaryFiles;
+    private final OutputStream[] outputStreams;
+    private final Future[] futures;
+    private final ThreadPoolExecutor executor;
+    private final List<NavigationFileParserListener> navigationFileParserListeners;
+    private final AtomicInteger writtenCount = new AtomicInteger();
+
+    SplitFileWriter(File[] targets, List<NavigationFileParserListener> navigationFileParserListeners,
+                    int parallelism) throws IOException {
+        this.targets = targets;
+        this.navigationFileParserListeners = navigationFileParserListeners;
+        this.temporaryFiles = new File[targets.length];
+        this.outputStreams = new OutputStream[targets.length];
+        this.futures = new Future[targets.length];
+
+        if (targets.length == 1) {
+            temporaryFiles[0] = createTemporaryFile(targets[0]);
+            outputStreams[0] = new BufferedOutputStream(new FileOutputStream(temporaryFiles[0]), BUFFER_SIZE);
+            executor = null;
+        } else {
+            for (int i = 0; i < outputStreams.length; i++)
+                outputStreams[i] = new ByteArrayOutputStream(8 * 1024);
+            // without a second processor handing the buffers to another thread gains nothing
+            executor = parallelism > 1 ? createExecutor(parallelism) : null;
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(int parallelism) {
+        final int writer = writerCount.incrementAndGet();
+        // the bounded queue and running full buffers in the caller limit the buffers held in memory
+        return new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(parallelism), new ThreadFactory() {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SplitFileWriter-" + writer + "-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static File createTemporaryFile(File target, String suffix) throws IOException {
+        File directory = target.getAbsoluteFile().getParentFile();
+        return File.createTempFile("." + target.getName() + "-", suffix, directory);
+    }
+
+    private static File createTemporaryFile(File target) throws IOException {
+        return createTemporaryFile(target, ".tmp");
+    }
+
+    OutputStream[] getOutputStreams() {
+        return outputStreams;
+    }
+
+    private void fireWritten(File target) {
+        int written = writtenCount.incrementAndGet();
+        for (NavigationFileParserListener listener : navigationFileParserListeners) {
+            listener.written(target, written, targets.length);
+        }
+    }
+
+    private void writeToTemporaryFile(int index) throws IOException {
+        ByteArrayOutputStream buffer = (ByteArrayOutputStream) outputStreams[index];
+        File temporaryFile = createTemporaryFile(targets[index]);
+        temporaryFiles[index] = temporaryFile;
+        FileOutputStream outputStream = new FileOutputStream(temporaryFile);
+        try {
+            buffer.writeTo(outputStream);
+        } finally {
+            outputStream.close();
+        }
+        // release the buffer as early as possible
+        outputStreams[index] = null;
+        fireWritten(targets[index]);
+    }
+
+    /**
+     * Called after the format has written the position list for the given index.
+     *
+     * @param index the index of the target file
+     * @throws IOException if the file could not be written
+     */
+    void written(final int index) throws IOException {
+        if (targets.length == 1) {
+            outputStreams[0].close();
+            fireWritten(targets[0]);
+            return;
+        }
+        if (executor == null) {
+            writeToTemporaryFile(index);
+            return;
+        }
+
+        futures[index] = executor.submit(new Callable<Object>() {
+            public Object call() throws IOException {
+                writeToTemporaryFile(index);
+                return null;
+            }
+        });
+    }
+
+    private void awaitWritten() throws IOException {
+        for (Future future : futures) {
+            if (future == null)
+                throw new IOException("Not all position lists have been written");
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+                throw new IOException("Cannot write position list: " + cause, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing position lists");
+            }
+        }
+    }
+
+    boolean renameTo(File source, File target) {
+        return source.renameTo(target);
+    }
+
+    private void rename(File source, File target) throws IOException {
+        if (renameTo(source, target))
+            return;
+        // some platforms do not replace existing files
+        if (target.exists() && !target.delete())
+            throw new IOException("Cannot delete " + target.getAbsolutePath());
+        if (!renameTo(source, target))
+            throw new IOException("Cannot rename " + source.getAbsolutePath() + " to " + target.getAbsolutePath());
+    }
+
+    private File moveAside(File target) throws IOException {
+        File backup = createTemporaryFile(target, ".bak");
+        try {
+            rename(target, backup);
+            return backup;
+        } catch (IOException e) {
+            if (!backup.delete())
+                log.warning("Cannot delete backup file " + backup.getAbsolutePath());
+            throw e;
+        }
+    }
+
+    private void rollback(File[] backups, int replacedCount) {
+        for (int i = 0; i < targets.length; i++) {
+            try {
+                if (backups[i] != null)
+                    rename(backups[i], targets[i]);
+                else if (i < replacedCount && !targets[i].delete())
+                    log.warning("Cannot delete " + targets[i].getAbsolutePath());
+            } catch (IOException e) {
+                log.warning("Cannot restore " + targets[i].getAbsolutePath() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits until all files have been written and replaces the target files with them.
+     * If a target file cannot be replaced, the target files are restored.
+     *
+     * @throws IOException if a file could not be written or replaced
+     */
+    void commit() throws IOException {
+        if (executor != null)
+            awaitWritten();
+
+        File[] backups = new File[targets.length];
+        int replacedCount = 0;
+        try {
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i].exists())
+                    backups[i] = moveAside(targets[i]);
+            }
+            for (; replacedCount < targets.length; replacedCount++)
+                rename(temporaryFiles[replacedCount], targets[replacedCount]);
+        } catch (IOException e) {
+            rollback(backups, replacedCount);
+            throw e;
+        }
+
+        for (int i = 0; i < targets.length; i++) {
+            temporaryFiles[i] = null;
+            if (backups[i] != null && !backups[i].delete())
+                log.warning("Cannot delete backup file " + backups[i].getAbsolutePath());
+        }
+    }
+
+    /**
+     * Stops writing and deletes the temporary files which have not replaced
+     * their target file. Does nothing after a successful {@link #commit()}.
+     */
+    void discard() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+                    log.fine("Waiting for the writing of the position lists to finish");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (targets.length == 1) {
+            try {
+                outputStreams[0].close();
+            } catch (IOException e) {
+                log.fine("Cannot close " + temporaryFiles[0] + ": " + e.getMessage());
+            }
+        }
+
+        for (int i = 0; i < temporaryFiles.length; i++) {
+            File temporaryFile = temporaryFiles[i];
+            if (temporaryFile != null && temporaryFile.exists() && !temporaryFile.delete())
+                log.warning("Cannot delete temporary file " + temporaryFile.getAbsolutePath());
+            temporaryFiles[i] = null;
+        }
+    }
+}
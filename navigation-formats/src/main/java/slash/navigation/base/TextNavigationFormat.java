@@ -21,9 +21,9 @@
 package slash.navigation.base;
 
 import slash.common.io.CompactCalendar;
+import slash.common.io.DecodedText;
 
 import java.io.*;
-import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -38,8 +38,7 @@ public abstract class TextNavigationFormat<R extends BaseRoute> extends BaseNavi
     protected boolean isValidStartDate(CompactCalendar startDate) {
         if(startDate == null)
             return false;
-        Calendar calendar = startDate.getCalendar();
-        return !(calendar.get(Calendar.YEAR) == 1970 && calendar.get(Calendar.DAY_OF_YEAR) == 1);
+        return !(startDate.getYear() == 1970 && startDate.getDayOfYear() == 1);
     }
 
     public List<R> read(InputStream source, CompactCalendar startDate) throws IOException {
@@ -47,6 +46,13 @@ public abstract class TextNavigationFormat<R extends BaseRoute> extends BaseNavi
     }
 
     protected List<R> read(InputStream source, CompactCalendar startDate, String encoding) throws IOException {
+        // during the detection the text is decoded and split into lines only once per encoding
+        if (source instanceof DecodingInputStream) {
+            DecodedText text = ((DecodingInputStream) source).getText(encoding);
+            if (text != null)
+                return read(text.createReader(), startDate, encoding);
+        }
+
         Reader reader = new InputStreamReader(source, encoding);
         BufferedReader bufferedReader = new BufferedReader(reader);
         try {
@@ -21,6 +21,7 @@
 package slash.navigation.base;
 
 import slash.common.io.CompactCalendar;
+import slash.common.io.ISO8601;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -59,6 +60,26 @@ public abstract class XmlNavigationFormat<R extends BaseRoute> extends BaseNavig
         return CompactCalendar.fromMillis(gregorianCalendar.getTimeInMillis());
     }
 
+    public static CompactCalendar parseTime(String string) {
+        if (string == null)
+            return null;
+        string = string.trim();
+        // the fast path covers the times with time zone that most files contain and
+        // keeps the wall-clock time like parseTime(XMLGregorianCalendar) does
+        Calendar calendar = ISO8601.parse(string);
+        if (calendar != null) {
+            long millis = calendar.getTimeInMillis();
+            return CompactCalendar.fromMillis(millis + calendar.getTimeZone().getOffset(millis));
+        }
+        try {
+            return parseTime(getDataTypeFactory().newXMLGregorianCalendar(string));
+        } catch (DatatypeConfigurationException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private static DatatypeFactory datatypeFactory = null;
 
     private static synchronized DatatypeFactory getDataTypeFactory() throws DatatypeConfigurationException {
@@ -74,10 +95,9 @@ public abstract class XmlNavigationFormat<R extends BaseRoute> extends BaseNavig
         try {
             GregorianCalendar gregorianCalendar = new GregorianCalendar(CompactCalendar.UTC, Locale.getDefault());
             gregorianCalendar.clear();
-            Calendar calendar = time.getCalendar();
-            gregorianCalendar.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DATE),
-                    calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND));
-            gregorianCalendar.set(Calendar.MILLISECOND, calendar.get(Calendar.MILLISECOND));
+            gregorianCalendar.set(time.getYear(), time.getMonth() - 1, time.getDayOfMonth(),
+                    time.getHour(), time.getMinute(), time.getSecond());
+            gregorianCalendar.set(Calendar.MILLISECOND, time.getMillisecond());
             return getDataTypeFactory().newXMLGregorianCalendar(gregorianCalendar);
         } catch (DatatypeConfigurationException e) {
             return null;
@@ -501,7 +501,7 @@ public class BcrRoute extends BaseRoute<BcrPosition, BcrFormat> {
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -510,7 +510,7 @@ public class BcrRoute extends BaseRoute<BcrPosition, BcrFormat> {
         return positions.equals(route.positions) && sections.equals(route.sections);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result;
         result = sections.hashCode();
         result = 31 * result + positions.hashCode();
@@ -435,7 +435,7 @@ public class GoPal3Route extends BaseRoute<GoPalPosition, GoPal3RouteFormat> { /
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -445,7 +445,7 @@ public class GoPal3Route extends BaseRoute<GoPalPosition, GoPal3RouteFormat> { /
                 !(positions != null ? !positions.equals(gopalRoute.positions) : gopalRoute.positions != null);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result = (name != null ? name.hashCode() : 0);
         result = 31 * result + (positions != null ? positions.hashCode() : 0);
         return result;
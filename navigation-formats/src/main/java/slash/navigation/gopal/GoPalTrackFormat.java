@@ -28,7 +28,6 @@ import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
@@ -165,10 +164,9 @@ public class GoPalTrackFormat extends SimpleLineBasedFormat<SimpleRoute> {
     private String formatTime(CompactCalendar time) {
         if (time == null)
             return "000000";
-        Calendar calendar = time.getCalendar();
-        return formatNumber(calendar.get(Calendar.HOUR_OF_DAY)) +
-               formatNumber(calendar.get(Calendar.MINUTE)) +
-               formatNumber(calendar.get(Calendar.SECOND));
+        return formatNumber(time.getHour()) +
+               formatNumber(time.getMinute()) +
+               formatNumber(time.getSecond());
     }
 
     protected void writePosition(Wgs84Position position, PrintWriter writer, int index, boolean firstPosition) {
@@ -43,6 +43,7 @@ import static slash.navigation.util.RouteComments.parseTripmasterHeading;
 public class GpxPosition extends Wgs84Position {
     private String reason;
     private Object origin;
+    private Short heartBeat;
 
     public GpxPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String comment) {
         super(longitude, latitude, elevation, speed, time, comment);
@@ -102,6 +103,14 @@ public class GpxPosition extends Wgs84Position {
         return reason;
     }
 
+    public Short getHeartBeat() {
+        return heartBeat;
+    }
+
+    public void setHeartBeat(Short heartBeat) {
+        this.heartBeat = heartBeat;
+    }
+
     public/* for tests */ Object getOrigin() {
         return origin;
     }
@@ -470,7 +470,7 @@ public class GpxRoute extends BaseRoute<GpxPosition, GpxFormat> {
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -482,7 +482,7 @@ public class GpxRoute extends BaseRoute<GpxPosition, GpxFormat> {
                 positions.equals(gpxRoute.positions);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result;
         result = (name != null ? name.hashCode() : 0);
         result = 29 * result + (description != null ? description.hashCode() : 0);
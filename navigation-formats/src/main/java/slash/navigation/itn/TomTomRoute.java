@@ -442,7 +442,7 @@ public class TomTomRoute extends BaseRoute<TomTomPosition, TomTomRouteFormat> {
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -453,7 +453,7 @@ public class TomTomRoute extends BaseRoute<TomTomPosition, TomTomRouteFormat> {
                 positions.equals(route.positions);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result;
         result = (name != null ? name.hashCode() : 0);
         result = 29 * result + characteristics.hashCode();
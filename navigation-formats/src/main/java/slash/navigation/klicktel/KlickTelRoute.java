@@ -442,7 +442,7 @@ public class KlickTelRoute extends BaseRoute<Wgs84Position, KlickTelRouteFormat>
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -452,7 +452,7 @@ public class KlickTelRoute extends BaseRoute<Wgs84Position, KlickTelRouteFormat>
                 !(positions != null ? !positions.equals(klicktelRoute.positions) : klicktelRoute.positions != null);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result = (name != null ? name.hashCode() : 0);
         result = 31 * result + (positions != null ? positions.hashCode() : 0);
         return result;
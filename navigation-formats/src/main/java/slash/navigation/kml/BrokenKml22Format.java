@@ -21,9 +21,8 @@
 package slash.navigation.kml;
 
 import slash.common.io.CompactCalendar;
-import slash.navigation.kml.binding22.KmlType;
 
-import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -47,12 +46,11 @@ public class BrokenKml22Format extends Kml22Format {
         return false;
     }
 
-    List<KmlRoute> internalRead(InputStream source, CompactCalendar startDate) throws IOException, JAXBException {
+    List<KmlRoute> internalRead(InputStream source, CompactCalendar startDate) throws IOException {
         InputStreamReader reader = new InputStreamReader(source);
         try {
-            KmlType kmlType = KmlUtil.unmarshal22(reader);
-            return process(kmlType, startDate);
-        } catch (JAXBException e) {
+            return new KmlStreamReader(this, reader, KML_22_NAMESPACE_URI, startDate, true).read();
+        } catch (XMLStreamException e) {
             log.fine("Error reading broken KML 2.2 rom " + source + ": " + e.getMessage());
         }
         finally {
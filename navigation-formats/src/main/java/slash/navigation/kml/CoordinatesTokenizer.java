@@ -0,0 +1,123 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import java.util.List;
+
+/**
+ * Tokenizes the text of KML coordinates elements into {@link KmlPosition}s
+ * while the text is fed chunk by chunk from the XML parser.
+ * <p/>
+ * Tuples are separated by whitespace and consist of a longitude, a latitude
+ * and an optional elevation separated by commas; whitespace around the commas
+ * is tolerated. Tuples without a comma and tuples with malformed numbers are
+ * ignored, other characters like in <code>NaN</code> end a tuple.
+ *
+ * @author Christian Pesch
+ */
+
+class CoordinatesTokenizer {
+    private final List<KmlPosition> result;
+    private final StringBuilder token = new StringBuilder();
+    private final Double[] values = new Double[3];
+    private int index = 0;
+    private boolean separated = false, malformed = false;
+
+    CoordinatesTokenizer(List<KmlPosition> result) {
+        this.result = result;
+    }
+
+    private static boolean isNumber(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'E' || c == 'e';
+    }
+
+    private void endValue() {
+        if (index < values.length) {
+            try {
+                values[index] = token.length() > 0 ? Double.valueOf(token.toString()) : null;
+            } catch (NumberFormatException e) {
+                malformed = true;
+            }
+        }
+        token.setLength(0);
+    }
+
+    private void endTuple() {
+        endValue();
+        // a tuple needs at least a longitude and a latitude separated by a comma
+        if (index > 0 && !malformed)
+            result.add(new KmlPosition(values[0], values[1], index > 1 ? values[2] : null, null, null, null));
+        values[0] = null;
+        values[1] = null;
+        values[2] = null;
+        index = 0;
+        separated = false;
+        malformed = false;
+    }
+
+    void append(char[] chars, int start, int length) {
+        for (int i = start, end = start + length; i < end; i++) {
+            char c = chars[i];
+            if (isNumber(c)) {
+                // whitespace between two numbers without a comma starts the next tuple
+                if (separated)
+                    endTuple();
+                token.append(c);
+            } else if (c == ',') {
+                endValue();
+                index++;
+                separated = false;
+            } else if (Character.isWhitespace(c)) {
+                if (token.length() > 0)
+                    separated = true;
+            } else if (token.length() > 0 || index > 0)
+                // the numbers before other characters form a tuple of their own
+                endTuple();
+        }
+    }
+
+    void append(String string) {
+        append(string.toCharArray(), 0, string.length());
+    }
+
+    void end() {
+        if (token.length() > 0 || index > 0)
+            endTuple();
+    }
+
+    static KmlPosition parseExtensionPosition(String string) {
+        // gx:coord holds exactly one longitude, latitude and elevation separated by whitespace
+        String[] strings = string.trim().split("\\s+");
+        if (strings.length != 3)
+            return null;
+        for (String value : strings) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!isNumber(value.charAt(i)))
+                    return null;
+            }
+        }
+        try {
+            return new KmlPosition(Double.valueOf(strings[0]), Double.valueOf(strings[1]), Double.valueOf(strings[2]), null, null, null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import slash.navigation.kml.binding22.PlacemarkType;
 import slash.navigation.kml.binding22.PointType;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.prefs.Preferences;
@@ -62,9 +63,9 @@ public class Igo8RouteFormat extends Kml22Format {
         return preferences.getInt("maximumiGo8RoutePositionCount", 100);
     }
 
-    protected List<KmlRoute> process(KmlType kmlType, CompactCalendar startDate) {
-        List<KmlRoute> routes = super.process(kmlType, startDate);
-        if (routes.size() == 1) {
+    List<KmlRoute> internalRead(InputStream source, CompactCalendar startDate) throws IOException {
+        List<KmlRoute> routes = super.internalRead(source, startDate);
+        if (routes != null && routes.size() == 1) {
             KmlRoute route = routes.get(0);
             if (route.getName().equals(IGO_ROUTE + "/" + WAYPOINTS)) {
                 route.setName(IGO_ROUTE);
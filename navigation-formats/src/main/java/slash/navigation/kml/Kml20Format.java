@@ -23,7 +23,6 @@ package slash.navigation.kml;
 import slash.common.io.CompactCalendar;
 import slash.common.io.ISO8601;
 import slash.navigation.base.RouteCharacteristics;
-import slash.navigation.googlemaps.GoogleMapsPosition;
 import slash.navigation.kml.binding20.*;
 
 import javax.xml.bind.JAXBElement;
@@ -32,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.logging.Logger;
@@ -40,7 +40,6 @@ import static slash.common.io.Transfer.trim;
 import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
 import static slash.navigation.googlemaps.GoogleMapsPosition.parsePosition;
-import static slash.navigation.googlemaps.GoogleMapsPosition.parsePositions;
 import static slash.navigation.util.RouteComments.commentRoutePositions;
 
 /**
@@ -240,11 +239,7 @@ public class Kml20Format extends KmlFormat {
     }
 
     private List<KmlPosition> extractPositions(LineString lineString) {
-        List<KmlPosition> result = new ArrayList<KmlPosition>();
-        for (GoogleMapsPosition position : parsePositions(lineString.getCoordinates())) {
-            result.add(asKmlPosition(position));
-        }
-        return result;
+        return asKmlPositions(Arrays.asList(lineString.getCoordinates()));
     }
 
     private List<KmlPosition> extractPositions(List<Object> elements) {
@@ -22,20 +22,15 @@ package slash.navigation.kml;
 
 import slash.common.io.CompactCalendar;
 import slash.common.io.ISO8601;
-import slash.navigation.base.RouteCharacteristics;
-import slash.navigation.googlemaps.GoogleMapsPosition;
 import slash.navigation.kml.binding22.*;
 import slash.navigation.kml.binding22gx.TrackType;
-import slash.navigation.kml.bindingatom.Link;
 
-import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Calendar;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -45,12 +40,9 @@ import static java.lang.Math.*;
 import static java.lang.String.valueOf;
 import static slash.common.hex.HexDecoder.decodeBytes;
 import static slash.common.io.Transfer.formatPositionAsString;
-import static slash.common.io.Transfer.trim;
 import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
-import static slash.navigation.googlemaps.GoogleMapsPosition.parseExtensionPositions;
 import static slash.common.util.Bearing.EARTH_RADIUS;
-import static slash.navigation.util.RouteComments.commentRoutePositions;
 
 /**
  * Reads and writes Google Earth 5 (.kml) files.
@@ -67,213 +59,16 @@ public class Kml22Format extends KmlFormat {
     }
 
     public List<KmlRoute> read(InputStream source, CompactCalendar startDate) throws IOException {
-        try {
-            return internalRead(source, startDate);
-        } catch (JAXBException e) {
-            log.fine("Error reading KML 2.2 from " + source + ": " + e.getMessage());
-            return null;
-        }
-    }
-
-    List<KmlRoute> internalRead(InputStream source, CompactCalendar startDate) throws IOException, JAXBException {
-        KmlType kmlType = KmlUtil.unmarshal22(source);
-        return process(kmlType, startDate);
+        return internalRead(source, startDate);
     }
 
-    protected List<KmlRoute> process(KmlType kmlType, CompactCalendar startDate) {
-        if (kmlType == null || kmlType.getAbstractFeatureGroup() == null)
+    List<KmlRoute> internalRead(InputStream source, CompactCalendar startDate) throws IOException {
+        try {
+            return new KmlStreamReader(this, source, KML_22_NAMESPACE_URI, startDate, true).read();
+        } catch (XMLStreamException e) {
+            log.fine("Error reading KML 2.2 from " + source + ": " + e.getMessage());
             return null;
-        return extractTracks(kmlType, startDate);
-    }
-
-    @SuppressWarnings({"UnusedDeclaration", "unchecked"})
-    private <T> List<JAXBElement<T>> find(List<JAXBElement<? extends AbstractFeatureType>> elements, String name, Class<T> resultClass) {
-        List<JAXBElement<T>> result = new ArrayList<JAXBElement<T>>();
-        for (JAXBElement<? extends AbstractFeatureType> element : elements) {
-            if (name.equals(element.getName().getLocalPart()))
-                result.add((JAXBElement<T>) element);
-        }
-        return result;
-    }
-
-    private List<KmlRoute> extractTracks(KmlType kmlType, CompactCalendar startDate) {
-        List<KmlRoute> routes = null;
-
-        AbstractFeatureType feature = kmlType.getAbstractFeatureGroup().getValue();
-        if (feature instanceof AbstractContainerType) {
-            AbstractContainerType containerType = (AbstractContainerType) feature;
-            List<JAXBElement<? extends AbstractFeatureType>> features = null;
-            if (containerType instanceof FolderType)
-                features = ((FolderType) containerType).getAbstractFeatureGroup();
-            else if (containerType instanceof DocumentType)
-                features = ((DocumentType) containerType).getAbstractFeatureGroup();
-            routes = extractTracks(trim(containerType.getName()), trim(containerType.getDescription()), features, startDate);
-        }
-
-        if (feature instanceof PlacemarkType) {
-            PlacemarkType placemarkType = (PlacemarkType) feature;
-            String placemarkName = asComment(trim(placemarkType.getName()), trim(placemarkType.getDescription()));
-
-            List<KmlPosition> positions = extractPositions(placemarkType.getAbstractGeometryGroup());
-            for (KmlPosition position : positions) {
-                enrichPosition(position, extractTime(placemarkType.getAbstractTimePrimitiveGroup()), placemarkName, placemarkType.getDescription(), startDate);
-            }
-            routes = Arrays.asList(new KmlRoute(this, Waypoints, placemarkName, null, positions));
-        }
-
-        if (routes != null)
-            commentRoutePositions(routes);
-        return routes;
-    }
-
-    private List<KmlRoute> extractTracks(String name, String description, List<JAXBElement<? extends AbstractFeatureType>> features, CompactCalendar startDate) {
-        List<KmlRoute> result = new ArrayList<KmlRoute>();
-
-        List<JAXBElement<PlacemarkType>> placemarks = find(features, "Placemark", PlacemarkType.class);
-        result.addAll(extractWayPointsAndTracksFromPlacemarks(name, description, placemarks, startDate));
-
-        List<JAXBElement<NetworkLinkType>> networkLinks = find(features, "NetworkLink", NetworkLinkType.class);
-        result.addAll(extractWayPointsAndTracksFromNetworkLinks(networkLinks));
-
-        List<JAXBElement<FolderType>> folders = find(features, "Folder", FolderType.class);
-        for (JAXBElement<FolderType> folder : folders) {
-            FolderType folderTypeValue = folder.getValue();
-            String folderName = trim(folderTypeValue.getName());
-            // ignore speed and marks folders
-            if (folderName == null || (!folderName.equals(SPEED) && !folderName.equals(MARKS)))
-                result.addAll(extractTracks(concatPath(name, folderName), description, folderTypeValue.getAbstractFeatureGroup(), startDate));
-        }
-
-        List<JAXBElement<DocumentType>> documents = find(features, "Document", DocumentType.class);
-        for (JAXBElement<DocumentType> document : documents) {
-            DocumentType documentTypeValue = document.getValue();
-            String documentName = concatPath(name, documentTypeValue.getName());
-            result.addAll(extractTracks(documentName, description, documentTypeValue.getAbstractFeatureGroup(), startDate));
-        }
-        return result;
-    }
-
-    private Calendar extractTime(JAXBElement<? extends AbstractTimePrimitiveType> timePrimitiveType) {
-        if (timePrimitiveType != null) {
-            AbstractTimePrimitiveType timePrimitiveTypeValue = timePrimitiveType.getValue();
-            String time = "";
-            if (timePrimitiveTypeValue instanceof TimeSpanType) {
-                time = ((TimeSpanType) timePrimitiveTypeValue).getBegin();
-            } else if (timePrimitiveTypeValue instanceof TimeStampType) {
-                time = ((TimeStampType) timePrimitiveTypeValue).getWhen();
-            }
-            return ISO8601.parse(time);
-        }
-        return null;
-    }
-
-    private List<KmlRoute> extractWayPointsAndTracksFromPlacemarks(String name, String description, List<JAXBElement<PlacemarkType>> placemarkTypes, CompactCalendar startDate) {
-        List<KmlRoute> result = new ArrayList<KmlRoute>();
-
-        List<KmlPosition> wayPoints = new ArrayList<KmlPosition>();
-        for (JAXBElement<PlacemarkType> placemarkType : placemarkTypes) {
-            PlacemarkType placemarkTypeValue = placemarkType.getValue();
-            String placemarkName = asComment(trim(placemarkTypeValue.getName()), trim(placemarkTypeValue.getDescription()));
-
-            JAXBElement<? extends AbstractGeometryType> abstractGeometryGroup = placemarkTypeValue.getAbstractGeometryGroup();
-            if (abstractGeometryGroup == null)
-                continue;
-
-            List<KmlPosition> positions = extractPositions(abstractGeometryGroup);
-            if (positions.size() == 1) {
-                // all placemarks with one position form one waypoint route
-                KmlPosition wayPoint = positions.get(0);
-                enrichPosition(wayPoint, extractTime(placemarkTypeValue.getAbstractTimePrimitiveGroup()), placemarkName, placemarkTypeValue.getDescription(), startDate);
-                wayPoints.add(wayPoint);
-            } else {
-                // each placemark with more than one position is one track
-                String routeName = concatPath(name, placemarkName);
-                List<String> routeDescription = asDescription(placemarkTypeValue.getDescription() != null ? placemarkTypeValue.getDescription() : description);
-                RouteCharacteristics characteristics = parseCharacteristics(routeName, Track);
-                result.add(new KmlRoute(this, characteristics, routeName, routeDescription, positions));
-            }
-        }
-        if (wayPoints.size() > 0) {
-            RouteCharacteristics characteristics = parseCharacteristics(name, Waypoints);
-            result.add(0, new KmlRoute(this, characteristics, name, asDescription(description), wayPoints));
-        }
-        return result;
-    }
-
-    private List<KmlRoute> extractWayPointsAndTracksFromNetworkLinks(List<JAXBElement<NetworkLinkType>> networkLinkTypes) {
-        List<KmlRoute> result = new ArrayList<KmlRoute>();
-        for (JAXBElement<NetworkLinkType> networkLinkType : networkLinkTypes) {
-            Link link = networkLinkType.getValue().getLink();
-            if (link != null) {
-                String url = link.getHref();
-                List<KmlRoute> routes = parseRouteFromUrl(url);
-                if (routes != null)
-                    result.addAll(routes);
-            }
-
-            List<JAXBElement<?>> rest = networkLinkType.getValue().getRest();
-            for (JAXBElement<?> r : rest) {
-                Object rValue = r.getValue();
-                if (rValue instanceof LinkType) {
-                    LinkType linkType = (LinkType) rValue;
-                    String url = linkType.getHref();
-                    List<KmlRoute> routes = parseRouteFromUrl(url);
-                    if (routes != null)
-                        result.addAll(routes);
-                }
-            }
-        }
-        return result;
-    }
-
-    private List<KmlPosition> asExtendedKmlPositions(List<String> strings) {
-        List<KmlPosition> result = new ArrayList<KmlPosition>();
-        for (String string : strings) {
-            for (GoogleMapsPosition position : parseExtensionPositions(string)) {
-                result.add(asKmlPosition(position));
-            }
-        }
-        return result;
-    }
-
-    private List<KmlPosition> extractPositions(List<String> coords, List<String> whens) {
-        List<KmlPosition> result = asExtendedKmlPositions(coords);
-        for (int i = 0; i < whens.size(); i++) {
-            String when = whens.get(i);
-            if (when != null) {
-                Calendar calendar = ISO8601.parse(when);
-                if (calendar != null && i < result.size())
-                    result.get(i).setTime(CompactCalendar.fromCalendar(calendar));
-            }
-        }
-        return result;
-    }
-
-    private List<KmlPosition> extractPositions(JAXBElement<? extends AbstractGeometryType> geometryType) {
-        List<KmlPosition> positions = new ArrayList<KmlPosition>();
-        AbstractGeometryType geometryTypeValue = geometryType.getValue();
-        if (geometryTypeValue instanceof PointType) {
-            PointType point = (PointType) geometryTypeValue;
-            positions.addAll(asKmlPositions(point.getCoordinates()));
-        }
-        if (geometryTypeValue instanceof LineStringType) {
-            LineStringType lineString = (LineStringType) geometryTypeValue;
-            positions.addAll(asKmlPositions(lineString.getCoordinates()));
-        }
-        if (geometryTypeValue instanceof MultiGeometryType) {
-            MultiGeometryType multiGeometryType = (MultiGeometryType) geometryTypeValue;
-            List<JAXBElement<? extends AbstractGeometryType>> geometryTypes = multiGeometryType.getAbstractGeometryGroup();
-            for (JAXBElement<? extends AbstractGeometryType> geometryType2 : geometryTypes) {
-                positions.addAll(extractPositions(geometryType2));
-            }
-        }
-        if (geometryTypeValue instanceof TrackType) {
-            TrackType trackType = (TrackType) geometryTypeValue;
-            List<String> coord = trackType.getCoord();
-            List<String> when = trackType.getWhen();
-            positions.addAll(extractPositions(coord, when));
         }
-        return positions;
     }
 
     private FolderType createWayPoints(KmlRoute route) {
@@ -43,7 +43,6 @@ import static slash.common.hex.HexDecoder.decodeBytes;
 import static slash.common.io.CompactCalendar.UTC;
 import static slash.common.io.Transfer.*;
 import static slash.navigation.base.RouteCharacteristics.*;
-import static slash.navigation.googlemaps.GoogleMapsPosition.parsePositions;
 
 /**
  * The base of all Google Earth formats.
@@ -62,6 +61,9 @@ public abstract class KmlFormat extends BaseKmlFormat {
     static final String MARKS = "Marks [Km]";
     static final String ROUTE_LINE_STYLE = "routeStyle";
     static final String TRACK_LINE_STYLE = "trackStyle";
+    static final String KML_21_NAMESPACE_URI = "http://earth.google.com/kml/2.1";
+    static final String KML_22_BETA_NAMESPACE_URI = "http://earth.google.com/kml/2.2";
+    static final String KML_22_NAMESPACE_URI = "http://www.opengis.net/kml/2.2";
 
     public String getExtension() {
         return ".kml";
@@ -91,18 +93,25 @@ public abstract class KmlFormat extends BaseKmlFormat {
     }
 
     protected List<KmlPosition> asKmlPositions(List<String> strings) {
-        StringBuilder buffer = new StringBuilder();
+        List<KmlPosition> result = new ArrayList<KmlPosition>();
+        CoordinatesTokenizer tokenizer = new CoordinatesTokenizer(result);
         for (String string : strings) {
-            buffer.append(string);
+            tokenizer.append(string);
             // to make sure the numbers are separated if they were already parsed by the XML parse
-            buffer.append(' ');
+            tokenizer.append(" ");
         }
-        List<KmlPosition> result = new ArrayList<KmlPosition>();
-        for (GoogleMapsPosition position : parsePositions(buffer.toString()))
-            result.add(asKmlPosition(position));
+        tokenizer.end();
         return result;
     }
 
+    String asPlacemarkName(String name, String description) {
+        return asComment(trim(name), trim(description));
+    }
+
+    List<String> asRouteDescription(String description) {
+        return asDescription(description);
+    }
+
     protected String createDocumentName(KmlRoute route) {
         // some kind of crude workaround since the route carries the name of the
         // plus and divided by a slash the route of the track
@@ -446,7 +446,7 @@ public class KmlRoute extends BaseRoute<KmlPosition, BaseKmlFormat> {
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -458,7 +458,7 @@ public class KmlRoute extends BaseRoute<KmlPosition, BaseKmlFormat> {
                 positions.equals(kmlRoute.positions);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result;
         result = (name != null ? name.hashCode() : 0);
         result = 29 * result + (description != null ? description.hashCode() : 0);
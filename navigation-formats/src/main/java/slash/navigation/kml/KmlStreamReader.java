@@ -0,0 +1,376 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import slash.common.io.CompactCalendar;
+import slash.common.io.ISO8601;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static slash.common.io.Transfer.trim;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.base.RouteCharacteristics.Waypoints;
+import static slash.navigation.kml.CoordinatesTokenizer.parseExtensionPosition;
+import static slash.navigation.kml.KmlFormat.MARKS;
+import static slash.navigation.kml.KmlFormat.SPEED;
+import static slash.navigation.util.RouteComments.commentRoutePositions;
+
+/**
+ * Reads Google Earth (.kml) files of the versions 2.1 to 2.2 element by element
+ * without building the document in memory.
+ * <p/>
+ * Only the namespace of the kml root element is checked, all other elements
+ * are recognized by their local name. Coordinates are tokenized while they are
+ * read and the times and coordinates of gx:Track are paired as they appear.
+ *
+ * @author Christian Pesch
+ */
+
+class KmlStreamReader {
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private static final Set<String> GEOMETRIES = new HashSet<String>(Arrays.asList(
+            "Point", "LineString", "LinearRing", "Polygon", "MultiGeometry", "Model", "Track", "MultiTrack"
+    ));
+
+    private final KmlFormat format;
+    private final XMLStreamReader reader;
+    private final String namespaceUri;
+    private final CompactCalendar startDate;
+    private final boolean skipSpeedMarksAndEmptyPlacemarks;
+
+    /**
+     * @param skipSpeedMarksAndEmptyPlacemarks true to ignore nested Speed and Marks folders
+     *                                         and placemarks without geometry like KML 2.2,
+     *                                         false to read them like KML 2.1 and 2.2 Beta
+     */
+    KmlStreamReader(KmlFormat format, InputStream source, String namespaceUri, CompactCalendar startDate,
+                    boolean skipSpeedMarksAndEmptyPlacemarks) throws XMLStreamException {
+        this(format, inputFactory.createXMLStreamReader(source), namespaceUri, startDate, skipSpeedMarksAndEmptyPlacemarks);
+    }
+
+    KmlStreamReader(KmlFormat format, Reader source, String namespaceUri, CompactCalendar startDate,
+                    boolean skipSpeedMarksAndEmptyPlacemarks) throws XMLStreamException {
+        this(format, inputFactory.createXMLStreamReader(source), namespaceUri, startDate, skipSpeedMarksAndEmptyPlacemarks);
+    }
+
+    private KmlStreamReader(KmlFormat format, XMLStreamReader reader, String namespaceUri, CompactCalendar startDate,
+                            boolean skipSpeedMarksAndEmptyPlacemarks) {
+        this.format = format;
+        this.reader = reader;
+        this.namespaceUri = namespaceUri;
+        this.startDate = startDate;
+        this.skipSpeedMarksAndEmptyPlacemarks = skipSpeedMarksAndEmptyPlacemarks;
+    }
+
+    List<KmlRoute> read() throws XMLStreamException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == START_ELEMENT)
+                    return is("kml") && namespaceUri.equals(reader.getNamespaceURI()) ? readKml() : null;
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean is(String localName) {
+        return localName.equals(reader.getLocalName());
+    }
+
+    private boolean nextChild() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                return true;
+            if (event == END_ELEMENT)
+                return false;
+        }
+        return false;
+    }
+
+    private void skip() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private String readText() throws XMLStreamException {
+        return reader.getElementText();
+    }
+
+    // kml -> Document|Folder -> Placemark|NetworkLink|Folder|Document -> ...
+    // kml -> Placemark
+    private List<KmlRoute> readKml() throws XMLStreamException {
+        List<KmlRoute> result = null;
+        while (nextChild()) {
+            if (result == null && (is("Document") || is("Folder")))
+                result = readContainer(true, null, null);
+            else if (result == null && is("Placemark"))
+                result = readPlacemarkRoute();
+            else
+                skip();
+        }
+        if (result != null)
+            commentRoutePositions(result);
+        return result;
+    }
+
+    private List<KmlRoute> readPlacemarkRoute() throws XMLStreamException {
+        Placemark placemark = readPlacemark();
+        String placemarkName = format.asPlacemarkName(placemark.name, placemark.description);
+        for (KmlPosition position : placemark.positions) {
+            format.enrichPosition(position, placemark.time, placemarkName, placemark.description, startDate);
+        }
+        List<KmlRoute> result = new ArrayList<KmlRoute>();
+        result.add(new KmlRoute(format, Waypoints, placemarkName, null, placemark.positions));
+        return result;
+    }
+
+    private String getPath(boolean outermost, String parentPath, String name) {
+        return outermost ? trim(name) : format.concatPath(parentPath, name);
+    }
+
+    private String getDescription(boolean outermost, String parentDescription, String description) {
+        // only the description of the outermost container is passed on
+        return outermost ? trim(description) : parentDescription;
+    }
+
+    /**
+     * Reads a Document or Folder: its placemarks with one position form a waypoint
+     * route, each placemark with more positions forms a track; they are followed
+     * by the routes of network links, folders and documents.
+     *
+     * @param outermost true for the container below the kml element
+     * @param parentPath the path of the enclosing container
+     * @param parentDescription the description of the outermost container
+     * @return the routes of the container
+     * @throws XMLStreamException if the container cannot be read
+     */
+    private List<KmlRoute> readContainer(boolean outermost, String parentPath, String parentDescription) throws XMLStreamException {
+        boolean folder = is("Folder");
+        String name = null, description = null;
+        List<KmlPosition> wayPoints = new ArrayList<KmlPosition>();
+        List<KmlRoute> tracks = new ArrayList<KmlRoute>();
+        List<KmlRoute> networkLinks = new ArrayList<KmlRoute>();
+        List<KmlRoute> folders = new ArrayList<KmlRoute>();
+        List<KmlRoute> documents = new ArrayList<KmlRoute>();
+
+        while (nextChild()) {
+            if (is("name"))
+                name = readText();
+            else if (is("description"))
+                description = readText();
+            else if (is("Placemark"))
+                readPlacemark(getPath(outermost, parentPath, name), getDescription(outermost, parentDescription, description), wayPoints, tracks);
+            else if (is("NetworkLink"))
+                networkLinks.addAll(readNetworkLink());
+            else if (is("Folder"))
+                folders.addAll(readContainer(false, getPath(outermost, parentPath, name), getDescription(outermost, parentDescription, description)));
+            else if (is("Document"))
+                documents.addAll(readContainer(false, getPath(outermost, parentPath, name), getDescription(outermost, parentDescription, description)));
+            else
+                skip();
+        }
+
+        List<KmlRoute> result = new ArrayList<KmlRoute>();
+        // ignore the speed and marks folders
+        String folderName = trim(name);
+        if (skipSpeedMarksAndEmptyPlacemarks && folder && !outermost && (SPEED.equals(folderName) || MARKS.equals(folderName)))
+            return result;
+
+        if (wayPoints.size() > 0) {
+            String path = getPath(outermost, parentPath, name);
+            result.add(new KmlRoute(format, format.parseCharacteristics(path, Waypoints), path,
+                    format.asRouteDescription(getDescription(outermost, parentDescription, description)), wayPoints));
+        }
+        result.addAll(tracks);
+        result.addAll(networkLinks);
+        result.addAll(folders);
+        result.addAll(documents);
+        return result;
+    }
+
+    private void readPlacemark(String path, String containerDescription, List<KmlPosition> wayPoints, List<KmlRoute> tracks) throws XMLStreamException {
+        Placemark placemark = readPlacemark();
+        if (skipSpeedMarksAndEmptyPlacemarks && !placemark.geometry)
+            return;
+
+        String placemarkName = format.asPlacemarkName(placemark.name, placemark.description);
+        if (placemark.positions.size() == 1) {
+            // all placemarks with one position form one waypoint route
+            KmlPosition wayPoint = placemark.positions.get(0);
+            format.enrichPosition(wayPoint, placemark.time, placemarkName, placemark.description, startDate);
+            wayPoints.add(wayPoint);
+        } else {
+            // each placemark with more than one position is one track
+            String routeName = format.concatPath(path, placemarkName);
+            List<String> routeDescription = format.asRouteDescription(placemark.description != null ? placemark.description : containerDescription);
+            tracks.add(new KmlRoute(format, format.parseCharacteristics(routeName, Track), routeName, routeDescription, placemark.positions));
+        }
+    }
+
+    private List<KmlRoute> readNetworkLink() throws XMLStreamException {
+        List<KmlRoute> result = new ArrayList<KmlRoute>();
+        while (nextChild()) {
+            if (is("Link") || is("Url")) {
+                String href = null;
+                while (nextChild()) {
+                    if (is("href"))
+                        href = trim(readText());
+                    else
+                        skip();
+                }
+                if (href != null)
+                    result.addAll(format.parseRouteFromUrl(href));
+            } else
+                skip();
+        }
+        return result;
+    }
+
+    private Placemark readPlacemark() throws XMLStreamException {
+        Placemark placemark = new Placemark();
+        while (nextChild()) {
+            if (is("name"))
+                placemark.name = readText();
+            else if (is("description"))
+                placemark.description = readText();
+            else if (is("TimeStamp") || is("TimeSpan"))
+                placemark.time = readTime();
+            else if (GEOMETRIES.contains(reader.getLocalName())) {
+                placemark.geometry = true;
+                readGeometry(placemark.positions);
+            } else
+                skip();
+        }
+        return placemark;
+    }
+
+    private Calendar readTime() throws XMLStreamException {
+        String elementName = is("TimeSpan") ? "begin" : "when";
+        String time = null;
+        while (nextChild()) {
+            if (is(elementName))
+                time = readText();
+            else
+                skip();
+        }
+        return time != null ? ISO8601.parse(time) : null;
+    }
+
+    private void readGeometry(List<KmlPosition> positions) throws XMLStreamException {
+        if (is("Point") || is("LineString")) {
+            while (nextChild()) {
+                if (is("coordinates"))
+                    readCoordinates(positions);
+                else
+                    skip();
+            }
+        } else if (is("MultiGeometry")) {
+            while (nextChild()) {
+                if (GEOMETRIES.contains(reader.getLocalName()))
+                    readGeometry(positions);
+                else
+                    skip();
+            }
+        } else if (is("Track"))
+            readTrack(positions);
+        else
+            skip();
+    }
+
+    private void readCoordinates(List<KmlPosition> positions) throws XMLStreamException {
+        // feed the text as the parser delivers it to avoid one string for all coordinates
+        CoordinatesTokenizer tokenizer = new CoordinatesTokenizer(positions);
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == CHARACTERS || event == CDATA || event == SPACE)
+                tokenizer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            else if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+        }
+        tokenizer.end();
+    }
+
+    private void readTrack(List<KmlPosition> positions) throws XMLStreamException {
+        // the n-th when belongs to the n-th coord; times that arrive before their
+        // coordinates wait in the queue, coordinates never wait for their times;
+        // malformed coordinates keep their slot so that they consume their time
+        List<KmlPosition> coords = new ArrayList<KmlPosition>();
+        int whenCount = 0;
+        LinkedList<CompactCalendar> times = new LinkedList<CompactCalendar>();
+        while (nextChild()) {
+            if (is("when")) {
+                String when = trim(readText());
+                Calendar calendar = when != null ? ISO8601.parse(when) : null;
+                CompactCalendar time = calendar != null ? CompactCalendar.fromCalendar(calendar) : null;
+                if (whenCount < coords.size()) {
+                    KmlPosition position = coords.get(whenCount);
+                    if (position != null)
+                        position.setTime(time);
+                } else
+                    times.add(time);
+                whenCount++;
+            } else if (is("coord")) {
+                KmlPosition position = parseExtensionPosition(readText());
+                CompactCalendar time = !times.isEmpty() ? times.removeFirst() : null;
+                coords.add(position);
+                if (position == null)
+                    continue;
+                position.setTime(time);
+                positions.add(position);
+            } else
+                skip();
+        }
+    }
+
+    private static class Placemark {
+        private String name, description;
+        private Calendar time;
+        private boolean geometry = false;
+        private final List<KmlPosition> positions = new ArrayList<KmlPosition>();
+    }
+}
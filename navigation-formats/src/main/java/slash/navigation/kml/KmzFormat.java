@@ -21,19 +21,20 @@
 package slash.navigation.kml;
 
 import slash.common.io.CompactCalendar;
-import slash.common.io.NotClosingUnderlyingInputStream;
+import slash.common.io.ZipArchive;
+import slash.common.io.ZippingOutputStream;
+import slash.navigation.base.ArchiveFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.RouteCharacteristics;
 
 import javax.xml.bind.JAXBException;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
-import java.util.zip.*;
+import java.util.zip.ZipEntry;
 
 /**
  * The base of all compressed Google Earth formats.
@@ -41,7 +42,7 @@ import java.util.zip.*;
  * @author Christian Pesch
  */
 
-public abstract class KmzFormat extends BaseKmlFormat {
+public abstract class KmzFormat extends BaseKmlFormat implements ArchiveFormat<KmlRoute> {
     private static final Logger log = Logger.getLogger(KmzFormat.class.getName());
     private final KmlFormat delegate;
 
@@ -70,64 +71,59 @@ public abstract class KmzFormat extends BaseKmlFormat {
     }
 
     public List<KmlRoute> read(InputStream source, CompactCalendar startDate) throws IOException {
+        ZipArchive archive = ZipArchive.open(source);
+        if (archive == null)
+            return null;
+
+        try {
+            return read(archive, startDate);
+        }
+        finally {
+            archive.close();
+        }
+    }
+
+    public List<KmlRoute> read(final ZipArchive archive, final CompactCalendar startDate) throws IOException {
         List<KmlRoute> result = new ArrayList<KmlRoute>();
-        ZipInputStream zip = new ZipInputStream(source);
         try {
-            ZipEntry entry;
-            while ((entry = zip.getNextEntry()) != null) {
-                try {
-                    List<KmlRoute> routes = delegate.internalRead(new NotClosingUnderlyingInputStream(zip), startDate);
-                    if (routes != null)
-                        result.addAll(routes);
-                } catch (JAXBException e) {
-                    log.fine("Error reading " + entry + " from " + source + ": " + e.getMessage());
+            List<List<KmlRoute>> entries = archive.readAll(new ZipArchive.EntryReader<List<KmlRoute>>() {
+                public List<KmlRoute> read(ZipEntry entry, InputStream input) throws IOException {
+                    try {
+                        return delegate.internalRead(input, startDate);
+                    } catch (JAXBException e) {
+                        log.fine("Error reading " + entry + " from " + archive + ": " + e.getMessage());
+                        return null;
+                    }
                 }
-                zip.closeEntry();
-            }
+            });
+            for (List<KmlRoute> routes : entries)
+                result.addAll(routes);
             return result.size() > 0 ? result : null;
         }
         catch (IllegalArgumentException e) {
-            log.fine("Error reading invalid zip entry names from " + source + ": " + e.getMessage());
+            log.fine("Error reading invalid zip entry names from " + archive + ": " + e.getMessage());
             return null;
         }
-        catch (ZipException e) {
-            log.fine("Error reading zip entries from " + source + ": " + e.getMessage());
-            return null;
+    }
+
+    public void write(KmlRoute route, OutputStream target, int startIndex, int endIndex) throws IOException {
+        // the KML is marshalled straight into the deflater, closing it completes the archive
+        ZippingOutputStream zip = new ZippingOutputStream(target, "doc.kml");
+        try {
+            delegate.write(route, zip, startIndex, endIndex);
         }
         finally {
             zip.close();
         }
     }
 
-    private void writeIntermediate(OutputStream target, byte[] bytes) throws IOException {
-        CRC32 crc = new CRC32();
-        crc.reset();
-        crc.update(bytes);
-
-        ZipOutputStream outputStream = new ZipOutputStream(target);
+    public void write(List<KmlRoute> routes, OutputStream target) throws IOException {
+        ZippingOutputStream zip = new ZippingOutputStream(target, "doc.kml");
         try {
-            ZipEntry entry = new ZipEntry("doc.kml");
-            entry.setSize(bytes.length);
-            entry.setCrc(crc.getValue());
-            outputStream.putNextEntry(entry);
-            outputStream.write(bytes, 0, bytes.length);
-            outputStream.finish();
+            delegate.write(routes, zip);
         }
         finally {
-            outputStream.flush();
-            outputStream.close();
+            zip.close();
         }
     }
-
-    public void write(KmlRoute route, OutputStream target, int startIndex, int endIndex) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        delegate.write(route, baos, startIndex, endIndex);
-        writeIntermediate(target, baos.toByteArray());
-    }
-
-    public void write(List<KmlRoute> routes, OutputStream target) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        delegate.write(routes, baos);
-        writeIntermediate(target, baos.toByteArray());
-    }
 }
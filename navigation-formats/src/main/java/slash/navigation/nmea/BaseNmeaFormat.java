@@ -99,9 +99,8 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     public List<NmeaRoute> read(BufferedReader reader, CompactCalendar startDate, String encoding) throws IOException {
         List<NmeaPosition> positions = new ArrayList<NmeaPosition>();
 
-        CompactCalendar originalStartDate = startDate;
+        SentenceParser parser = new SentenceParser(startDate);
         int lineCount = 0;
-        NmeaPosition previous = null;
         while (true) {
             String line = reader.readLine();
             if (line == null)
@@ -110,20 +109,9 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
                 continue;
 
             if (isValidLine(line)) {
-                if (isPosition(line)) {
-                    NmeaPosition position = parsePosition(line);
-                    if (isValidStartDate(position.getTime()))
-                        startDate = position.getTime();
-                    else
-                        position.setStartDate(startDate);
-
-                    if (haveDifferentLongitudeAndLatitude(previous, position)) {
-                        positions.add(position);
-                        previous = position;
-                    } else {
-                        mergePositions(previous, position, originalStartDate);
-                    }
-                }
+                NmeaPosition position = parser.parse(line);
+                if (position != null)
+                    positions.add(position);
             } else {
                 // exception for Mobile Navigator 6: accept that the first line may be garbled
                 if (lineCount++ > getGarbleCount())
@@ -137,6 +125,46 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
             return null;
     }
 
+    /**
+     * Parses the position sentences of a NMEA stream one by one and merges sentences
+     * with the same coordinates into their predecessor. Keeps its state between calls
+     * so that a stream may be fed in arbitrary chunks of lines.
+     */
+    class SentenceParser {
+        private final CompactCalendar originalStartDate;
+        private CompactCalendar startDate;
+        private NmeaPosition previous;
+
+        SentenceParser(CompactCalendar startDate) {
+            this.originalStartDate = startDate;
+            this.startDate = startDate;
+        }
+
+        /**
+         * Parses a valid line.
+         *
+         * @param line a line for which {@link BaseNmeaFormat#isValidLine} holds
+         * @return the new position or null if the line is no position or has been merged into the previous position
+         */
+        NmeaPosition parse(String line) {
+            if (!isPosition(line))
+                return null;
+
+            NmeaPosition position = parsePosition(line);
+            if (isValidStartDate(position.getTime()))
+                startDate = position.getTime();
+            else
+                position.setStartDate(startDate);
+
+            if (haveDifferentLongitudeAndLatitude(previous, position)) {
+                previous = position;
+                return position;
+            }
+            mergePositions(previous, position, originalStartDate);
+            return null;
+        }
+    }
+
     boolean haveDifferentLongitudeAndLatitude(NmeaPosition predecessor, NmeaPosition successor) {
         return predecessor == null ||
                 (predecessor.hasCoordinates() && successor.hasCoordinates() &&
@@ -159,7 +187,7 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
             position.setLongitude(toBeMergedInto.getLongitude());
         if ((toBeMergedInto.getTime() != null) &&
                 (position.getTime() == null || isStartDateEqual(position.getTime(), originalStartDate) ||
-                        position.getTime().getCalendar().before(toBeMergedInto.getTime().getCalendar())))
+                        position.getTime().before(toBeMergedInto.getTime())))
             position.setTime(toBeMergedInto.getTime());
         if (isEmpty(position.getHdop()) && !isEmpty(toBeMergedInto.getHdop()))
             position.setHdop(toBeMergedInto.getHdop());
@@ -174,11 +202,7 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     private boolean isStartDateEqual(CompactCalendar compactCalendar1, CompactCalendar compactCalendar2) {
         if (compactCalendar1 == null || compactCalendar2 == null)
             return false;
-        Calendar calendar1 = compactCalendar1.getCalendar();
-        Calendar calendar2 = compactCalendar2.getCalendar();
-        return calendar1.get(Calendar.YEAR) == calendar2.get(Calendar.YEAR) &&
-                calendar1.get(Calendar.MONTH) == calendar2.get(Calendar.MONTH) &&
-                calendar1.get(Calendar.DAY_OF_MONTH) == calendar2.get(Calendar.DAY_OF_MONTH);
+        return compactCalendar1.isSameDay(compactCalendar2);
     }
 
     protected boolean isValidLine(String line) {
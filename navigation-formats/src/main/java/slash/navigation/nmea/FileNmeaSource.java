@@ -0,0 +1,95 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static slash.navigation.base.BaseNavigationFormat.DEFAULT_ENCODING;
+
+/**
+ * Follows a NMEA log file that is written by a logger: reads the file from the
+ * beginning and then only the bytes appended since the last read.
+ *
+ * @author Christian Pesch
+ */
+
+public class FileNmeaSource extends LiveNmeaSource {
+    private final File file;
+    private long pollInterval = 500;
+
+    public FileNmeaSource(File file, BaseNmeaFormat format) {
+        super(format);
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    protected void follow() throws IOException, InterruptedException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            byte[] buffer = new byte[8192];
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            long offset = 0;
+            while (isRunning()) {
+                // the logger started a new file
+                if (input.length() < offset) {
+                    input.seek(0);
+                    offset = 0;
+                    line.reset();
+                    restart();
+                }
+
+                int count = input.read(buffer);
+                if (count <= 0) {
+                    Thread.sleep(pollInterval);
+                    continue;
+                }
+                offset += count;
+
+                for (int i = 0; i < count; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n' || b == '\r') {
+                        if (line.size() > 0) {
+                            sentence(line.toString(DEFAULT_ENCODING));
+                            line.reset();
+                        }
+                    } else
+                        line.write(b);
+                }
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[file=" + file + "]";
+    }
+}
@@ -0,0 +1,261 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static slash.common.io.Transfer.trim;
+
+/**
+ * Follows a live source of NMEA sentences: parses only the sentences that arrived
+ * since the last read and hands the resulting positions in batches to its
+ * {@link LiveNmeaSourceListener}s.
+ * <p/>
+ * Parsed positions are buffered in a bounded queue. If the listeners do not keep up,
+ * the queue fills up and the reader blocks until the listeners caught up again.
+ *
+ * @author Christian Pesch
+ */
+
+public abstract class LiveNmeaSource {
+    private static final Logger log = Logger.getLogger(LiveNmeaSource.class.getName());
+    private static final Pattern HOST_AND_PORT_PATTERN = Pattern.compile("([^:/\\\\]+):(\\d+)");
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    private final BaseNmeaFormat format;
+    private final BlockingQueue<NmeaPosition> queue;
+    private final List<LiveNmeaSourceListener> listeners = new CopyOnWriteArrayList<LiveNmeaSourceListener>();
+    private int maximumBatchSize = 1000;
+    private long batchInterval = 250;
+    private volatile boolean running;
+    private Thread reader, notifier;
+    private BaseNmeaFormat.SentenceParser parser;
+    private NmeaPosition pending;
+    private Exception cause;
+
+    protected LiveNmeaSource(BaseNmeaFormat format, int capacity) {
+        this.format = format;
+        this.queue = new ArrayBlockingQueue<NmeaPosition>(capacity);
+    }
+
+    protected LiveNmeaSource(BaseNmeaFormat format) {
+        this(format, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a {@link LiveNmeaSource} for the given source.
+     *
+     * @param source either <code>host:port</code> of a NMEA server or the path of a NMEA log file
+     * @param format the format to parse the sentences with
+     * @return a {@link SocketNmeaSource} or a {@link FileNmeaSource}
+     */
+    public static LiveNmeaSource createLiveNmeaSource(String source, BaseNmeaFormat format) {
+        Matcher matcher = HOST_AND_PORT_PATTERN.matcher(source);
+        if (matcher.matches() && !new File(source).exists())
+            return new SocketNmeaSource(matcher.group(1), Integer.parseInt(matcher.group(2)), format);
+        return new FileNmeaSource(new File(source), format);
+    }
+
+    public BaseNmeaFormat getFormat() {
+        return format;
+    }
+
+    public void setMaximumBatchSize(int maximumBatchSize) {
+        this.maximumBatchSize = maximumBatchSize;
+    }
+
+    public void setBatchInterval(long batchInterval) {
+        this.batchInterval = batchInterval;
+    }
+
+    public void addLiveNmeaSourceListener(LiveNmeaSourceListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeLiveNmeaSourceListener(LiveNmeaSourceListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized void start() {
+        if (running)
+            throw new IllegalStateException("already following " + this);
+
+        running = true;
+        parser = format.new SentenceParser(null);
+        pending = null;
+        cause = null;
+
+        reader = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    follow();
+                } catch (InterruptedException e) {
+                    // stopped
+                } catch (Exception e) {
+                    if (running) {
+                        log.severe("Error while following " + LiveNmeaSource.this + ": " + e.getMessage());
+                        cause = e;
+                    }
+                } finally {
+                    // follow() may have returned after close() and before the interrupt of stop()
+                    // arrived; clear the flag so that the last position can still be handed out
+                    Thread.interrupted();
+                    // the stream ended, nothing is merged into the last position anymore
+                    try {
+                        handOutPending();
+                    } catch (InterruptedException e) {
+                        log.warning("Dropped the last position of " + LiveNmeaSource.this + " while stopping");
+                    }
+                    running = false;
+                }
+            }
+        }, "LiveNmeaSourceReader");
+        reader.setDaemon(true);
+
+        notifier = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    notifyReceived();
+                } catch (InterruptedException e) {
+                    // stopped
+                } finally {
+                    for (LiveNmeaSourceListener listener : listeners) {
+                        listener.stopped(cause);
+                    }
+                }
+            }
+        }, "LiveNmeaSourceNotifier");
+        notifier.setDaemon(true);
+
+        reader.start();
+        notifier.start();
+    }
+
+    public synchronized void stop() {
+        if (!running)
+            return;
+        running = false;
+        close();
+        reader.interrupt();
+    }
+
+    /**
+     * Waits until the source stopped and all positions have been delivered.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @throws InterruptedException if the current thread has been interrupted
+     */
+    public void join(long timeout) throws InterruptedException {
+        Thread thread = notifier;
+        if (thread != null)
+            thread.join(timeout);
+    }
+
+    /**
+     * Reads from the source until it ends or {@link #isRunning()} returns false
+     * and passes each line to {@link #sentence(String)}.
+     *
+     * @throws IOException          if the source cannot be read
+     * @throws InterruptedException if the source has been stopped while waiting
+     */
+    protected abstract void follow() throws IOException, InterruptedException;
+
+    /**
+     * Releases resources the reader might be blocked on; called from {@link #stop()}.
+     */
+    protected void close() {
+    }
+
+    private void handOutPending() throws InterruptedException {
+        // the notifier drains the queue as long as the reader is alive
+        if (pending != null)
+            queue.put(pending);
+        pending = null;
+    }
+
+    /**
+     * Starts over with a new stream of sentences, i.e. when a log file has been truncated:
+     * the position held back is handed out and nothing is merged into it anymore.
+     *
+     * @throws InterruptedException if the source has been stopped while waiting for the listeners
+     */
+    protected void restart() throws InterruptedException {
+        handOutPending();
+        parser = format.new SentenceParser(null);
+    }
+
+    /**
+     * Parses a line from the source. A new position is held back until the next position
+     * starts, so that sentences with the same coordinates are merged into it before
+     * it is handed out.
+     *
+     * @param line the line to parse
+     * @throws InterruptedException if the source has been stopped while waiting for the listeners
+     */
+    protected void sentence(String line) throws InterruptedException {
+        if (trim(line) == null || !format.isValidLine(line))
+            return;
+
+        NmeaPosition position = parser.parse(line);
+        if (position == null)
+            return;
+
+        handOutPending();
+        pending = position;
+    }
+
+    private void notifyReceived() throws InterruptedException {
+        while (true) {
+            NmeaPosition first = queue.poll(batchInterval, MILLISECONDS);
+            if (first == null) {
+                if (!reader.isAlive() && queue.isEmpty())
+                    break;
+                continue;
+            }
+
+            // give the reader the chance to collect a batch
+            if (reader.isAlive())
+                Thread.sleep(batchInterval);
+
+            List<NmeaPosition> positions = new ArrayList<NmeaPosition>(Math.min(queue.size() + 1, maximumBatchSize));
+            positions.add(first);
+            queue.drainTo(positions, maximumBatchSize - 1);
+
+            for (LiveNmeaSourceListener listener : listeners) {
+                listener.received(positions);
+            }
+        }
+    }
+}
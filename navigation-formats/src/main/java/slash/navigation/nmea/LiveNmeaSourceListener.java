@@ -0,0 +1,47 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import java.util.List;
+
+/**
+ * Interface for objects that want to be notified about the positions
+ * a {@link LiveNmeaSource} receives.
+ *
+ * @author Christian Pesch
+ */
+
+public interface LiveNmeaSourceListener {
+    /**
+     * Called from the notifier thread of the {@link LiveNmeaSource} with the next batch of positions.
+     * The source does not hand out the next batch before this method returns.
+     *
+     * @param positions the positions received since the last call
+     */
+    void received(List<NmeaPosition> positions);
+
+    /**
+     * Called once after the {@link LiveNmeaSource} stopped following and the last batch has been delivered.
+     *
+     * @param cause the exception that stopped the source or null if it has been stopped or the stream ended
+     */
+    void stopped(Exception cause);
+}
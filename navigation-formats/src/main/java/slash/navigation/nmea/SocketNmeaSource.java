@@ -0,0 +1,76 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+
+import static slash.navigation.base.BaseNavigationFormat.DEFAULT_ENCODING;
+
+/**
+ * Follows a NMEA stream served over TCP, like gpsd in NMEA mode does.
+ *
+ * @author Christian Pesch
+ */
+
+public class SocketNmeaSource extends LiveNmeaSource {
+    private final String host;
+    private final int port;
+    private volatile Socket socket;
+
+    public SocketNmeaSource(String host, int port, BaseNmeaFormat format) {
+        super(format);
+        this.host = host;
+        this.port = port;
+    }
+
+    protected void follow() throws IOException, InterruptedException {
+        socket = new Socket(host, port);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), DEFAULT_ENCODING));
+            while (isRunning()) {
+                String line = reader.readLine();
+                if (line == null)
+                    break;
+                sentence(line);
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    protected void close() {
+        Socket socket = this.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // intentionally left empty
+            }
+        }
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[host=" + host + ", port=" + port + "]";
+    }
+}
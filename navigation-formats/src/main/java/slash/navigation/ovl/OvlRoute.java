@@ -451,7 +451,7 @@ public class OvlRoute extends BaseRoute<Wgs84Position, OvlFormat> {
         return new ViaMichelinRoute(getName(), wgs84Positions);
     }
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -463,7 +463,7 @@ public class OvlRoute extends BaseRoute<Wgs84Position, OvlFormat> {
                 !(symbol != null ? !symbol.equals(ovlRoute.symbol) : ovlRoute.symbol != null);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result;
         result = (symbol != null ? symbol.hashCode() : 0);
         result = 31 * result + (overlay != null ? overlay.hashCode() : 0);
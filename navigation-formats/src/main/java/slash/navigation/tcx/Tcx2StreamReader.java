@@ -0,0 +1,347 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.tcx;
+
+import slash.common.io.CompactCalendar;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static slash.navigation.base.XmlNavigationFormat.parseTime;
+
+/**
+ * Reads Training Center Database 2 (.tcx) files element by element without
+ * building the document in memory.
+ * <p/>
+ * Every reading method is called on the start of its element and returns
+ * after the end of it; unknown elements are skipped with their content.
+ *
+ * @author Christian Pesch
+ */
+
+class Tcx2StreamReader {
+    static final String TCX_2_NAMESPACE_URI = "http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2";
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    private final Tcx2Format format;
+    private final XMLStreamReader reader;
+
+    Tcx2StreamReader(Tcx2Format format, InputStream source) throws XMLStreamException {
+        this.format = format;
+        this.reader = inputFactory.createXMLStreamReader(source);
+    }
+
+    List<GpxRoute> read() throws XMLStreamException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == START_ELEMENT)
+                    return is("TrainingCenterDatabase") ? readTrainingCenterDatabase() : null;
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean is(String localName) {
+        return localName.equals(reader.getLocalName()) && TCX_2_NAMESPACE_URI.equals(reader.getNamespaceURI());
+    }
+
+    private boolean nextChild() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                return true;
+            if (event == END_ELEMENT)
+                return false;
+        }
+        return false;
+    }
+
+    private void skip() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private String readText() throws XMLStreamException {
+        return reader.getElementText();
+    }
+
+    private Double readDouble() throws XMLStreamException {
+        String string = readText().trim();
+        if (string.length() == 0)
+            return null;
+        try {
+            return Double.valueOf(string);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private double readDouble(double defaultValue) throws XMLStreamException {
+        Double value = readDouble();
+        return value != null ? value : defaultValue;
+    }
+
+    // TrainingCenterDatabase -> ActivityList -> Activity -> ActivityLap -> Track -> TrackPoint -> Position
+    // TrainingCenterDatabase -> ActivityList -> MultiSportSession -> FirstSport -> Activity -> ActivityLap -> ...
+    // TrainingCenterDatabase -> ActivityList -> MultiSportSession -> NextSport -> Activity -> ActivityLap -> ...
+    // TrainingCenterDatabase -> ActivityList -> MultiSportSession -> NextSport -> ActivityLap -> ...
+    // TrainingCenterDatabase -> CourseList -> Course -> CoursePoint -> Position
+    // TrainingCenterDatabase -> CourseList -> Course -> CourseLap -> BeginPosition/EndPosition
+    // TrainingCenterDatabase -> CourseList -> Course -> Track -> TrackPoint -> Position
+    private List<GpxRoute> readTrainingCenterDatabase() throws XMLStreamException {
+        List<GpxRoute> result = new ArrayList<GpxRoute>();
+        while (nextChild()) {
+            if (is("Activities"))
+                readActivityList(result);
+            else if (is("Courses"))
+                readCourseList(result);
+            else
+                skip();
+        }
+        return result;
+    }
+
+    private void readActivityList(List<GpxRoute> result) throws XMLStreamException {
+        while (nextChild()) {
+            if (is("Activity"))
+                result.addAll(readActivity());
+            else if (is("MultiSportSession"))
+                readMultiSportSession(result);
+            else
+                skip();
+        }
+    }
+
+    private void readMultiSportSession(List<GpxRoute> result) throws XMLStreamException {
+        while (nextChild()) {
+            if (is("FirstSport"))
+                result.addAll(readSport());
+            else if (is("NextSport"))
+                result.addAll(readSport());
+            else
+                skip();
+        }
+    }
+
+    private List<GpxRoute> readSport() throws XMLStreamException {
+        List<GpxRoute> result = new ArrayList<GpxRoute>();
+        GpxRoute transition = null;
+        while (nextChild()) {
+            if (is("Activity"))
+                result.addAll(readActivity());
+            else if (is("Transition"))
+                transition = readActivityLap();
+            else
+                skip();
+        }
+        // the transition precedes the activity in the file but follows it in the routes
+        if (transition != null)
+            result.add(transition);
+        return result;
+    }
+
+    private List<GpxRoute> readActivity() throws XMLStreamException {
+        List<GpxRoute> result = new ArrayList<GpxRoute>();
+        while (nextChild()) {
+            if (is("Lap"))
+                result.add(readActivityLap());
+            else
+                skip();
+        }
+        return result;
+    }
+
+    private GpxRoute readActivityLap() throws XMLStreamException {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        String notes = null;
+        while (nextChild()) {
+            if (is("Track"))
+                readTrack(positions);
+            else if (is("Notes"))
+                notes = readText();
+            else
+                skip();
+        }
+        return new GpxRoute(format, RouteCharacteristics.Track, notes, null, positions);
+    }
+
+    private void readTrack(List<GpxPosition> positions) throws XMLStreamException {
+        while (nextChild()) {
+            if (is("Trackpoint"))
+                positions.add(readTrackpoint());
+            else
+                skip();
+        }
+    }
+
+    private GpxPosition readTrackpoint() throws XMLStreamException {
+        CompactCalendar time = null;
+        double[] position = null;
+        Double altitude = null;
+        Short heartBeat = null;
+        while (nextChild()) {
+            if (is("Time"))
+                time = parseTime(readText());
+            else if (is("Position"))
+                position = readPosition();
+            else if (is("AltitudeMeters"))
+                altitude = readDouble();
+            else if (is("HeartRateBpm"))
+                heartBeat = readHeartRate();
+            else
+                skip();
+        }
+        GpxPosition result = new GpxPosition(position != null ? position[0] : null,
+                position != null ? position[1] : null, altitude, null, time, null);
+        result.setHeartBeat(heartBeat);
+        return result;
+    }
+
+    private double[] readPosition() throws XMLStreamException {
+        double longitude = 0.0, latitude = 0.0;
+        while (nextChild()) {
+            if (is("LongitudeDegrees"))
+                longitude = readDouble(0.0);
+            else if (is("LatitudeDegrees"))
+                latitude = readDouble(0.0);
+            else
+                skip();
+        }
+        return new double[]{longitude, latitude};
+    }
+
+    private Short readHeartRate() throws XMLStreamException {
+        Short result = null;
+        while (nextChild()) {
+            if (is("Value")) {
+                Double value = readDouble();
+                if (value != null)
+                    result = value.shortValue();
+            } else
+                skip();
+        }
+        return result;
+    }
+
+    private void readCourseList(List<GpxRoute> result) throws XMLStreamException {
+        while (nextChild()) {
+            if (is("Course"))
+                result.addAll(readCourse());
+            else
+                skip();
+        }
+    }
+
+    private List<GpxRoute> readCourse() throws XMLStreamException {
+        String name = null, notes = null;
+        List<GpxRoute> laps = new ArrayList<GpxRoute>();
+        List<GpxPosition> coursePoints = new ArrayList<GpxPosition>();
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        while (nextChild()) {
+            if (is("Name"))
+                name = readText().trim();
+            else if (is("Lap"))
+                laps.add(readCourseLap(name));
+            else if (is("Track"))
+                readTrack(positions);
+            else if (is("Notes"))
+                notes = readText();
+            else if (is("CoursePoint"))
+                coursePoints.add(readCoursePoint());
+            else
+                skip();
+        }
+
+        List<GpxRoute> result = new ArrayList<GpxRoute>();
+        if (coursePoints.size() > 0)
+            result.add(new GpxRoute(format, RouteCharacteristics.Route, name, null, coursePoints));
+        boolean writtenByRouteConverter = notes != null && format.isWrittenByRouteConverter(notes);
+        if (!writtenByRouteConverter)
+            result.addAll(laps);
+        result.add(new GpxRoute(format, RouteCharacteristics.Track, name, null, positions));
+        return result;
+    }
+
+    private GpxRoute readCourseLap(String name) throws XMLStreamException {
+        double totalTimeSeconds = 0.0;
+        double[] begin = null, end = null;
+        Double beginAltitude = null, endAltitude = null;
+        while (nextChild()) {
+            if (is("TotalTimeSeconds"))
+                totalTimeSeconds = readDouble(0.0);
+            else if (is("BeginPosition"))
+                begin = readPosition();
+            else if (is("BeginAltitudeMeters"))
+                beginAltitude = readDouble();
+            else if (is("EndPosition"))
+                end = readPosition();
+            else if (is("EndAltitudeMeters"))
+                endAltitude = readDouble();
+            else
+                skip();
+        }
+
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        positions.add(new GpxPosition(begin != null ? begin[0] : null, begin != null ? begin[1] : null,
+                beginAltitude, null, null, "0 seconds"));
+        positions.add(new GpxPosition(end != null ? end[0] : null, end != null ? end[1] : null,
+                endAltitude, null, null, totalTimeSeconds + " seconds"));
+        return new GpxRoute(format, RouteCharacteristics.Waypoints, name, null, positions);
+    }
+
+    private GpxPosition readCoursePoint() throws XMLStreamException {
+        String name = null;
+        CompactCalendar time = null;
+        double[] position = null;
+        Double altitude = null;
+        while (nextChild()) {
+            if (is("Name"))
+                name = readText().trim();
+            else if (is("Time"))
+                time = parseTime(readText());
+            else if (is("Position"))
+                position = readPosition();
+            else if (is("AltitudeMeters"))
+                altitude = readDouble();
+            else
+                skip();
+        }
+        return new GpxPosition(position != null ? position[0] : null, position != null ? position[1] : null,
+                altitude, null, time, name);
+    }
+}
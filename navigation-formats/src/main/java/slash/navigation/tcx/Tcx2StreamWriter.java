@@ -0,0 +1,207 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.tcx;
+
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static java.lang.Math.min;
+import static slash.navigation.base.XmlNavigationFormat.formatTime;
+import static slash.navigation.tcx.Tcx2StreamReader.TCX_2_NAMESPACE_URI;
+
+/**
+ * Writes Training Center Database 2 (.tcx) files element by element without
+ * building the document in memory.
+ * <p/>
+ * The elements are written in the order and with the indentation of the schema
+ * bound marshaller. The distances of the lap and its trackpoints are calculated
+ * in a single pass over the positions.
+ *
+ * @author Christian Pesch
+ */
+
+class Tcx2StreamWriter {
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private static final String INDENTATION = "    ";
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private final Tcx2Format format;
+    private final OutputStream target;
+    private final XMLStreamWriter writer;
+    private int depth = 0;
+
+    Tcx2StreamWriter(Tcx2Format format, OutputStream target) throws XMLStreamException {
+        this.format = format;
+        this.target = target;
+        this.writer = outputFactory.createXMLStreamWriter(target, "UTF-8");
+    }
+
+    void writeStart() throws IOException, XMLStreamException {
+        // the stream writer cannot declare a standalone document
+        target.write(XML_DECLARATION.getBytes("UTF-8"));
+        writer.writeStartElement("TrainingCenterDatabase");
+        writer.writeDefaultNamespace(TCX_2_NAMESPACE_URI);
+        depth++;
+        start("Courses");
+    }
+
+    void writeEnd() throws XMLStreamException {
+        end();
+        depth--;
+        writer.writeCharacters("\n");
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private void indent() throws XMLStreamException {
+        writer.writeCharacters("\n");
+        for (int i = 0; i < depth; i++)
+            writer.writeCharacters(INDENTATION);
+    }
+
+    private void start(String localName) throws XMLStreamException {
+        indent();
+        writer.writeStartElement(localName);
+        depth++;
+    }
+
+    private void end() throws XMLStreamException {
+        depth--;
+        indent();
+        writer.writeEndElement();
+    }
+
+    private void element(String localName, String value) throws XMLStreamException {
+        indent();
+        writer.writeStartElement(localName);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static String formatDouble(double value) {
+        // like javax.xml.bind.DatatypeConverter.printDouble()
+        if (Double.isNaN(value))
+            return "NaN";
+        if (value == Double.POSITIVE_INFINITY)
+            return "INF";
+        if (value == Double.NEGATIVE_INFINITY)
+            return "-INF";
+        return String.valueOf(value);
+    }
+
+    private void writePosition(String localName, GpxPosition position) throws XMLStreamException {
+        start(localName);
+        element("LatitudeDegrees", formatDouble(position.getLatitude() != null ? position.getLatitude() : 0.0));
+        element("LongitudeDegrees", formatDouble(position.getLongitude() != null ? position.getLongitude() : 0.0));
+        end();
+    }
+
+    private void writeHeartRate(String localName, GpxPosition position) throws XMLStreamException {
+        Short heartBeatRate = format.getHeartBeatRate(position);
+        if (heartBeatRate == null)
+            return;
+        start(localName);
+        element("Value", Short.toString(heartBeatRate));
+        end();
+    }
+
+    private double[] calculateDistances(List<GpxPosition> positions, int startIndex, int endIndex) {
+        double[] distances = new double[endIndex - startIndex];
+        GpxPosition previous = null;
+        double distance = 0.0;
+        for (int i = startIndex; i < endIndex; i++) {
+            GpxPosition position = positions.get(i);
+            if (previous != null) {
+                Double delta = previous.calculateDistance(position);
+                if (delta != null)
+                    distance += delta;
+            }
+            previous = position;
+            distances[i - startIndex] = distance;
+        }
+        return distances;
+    }
+
+    private void writeCourseLap(GpxRoute route, int startIndex, int endIndex, double distance) throws XMLStreamException {
+        List<GpxPosition> positions = route.getPositions();
+        GpxPosition first = startIndex < endIndex ? positions.get(startIndex) : null;
+        GpxPosition last = startIndex < endIndex ? positions.get(endIndex - 1) : null;
+
+        start("Lap");
+        element("TotalTimeSeconds", formatDouble(route.getTime() / 1000.0));
+        element("DistanceMeters", formatDouble(distance));
+        if (first != null) {
+            writePosition("BeginPosition", first);
+            if (first.getElevation() != null)
+                element("BeginAltitudeMeters", formatDouble(first.getElevation()));
+        }
+        if (last != null) {
+            writePosition("EndPosition", last);
+            if (last.getElevation() != null)
+                element("EndAltitudeMeters", formatDouble(last.getElevation()));
+        }
+        writeHeartRate("AverageHeartRateBpm", first);
+        element("Intensity", "Active");
+        end();
+    }
+
+    private void writeTrack(List<GpxPosition> positions, int startIndex, int endIndex, double[] distances) throws XMLStreamException {
+        start("Track");
+        for (int i = startIndex; i < endIndex; i++) {
+            GpxPosition position = positions.get(i);
+            start("Trackpoint");
+            XMLGregorianCalendar time = formatTime(position.getTime());
+            if (time != null)
+                element("Time", time.toXMLFormat());
+            writePosition("Position", position);
+            if (position.getElevation() != null)
+                element("AltitudeMeters", formatDouble(position.getElevation()));
+            element("DistanceMeters", formatDouble(distances[i - startIndex]));
+            writeHeartRate("HeartRateBpm", position);
+            end();
+        }
+        end();
+    }
+
+    void writeCourse(GpxRoute route, String routeName, int startIndex, int endIndex) throws XMLStreamException {
+        double[] distances = calculateDistances(route.getPositions(), startIndex, endIndex);
+        double distance = distances.length > 0 ? distances[distances.length - 1] : 0.0;
+
+        start("Course");
+        // ensure the course name does not exceed 15 characters
+        element("Name", routeName.substring(0, min(routeName.length(), 15)));
+        writeCourseLap(route, startIndex, endIndex, distance);
+        writeTrack(route.getPositions(), startIndex, endIndex, distances);
+        element("Notes", format.getGeneratedBy());
+        end();
+    }
+}
@@ -41,6 +41,8 @@ public abstract class TcxFormat extends GpxFormat {
 
     protected Short getHeartBeatRate(GpxPosition position) {
         if (position != null) {
+            if (position.getHeartBeat() != null)
+                return position.getHeartBeat();
             WptType wpt = position.getOrigin(WptType.class);
             if (wpt != null) {
                 Double heartBeatRate = getHeartBeatRate(wpt);
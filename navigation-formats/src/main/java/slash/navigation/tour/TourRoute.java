@@ -429,7 +429,7 @@ public class TourRoute extends BaseRoute<TourPosition, TourFormat> {
     }
 
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -439,7 +439,7 @@ public class TourRoute extends BaseRoute<TourPosition, TourFormat> {
                 !(positions != null ? !positions.equals(tourRoute.positions) : tourRoute.positions != null);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result = (name != null ? name.hashCode() : 0);
         result = 31 * result + (positions != null ? positions.hashCode() : 0);
         return result;
@@ -0,0 +1,121 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.util;
+
+import static java.lang.Double.doubleToLongBits;
+import static java.util.Arrays.fill;
+
+/**
+ * Assigns consecutive indexes to coordinates. Two coordinates get the same
+ * index if their longitudes and latitudes are equal in terms of
+ * {@link Double#compare(double, double)}.
+ * <p/>
+ * The coordinates are kept as bits in flat arrays and found via open
+ * addressing, so no key object is allocated per coordinate.
+ *
+ * @author Christian Pesch
+ */
+
+class CoordinateIndex {
+    private static final int EMPTY = -1;
+
+    private long[] longitudes, latitudes;
+    private int[] table;
+    private int size;
+
+    CoordinateIndex(int expectedSize) {
+        int capacity = Math.max(expectedSize, 8);
+        longitudes = new long[capacity];
+        latitudes = new long[capacity];
+        table = createTable(capacity);
+    }
+
+    private static int[] createTable(int capacity) {
+        // keep the load factor at or below one half
+        int length = Integer.highestOneBit(capacity) << 2;
+        int[] table = new int[length];
+        fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(long longitude, long latitude) {
+        long hash = longitude * 0x9E3779B97F4A7C15L + latitude;
+        hash ^= hash >>> 33;
+        hash *= 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 29;
+        return (int) hash;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the given coordinates and assigns the next
+     * free index if the coordinates have not been seen before.
+     *
+     * @param longitude the longitude of the coordinates
+     * @param latitude the latitude of the coordinates
+     * @return the index of the coordinates, starting with 0
+     */
+    public int indexOf(double longitude, double latitude) {
+        long longitudeBits = doubleToLongBits(longitude);
+        long latitudeBits = doubleToLongBits(latitude);
+        int mask = table.length - 1;
+        int slot = hash(longitudeBits, latitudeBits) & mask;
+        while (true) {
+            int index = table[slot];
+            if (index == EMPTY)
+                break;
+            if (longitudes[index] == longitudeBits && latitudes[index] == latitudeBits)
+                return index;
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == longitudes.length) {
+            grow();
+            return indexOf(longitude, latitude);
+        }
+        longitudes[size] = longitudeBits;
+        latitudes[size] = latitudeBits;
+        table[slot] = size;
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = longitudes.length * 2;
+        long[] longitudes = new long[capacity];
+        System.arraycopy(this.longitudes, 0, longitudes, 0, size);
+        long[] latitudes = new long[capacity];
+        System.arraycopy(this.latitudes, 0, latitudes, 0, size);
+        int[] table = createTable(capacity);
+        int mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(longitudes[i], latitudes[i]) & mask;
+            while (table[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            table[slot] = i;
+        }
+        this.longitudes = longitudes;
+        this.latitudes = latitudes;
+        this.table = table;
+    }
+}
@@ -32,9 +32,7 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -110,7 +108,7 @@ public abstract class RouteComments {
     private static String getPositionComment(BaseNavigationPosition position, int index) {
         if (position.getComment() == null || "(null)".equals(position.getComment())) {
             return getPositionComment(index);
-        } else {
+        } else if (position.getComment().contains(POSITION)) {
             Matcher matcher = POSITION_PATTERN.matcher(position.getComment());
             if (matcher.matches()) {
                 String prefix = trim(matcher.group(1));
@@ -152,82 +150,54 @@ public abstract class RouteComments {
         if(routes.size() < 2)
             return;
 
-        Map<LongitudeAndLatitude, String> comments = new HashMap<LongitudeAndLatitude, String>();
-        Map<LongitudeAndLatitude, Double> elevations = new HashMap<LongitudeAndLatitude, Double>();
-        Map<LongitudeAndLatitude, CompactCalendar> times = new HashMap<LongitudeAndLatitude, CompactCalendar>();
-        Map<LongitudeAndLatitude, Double> speeds = new HashMap<LongitudeAndLatitude, Double>();
+        int positionCount = 0;
+        for (BaseRoute route : routes)
+            positionCount += route.getPositions().size();
 
+        CoordinateIndex coordinates = new CoordinateIndex(positionCount);
+        int[] indexes = new int[positionCount];
+        String[] comments = new String[positionCount];
+        Double[] elevations = new Double[positionCount];
+        CompactCalendar[] times = new CompactCalendar[positionCount];
+        Double[] speeds = new Double[positionCount];
+
+        int count = 0;
         for (BaseRoute<BaseNavigationPosition, BaseNavigationFormat> route : routes) {
             for (BaseNavigationPosition position : route.getPositions()) {
-                if (!position.hasCoordinates())
+                if (!position.hasCoordinates()) {
+                    indexes[count++] = -1;
                     continue;
-
-                if (position.getComment() != null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    if (comments.get(lal) == null) {
-                        comments.put(lal, position.getComment());
-                    }
-                }
-
-                if (position.getElevation() != null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    if (elevations.get(lal) == null) {
-                        elevations.put(lal, position.getElevation());
-                    }
-                }
-
-                if (position.getSpeed() != null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    if (speeds.get(lal) == null) {
-                        speeds.put(lal, position.getSpeed());
-                    }
                 }
 
-                if (position.getTime() != null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    if (times.get(lal) == null) {
-                        times.put(lal, position.getTime());
-                    }
-                }
+                int index = coordinates.indexOf(position.getLongitude(), position.getLatitude());
+                indexes[count++] = index;
+
+                if (comments[index] == null)
+                    comments[index] = position.getComment();
+                if (elevations[index] == null)
+                    elevations[index] = position.getElevation();
+                if (speeds[index] == null)
+                    speeds[index] = position.getSpeed();
+                if (times[index] == null)
+                    times[index] = position.getTime();
             }
         }
 
+        count = 0;
         for (BaseRoute<BaseNavigationPosition, BaseNavigationFormat> route : routes) {
             for (BaseNavigationPosition position : route.getPositions()) {
-                if (!position.hasCoordinates())
+                int index = indexes[count++];
+                if (index == -1)
                     continue;
 
-                if (position.getComment() == null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    String comment = comments.get(lal);
-                    if (comment != null) {
-                        position.setComment(comment);
-                    }
-                }
-
-                if (position.getElevation() == null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    Double elevation = elevations.get(lal);
-                    if (elevation != null) {
-                        position.setElevation(elevation);
-                    }
-                }
-
-                if (position.getSpeed() == null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    Double speed = speeds.get(lal);
-                    if (speed != null) {
-                        position.setSpeed(speed);
-                    }
-                }
-
-                if (position.getTime() == null) {
-                    LongitudeAndLatitude lal = new LongitudeAndLatitude(position);
-                    CompactCalendar time = times.get(lal);
-                    if (time != null) {
-                        position.setTime(time);
-                    }
-                }
+                if (position.getComment() == null && comments[index] != null)
+                    position.setComment(comments[index]);
+                if (position.getElevation() == null && elevations[index] != null)
+                    position.setElevation(elevations[index]);
+                if (position.getSpeed() == null && speeds[index] != null)
+                    position.setSpeed(speeds[index]);
+                if (position.getTime() == null && times[index] != null)
+                    position.setTime(times[index]);
             }
         }
 
@@ -237,36 +207,6 @@ public abstract class RouteComments {
     }
 
 
-    private static class LongitudeAndLatitude {
-        public final double longitude, latitude;
-
-        public LongitudeAndLatitude(BaseNavigationPosition position) {
-            this.longitude = position.getLongitude();
-            this.latitude = position.getLatitude();
-        }
-
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-
-            final LongitudeAndLatitude that = (LongitudeAndLatitude) o;
-
-            return Double.compare(that.latitude, latitude) == 0 &&
-                    Double.compare(that.longitude, longitude) == 0;
-        }
-
-        public int hashCode() {
-            int result;
-            long temp;
-            temp = longitude != +0.0d ? Double.doubleToLongBits(longitude) : 0L;
-            result = (int) (temp ^ (temp >>> 32));
-            temp = latitude != +0.0d ? Double.doubleToLongBits(latitude) : 0L;
-            result = 29 * result + (int) (temp ^ (temp >>> 32));
-            return result;
-        }
-    }
-
-
     public static final SimpleDateFormat TRIPMASTER_TIME = new SimpleDateFormat("HH:mm:ss");
     public static final SimpleDateFormat TRIPMASTER_DATE = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
     static {
@@ -375,9 +315,36 @@ public abstract class RouteComments {
         return !Transfer.isEmpty(aDouble) ? aDouble : null;
     }
 
-    public static void parseComment(BaseNavigationPosition position, String comment) {
-        Matcher matcher = TRIPMASTER_14_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    /**
+     * Parses a comment with one of the patterns above. The patterns are only applied
+     * if a cheap test on the comment shows that they could match at all.
+     */
+    private static abstract class CommentParser {
+        private final Pattern pattern;
+
+        protected CommentParser(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        protected abstract boolean isCandidate(String comment);
+
+        protected abstract void parse(BaseNavigationPosition position, Matcher matcher);
+
+        void parse(BaseNavigationPosition position, String comment, boolean checkCandidate) {
+            if (checkCandidate && !isCandidate(comment))
+                return;
+            Matcher matcher = pattern.matcher(comment);
+            if (matcher.matches())
+                parse(position, matcher);
+        }
+    }
+
+    private static final CommentParser TRIPMASTER_14_PARSER = new CommentParser(TRIPMASTER_14_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.contains(" m - ");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTripmaster14Time(matcher.group(2)));
             position.setElevation(parseDouble(matcher.group(3)));
 
@@ -395,9 +362,14 @@ public abstract class RouteComments {
                 wgs84Position.setHeading(parseTripmasterHeading(reason));
             }
         }
+    };
 
-        matcher = TRIPMASTER_18_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TRIPMASTER_18_SHORT_STARTEND_PARSER = new CommentParser(TRIPMASTER_18_SHORT_STARTEND_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith("m") && comment.contains(" m - ");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -416,9 +388,14 @@ public abstract class RouteComments {
                 tomTomPosition.setCity(city);
             }
         }
+    };
 
-        matcher = TRIPMASTER_18_SHORT_WAYPOINT_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TRIPMASTER_18_SHORT_WAYPOINT_PARSER = new CommentParser(TRIPMASTER_18_SHORT_WAYPOINT_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith(" m");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTripmaster14Time(matcher.group(1)));
             position.setElevation(parseDouble(matcher.group(2)));
 
@@ -427,11 +404,15 @@ public abstract class RouteComments {
                 tomTomPosition.setReason("Waypoint");
                 tomTomPosition.setCity(null);
             }
+        }
+    };
 
+    private static final CommentParser TRIPMASTER_25_SHORT_WAYPOINT_PARSER = new CommentParser(TRIPMASTER_25_SHORT_WAYPOINT_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith(" m");
         }
 
-        matcher = TRIPMASTER_25_SHORT_WAYPOINT_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setElevation(parseDouble(matcher.group(3)));
 
@@ -449,9 +430,14 @@ public abstract class RouteComments {
                 wgs84Position.setHeading(parseTripmasterHeading(reason));
             }
         }
+    };
 
-        matcher = TRIPMASTER_25_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TRIPMASTER_25_SHORT_STARTEND_PARSER = new CommentParser(TRIPMASTER_25_SHORT_STARTEND_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith(" m") && comment.contains(" : ");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -464,9 +450,14 @@ public abstract class RouteComments {
                 tomTomPosition.setCity(null);
             }
         }
+    };
 
-        matcher = TRIPMASTER_MIDDLE_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TRIPMASTER_MIDDLE_PARSER = new CommentParser(TRIPMASTER_MIDDLE_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith("m") && comment.contains(" m - ");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setElevation(parseDouble(matcher.group(4)));
 
@@ -482,9 +473,14 @@ public abstract class RouteComments {
                 tomTomPosition.setReason(reason);
             }
         }
+    };
 
-        matcher = TRIPMASTER_LONG_NO_REASON_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TRIPMASTER_LONG_NO_REASON_PARSER = new CommentParser(TRIPMASTER_LONG_NO_REASON_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.contains("m/h");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setSpeed(parseDouble(matcher.group(6)));
             position.setElevation(parseDouble(matcher.group(3)));
@@ -498,9 +494,14 @@ public abstract class RouteComments {
                 tomTomPosition.setReason(city);
             }
         }
+    };
 
-        matcher = TRIPMASTER_LONG_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TRIPMASTER_LONG_PARSER = new CommentParser(TRIPMASTER_LONG_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.contains("m/h");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTripmaster18Date(matcher.group(3)));
             if (position.getTime() == null)
                 position.setTime(parseTripmaster14Time(matcher.group(1)));
@@ -519,9 +520,14 @@ public abstract class RouteComments {
                 tomTomPosition.setReason(reason);
             }
         }
+    };
 
-        matcher = LOGPOS_2_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser LOGPOS_2_PARSER = new CommentParser(LOGPOS_2_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith(")") && comment.contains("(s=");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseLogposDate(matcher.group(1)));
             position.setSpeed(parseDouble(matcher.group(5)));
 
@@ -532,9 +538,14 @@ public abstract class RouteComments {
                 tomTomPosition.setHeading(parseDouble(matcher.group(6)));
             }
         }
+    };
 
-        matcher = LOGPOS_1_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser LOGPOS_1_PARSER = new CommentParser(LOGPOS_1_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.endsWith(")") && comment.contains("@");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseLogposDate(matcher.group(1)));
             Double elevation;
             try {
@@ -552,9 +563,14 @@ public abstract class RouteComments {
                 tomTomPosition.setHeading(parseDouble(matcher.group(8)));
             }
         }
+    };
 
-        matcher = TTTRACKLOG_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser TTTRACKLOG_PARSER = new CommentParser(TTTRACKLOG_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.length() > 5 && comment.charAt(2) == ':';
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             position.setTime(parseTTTracklogTime(matcher.group(1)));
             position.setSpeed(parseDouble(matcher.group(5)));
             Double elevation = parseDouble(matcher.group(6));
@@ -566,9 +582,14 @@ public abstract class RouteComments {
                 tomTomPosition.setReason(trim(matcher.group(2)));
             }
         }
+    };
 
-        matcher = ROUTECONVERTER_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser ROUTECONVERTER_STARTEND_PARSER = new CommentParser(ROUTECONVERTER_STARTEND_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.contains(" deg");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -584,9 +605,14 @@ public abstract class RouteComments {
                 tomTomPosition.setHeading(parseDouble(matcher.group(9)));
             }
         }
+    };
 
-        matcher = ROUTECONVERTER_INTERMEDIATE_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+    private static final CommentParser ROUTECONVERTER_INTERMEDIATE_PARSER = new CommentParser(ROUTECONVERTER_INTERMEDIATE_PATTERN) {
+        protected boolean isCandidate(String comment) {
+            return comment.contains(" deg");
+        }
+
+        protected void parse(BaseNavigationPosition position, Matcher matcher) {
             String timeStr = trim(matcher.group(2));
             position.setTime(parseTripmaster14Time(timeStr));
             position.setElevation(parseDouble(matcher.group(3)));
@@ -599,5 +625,89 @@ public abstract class RouteComments {
                 tomTomPosition.setHeading(parseDouble(matcher.group(6)));
             }
         }
+    };
+
+    // the parsers in the order in which they are applied, later matches overwrite earlier ones
+
+    private static final CommentParser[] ALL_PARSERS = new CommentParser[]{
+            TRIPMASTER_14_PARSER,
+            TRIPMASTER_18_SHORT_STARTEND_PARSER,
+            TRIPMASTER_18_SHORT_WAYPOINT_PARSER,
+            TRIPMASTER_25_SHORT_WAYPOINT_PARSER,
+            TRIPMASTER_25_SHORT_STARTEND_PARSER,
+            TRIPMASTER_MIDDLE_PARSER,
+            TRIPMASTER_LONG_NO_REASON_PARSER,
+            TRIPMASTER_LONG_PARSER,
+            LOGPOS_2_PARSER,
+            LOGPOS_1_PARSER,
+            TTTRACKLOG_PARSER,
+            ROUTECONVERTER_STARTEND_PARSER,
+            ROUTECONVERTER_INTERMEDIATE_PARSER
+    };
+
+    // comments starting with a digit: times and logpos dates
+    private static final CommentParser[] TIME_PARSERS = new CommentParser[]{
+            TRIPMASTER_18_SHORT_WAYPOINT_PARSER,
+            TRIPMASTER_25_SHORT_WAYPOINT_PARSER,
+            TRIPMASTER_25_SHORT_STARTEND_PARSER,
+            TRIPMASTER_MIDDLE_PARSER,
+            TRIPMASTER_LONG_NO_REASON_PARSER,
+            TRIPMASTER_LONG_PARSER,
+            LOGPOS_2_PARSER,
+            LOGPOS_1_PARSER,
+            TTTRACKLOG_PARSER,
+            ROUTECONVERTER_INTERMEDIATE_PARSER
+    };
+
+    // comments starting with Start, Ende or Finish
+    private static final CommentParser[] START_END_PARSERS = new CommentParser[]{
+            TRIPMASTER_18_SHORT_STARTEND_PARSER,
+            ROUTECONVERTER_STARTEND_PARSER,
+            ROUTECONVERTER_INTERMEDIATE_PARSER
+    };
+
+    // comments starting with a Tripmaster reason like Dauer, Kurs or Waypoint
+    private static final CommentParser[] TRIPMASTER_REASON_PARSERS = new CommentParser[]{
+            TRIPMASTER_14_PARSER,
+            ROUTECONVERTER_INTERMEDIATE_PARSER
+    };
+
+    // all other comments are names which may be followed by RouteConverter details
+    private static final CommentParser[] NAME_PARSERS = new CommentParser[]{
+            ROUTECONVERTER_INTERMEDIATE_PARSER
+    };
+
+    private static CommentParser[] getCandidateParsers(String comment) {
+        if (comment.length() == 0)
+            return new CommentParser[0];
+        char first = comment.charAt(0);
+        if (first >= '0' && first <= '9')
+            return TIME_PARSERS;
+        switch (first) {
+            case 'E':
+            case 'F':
+            case 'S':
+                return START_END_PARSERS;
+            case 'A':
+            case 'C':
+            case 'D':
+            case 'K':
+            case 'P':
+            case 'R':
+            case 'W':
+                return TRIPMASTER_REASON_PARSERS;
+            default:
+                return NAME_PARSERS;
+        }
+    }
+
+    public static void parseComment(BaseNavigationPosition position, String comment) {
+        for (CommentParser parser : getCandidateParsers(comment))
+            parser.parse(position, comment, true);
+    }
+
+    static void parseCommentWithAllPatterns(BaseNavigationPosition position, String comment) {
+        for (CommentParser parser : ALL_PARSERS)
+            parser.parse(position, comment, false);
     }
 }
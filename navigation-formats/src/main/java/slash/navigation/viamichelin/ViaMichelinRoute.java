@@ -426,7 +426,7 @@ public class ViaMichelinRoute extends BaseRoute<Wgs84Position, ViaMichelinFormat
         return this;
     }
 
-    public boolean equals(Object o) {
+    public boolean contentEquals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
@@ -436,7 +436,7 @@ public class ViaMichelinRoute extends BaseRoute<Wgs84Position, ViaMichelinFormat
                 !(positions != null ? !positions.equals(viaMichelinRoute.positions) : viaMichelinRoute.positions != null);
     }
 
-    public int hashCode() {
+    public int contentHashCode() {
         int result = (name != null ? name.hashCode() : 0);
         result = 31 * result + (positions != null ? positions.hashCode() : 0);
         return result;
@@ -0,0 +1,88 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BaseRouteTest {
+    private GpxRoute createRoute() {
+        GpxRoute route = new GpxRoute(new Gpx11Format());
+        route.setName("route");
+        for (int i = 0; i < 3; i++)
+            route.add(i, route.createPosition((double) i, (double) i, null, null, null, "position " + i));
+        return route;
+    }
+
+    @Test
+    public void testIdentity() {
+        GpxRoute first = createRoute();
+        GpxRoute second = createRoute();
+
+        assertTrue(first.equals(first));
+        assertFalse(first.equals(second));
+        assertFalse(second.equals(first));
+
+        List<GpxRoute> routes = Arrays.asList(first, second);
+        assertEquals(0, routes.indexOf(first));
+        assertEquals(1, routes.indexOf(second));
+    }
+
+    @Test
+    public void testContentEquals() {
+        GpxRoute first = createRoute();
+        GpxRoute second = createRoute();
+
+        assertTrue(first.contentEquals(second));
+        assertEquals(first.contentHashCode(), second.contentHashCode());
+
+        second.remove(2);
+        assertFalse(first.contentEquals(second));
+    }
+
+    @Test
+    public void testAddAllAndRemoveRange() {
+        GpxRoute route = createRoute();
+        GpxRoute other = createRoute();
+
+        route.addAll(1, other.getPositions());
+        assertEquals(6, route.getPositionCount());
+        assertEquals("position 0", route.getPosition(0).getComment());
+        assertEquals("position 0", route.getPosition(1).getComment());
+        assertEquals("position 2", route.getPosition(3).getComment());
+        assertEquals("position 1", route.getPosition(4).getComment());
+
+        List<GpxPosition> removed = route.removeRange(1, 4);
+        assertEquals(3, removed.size());
+        assertEquals("position 2", removed.get(2).getComment());
+        assertEquals(3, route.getPositionCount());
+        assertEquals("position 1", route.getPosition(1).getComment());
+    }
+}
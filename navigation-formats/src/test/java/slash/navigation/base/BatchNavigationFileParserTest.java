@@ -0,0 +1,146 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.nmn.NavigatingPoiWarnerFormat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.Files.toUrls;
+
+public class BatchNavigationFileParserTest {
+    private static final List<NavigationFormat> FORMATS = Arrays.<NavigationFormat>asList(new NavigatingPoiWarnerFormat());
+    private List<File> files = new ArrayList<File>();
+    private List<URL> urls;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            File file = File.createTempFile("batch" + i + "-", ".asc");
+            PrintWriter writer = new PrintWriter(new FileWriter(file));
+            try {
+                for (int j = 0; j <= i; j++)
+                    writer.println("9.0" + j + ",48.0" + j + ",\"file " + i + " position " + j + "\"");
+            } finally {
+                writer.close();
+            }
+            files.add(file);
+        }
+        File unsupported = File.createTempFile("batch-unsupported", ".asc");
+        PrintWriter writer = new PrintWriter(new FileWriter(unsupported));
+        try {
+            writer.println("neither a position");
+            writer.println("nor a comment");
+        } finally {
+            writer.close();
+        }
+        files.add(2, unsupported);
+        urls = toUrls(files.toArray(new File[files.size()]));
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : files)
+            assertTrue(file.delete());
+    }
+
+    @Test
+    public void testDeliversInOrder() {
+        BatchNavigationFileParser batch = new BatchNavigationFileParser(urls, FORMATS, 4);
+        final List<Integer> progress = new ArrayList<Integer>();
+        batch.addNavigationFileParserListener(new NavigationFileParserAdapter() {
+            public void progress(URL url, int processed, int total) {
+                progress.add(processed);
+                assertEquals(21, total);
+            }
+        });
+
+        final List<String> results = new ArrayList<String>();
+        batch.read(new BatchNavigationFileParserCallback() {
+            public void parsed(URL url, NavigationFileParser parser) {
+                results.add(url + " " + parser.getTheRoute().getPositionCount());
+            }
+
+            public void unsupported(URL url) {
+                results.add(url + " unsupported");
+            }
+
+            public void failed(URL url, Throwable throwable) {
+                results.add(url + " failed");
+            }
+        });
+
+        assertEquals(21, results.size());
+        assertEquals(urls.get(0) + " 1", results.get(0));
+        assertEquals(urls.get(1) + " 2", results.get(1));
+        assertEquals(urls.get(2) + " unsupported", results.get(2));
+        assertEquals(urls.get(3) + " 3", results.get(3));
+        assertEquals(urls.get(20) + " 20", results.get(20));
+        assertEquals(21, progress.size());
+        assertEquals(21, (int) progress.get(20));
+    }
+
+    @Test
+    public void testCancel() {
+        final BatchNavigationFileParser batch = new BatchNavigationFileParser(urls, FORMATS, 2);
+        final int[] cancelled = new int[]{-1, -1};
+        batch.addNavigationFileParserListener(new NavigationFileParserAdapter() {
+            public void cancelled(int processed, int total) {
+                cancelled[0] = processed;
+                cancelled[1] = total;
+            }
+        });
+
+        final List<URL> results = new ArrayList<URL>();
+        batch.read(new BatchNavigationFileParserCallback() {
+            public void parsed(URL url, NavigationFileParser parser) {
+                results.add(url);
+                if (results.size() == 2)
+                    batch.cancel();
+            }
+
+            public void unsupported(URL url) {
+                results.add(url);
+            }
+
+            public void failed(URL url, Throwable throwable) {
+                results.add(url);
+            }
+        });
+
+        assertTrue(batch.isCancelled());
+        assertEquals(2, results.size());
+        assertEquals(2, cancelled[0]);
+        assertEquals(21, cancelled[1]);
+    }
+}
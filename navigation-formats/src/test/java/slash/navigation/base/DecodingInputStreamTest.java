@@ -0,0 +1,104 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.common.io.DecodedText;
+import slash.common.io.MarkableBufferedInputStream;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DecodingInputStreamTest {
+    private static final String TEXT = "first\nsecond\n";
+
+    private void assertText(DecodingInputStream decoding) throws IOException {
+        DecodedText text = decoding.getText("ISO8859-1");
+        assertEquals("first", text.getLine(0));
+        assertEquals("second", text.getLine(1));
+        assertNull(text.getLine(2));
+        assertSame(text, decoding.getText("ISO8859-1"));
+
+        decoding.reset();
+        assertEquals('f', decoding.read());
+        assertNull(decoding.getText("UTF-8"));
+        decoding.reset();
+        assertEquals("first", decoding.getText("UTF-8").getLine(0));
+    }
+
+    @Test
+    public void testTextFromMarkedBuffer() throws IOException {
+        MarkableBufferedInputStream marked = new MarkableBufferedInputStream(new ByteArrayInputStream(TEXT.getBytes()), 100);
+        marked.mark(101);
+        assertText(new DecodingInputStream(marked, marked));
+    }
+
+    @Test
+    public void testNoTextFromStreamWithoutMarkedBuffer() throws IOException {
+        InputStream input = new ByteArrayInputStream(TEXT.getBytes());
+        input.mark(100);
+        DecodingInputStream decoding = new DecodingInputStream(input);
+        assertNull(decoding.getText("ISO8859-1"));
+        assertEquals('f', decoding.read());
+    }
+
+    @Test
+    public void testNoTextBeyondMarkLimit() throws IOException {
+        MarkableBufferedInputStream marked = new MarkableBufferedInputStream(new ByteArrayInputStream(TEXT.getBytes()), 4);
+        marked.mark(4);
+        DecodingInputStream decoding = new DecodingInputStream(marked, marked);
+        assertNull(decoding.getText("ISO8859-1"));
+        assertEquals('f', decoding.read());
+        decoding.reset();
+        assertEquals('f', decoding.read());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDetectStreamLargerThanReadBuffer() throws IOException {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < 2000; i++)
+            positions.add(new GpxPosition(10.0 + i * 0.001, 53.0 + i * 0.0005, 10.0 + i, null, null, "Position " + i));
+        GpxRoute route = new Gpx11Format().createRoute(RouteCharacteristics.Track, "Track", positions);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new NavigationFileParser().write(route, new Gpx11Format(), false, false, output);
+        int readBufferSize = 64 * 1024;
+        assertTrue(output.size() > readBufferSize);
+
+        NavigationFileParser parser = new NavigationFileParser();
+        assertTrue(parser.read(new ByteArrayInputStream(output.toByteArray()), readBufferSize, null,
+                NavigationFormats.getReadFormats()));
+        assertEquals(Gpx11Format.class, parser.getFormat().getClass());
+        assertEquals(2000, parser.getTheRoute().getPositionCount());
+    }
+}
@@ -78,7 +78,7 @@ public class NavigationFileParserIT {
     public void testNavigationFileParserListener() throws IOException {
         final NavigationFormat[] found = new NavigationFormat[1];
         found[0] = null;
-        NavigationFileParserListener listener = new NavigationFileParserListener() {
+        NavigationFileParserListener listener = new NavigationFileParserAdapter() {
             public void reading(NavigationFormat<BaseRoute> format) {
                 found[0] = format;
             }
@@ -0,0 +1,119 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.nmea.NmeaFormat;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NavigationFileParserStatisticsTest {
+    private static final String NMEA = "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,160607,,,A*76\n" +
+            "$GPRMC,180115,A,4808.9491,N,00928.9611,E,000.0,000.0,160607,,,A*77\n";
+    private NavigationFileParserStatistics statistics = NavigationFileParserStatistics.getInstance();
+    private NavigationFileParser parser = new NavigationFileParser();
+
+    @Before
+    public void setUp() {
+        statistics.reset();
+    }
+
+    private boolean read(List<NavigationFormat> formats) throws IOException {
+        byte[] bytes = NMEA.getBytes();
+        return parser.read(new ByteArrayInputStream(bytes), bytes.length, null, formats);
+    }
+
+    @Test
+    public void testRecordsAttemptsPerFormat() throws IOException {
+        Gpx11Format gpx = new Gpx11Format();
+        NmeaFormat nmea = new NmeaFormat();
+        assertTrue(read(Arrays.<NavigationFormat>asList(gpx, nmea)));
+
+        FormatStatistics gpxStatistics = statistics.getFormatStatistics(gpx);
+        assertEquals(1, gpxStatistics.getAttempts());
+        assertEquals(0, gpxStatistics.getSuccesses());
+        assertEquals(1, gpxStatistics.getFailures());
+        assertEquals(0, gpxStatistics.getPositionsRead());
+        assertTrue(gpxStatistics.getBytesConsumedOnFailures() > 0);
+
+        FormatStatistics nmeaStatistics = statistics.getFormatStatistics(nmea);
+        assertEquals(1, nmeaStatistics.getAttempts());
+        assertEquals(1, nmeaStatistics.getSuccesses());
+        assertEquals(2, nmeaStatistics.getPositionsRead());
+        assertEquals(NMEA.length(), nmeaStatistics.getBytesConsumed());
+
+        PhaseStatistics read = statistics.getPhaseStatistics(NavigationFileParserPhase.Read);
+        assertEquals(1, read.getCount());
+        assertEquals(2, read.getPositions());
+    }
+
+    @Test
+    public void testRecordsFailedRead() throws IOException {
+        assertFalse(read(Arrays.<NavigationFormat>asList(new Gpx11Format())));
+
+        PhaseStatistics read = statistics.getPhaseStatistics(NavigationFileParserPhase.Read);
+        assertEquals(1, read.getCount());
+        assertEquals(0, read.getPositions());
+    }
+
+    @Test
+    public void testRecordsWritePhases() throws IOException {
+        assertTrue(read(Arrays.<NavigationFormat>asList(new NmeaFormat())));
+        parser.write(parser.getTheRoute(), new Gpx11Format(), false, false, new ByteArrayOutputStream());
+
+        assertEquals(1, statistics.getPhaseStatistics(NavigationFileParserPhase.AsFormat).getCount());
+        assertEquals(1, statistics.getPhaseStatistics(NavigationFileParserPhase.Preprocess).getCount());
+        assertEquals(1, statistics.getPhaseStatistics(NavigationFileParserPhase.Write).getCount());
+        assertEquals(2, statistics.getPhaseStatistics(NavigationFileParserPhase.Write).getPositions());
+    }
+
+    @Test
+    public void testPublishesMBeans() throws Exception {
+        assertTrue(read(Arrays.<NavigationFormat>asList(new NmeaFormat())));
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName("slash.navigation:type=NavigationFileParser")));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName("slash.navigation:type=Phase,name=Read")));
+        ObjectName format = new ObjectName("slash.navigation:type=Format,name=NmeaFormat");
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(format, "Successes"));
+    }
+
+    @Test
+    public void testLogsSummary() throws IOException {
+        statistics.setLogSummary(true);
+        try {
+            assertTrue(read(Arrays.<NavigationFormat>asList(new Gpx11Format(), new NmeaFormat())));
+        } finally {
+            statistics.setLogSummary(false);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.common.io.CompactCalendar;
+import slash.common.io.InputOutput;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.simple.ColumbusV900StandardFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.base.NavigationFormats.getReadFormats;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class ParsedRouteCacheTest {
+    private File directory, cacheDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("parsedroutecache", ".test");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        cacheDirectory = new File(directory, "cache");
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null)
+            for (File child : files)
+                delete(child);
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private File createFile(NavigationFormat format, String name, int positionCount) throws IOException {
+        BaseRoute route = format.createRoute(Track, name, new ArrayList<BaseNavigationPosition>());
+        for (int i = 0; i < positionCount; i++)
+            route.getPositions().add(route.createPosition(10.0 + i * 0.001, 53.0 + i * 0.0005, 10.0 + i, 20.0 + i % 7,
+                    CompactCalendar.fromMillis(1293840000000L + i * 1000L), "Position " + (i + 1)));
+        File file = new File(directory, name + format.getExtension());
+        new NavigationFileParser().write(route, format, false, false, file);
+        return file;
+    }
+
+    private NavigationFileParser read(File file, ParsedRouteCache cache, final List<NavigationFormat> detected) throws IOException {
+        NavigationFileParser parser = new NavigationFileParser();
+        parser.setParsedRouteCache(cache);
+        parser.addNavigationFileParserListener(new NavigationFileParserAdapter() {
+            public void read(NavigationFormat<BaseRoute> format, boolean successful, int positionCount, long bytesRead, long nanoSeconds) {
+                detected.add(format);
+            }
+        });
+        assertTrue(parser.read(file.toURI().toURL(), getReadFormats()));
+        return parser;
+    }
+
+    private byte[] write(BaseRoute route) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new NavigationFileParser().write(route, route.getFormat(), false, false, output);
+        return output.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void checkRoutesEqual(NavigationFileParser expected, NavigationFileParser actual) throws IOException {
+        assertEquals(expected.getFormat().getClass(), actual.getFormat().getClass());
+        List<BaseRoute> expectedRoutes = expected.getAllRoutes();
+        List<BaseRoute> actualRoutes = actual.getAllRoutes();
+        assertEquals(expectedRoutes.size(), actualRoutes.size());
+        for (int i = 0; i < expectedRoutes.size(); i++) {
+            BaseRoute<BaseNavigationPosition, BaseNavigationFormat> expectedRoute = expectedRoutes.get(i);
+            BaseRoute<BaseNavigationPosition, BaseNavigationFormat> actualRoute = actualRoutes.get(i);
+            assertEquals(expectedRoute.getClass(), actualRoute.getClass());
+            assertEquals(expectedRoute.getCharacteristics(), actualRoute.getCharacteristics());
+            assertEquals(expectedRoute.getName(), actualRoute.getName());
+            assertEquals(expectedRoute.getPositionCount(), actualRoute.getPositionCount());
+            for (int j = 0; j < expectedRoute.getPositionCount(); j++) {
+                BaseNavigationPosition expectedPosition = expectedRoute.getPositions().get(j);
+                BaseNavigationPosition actualPosition = actualRoute.getPositions().get(j);
+                assertEquals(expectedPosition.getLongitude(), actualPosition.getLongitude());
+                assertEquals(expectedPosition.getLatitude(), actualPosition.getLatitude());
+                assertEquals(expectedPosition.getElevation(), actualPosition.getElevation());
+                assertEquals(expectedPosition.getSpeed(), actualPosition.getSpeed());
+                assertEquals(expectedPosition.getTime(), actualPosition.getTime());
+                assertEquals(expectedPosition.getComment(), actualPosition.getComment());
+            }
+            assertArrayEquals(write(expectedRoute), write(actualRoute));
+        }
+    }
+
+    private void checkReadFromCache(NavigationFormat format) throws IOException {
+        File file = createFile(format, "cached", 500);
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+
+        List<NavigationFormat> detected = new ArrayList<NavigationFormat>();
+        NavigationFileParser expected = read(file, null, detected);
+
+        detected.clear();
+        NavigationFileParser miss = read(file, cache, detected);
+        assertFalse(detected.isEmpty());
+        assertEquals(1, cacheDirectory.listFiles().length);
+        checkRoutesEqual(expected, miss);
+
+        detected.clear();
+        NavigationFileParser hit = read(file, cache, detected);
+        assertTrue(detected.isEmpty());
+        checkRoutesEqual(expected, hit);
+    }
+
+    @Test
+    public void testReadWgs84RouteFromCache() throws IOException {
+        checkReadFromCache(new ColumbusV900StandardFormat());
+    }
+
+    @Test
+    public void testReadNmeaRouteFromCache() throws IOException {
+        checkReadFromCache(new NmeaFormat());
+    }
+
+    @Test
+    public void testGpxRouteIsNotCached() throws IOException {
+        File file = createFile(new Gpx11Format(), "gpx", 10);
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+        read(file, cache, new ArrayList<NavigationFormat>());
+        assertNull(cacheDirectory.listFiles());
+    }
+
+    @Test
+    public void testModifiedFileIsParsedAgain() throws IOException {
+        File file = createFile(new NmeaFormat(), "modified", 10);
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+        read(file, cache, new ArrayList<NavigationFormat>());
+
+        File other = createFile(new NmeaFormat(), "other", 20);
+        assertTrue(file.delete());
+        assertTrue(other.renameTo(file));
+        List<NavigationFormat> detected = new ArrayList<NavigationFormat>();
+        NavigationFileParser parser = read(file, cache, detected);
+        assertFalse(detected.isEmpty());
+        assertEquals(20, parser.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testCorruptedEntryFallsBackToParsing() throws IOException {
+        File file = createFile(new NmeaFormat(), "corrupted", 100);
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+        NavigationFileParser expected = read(file, cache, new ArrayList<NavigationFormat>());
+
+        File entry = cacheDirectory.listFiles()[0];
+        FileOutputStream output = new FileOutputStream(entry, true);
+        output.getChannel().truncate(entry.length() / 2);
+        output.close();
+
+        List<NavigationFormat> detected = new ArrayList<NavigationFormat>();
+        NavigationFileParser parser = read(file, cache, detected);
+        assertFalse(detected.isEmpty());
+        checkRoutesEqual(expected, parser);
+
+        detected.clear();
+        read(file, cache, detected);
+        assertTrue(detected.isEmpty());
+    }
+
+    private int indexOf(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i <= bytes.length - pattern.length; i++) {
+            int j = 0;
+            while (j < pattern.length && bytes[i + j] == pattern[j])
+                j++;
+            if (j == pattern.length)
+                return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void testCorruptedPositionCountFallsBackToParsing() throws IOException {
+        File file = createFile(new NmeaFormat(), "count", 1234);
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+        NavigationFileParser expected = read(file, cache, new ArrayList<NavigationFormat>());
+
+        File entry = cacheDirectory.listFiles()[0];
+        byte[] bytes = InputOutput.readBytes(entry);
+        int index = indexOf(bytes, new byte[]{0, 0, 4, (byte) 0xd2});
+        assertTrue(index > 0);
+        bytes[index] = 0x7f;
+        FileOutputStream output = new FileOutputStream(entry);
+        output.write(bytes);
+        output.close();
+
+        assertNull(cache.load(cache.createIdentity(file), getReadFormats()));
+        assertFalse(entry.exists());
+
+        List<NavigationFormat> detected = new ArrayList<NavigationFormat>();
+        NavigationFileParser parser = read(file, cache, detected);
+        assertFalse(detected.isEmpty());
+        checkRoutesEqual(expected, parser);
+    }
+
+    @Test
+    public void testLoadWithOtherFormats() throws IOException {
+        File file = createFile(new NmeaFormat(), "formats", 10);
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+        read(file, cache, new ArrayList<NavigationFormat>());
+
+        String identity = cache.createIdentity(file);
+        assertNotNull(cache.load(identity, getReadFormats()));
+        List<NavigationFormat> formats = new ArrayList<NavigationFormat>(getReadFormats());
+        formats.remove(0);
+        formats.add(getReadFormats().get(0));
+        assertNull(cache.load(identity, formats));
+    }
+
+    @Test
+    public void testContentIdentity() throws IOException {
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, 1024 * 1024);
+        assertEquals(cache.createIdentity("abc".getBytes()), cache.createIdentity("abc".getBytes()));
+        assertFalse(cache.createIdentity("abc".getBytes()).equals(cache.createIdentity("abd".getBytes())));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws IOException {
+        ParsedRouteCache cache = new ParsedRouteCache(cacheDirectory, Long.MAX_VALUE);
+        File first = createFile(new NmeaFormat(), "first", 100);
+        File second = createFile(new NmeaFormat(), "second", 100);
+        File third = createFile(new NmeaFormat(), "third", 100);
+        read(first, cache, new ArrayList<NavigationFormat>());
+        read(second, cache, new ArrayList<NavigationFormat>());
+        File[] entries = cacheDirectory.listFiles();
+        assertEquals(2, entries.length);
+        long entrySize = entries[0].length();
+        for (File entry : entries)
+            assertTrue(entry.setLastModified(System.currentTimeMillis() - 60 * 1000));
+        // using the first file marks its entry as recently used
+        read(first, cache, new ArrayList<NavigationFormat>());
+
+        cache = new ParsedRouteCache(cacheDirectory, entrySize * 2 + entrySize / 2);
+        read(third, cache, new ArrayList<NavigationFormat>());
+        assertEquals(2, cacheDirectory.listFiles().length);
+
+        List<NavigationFormat> detected = new ArrayList<NavigationFormat>();
+        read(first, cache, detected);
+        assertTrue(detected.isEmpty());
+        read(second, cache, detected);
+        assertFalse(detected.isEmpty());
+    }
+}
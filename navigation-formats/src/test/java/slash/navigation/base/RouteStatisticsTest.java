@@ -0,0 +1,93 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.common.io.CompactCalendar;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RouteStatisticsTest {
+    private final Random random = new Random(42);
+
+    private GpxPosition createPosition(int i) {
+        return new GpxPosition(10.0 + random.nextDouble(), 50.0 + random.nextDouble(), random.nextDouble() * 100.0,
+                null, CompactCalendar.fromMillis(1000000L + i * 1000L + random.nextInt(500)), "p" + i);
+    }
+
+    private void assertStatistics(GpxRoute route, RouteStatistics statistics) {
+        List<GpxPosition> positions = route.getPositions();
+        assertEquals(positions.size(), statistics.size());
+        assertEquals(route.getDistance(), statistics.getDistance(), 0.001);
+        int last = positions.size() - 1;
+        assertEquals(route.getElevationAscend(0, last), statistics.getElevationAscend(), 0.001);
+        assertEquals(route.getElevationDescend(0, last), statistics.getElevationDescend(), 0.001);
+        if (last > 3) {
+            assertEquals(route.getDistance(1, 3), statistics.getDistance(1, 3), 0.001);
+            assertEquals(route.getElevationAscend(1, 3), statistics.getElevationAscend(1, 3), 0.001);
+        }
+
+        assertEquals(route.getTime(), statistics.getTime());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < 50; i++)
+            positions.add(createPosition(i));
+        GpxRoute route = new GpxRoute(new Gpx11Format(), RouteCharacteristics.Track, "a", null, positions);
+        RouteStatistics statistics = new RouteStatistics(positions);
+        assertStatistics(route, statistics);
+
+        for (int i = 0; i < 200; i++) {
+            int size = positions.size();
+            switch (random.nextInt(3)) {
+                case 0:
+                    int index = random.nextInt(size + 1), count = 1 + random.nextInt(3);
+                    for (int j = 0; j < count; j++)
+                        positions.add(index + j, createPosition(100 + i));
+                    statistics.inserted(positions, index, index + count - 1);
+                    break;
+                case 1:
+                    if (size < 10)
+                        continue;
+                    int first = random.nextInt(size - 3), last = first + random.nextInt(3);
+                    positions.subList(first, last + 1).clear();
+                    statistics.removed(positions, first, last);
+                    break;
+                default:
+                    int updated = random.nextInt(size);
+                    positions.get(updated).setElevation(random.nextDouble() * 100.0);
+                    positions.get(updated).setTime(CompactCalendar.fromMillis(random.nextInt(100000000)));
+                    statistics.updated(positions, updated, updated);
+                    break;
+            }
+            assertStatistics(route, statistics);
+        }
+    }
+}
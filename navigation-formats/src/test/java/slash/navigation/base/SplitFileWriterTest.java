@@ -0,0 +1,280 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.common.io.CompactCalendar;
+import slash.common.io.InputOutput;
+import slash.navigation.bcr.MTP0809Format;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.itn.TomTom8RouteFormat;
+import slash.navigation.nmea.MagellanRouteFormat;
+import slash.navigation.nmn.Nmn7Format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slash.navigation.base.NavigationFileParser.getNumberOfFilesToWriteFor;
+import static slash.navigation.base.RouteCharacteristics.Route;
+
+public class SplitFileWriterTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("splitfilewriter", ".test");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                assertTrue(file.delete());
+        assertTrue(directory.delete());
+    }
+
+    private GpxRoute createRoute(int positionCount) {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < positionCount; i++)
+            positions.add(new GpxPosition(10.0 + i * 0.001, 53.0 + i * 0.0005, 10.0 + i, 20.0,
+                    CompactCalendar.fromMillis(1293840000000L + i * 1000L), "Position " + (i + 1)));
+        return new Gpx11Format().createRoute(Route, "Split route", positions);
+    }
+
+    private File[] createTargets(NavigationFormat format, int count) {
+        File[] targets = new File[count];
+        for (int i = 0; i < count; i++)
+            targets[i] = new File(directory, "target" + (i + 1) + format.getExtension());
+        return targets;
+    }
+
+    private byte[] readBytes(File file) throws IOException {
+        return InputOutput.readBytes(new FileInputStream(file));
+    }
+
+    private void checkSplitEqualsSequential(NavigationFormat format) throws IOException {
+        GpxRoute route = createRoute(1000);
+        int count = getNumberOfFilesToWriteFor(route, format, false);
+        assertTrue(count > 1);
+
+        ByteArrayOutputStream[] expected = new ByteArrayOutputStream[count];
+        for (int i = 0; i < count; i++)
+            expected[i] = new ByteArrayOutputStream();
+        new NavigationFileParser().write(route, format, false, false, (OutputStream[]) expected);
+
+        final List<Integer> written = new ArrayList<Integer>();
+        NavigationFileParser parser = new NavigationFileParser();
+        parser.addNavigationFileParserListener(new NavigationFileParserAdapter() {
+            public void written(File target, int writtenCount, int total) {
+                synchronized (written) {
+                    written.add(writtenCount);
+                }
+            }
+        });
+        File[] targets = createTargets(format, count);
+        parser.write(route, format, false, false, targets);
+
+        for (int i = 0; i < count; i++)
+            assertArrayEquals(targets[i].getName(), expected[i].toByteArray(), readBytes(targets[i]));
+        assertEquals(count, written.size());
+        assertEquals(count, directory.listFiles().length);
+    }
+
+    @Test
+    public void testSplitTomTomRouteEqualsSequentialWriter() throws IOException {
+        checkSplitEqualsSequential(new TomTom8RouteFormat());
+    }
+
+    @Test
+    public void testSplitMagellanRouteEqualsSequentialWriter() throws IOException {
+        checkSplitEqualsSequential(new MagellanRouteFormat());
+    }
+
+    @Test
+    public void testSplitNmn7EqualsSequentialWriter() throws IOException {
+        checkSplitEqualsSequential(new Nmn7Format());
+    }
+
+    @Test
+    public void testSplitBcrEqualsSequentialWriter() throws IOException {
+        checkSplitEqualsSequential(new MTP0809Format());
+    }
+
+    @Test
+    public void testWriteSingleFile() throws IOException {
+        GpxRoute route = createRoute(100);
+        Gpx11Format format = new Gpx11Format();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new NavigationFileParser().write(route, format, false, false, expected);
+
+        File target = new File(directory, "single.gpx");
+        new NavigationFileParser().write(route, format, false, false, target);
+        assertArrayEquals(expected.toByteArray(), readBytes(target));
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    private void checkWriteWithParallelism(int parallelism) throws IOException {
+        File[] targets = new File[20];
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = new File(directory, "target" + i + ".txt");
+        SplitFileWriter writer = new SplitFileWriter(targets, new ArrayList<NavigationFileParserListener>(), parallelism);
+        try {
+            OutputStream[] outputStreams = writer.getOutputStreams();
+            for (int i = 0; i < targets.length; i++) {
+                outputStreams[i].write(("content " + i).getBytes());
+                writer.written(i);
+                assertFalse(targets[i].exists());
+            }
+            writer.commit();
+        } finally {
+            writer.discard();
+        }
+
+        assertEquals(targets.length, directory.listFiles().length);
+        for (int i = 0; i < targets.length; i++)
+            assertArrayEquals(("content " + i).getBytes(), readBytes(targets[i]));
+    }
+
+    @Test
+    public void testWriteSequentially() throws IOException {
+        checkWriteWithParallelism(1);
+    }
+
+    @Test
+    public void testWriteInParallel() throws IOException {
+        checkWriteWithParallelism(4);
+    }
+
+    @Test
+    public void testFailureLeavesNoFilesBehind() throws IOException {
+        GpxRoute route = createRoute(1000);
+        TomTom8RouteFormat format = new TomTom8RouteFormat();
+        int count = getNumberOfFilesToWriteFor(route, format, false);
+        File[] targets = createTargets(format, count);
+        FileOutputStream existing = new FileOutputStream(targets[0]);
+        existing.write("existing".getBytes());
+        existing.close();
+        // the directory of the last file does not exist
+        targets[count - 1] = new File(new File(directory, "missing"), "target.itn");
+
+        try {
+            new NavigationFileParser().write(route, format, false, false, targets);
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertEquals(Arrays.asList(targets[0]), Arrays.asList(directory.listFiles()));
+        assertArrayEquals("existing".getBytes(), readBytes(targets[0]));
+        for (int i = 1; i < count; i++)
+            assertFalse(targets[i].exists());
+    }
+
+    private void writeExisting(File target, String content) throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(target);
+        try {
+            outputStream.write(content.getBytes());
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @Test
+    public void testFailingRenameRestoresTargets() throws IOException {
+        final File[] targets = new File[5];
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = new File(directory, "target" + i + ".txt");
+        writeExisting(targets[0], "existing 0");
+        writeExisting(targets[2], "existing 2");
+        writeExisting(targets[3], "existing 3");
+
+        SplitFileWriter writer = new SplitFileWriter(targets, new ArrayList<NavigationFileParserListener>(), 1) {
+            boolean renameTo(File source, File target) {
+                // replacing the fourth target fails after the first three have been replaced
+                return !(target.equals(targets[3]) && source.getName().endsWith(".tmp")) && super.renameTo(source, target);
+            }
+        };
+        try {
+            OutputStream[] outputStreams = writer.getOutputStreams();
+            for (int i = 0; i < targets.length; i++) {
+                outputStreams[i].write(("content " + i).getBytes());
+                writer.written(i);
+            }
+            writer.commit();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            writer.discard();
+        }
+
+        assertEquals(3, directory.listFiles().length);
+        assertArrayEquals("existing 0".getBytes(), readBytes(targets[0]));
+        assertFalse(targets[1].exists());
+        assertArrayEquals("existing 2".getBytes(), readBytes(targets[2]));
+        assertArrayEquals("existing 3".getBytes(), readBytes(targets[3]));
+        assertFalse(targets[4].exists());
+    }
+
+    @Test
+    public void testCommitReplacesExistingTargets() throws IOException {
+        File[] targets = new File[3];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new File(directory, "target" + i + ".txt");
+            writeExisting(targets[i], "existing " + i);
+        }
+
+        SplitFileWriter writer = new SplitFileWriter(targets, new ArrayList<NavigationFileParserListener>(), 1);
+        try {
+            OutputStream[] outputStreams = writer.getOutputStreams();
+            for (int i = 0; i < targets.length; i++) {
+                outputStreams[i].write(("content " + i).getBytes());
+                writer.written(i);
+            }
+            writer.commit();
+        } finally {
+            writer.discard();
+        }
+
+        assertEquals(targets.length, directory.listFiles().length);
+        for (int i = 0; i < targets.length; i++)
+            assertArrayEquals(("content " + i).getBytes(), readBytes(targets[i]));
+    }
+}
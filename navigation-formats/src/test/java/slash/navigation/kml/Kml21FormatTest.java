@@ -72,4 +72,18 @@ public class Kml21FormatTest {
         assertNull(position.getSpeed());
         assertDoubleEquals(0.0, position.getElevation());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPlacemarkWithoutGeometryAndSpeedFolder() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://earth.google.com/kml/2.1\">\n" +
+                        "<Document><name>Tour</name><Placemark><name>Empty</name></Placemark>\n" +
+                        "<Folder><name>Speed [Km/h]</name><Placemark><LineString>\n" +
+                        "<coordinates>151.2393322528181,-33.59862693992532,0 151.2274390264927,-33.59631160091919,0</coordinates>\n" +
+                        "</LineString></Placemark></Folder></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(2, routes.size());
+        assertEquals(0, routes.get(0).getPositionCount());
+        assertEquals(2, routes.get(1).getPositionCount());
+    }
+}
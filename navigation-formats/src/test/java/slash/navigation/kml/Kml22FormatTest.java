@@ -120,4 +120,124 @@ public class Kml22FormatTest extends TestCase {
         assertNull(position.getSpeed());
         assertEquals(0.0, position.getElevation());
     }
+
+    public void testLineStringWithMalformedCoordinates() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n" +
+                        "<Document><Placemark><LineString>\n" +
+                        "<coordinates>151.1,-33.1,NaN 151.2,-33.2,1 151.3,-33.3,2\n" +
+                        "151-4,-33.4,3 151.5,-33.5,1e 151.6,-33.6,4\n" +
+                        "</coordinates>\n" +
+                        "</LineString></Placemark></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(1, routes.size());
+        List<KmlPosition> positions = routes.get(0).getPositions();
+        assertEquals(4, positions.size());
+        assertEquals(151.1, positions.get(0).getLongitude());
+        assertNull(positions.get(0).getElevation());
+        assertEquals(151.2, positions.get(1).getLongitude());
+        assertEquals(1.0, positions.get(1).getElevation());
+        assertEquals(151.3, positions.get(2).getLongitude());
+        assertEquals(151.6, positions.get(3).getLongitude());
+        assertEquals(4.0, positions.get(3).getElevation());
+    }
+
+    public void testTrackWithMalformedCoord() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+                        "<Document><Placemark><name>Track</name><gx:Track>\n" +
+                        "<gx:coord>-122.207881 37.371915 NaN</gx:coord>\n" +
+                        "<gx:coord>-122.205712 37.373288 152.0</gx:coord>\n" +
+                        "<gx:coord>-122-204678 37.373939 147.0</gx:coord>\n" +
+                        "</gx:Track></Placemark></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(1, routes.size());
+        KmlRoute route = routes.get(0);
+        assertEquals(1, route.getPositionCount());
+        assertEquals(152.0, route.getPositions().get(0).getElevation());
+    }
+
+    public void testTrackWithMalformedCoordKeepsTimes() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+                        "<Document><Placemark><name>Track</name><gx:Track>\n" +
+                        "<when>2010-05-28T02:02:09Z</when>\n" +
+                        "<when>2010-05-28T02:02:35Z</when>\n" +
+                        "<when>2010-05-28T02:02:44Z</when>\n" +
+                        "<gx:coord>-122.207881 37.371915 NaN</gx:coord>\n" +
+                        "<gx:coord>-122.205712 37.373288 152.0</gx:coord>\n" +
+                        "<gx:coord>-122.204678 37.373939 147.0</gx:coord>\n" +
+                        "</gx:Track></Placemark><Placemark><name>Interleaved</name><gx:Track>\n" +
+                        "<gx:coord>-122.207881 37.371915 156.0</gx:coord>\n" +
+                        "<gx:coord>-122.205712 37.373288 x</gx:coord>\n" +
+                        "<gx:coord>-122.204678 37.373939 147.0</gx:coord>\n" +
+                        "<when>2010-05-28T02:02:09Z</when>\n" +
+                        "<when>2010-05-28T02:02:35Z</when>\n" +
+                        "<when>2010-05-28T02:02:44Z</when>\n" +
+                        "</gx:Track></Placemark></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(2, routes.size());
+        KmlRoute queued = routes.get(0);
+        assertEquals(2, queued.getPositionCount());
+        assertEquals(1275012155000L, queued.getPositions().get(0).getTime().getTimeInMillis());
+        assertEquals(1275012164000L, queued.getPositions().get(1).getTime().getTimeInMillis());
+        KmlRoute interleaved = routes.get(1);
+        assertEquals(2, interleaved.getPositionCount());
+        assertEquals(1275012129000L, interleaved.getPositions().get(0).getTime().getTimeInMillis());
+        assertEquals(1275012164000L, interleaved.getPositions().get(1).getTime().getTimeInMillis());
+    }
+
+    public void testTrackWhenAndCoord() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+                        "<Document><Placemark><name>Track</name><gx:Track>\n" +
+                        "<when>2010-05-28T02:02:09Z</when>\n" +
+                        "<when>2010-05-28T02:02:35Z</when>\n" +
+                        "<gx:coord>-122.207881 37.371915 156.0</gx:coord>\n" +
+                        "<gx:coord>-122.205712 37.373288 152.0</gx:coord>\n" +
+                        "<gx:coord>-122.204678 37.373939 147.0</gx:coord>\n" +
+                        "</gx:Track></Placemark></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(1, routes.size());
+        KmlRoute route = routes.get(0);
+        assertEquals(3, route.getPositionCount());
+        KmlPosition position1 = route.getPositions().get(0);
+        assertEquals(-122.207881, position1.getLongitude());
+        assertEquals(37.371915, position1.getLatitude());
+        assertEquals(156.0, position1.getElevation());
+        assertEquals(1275012129000L, position1.getTime().getTimeInMillis());
+        KmlPosition position2 = route.getPositions().get(1);
+        assertEquals(1275012155000L, position2.getTime().getTimeInMillis());
+        KmlPosition position3 = route.getPositions().get(2);
+        assertEquals(147.0, position3.getElevation());
+        assertNull(position3.getTime());
+    }
+
+    public void testTrackWithInterleavedWhenAndCoord() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+                        "<Document><Placemark><name>Track</name><gx:Track>\n" +
+                        "<gx:coord>-122.207881 37.371915 156.0</gx:coord>\n" +
+                        "<when>2010-05-28T02:02:09Z</when>\n" +
+                        "<gx:coord>-122.205712 37.373288 152.0</gx:coord>\n" +
+                        "<when>2010-05-28T02:02:35Z</when>\n" +
+                        "</gx:Track></Placemark></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(1, routes.size());
+        KmlRoute route = routes.get(0);
+        assertEquals(2, route.getPositionCount());
+        assertEquals(1275012129000L, route.getPositions().get(0).getTime().getTimeInMillis());
+        assertEquals(1275012155000L, route.getPositions().get(1).getTime().getTimeInMillis());
+    }
+
+    public void testIgnorePlacemarkWithoutGeometryAndSpeedFolder() throws IOException {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n" +
+                        "<Document><name>Tour</name><Placemark><name>Empty</name></Placemark>\n" +
+                        "<Folder><name>Speed [Km/h]</name><Placemark><LineString>\n" +
+                        "<coordinates>151.2393322528181,-33.59862693992532,0 151.2274390264927,-33.59631160091919,0</coordinates>\n" +
+                        "</LineString></Placemark></Folder></Document></kml>";
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(string.getBytes()));
+        assertEquals(0, routes.size());
+    }
 }
@@ -101,18 +101,24 @@ public class KmlFormatIT {
         assertNotNull(kml);
     }
 
+    private void assertRoutesEqual(List<KmlRoute> expected, List<KmlRoute> was) {
+        assertEquals(expected.size(), was.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertTrue(expected.get(i).contentEquals(was.get(i)));
+    }
+
     @Test
     public void testKmlVsKmz20() throws IOException {
         List<KmlRoute> kmlRoute = new Kml20Format().read(new FileInputStream(new File(SAMPLE_PATH + "magnalox ID13885_Hiroshima Race Course.kml")));
         List<KmlRoute> kmzRoute = new Kmz20Format().read(new FileInputStream(new File(SAMPLE_PATH + "magnalox ID13885_Hiroshima Race Course.kmz")));
-        assertEquals(kmlRoute, kmzRoute);
+        assertRoutesEqual(kmlRoute, kmzRoute);
     }
 
     @Test
     public void testKmlVsKmz21() throws IOException {
         List<KmlRoute> kmlRoute = new Kml21Format().read(new FileInputStream(new File(SAMPLE_PATH + "magnalox ID13885_Hiroshima Race Course by Google Earth.kml")));
         List<KmlRoute> kmzRoute = new Kmz21Format().read(new FileInputStream(new File(SAMPLE_PATH + "magnalox ID13885_Hiroshima Race Course by Google Earth.kmz")));
-        assertEquals(kmlRoute, kmzRoute);
+        assertRoutesEqual(kmlRoute, kmzRoute);
     }
 
     @Test
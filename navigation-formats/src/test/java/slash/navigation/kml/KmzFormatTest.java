@@ -0,0 +1,110 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import junit.framework.TestCase;
+import slash.common.io.NotClosingUnderlyingInputStream;
+import slash.navigation.base.NavigationFileParser;
+import slash.navigation.base.RouteCharacteristics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static slash.common.io.InputOutput.readBytes;
+
+public class KmzFormatTest extends TestCase {
+    private KmlRoute createRoute(KmzFormat format) {
+        List<KmlPosition> positions = new ArrayList<KmlPosition>();
+        for (int i = 0; i < 1000; i++)
+            positions.add(new KmlPosition(10.0 + i * 0.001, 50.0 + i * 0.001, (double) i, null, null, "Position " + i));
+        return format.createRoute(RouteCharacteristics.Track, "Track", positions);
+    }
+
+    private byte[] readEntry(byte[] archive) throws IOException {
+        ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(archive));
+        ZipEntry entry = input.getNextEntry();
+        assertEquals("doc.kml", entry.getName());
+        byte[] result = readBytes(new NotClosingUnderlyingInputStream(input));
+        assertNull(input.getNextEntry());
+        return result;
+    }
+
+    public void testWriteStreamsKml() throws IOException {
+        Kmz22Format format = new Kmz22Format();
+        KmlRoute route = createRoute(format);
+
+        ByteArrayOutputStream kml = new ByteArrayOutputStream();
+        new Kml22Format().write(route, kml, 0, route.getPositionCount());
+        ByteArrayOutputStream kmz = new ByteArrayOutputStream();
+        format.write(route, kmz, 0, route.getPositionCount());
+
+        assertTrue(Arrays.equals(kml.toByteArray(), readEntry(kmz.toByteArray())));
+    }
+
+    public void testWrittenArchiveCanBeRead() throws IOException {
+        Kmz22Format format = new Kmz22Format();
+        KmlRoute route = createRoute(format);
+
+        ByteArrayOutputStream kmz = new ByteArrayOutputStream();
+        format.write(Arrays.asList(route, route), kmz);
+
+        List<KmlRoute> routes = format.read(new ByteArrayInputStream(kmz.toByteArray()));
+        assertEquals(2, routes.size());
+        KmlRoute read = routes.get(0);
+        assertEquals(1000, read.getPositionCount());
+        KmlPosition position = read.getPositions().get(999);
+        assertEquals(10.999, position.getLongitude(), 0.0000001);
+        assertEquals(50.999, position.getLatitude(), 0.0000001);
+    }
+
+    public void testParserReadsArchiveFromFileAndStream() throws IOException {
+        Kmz22Format format = new Kmz22Format();
+        KmlRoute route = createRoute(format);
+        File file = File.createTempFile("kmzformattest", ".kmz");
+        try {
+            FileOutputStream output = new FileOutputStream(file);
+            try {
+                format.write(route, output, 0, route.getPositionCount());
+            } finally {
+                output.close();
+            }
+
+            NavigationFileParser parser = new NavigationFileParser();
+            assertTrue(parser.read(file));
+            assertEquals(Kmz22Format.class, parser.getFormat().getClass());
+            assertEquals(1000, parser.getTheRoute().getPositionCount());
+
+            assertTrue(parser.read(new ByteArrayInputStream(readBytes(file))));
+            assertEquals(Kmz22Format.class, parser.getFormat().getClass());
+            assertEquals(1000, parser.getTheRoute().getPositionCount());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.TestCase.assertDoubleEquals;
+
+public class LiveNmeaSourceTest {
+    private static final List<String> LOG = Arrays.asList(
+            "$GPGGA,180114,4808.9490,N,00928.9610,E,1,05,12.6,00616.6,M,048.0,M,,*49",
+            "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,160607,,,A*76",
+            "$GPGGA,175947.000,4812.0597,N,01136.4663,E,1,07,1.4,495.3,M,,,,*09",
+            "$GPRMC,175947.000,A,4812.0597,N,01136.4663,E,0.0,163.8,010907,,,A*62",
+            "$GPGGA,132713,5509.7861,N,00140.5854,W,1,07,1.0,98.9,M,,M,,*7d",
+            "$GPRMC,132713,A,5509.7861,N,00140.5854,W,2.1,278.3,010110,,*e"
+    );
+
+    private static class Recorder implements LiveNmeaSourceListener {
+        private final List<NmeaPosition> positions = new CopyOnWriteArrayList<NmeaPosition>();
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>();
+        private volatile boolean stopped;
+        private volatile Exception cause;
+
+        public void received(List<NmeaPosition> positions) {
+            this.positions.addAll(positions);
+            batchSizes.add(positions.size());
+        }
+
+        public void stopped(Exception cause) {
+            this.cause = cause;
+            this.stopped = true;
+        }
+
+        void waitFor(int positionCount) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (positions.size() < positionCount && System.currentTimeMillis() < end)
+                Thread.sleep(10);
+        }
+    }
+
+    private void assertMerged(List<NmeaPosition> positions) {
+        // elevation from GGA, date from RMC sentence
+        assertDoubleEquals(616.6, positions.get(0).getElevation());
+        assertEquals(2007, positions.get(0).getTime().getCalendar().get(Calendar.YEAR));
+        assertDoubleEquals(495.3, positions.get(1).getElevation());
+        assertEquals(Calendar.SEPTEMBER, positions.get(1).getTime().getCalendar().get(Calendar.MONTH));
+    }
+
+    @Test
+    public void testFollowSocket() throws Exception {
+        NmeaReplayServer server = new NmeaReplayServer(LOG, 100);
+        try {
+            LiveNmeaSource source = LiveNmeaSource.createLiveNmeaSource("localhost:" + server.getPort(), new NmeaFormat());
+            assertTrue(source instanceof SocketNmeaSource);
+            source.setBatchInterval(20);
+            Recorder recorder = new Recorder();
+            source.addLiveNmeaSourceListener(recorder);
+            source.start();
+            source.join(5000);
+
+            assertTrue(recorder.stopped);
+            assertNull(recorder.cause);
+            assertFalse(source.isRunning());
+            assertEquals(3, recorder.positions.size());
+            assertMerged(recorder.positions);
+            assertDoubleEquals(98.9, recorder.positions.get(2).getElevation());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testBatchesFastFeed() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 200; i++)
+            lines.addAll(LOG);
+        NmeaReplayServer server = new NmeaReplayServer(lines, 0);
+        try {
+            LiveNmeaSource source = new SocketNmeaSource("localhost", server.getPort(), new NmeaFormat());
+            source.setMaximumBatchSize(100);
+            Recorder recorder = new Recorder();
+            source.addLiveNmeaSourceListener(recorder);
+            source.start();
+            source.join(5000);
+
+            assertEquals(600, recorder.positions.size());
+            assertTrue(recorder.batchSizes.size() >= 6);
+            for (Integer batchSize : recorder.batchSizes)
+                assertTrue(batchSize <= 100);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testFollowGrowingFile() throws Exception {
+        File file = File.createTempFile("live", ".nmea");
+        try {
+            String partial = LOG.get(3).substring(0, 20);
+            append(file, LOG.get(0) + "\r\n" + LOG.get(1) + "\r\n" + LOG.get(2) + "\r\n" + partial);
+
+            FileNmeaSource source = (FileNmeaSource) LiveNmeaSource.createLiveNmeaSource(file.getAbsolutePath(), new NmeaFormat());
+            source.setPollInterval(10);
+            source.setBatchInterval(10);
+            Recorder recorder = new Recorder();
+            source.addLiveNmeaSourceListener(recorder);
+            source.start();
+
+            // the second position may still be merged with sentences not yet written
+            recorder.waitFor(1);
+            assertEquals(1, recorder.positions.size());
+
+            // complete the partially written line
+            append(file, LOG.get(3).substring(partial.length()) + "\r\n" + LOG.get(4) + "\r\n");
+            recorder.waitFor(2);
+            assertEquals(2, recorder.positions.size());
+            assertMerged(recorder.positions);
+
+            append(file, LOG.get(5) + "\r\n");
+            source.stop();
+            source.join(5000);
+
+            assertTrue(recorder.stopped);
+            assertNull(recorder.cause);
+            assertEquals(3, recorder.positions.size());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testFollowTruncatedFile() throws Exception {
+        File file = File.createTempFile("live", ".nmea");
+        try {
+            append(file, LOG.get(0) + "\r\n" + LOG.get(1) + "\r\n" + "$GPTXT,01,01,02,ANTSTATUS=OK*3B\r\n");
+
+            FileNmeaSource source = new FileNmeaSource(file, new NmeaFormat());
+            source.setPollInterval(10);
+            source.setBatchInterval(10);
+            Recorder recorder = new Recorder();
+            source.addLiveNmeaSourceListener(recorder);
+            source.start();
+            Thread.sleep(100);
+            assertEquals(0, recorder.positions.size());
+
+            // the logger starts a new file at the same position
+            write(file, LOG.get(0) + "\r\n" + LOG.get(1) + "\r\n");
+            recorder.waitFor(1);
+            assertEquals(1, recorder.positions.size());
+
+            append(file, LOG.get(2) + "\r\n" + LOG.get(3) + "\r\n");
+            recorder.waitFor(2);
+            source.stop();
+            source.join(5000);
+
+            assertTrue(recorder.stopped);
+            assertNull(recorder.cause);
+            assertEquals(3, recorder.positions.size());
+            assertDoubleEquals(616.6, recorder.positions.get(1).getElevation());
+            assertDoubleEquals(495.3, recorder.positions.get(2).getElevation());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testStopKeepsLastPosition() throws Exception {
+        LiveNmeaSource source = new LiveNmeaSource(new NmeaFormat()) {
+            private volatile boolean closed;
+
+            protected void follow() {
+                for (String line : LOG) {
+                    try {
+                        sentence(line);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                // return like a source that noticed close() while stop() interrupts the reader
+                while (!closed || !Thread.currentThread().isInterrupted())
+                    Thread.yield();
+            }
+
+            protected void close() {
+                closed = true;
+            }
+        };
+        source.setBatchInterval(10);
+        Recorder recorder = new Recorder();
+        source.addLiveNmeaSourceListener(recorder);
+        source.start();
+        recorder.waitFor(2);
+        source.stop();
+        source.join(5000);
+
+        assertTrue(recorder.stopped);
+        assertNull(recorder.cause);
+        assertEquals(3, recorder.positions.size());
+        assertDoubleEquals(98.9, recorder.positions.get(2).getElevation());
+    }
+
+    private void write(File file, String string) throws IOException {
+        FileOutputStream output = new FileOutputStream(file, false);
+        try {
+            output.write(string.getBytes("US-ASCII"));
+        } finally {
+            output.close();
+        }
+    }
+
+    private void append(File file, String string) throws IOException {
+        FileOutputStream output = new FileOutputStream(file, true);
+        try {
+            output.write(string.getBytes("US-ASCII"));
+        } finally {
+            output.close();
+        }
+    }
+}
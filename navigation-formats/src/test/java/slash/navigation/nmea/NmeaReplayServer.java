@@ -0,0 +1,86 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Serves a recorded NMEA log over TCP at a configurable speed, like gpsd does.
+ *
+ * @author Christian Pesch
+ */
+
+public class NmeaReplayServer {
+    private final ServerSocket serverSocket;
+    private final List<String> lines;
+    private final long delayBetweenLines;
+
+    /**
+     * @param lines             the recorded lines to replay
+     * @param linesPerSecond    the speed of the replay, 0 to replay as fast as possible
+     * @throws IOException if no server socket can be opened
+     */
+    public NmeaReplayServer(List<String> lines, int linesPerSecond) throws IOException {
+        this.lines = lines;
+        this.delayBetweenLines = linesPerSecond > 0 ? 1000 / linesPerSecond : 0;
+        this.serverSocket = new ServerSocket(0);
+        new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (!serverSocket.isClosed()) {
+                        replay(serverSocket.accept());
+                    }
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }, "NmeaReplayServer").start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void replay(Socket socket) throws IOException {
+        try {
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), "US-ASCII");
+            for (String line : lines) {
+                writer.write(line + "\r\n");
+                writer.flush();
+                if (delayBetweenLines > 0)
+                    Thread.sleep(delayBetweenLines);
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } finally {
+            socket.close();
+        }
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.tcx;
+
+import org.junit.Test;
+import slash.common.io.CompactCalendar;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.XmlNavigationFormat;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.tcx.binding2.CourseT;
+import slash.navigation.tcx.binding2.TrackpointT;
+import slash.navigation.tcx.binding2.TrainingCenterDatabaseT;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class Tcx2FormatTest {
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\">\n";
+    private static final String TRACKPOINT = "<Trackpoint><Time>2008-07-22T13:04:41Z</Time>" +
+            "<Position><LatitudeDegrees>52.65525</LatitudeDegrees><LongitudeDegrees>9.12835</LongitudeDegrees></Position>" +
+            "<AltitudeMeters>16.7</AltitudeMeters><HeartRateBpm><Value>142</Value></HeartRateBpm>" +
+            "<Extensions><TPX xmlns=\"http://www.garmin.com/xmlschemas/ActivityExtension/v2\"><Speed>3.2</Speed></TPX></Extensions>" +
+            "</Trackpoint>";
+
+    private Tcx2Format format = new Tcx2Format();
+
+    private List<GpxRoute> read(String string) throws IOException {
+        return format.read(new ByteArrayInputStream(string.getBytes("UTF-8")), null);
+    }
+
+    private GpxRoute createRoute() {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < 5; i++) {
+            GpxPosition position = new GpxPosition(9.0 + i * 0.01, 52.0 + i * 0.01, 100.0 + i, null,
+                    CompactCalendar.fromMillis(1216731881000L + i * 1000), null);
+            position.setHeartBeat((short) (120 + i));
+            positions.add(position);
+        }
+        return new GpxRoute(format, RouteCharacteristics.Track, "Route", null, positions);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException, JAXBException {
+        GpxRoute route = createRoute();
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        format.write(Arrays.asList(route), target);
+
+        TrainingCenterDatabaseT database = TcxUtil.unmarshal2(new ByteArrayInputStream(target.toByteArray()));
+        CourseT course = database.getCourses().getCourse().get(0);
+        assertEquals("1: Route", course.getName());
+        List<TrackpointT> trackpoints = course.getTrack().get(0).getTrackpoint();
+        assertEquals(5, trackpoints.size());
+        assertEquals(0.0, trackpoints.get(0).getDistanceMeters(), 0.0);
+        assertEquals(route.getDistance(), trackpoints.get(4).getDistanceMeters(), 0.0);
+        assertEquals(route.getDistance(), course.getLap().get(0).getDistanceMeters(), 0.0);
+        assertEquals(120, course.getLap().get(0).getAverageHeartRateBpm().getValue());
+        assertEquals(124, trackpoints.get(4).getHeartRateBpm().getValue());
+
+        List<GpxRoute> routes = format.read(new ByteArrayInputStream(target.toByteArray()), null);
+        // the lap written by RouteConverter is not read as a route
+        assertEquals(1, routes.size());
+        GpxRoute read = routes.get(0);
+        assertEquals("1: Route", read.getName());
+        assertEquals(route.getPositions(), read.getPositions());
+        assertEquals(new Short((short) 122), read.getPosition(2).getHeartBeat());
+    }
+
+    @Test
+    public void testReadActivities() throws IOException {
+        List<GpxRoute> routes = read(HEADER + "<Activities>" +
+                "<Activity Sport=\"Running\"><Id>2008-07-22T13:04:41Z</Id>" +
+                "<Lap StartTime=\"2008-07-22T13:04:41Z\"><TotalTimeSeconds>10</TotalTimeSeconds><Track>" + TRACKPOINT + TRACKPOINT + "</Track><Notes>First</Notes></Lap>" +
+                "<Lap StartTime=\"2008-07-22T13:04:51Z\"><Track>" + TRACKPOINT + "</Track></Lap>" +
+                "<Creator><Name>Forerunner</Name></Creator></Activity>" +
+                "<MultiSportSession><Id>2008-07-22T13:04:41Z</Id>" +
+                "<FirstSport><Activity Sport=\"Biking\"><Lap StartTime=\"2008-07-22T13:04:41Z\"><Notes>Bike</Notes></Lap></Activity></FirstSport>" +
+                "<NextSport><Transition StartTime=\"2008-07-22T13:04:41Z\"><Notes>Change</Notes></Transition>" +
+                "<Activity Sport=\"Running\"><Lap StartTime=\"2008-07-22T13:04:41Z\"><Notes>Run</Notes></Lap></Activity></NextSport>" +
+                "</MultiSportSession></Activities></TrainingCenterDatabase>");
+        assertEquals(5, routes.size());
+        assertEquals("First", routes.get(0).getName());
+        assertEquals(2, routes.get(0).getPositionCount());
+        assertNull(routes.get(1).getName());
+        assertEquals("Bike", routes.get(2).getName());
+        assertEquals("Run", routes.get(3).getName());
+        assertEquals("Change", routes.get(4).getName());
+
+        GpxPosition position = routes.get(1).getPosition(0);
+        assertEquals(9.12835, position.getLongitude(), 0.0);
+        assertEquals(52.65525, position.getLatitude(), 0.0);
+        assertEquals(16.7, position.getElevation(), 0.0);
+        assertEquals(1216731881000L, position.getTime().getTimeInMillis());
+        assertEquals(new Short((short) 142), position.getHeartBeat());
+        assertNull(position.getComment());
+    }
+
+    @Test
+    public void testReadTimeWithOffsetKeepsWallClockTime() throws IOException, DatatypeConfigurationException {
+        String time = "2012-01-01T10:00:00+02:00";
+        List<GpxRoute> routes = read(HEADER + "<Activities><Activity Sport=\"Running\">" +
+                "<Lap StartTime=\"" + time + "\"><Track>" + TRACKPOINT.replace("2008-07-22T13:04:41Z", time) + "</Track></Lap>" +
+                "</Activity></Activities></TrainingCenterDatabase>");
+        assertEquals(1325412000000L, routes.get(0).getPosition(0).getTime().getTimeInMillis());
+        assertEquals(XmlNavigationFormat.parseTime(DatatypeFactory.newInstance().newXMLGregorianCalendar(time)),
+                XmlNavigationFormat.parseTime(time));
+    }
+
+    @Test
+    public void testReadCourse() throws IOException {
+        List<GpxRoute> routes = read(HEADER + "<Courses><Course><Name>Course</Name>" +
+                "<Lap><TotalTimeSeconds>3600</TotalTimeSeconds><DistanceMeters>1000</DistanceMeters>" +
+                "<BeginPosition><LatitudeDegrees>52.0</LatitudeDegrees><LongitudeDegrees>9.0</LongitudeDegrees></BeginPosition>" +
+                "<EndPosition><LatitudeDegrees>53.0</LatitudeDegrees><LongitudeDegrees>10.0</LongitudeDegrees></EndPosition>" +
+                "<EndAltitudeMeters>20</EndAltitudeMeters><Intensity>Active</Intensity></Lap>" +
+                "<Track>" + TRACKPOINT + "</Track>" +
+                "<CoursePoint><Name>Turn</Name><Time>2008-07-22T13:04:41Z</Time>" +
+                "<Position><LatitudeDegrees>52.5</LatitudeDegrees><LongitudeDegrees>9.5</LongitudeDegrees></Position>" +
+                "<PointType>Left</PointType></CoursePoint>" +
+                "</Course></Courses></TrainingCenterDatabase>");
+        assertEquals(3, routes.size());
+
+        GpxRoute coursePoints = routes.get(0);
+        assertEquals(RouteCharacteristics.Route, coursePoints.getCharacteristics());
+        assertEquals("Turn", coursePoints.getPosition(0).getComment());
+        assertEquals(9.5, coursePoints.getPosition(0).getLongitude(), 0.0);
+
+        GpxRoute lap = routes.get(1);
+        assertEquals(RouteCharacteristics.Waypoints, lap.getCharacteristics());
+        assertEquals("Course", lap.getName());
+        assertEquals("0 seconds", lap.getPosition(0).getComment());
+        assertEquals("3600.0 seconds", lap.getPosition(1).getComment());
+        assertEquals(10.0, lap.getPosition(1).getLongitude(), 0.0);
+        assertEquals(20.0, lap.getPosition(1).getElevation(), 0.0);
+
+        GpxRoute track = routes.get(2);
+        assertEquals(RouteCharacteristics.Track, track.getCharacteristics());
+        assertEquals(1, track.getPositionCount());
+    }
+
+    @Test
+    public void testReadOtherDocuments() throws IOException {
+        assertNull(read("<?xml version=\"1.0\"?><TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v1\"/>"));
+        assertNull(read("<?xml version=\"1.0\"?><gpx/>"));
+        assertNull(read("no xml at all"));
+        assertNull(read(HEADER + "</TrainingCenterDatabase>"));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CoordinateIndexTest {
+    @Test
+    public void testIndexOf() {
+        CoordinateIndex index = new CoordinateIndex(0);
+        assertEquals(0, index.indexOf(10.0, 53.0));
+        assertEquals(1, index.indexOf(53.0, 10.0));
+        assertEquals(0, index.indexOf(10.0, 53.0));
+        assertEquals(1, index.indexOf(53.0, 10.0));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testEqualsLikeDoubleCompare() {
+        CoordinateIndex index = new CoordinateIndex(4);
+        assertEquals(0, index.indexOf(0.0, 0.0));
+        assertEquals(1, index.indexOf(-0.0, 0.0));
+        assertEquals(2, index.indexOf(Double.NaN, 0.0));
+        assertEquals(2, index.indexOf(0.0 / 0.0, 0.0));
+    }
+
+    @Test
+    public void testGrow() {
+        CoordinateIndex index = new CoordinateIndex(1);
+        for (int i = 0; i < 100000; i++)
+            assertEquals(i, index.indexOf(10.0 + i * 0.00001, 53.0 - i * 0.00001));
+        for (int i = 0; i < 100000; i++)
+            assertEquals(i, index.indexOf(10.0 + i * 0.00001, 53.0 - i * 0.00001));
+        assertEquals(100000, index.size());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.util;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.Wgs84Position;
+import slash.navigation.itn.TomTomPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.util.RouteComments.parseComment;
+import static slash.navigation.util.RouteComments.parseCommentWithAllPatterns;
+
+public class RouteCommentsTest {
+    private static final String[] SAMPLES = new String[]{
+            "Richtung 316 - 11:32:26 - 34 m - Bahrenfeld",
+            "09:02:43 - 47.5 m",
+            "15:01:20 - Start : 26/02/2010 15:01:20 - 10.2 m",
+            "16:22:22 - Ende : 26/02/2010 16:22:22 - 9.8 m",
+            "15:05:00 - Kurs 173 - 10.4 m",
+            "15:06:20 - Distanz 6 - 11.3 m",
+            "15:08:43 - Dauer 0:07:33 - 23.5 m",
+            "Start : Noyal-Sur-Vilaine - 23/11/2006 - 08:50:26 - 37.2 m - 0.4 Km",
+            "Ende : Herrenberg - 14:03:45 - 437.4 m - 25.5 km",
+            "Finish : Cesson-S\u00e9vign\u00e9 - 09:03:23 - 51.9 m - 8.6 Km",
+            "09:01:31 - Cape 125: Cesson-S\u00e9vign\u00e9 - 62.0 m - 7.1 Km",
+            "08:51:25 - Km 1.4: Acign\u00e9 - 26.5 m - 1.4 km - 69 Km/h",
+            "08:45:54 - Start : 04/04/2009 08:45:54 - 12.7 m - 0.0 Km - 5 Km/h - 11",
+            "13:39:33 - Distanz 2 : Weil Der Stadt - 408.3 m - 2.0 km - 39 km/h",
+            "18:51:36 - Start : 21/07/2007 18:51:36 : Hohenfelde (Hamburg) - 1241.231 m - 0.2 Km - 12 Km/h - 6",
+            "18:51:45 - Hohenfelde (Hamburg) - 42.0 m - 0.2 Km - 2 Km/h - 5",
+            "18:51:59 - Dur. 0:05:55 : Hohenfelde (Hamburg) - 41.0 m - 0.2 Km - 5 Km/h - 6",
+            "080530 08:11:44: + Neuhaus Im Solling (Holzminden); B497 In Der Fahrt; 3  (s=69 d=207)",
+            "080629 07:33:00: + Eschelbach (Rhein-Neckar-Kreis, Baden-Wuerttemberg); L612 @196.9m (s=66 d=91)",
+            "081012 19:00:47: * 17159970:-4176126 @?m (s=12 d=170)",
+            "090314 07:36:52: = 1000466:4889529 (@365.8m 090314 07:36:52 - 090314 08:02:04)",
+            "090314 08:05:55: * 1000462:4889518 @365.8m (s=1 d=193)",
+            "12:23:10 Start (#1)",
+            "13:31 v=54.5 alt=79 (#3634)",
+            "13:58 0.7 min Pause (#5444)",
+            "15:04 0.7 min Pause 48.2m (#1377)",
+            "Start : Hamburg : 26/02/2010 15:01:20 - 10.2 m - 12.0 Km/h - 45.0 deg",
+            "Hamburg : 15:01:20 - 10.2 m - 12.0 Km/h - 45.0 deg",
+            "Position 7",
+            "Bahrenfeld"
+    };
+    private static final String[] TOKENS = new String[]{
+            "0", "1", "9", "12", "47.5", "-3.2", "1.2.3", ":", " : ", ": ", " - ", " ", "  ", "/", "(", ")", "@", "#",
+            "+", "*", "=", "?", "m", " m", " Km", " km", "Km/h", " km/h", " deg", "s=", " d=", "v=", " alt=",
+            "11:32:26", "9:02", "26/02/2010", "090314", "Start", "Ende", "Finish", "End", "Dauer", "Dur.",
+            "Kurs", "Course", "Richtung", "Waypoint", "Wpt", "Punkt", "Pause", "min", "Hamburg", "Position", "\u00e9"
+    };
+
+    private String mutate(String comment, Random random) {
+        StringBuilder buffer = new StringBuilder(comment);
+        int mutations = random.nextInt(4);
+        for (int i = 0; i < mutations; i++) {
+            int index = buffer.length() > 0 ? random.nextInt(buffer.length()) : 0;
+            switch (random.nextInt(5)) {
+                case 0:
+                    if (buffer.length() > 0)
+                        buffer.deleteCharAt(index);
+                    break;
+                case 1:
+                    buffer.insert(index, TOKENS[random.nextInt(TOKENS.length)]);
+                    break;
+                case 2:
+                    if (buffer.length() > 0)
+                        buffer.setCharAt(index, (char) ('0' + random.nextInt(10)));
+                    break;
+                case 3:
+                    buffer.setLength(index);
+                    break;
+                default:
+                    buffer.append(TOKENS[random.nextInt(TOKENS.length)]);
+                    break;
+            }
+        }
+        return buffer.toString();
+    }
+
+    private String generate(Random random) {
+        if (random.nextInt(4) == 0) {
+            StringBuilder buffer = new StringBuilder();
+            int count = random.nextInt(12);
+            for (int i = 0; i < count; i++)
+                buffer.append(TOKENS[random.nextInt(TOKENS.length)]);
+            return buffer.toString();
+        }
+        return mutate(SAMPLES[random.nextInt(SAMPLES.length)], random);
+    }
+
+    private List<String> createCorpus(int count) {
+        Random random = new Random(4711);
+        List<String> corpus = new ArrayList<String>();
+        for (String sample : SAMPLES)
+            corpus.add(sample);
+        while (corpus.size() < count)
+            corpus.add(generate(random));
+        return corpus;
+    }
+
+    private Class parse(BaseNavigationPosition position, String comment, boolean allPatterns) {
+        try {
+            if (allPatterns)
+                parseCommentWithAllPatterns(position, comment);
+            else
+                parseComment(position, comment);
+            return null;
+        } catch (NumberFormatException e) {
+            return e.getClass();
+        }
+    }
+
+    @Test
+    public void testParseCommentEqualsAllPatterns() {
+        int parsed = 0;
+        for (String comment : createCorpus(50000)) {
+            TomTomPosition expectedTomTom = new TomTomPosition(null, null, null, null, null, null);
+            Class expectedTomTomException = parse(expectedTomTom, comment, true);
+            TomTomPosition actualTomTom = new TomTomPosition(null, null, null, null, null, null);
+            assertEquals(comment, expectedTomTomException, parse(actualTomTom, comment, false));
+            assertEquals(comment, expectedTomTom.getTime(), actualTomTom.getTime());
+            assertEquals(comment, expectedTomTom.getElevation(), actualTomTom.getElevation());
+            assertEquals(comment, expectedTomTom.getSpeed(), actualTomTom.getSpeed());
+            assertEquals(comment, expectedTomTom.getHeading(), actualTomTom.getHeading());
+            assertEquals(comment, expectedTomTom.getReason(), actualTomTom.getReason());
+            assertEquals(comment, expectedTomTom.getCity(), actualTomTom.getCity());
+
+            Wgs84Position expectedWgs84 = new Wgs84Position(null, null, null, null, null, null);
+            Class expectedWgs84Exception = parse(expectedWgs84, comment, true);
+            Wgs84Position actualWgs84 = new Wgs84Position(null, null, null, null, null, null);
+            assertEquals(comment, expectedWgs84Exception, parse(actualWgs84, comment, false));
+            assertEquals(comment, expectedWgs84.getTime(), actualWgs84.getTime());
+            assertEquals(comment, expectedWgs84.getElevation(), actualWgs84.getElevation());
+            assertEquals(comment, expectedWgs84.getSpeed(), actualWgs84.getSpeed());
+            assertEquals(comment, expectedWgs84.getHeading(), actualWgs84.getHeading());
+
+            if (expectedTomTom.getTime() != null || expectedTomTom.getElevation() != null)
+                parsed++;
+        }
+        // make sure the corpus exercises the patterns and not just plain names
+        assertTrue("only " + parsed + " comments parsed", parsed > 5000);
+    }
+
+    @Test
+    public void testParsePlainName() {
+        TomTomPosition position = new TomTomPosition(null, null, null, null, null, null);
+        parseComment(position, "Bahrenfeld");
+        assertEquals(null, position.getTime());
+        assertEquals(null, position.getElevation());
+        assertEquals(null, position.getReason());
+    }
+}
@@ -0,0 +1,226 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+import slash.navigation.rest.exception.ServiceUnavailableException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Looks up values for a batch of keys: identical keys are looked up once,
+ * keys that the local {@link Lookup} answers are resolved first and the remaining
+ * keys are distributed to a number of threads that query the remote {@link Lookup}
+ * within the rate of a {@link RateLimiter}. The results are delivered in batches
+ * on the calling thread.
+ *
+ * @author Christian Pesch
+ */
+
+public class BatchLookup<K, V> {
+    private static final Logger log = Logger.getLogger(BatchLookup.class.getName());
+    private static final int MAXIMUM_RETRIES = 3;
+    private static final long DELIVERY_INTERVAL = 250;
+
+    private final String name;
+    private final Lookup<K, V> localLookup, remoteLookup;
+    private final int concurrency;
+    private final RateLimiter rateLimiter;
+    private long retryDelay = 1000;
+
+    public BatchLookup(String name, Lookup<K, V> localLookup, Lookup<K, V> remoteLookup,
+                       int concurrency, RateLimiter rateLimiter) {
+        this.name = name;
+        this.localLookup = localLookup;
+        this.remoteLookup = remoteLookup;
+        this.concurrency = Math.max(concurrency, 1);
+        this.rateLimiter = rateLimiter;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Looks up the values for the given keys.
+     *
+     * @param keys      the keys to look up, null keys are skipped
+     * @param batchSize the maximum number of results to deliver at once
+     * @param callback  receives the results by the indices of their keys
+     */
+    public void lookup(List<K> keys, int batchSize, BatchLookupCallback<V> callback) {
+        Map<K, List<Integer>> indices = new LinkedHashMap<K, List<Integer>>();
+        for (int i = 0; i < keys.size(); i++) {
+            K key = keys.get(i);
+            if (key == null)
+                continue;
+            List<Integer> list = indices.get(key);
+            if (list == null) {
+                list = new ArrayList<Integer>(1);
+                indices.put(key, list);
+            }
+            list.add(i);
+        }
+
+        SortedMap<Integer, V> batch = new TreeMap<Integer, V>();
+        List<K> remaining = new ArrayList<K>();
+        for (K key : indices.keySet()) {
+            if (callback.isInterrupted())
+                return;
+
+            V value = null;
+            if (localLookup != null) {
+                try {
+                    value = localLookup.lookup(key);
+                } catch (Exception e) {
+                    log.warning(String.format("Cannot look up %s locally: %s", key, e.getMessage()));
+                }
+            }
+            if (value != null)
+                batch = add(batch, indices.get(key), value, batchSize, callback);
+            else
+                remaining.add(key);
+        }
+        deliver(batch, callback);
+
+        if (remaining.size() > 0 && remoteLookup != null)
+            lookupRemotely(remaining, indices, batchSize, callback);
+    }
+
+    private void lookupRemotely(List<K> keys, Map<K, List<Integer>> indices, int batchSize,
+                                BatchLookupCallback<V> callback) {
+        final BlockingQueue<Result<K, V>> results = new LinkedBlockingQueue<Result<K, V>>();
+        ExecutorService executor = createExecutor(Math.min(concurrency, keys.size()));
+        for (final K key : keys) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    Result<K, V> result = new Result<K, V>(key);
+                    try {
+                        result.value = lookupRemotely(key);
+                    } catch (Throwable t) {
+                        result.throwable = t;
+                    }
+                    results.add(result);
+                }
+            });
+        }
+        executor.shutdown();
+
+        SortedMap<Integer, V> batch = new TreeMap<Integer, V>();
+        int pending = keys.size();
+        try {
+            while (pending > 0) {
+                if (callback.isInterrupted())
+                    break;
+
+                Result<K, V> result = results.poll(DELIVERY_INTERVAL, MILLISECONDS);
+                if (result == null) {
+                    // deliver what is there while the remote lookups are slow
+                    deliver(batch, callback);
+                    batch = new TreeMap<Integer, V>();
+                    continue;
+                }
+                pending--;
+
+                if (result.throwable instanceof InterruptedException)
+                    break;
+                if (result.throwable != null)
+                    callback.failed(result.throwable);
+                else if (result.value != null)
+                    batch = add(batch, indices.get(result.key), result.value, batchSize, callback);
+            }
+            deliver(batch, callback);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private V lookupRemotely(K key) throws Exception {
+        for (int retry = 0; ; retry++) {
+            if (rateLimiter != null)
+                rateLimiter.acquire();
+            try {
+                return remoteLookup.lookup(key);
+            } catch (ServiceUnavailableException e) {
+                if (retry >= MAXIMUM_RETRIES)
+                    throw e;
+                // the service signals that its rate limit is exceeded
+                long delay = retryDelay << retry;
+                log.info(String.format("%s is unavailable, retrying %s in %d milliseconds", e.getServiceName(), key, delay));
+                if (rateLimiter != null)
+                    rateLimiter.pause(delay);
+                else
+                    Thread.sleep(delay);
+            }
+        }
+    }
+
+    private SortedMap<Integer, V> add(SortedMap<Integer, V> batch, List<Integer> indices, V value,
+                                      int batchSize, BatchLookupCallback<V> callback) {
+        for (Integer index : indices)
+            batch.put(index, value);
+        if (batch.size() < batchSize)
+            return batch;
+        deliver(batch, callback);
+        return new TreeMap<Integer, V>();
+    }
+
+    private void deliver(SortedMap<Integer, V> batch, BatchLookupCallback<V> callback) {
+        if (batch.size() > 0)
+            callback.resolved(batch);
+    }
+
+    private ExecutorService createExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static class Result<K, V> {
+        private final K key;
+        private V value;
+        private Throwable throwable;
+
+        private Result(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+import java.util.SortedMap;
+
+/**
+ * Receives the results of a {@link BatchLookup}.
+ *
+ * @author Christian Pesch
+ */
+
+public interface BatchLookupCallback<V> {
+    /**
+     * Called with a batch of resolved values.
+     *
+     * @param results the resolved values by the indices of their keys
+     */
+    void resolved(SortedMap<Integer, V> results);
+
+    /**
+     * Called if the lookup of a key failed.
+     *
+     * @param throwable the cause of the failure
+     */
+    void failed(Throwable throwable);
+
+    /**
+     * Allows to cancel the lookup.
+     *
+     * @return true if the lookup should stop
+     */
+    boolean isInterrupted();
+}
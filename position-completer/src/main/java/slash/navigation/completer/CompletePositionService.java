@@ -51,10 +51,21 @@ public class CompletePositionService {
     }
 
     public Double getElevationFor(double longitude, double latitude) throws IOException {
-        Double elevation = null;
+        Double elevation = getElevationFromHgtFilesFor(longitude, latitude);
+        if (elevation == null)
+            elevation = getElevationFromServicesFor(longitude, latitude);
+        return elevation;
+    }
+
+    public Double getElevationFromHgtFilesFor(double longitude, double latitude) throws IOException {
         if (preferences.getBoolean(COMPLEMENT_ELEVATION_FROM_HGT_FILES, true))
-            elevation = hgtFiles.getElevationFor(longitude, latitude);
-        if (elevation == null && preferences.getBoolean(COMPLEMENT_ELEVATION_FROM_GOOGLE_MAPS, true))
+            return hgtFiles.getElevationFor(longitude, latitude);
+        return null;
+    }
+
+    public Double getElevationFromServicesFor(double longitude, double latitude) throws IOException {
+        Double elevation = null;
+        if (preferences.getBoolean(COMPLEMENT_ELEVATION_FROM_GOOGLE_MAPS, true))
             elevation = googleMapsService.getElevationFor(longitude, latitude);
         if (elevation == null && preferences.getBoolean(COMPLEMENT_ELEVATION_FROM_GEONAMES, true))
             elevation = geoNamesService.getElevationFor(longitude, latitude);
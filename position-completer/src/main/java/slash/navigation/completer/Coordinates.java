@@ -0,0 +1,64 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+/**
+ * A pair of longitude and latitude to look up values for.
+ *
+ * @author Christian Pesch
+ */
+
+public class Coordinates {
+    private final double longitude, latitude;
+
+    public Coordinates(double longitude, double latitude) {
+        this.longitude = longitude;
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Coordinates that = (Coordinates) o;
+        return Double.compare(that.longitude, longitude) == 0 &&
+                Double.compare(that.latitude, latitude) == 0;
+    }
+
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(longitude);
+        int result = (int) (bits ^ (bits >>> 32));
+        bits = Double.doubleToLongBits(latitude);
+        return 31 * result + (int) (bits ^ (bits >>> 32));
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[longitude=" + longitude + ", latitude=" + latitude + "]";
+    }
+}
@@ -0,0 +1,114 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+/**
+ * Limits the rate of requests to a service with a token bucket.
+ *
+ * @author Christian Pesch
+ */
+
+public class RateLimiter {
+    /**
+     * The time source of a {@link RateLimiter}, replaced in tests.
+     */
+    interface Clock {
+        long currentTimeMillis();
+        void sleep(long milliseconds) throws InterruptedException;
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        public void sleep(long milliseconds) throws InterruptedException {
+            Thread.sleep(milliseconds);
+        }
+    };
+
+    private final double permitsPerMillisecond;
+    private final double maximumPermits;
+    private final Clock clock;
+    private double permits;
+    private long lastRefill, pausedUntil = 0;
+
+    /**
+     * Creates a limiter for the given rate.
+     *
+     * @param permitsPerSecond the sustained number of requests per second, not limited if not positive
+     * @param burst            the number of requests that may be issued at once
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, SYSTEM_CLOCK);
+    }
+
+    RateLimiter(double permitsPerSecond, int burst, Clock clock) {
+        this.permitsPerMillisecond = permitsPerSecond / 1000.0;
+        this.maximumPermits = Math.max(burst, 1);
+        this.clock = clock;
+        this.permits = maximumPermits;
+        this.lastRefill = clock.currentTimeMillis();
+    }
+
+    private void refill() {
+        long now = clock.currentTimeMillis();
+        permits = Math.min(maximumPermits, permits + (now - lastRefill) * permitsPerMillisecond);
+        lastRefill = now;
+    }
+
+    /**
+     * Blocks until a request may be issued.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long wait;
+            synchronized (this) {
+                long now = clock.currentTimeMillis();
+                if (now < pausedUntil)
+                    wait = pausedUntil - now;
+                else if (permitsPerMillisecond <= 0.0)
+                    return;
+                else {
+                    refill();
+                    if (permits >= 1.0) {
+                        permits -= 1.0;
+                        return;
+                    }
+                    wait = (long) Math.ceil((1.0 - permits) / permitsPerMillisecond);
+                }
+            }
+            clock.sleep(Math.max(wait, 1));
+        }
+    }
+
+    /**
+     * Lets all requesters wait for the given time, for example after the service
+     * responded that its rate limit is exceeded.
+     *
+     * @param milliseconds the time to wait
+     */
+    public synchronized void pause(long milliseconds) {
+        pausedUntil = Math.max(pausedUntil, clock.currentTimeMillis() + milliseconds);
+    }
+}
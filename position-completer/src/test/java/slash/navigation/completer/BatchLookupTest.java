@@ -0,0 +1,195 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+import org.junit.Test;
+import slash.navigation.rest.exception.ServiceUnavailableException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchLookupTest {
+    private static class StubService implements Lookup<Integer, String> {
+        private final long latency;
+        private final int rateLimitedRequests;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maximumRunning = new AtomicInteger();
+        private CountDownLatch overlap;
+
+        private StubService(long latency, int rateLimitedRequests) {
+            this.latency = latency;
+            this.rateLimitedRequests = rateLimitedRequests;
+        }
+
+        public String lookup(Integer key) throws IOException {
+            int request = requests.incrementAndGet();
+            int current = running.incrementAndGet();
+            while (true) {
+                int maximum = maximumRunning.get();
+                if (current <= maximum || maximumRunning.compareAndSet(maximum, current))
+                    break;
+            }
+            try {
+                if (overlap != null) {
+                    // the first requests wait for each other if they run concurrently
+                    overlap.countDown();
+                    overlap.await(5, TimeUnit.SECONDS);
+                }
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted");
+            } finally {
+                running.decrementAndGet();
+            }
+            if (request <= rateLimitedRequests)
+                throw new ServiceUnavailableException("stub", "http://localhost/" + key);
+            return key % 10 == 9 ? null : "remote" + key;
+        }
+    }
+
+    private static class RecordingCallback implements BatchLookupCallback<String> {
+        private final SortedMap<Integer, String> results = new TreeMap<Integer, String>();
+        private final List<Throwable> failures = new ArrayList<Throwable>();
+        private int batches = 0;
+
+        public void resolved(SortedMap<Integer, String> batch) {
+            results.putAll(batch);
+            batches++;
+        }
+
+        public void failed(Throwable throwable) {
+            failures.add(throwable);
+        }
+
+        public boolean isInterrupted() {
+            return false;
+        }
+    }
+
+    private List<Integer> createKeys(int count) {
+        List<Integer> keys = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++)
+            keys.add(i);
+        return keys;
+    }
+
+    @Test
+    public void testDeduplicatesAndResolvesLocallyFirst() {
+        StubService remote = new StubService(1, 0);
+        Lookup<Integer, String> local = new Lookup<Integer, String>() {
+            public String lookup(Integer key) {
+                return key % 2 == 0 ? "local" + key : null;
+            }
+        };
+        BatchLookup<Integer, String> lookup = new BatchLookup<Integer, String>("Test", local, remote, 2, null);
+        RecordingCallback callback = new RecordingCallback();
+
+        lookup.lookup(Arrays.asList(1, 2, 1, null, 3, 2, 19), 100, callback);
+        assertEquals(3, remote.requests.get());
+        assertEquals("remote1", callback.results.get(0));
+        assertEquals("local2", callback.results.get(1));
+        assertEquals("remote1", callback.results.get(2));
+        assertEquals("remote3", callback.results.get(4));
+        assertEquals("local2", callback.results.get(5));
+        assertEquals(5, callback.results.size());
+        assertEquals(0, callback.failures.size());
+    }
+
+    @Test
+    public void testConcurrentLookupsInBatches() {
+        StubService remote = new StubService(1, 0);
+        remote.overlap = new CountDownLatch(4);
+        BatchLookup<Integer, String> lookup = new BatchLookup<Integer, String>("Test", null, remote, 8, null);
+        RecordingCallback callback = new RecordingCallback();
+
+        lookup.lookup(createKeys(40), 10, callback);
+
+        assertEquals(40, remote.requests.get());
+        assertEquals(36, callback.results.size());
+        assertTrue(callback.batches <= 8);
+        assertTrue("at most " + remote.maximumRunning.get() + " concurrent requests", remote.maximumRunning.get() >= 4);
+        assertTrue(remote.maximumRunning.get() <= 8);
+    }
+
+    @Test
+    public void testRetriesRateLimitedRequests() {
+        StubService remote = new StubService(1, 3);
+        BatchLookup<Integer, String> lookup = new BatchLookup<Integer, String>("Test", null, remote, 2, new RateLimiter(100.0, 2));
+        lookup.setRetryDelay(20);
+        RecordingCallback callback = new RecordingCallback();
+
+        lookup.lookup(createKeys(5), 100, callback);
+        assertEquals(8, remote.requests.get());
+        assertEquals(5, callback.results.size());
+        assertEquals(0, callback.failures.size());
+    }
+
+    private static class ManualClock implements RateLimiter.Clock {
+        private long now = 1000000;
+        private long slept = 0;
+
+        public synchronized long currentTimeMillis() {
+            return now;
+        }
+
+        public synchronized void sleep(long milliseconds) {
+            now += milliseconds;
+            slept += milliseconds;
+        }
+    }
+
+    @Test
+    public void testRateLimiter() throws InterruptedException {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = new RateLimiter(100.0, 1, clock);
+        limiter.acquire();
+        assertEquals(0, clock.slept);
+        for (int i = 0; i < 10; i++)
+            limiter.acquire();
+        assertEquals(100, clock.slept);
+    }
+
+    @Test
+    public void testRateLimiterBurstAndPause() throws InterruptedException {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = new RateLimiter(10.0, 3, clock);
+        for (int i = 0; i < 3; i++)
+            limiter.acquire();
+        assertEquals(0, clock.slept);
+        limiter.acquire();
+        assertEquals(100, clock.slept);
+
+        limiter.pause(500);
+        limiter.acquire();
+        assertEquals(600, clock.slept);
+    }
+}
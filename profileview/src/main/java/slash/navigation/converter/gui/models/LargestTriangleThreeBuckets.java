@@ -0,0 +1,101 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.models;
+
+/**
+ * Downsamples a series of points with the Largest-Triangle-Three-Buckets algorithm
+ * which keeps the visual shape of the series including its peaks.
+ *
+ * @author Christian Pesch
+ */
+
+public class LargestTriangleThreeBuckets {
+    private LargestTriangleThreeBuckets() {
+    }
+
+    private static double valueOf(double[] y, int index) {
+        double value = y[index];
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+
+    /**
+     * Selects at most threshold points from the given range of points.
+     *
+     * @param x         the x values in ascending order
+     * @param y         the y values, NaN for missing values
+     * @param from      the index of the first point of the range
+     * @param to        the index of the last point of the range
+     * @param threshold the maximum number of points to select
+     * @return the ascending indices of the selected points
+     */
+    public static int[] downsample(double[] x, double[] y, int from, int to, int threshold) {
+        int count = to - from + 1;
+        if (count <= 0)
+            return new int[0];
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++)
+                all[i] = from + i;
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int selectedCount = 0;
+        selected[selectedCount++] = from;
+
+        // the first and the last point are kept, the others are distributed into buckets
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int a = from;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int bucketStart = from + 1 + (int) (bucket * bucketSize);
+            int bucketEnd = Math.min(from + 1 + (int) ((bucket + 1) * bucketSize), to);
+
+            // the average of the next bucket is the third point of the triangle
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(from + 1 + (int) ((bucket + 2) * bucketSize), to + 1);
+            double averageX = 0.0, averageY = 0.0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += valueOf(y, i);
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            double pointAX = x[a], pointAY = valueOf(y, a);
+            double maximumArea = -1.0;
+            int maximumIndex = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                double area = Math.abs((pointAX - averageX) * (valueOf(y, i) - pointAY) -
+                        (pointAX - x[i]) * (averageY - pointAY));
+                if (area > maximumArea) {
+                    maximumArea = area;
+                    maximumIndex = i;
+                }
+            }
+            selected[selectedCount++] = maximumIndex;
+            a = maximumIndex;
+        }
+
+        selected[selectedCount] = to;
+        return selected;
+    }
+}
@@ -26,81 +26,186 @@ import slash.navigation.base.BaseRoute;
 import slash.navigation.converter.gui.profileview.ProfileMode;
 import slash.navigation.util.Unit;
 
+import java.util.Arrays;
+
 import static java.lang.String.format;
+import static slash.navigation.converter.gui.models.LargestTriangleThreeBuckets.downsample;
 
 /**
  * Provides a {@link XYSeries} model by extracting profile information from a {@link PositionsModel}.
+ * <p/>
+ * The distances and values of all positions are kept in arrays; the series is loaded in bulk
+ * with a downsampled selection of the positions that is refined for the visible distance range.
  *
  * @author Christian Pesch
  */
 
 public class ProfileModel extends PositionsModelToXYSeriesSynchronizer {
+    private static final int[] NO_ROWS = new int[0];
+    private static final double[] NO_VALUES = new double[0];
+
     private Unit unit;
     private ProfileMode profileMode;
+    private double[] distances = NO_VALUES, values = NO_VALUES;
+    private int[] rows = NO_ROWS;
+    private int threshold = 2000;
+    private double lowerDistance = Double.NaN, upperDistance = Double.NaN;
 
     public ProfileModel(PositionsModel positions, PatchedXYSeries series, Unit unit, ProfileMode profileMode) {
         super(positions, series);
         this.unit = unit;
         this.profileMode = profileMode;
+        handleFullUpdate();
     }
 
     protected void handleAdd(int firstRow, int lastRow) {
-        recomputeEverythingAfter(firstRow);
+        recomputeEverything();
     }
 
     protected void handleFullUpdate() {
-        recomputeEverythingAfter(0);
+        recomputeEverything();
     }
 
     protected void handleIntervalXUpdate(int firstRow, int lastRow) {
-        recomputeEverythingAfter(firstRow);
+        recomputeEverything();
     }
 
     protected void handleIntervalYUpdate(int firstRow, int lastRow) {
-        getSeries().setFireSeriesChanged(false);
-        for (int i = firstRow; i < lastRow + 1; i++) {
-            getSeries().updateByIndex(i, formatValue(getPositions().getPosition(i)));
+        if (values.length != getPositions().getRowCount()) {
+            recomputeEverything();
+            return;
         }
-        getSeries().setFireSeriesChanged(true);
-        getSeries().fireSeriesChanged();
+        for (int i = firstRow; i <= lastRow && i < values.length; i++)
+            values[i] = formatValue(getPositions().getPosition(i));
+        loadSeries();
     }
 
     protected void handleDelete(int firstRow, int lastRow) {
-        recomputeEverythingAfter(firstRow);
+        recomputeEverything();
     }
 
-    private void recomputeEverythingAfter(int firstRow) {
-        getSeries().setFireSeriesChanged(false);
-
-        int itemCount = getSeries().getItemCount();
-        if (itemCount > 0 && firstRow < itemCount - 1)
-            getSeries().delete(firstRow, itemCount - 1);
+    private void recomputeEverything() {
+        // called from the super constructor before the fields are initialized
+        if (unit == null)
+            return;
 
         BaseRoute route = getPositions().getRoute();
-        if (route == null)
-            return;
+        int rowCount = route != null ? getPositions().getRowCount() : 0;
+        if (rowCount > 0) {
+            distances = route.getDistancesFromStart(0, rowCount - 1);
+            values = new double[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                distances[i] = formatDistance(distances[i]);
+                values[i] = formatValue(getPositions().getPosition(i));
+            }
+        } else {
+            distances = NO_VALUES;
+            values = NO_VALUES;
+        }
+        loadSeries();
+    }
 
-        int lastRow = getPositions().getRowCount() - 1;
-        if (firstRow <= lastRow && lastRow >= 0) {
-            double[] distances = route.getDistancesFromStart(firstRow, lastRow);
-            for (int i = firstRow; i < lastRow + 1; i++) {
-                getSeries().add(formatDistance(distances[i - firstRow]), formatValue(getPositions().getPosition(i)), false);
+    private int[] selectRows() {
+        int last = distances.length - 1;
+        int[] overview = downsample(distances, values, 0, last, threshold);
+        if (Double.isNaN(lowerDistance) || overview.length == distances.length)
+            return overview;
+
+        // include the neighbours of the visible range to draw the profile up to the borders
+        int from = Arrays.binarySearch(distances, lowerDistance);
+        from = Math.max((from < 0 ? -from - 1 : from) - 1, 0);
+        int to = Arrays.binarySearch(distances, upperDistance);
+        to = Math.min(to < 0 ? -to - 1 : to + 1, last);
+        return merge(overview, downsample(distances, values, from, to, threshold));
+    }
+
+    private static int[] merge(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int i = 0, j = 0, count = 0;
+        while (i < first.length || j < second.length) {
+            int next;
+            if (j >= second.length || (i < first.length && first[i] <= second[j]))
+                next = first[i++];
+            else
+                next = second[j++];
+            if (count == 0 || result[count - 1] != next)
+                result[count++] = next;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private void loadSeries() {
+        PatchedXYSeries series = getSeries();
+        series.setFireSeriesChanged(false);
+        try {
+            series.clear();
+            rows = distances.length > 0 ? selectRows() : NO_ROWS;
+            for (int row : rows) {
+                double value = values[row];
+                series.add(distances[row], Double.isNaN(value) ? null : value, false);
             }
+        } finally {
+            series.setFireSeriesChanged(true);
         }
+        series.fireSeriesChanged();
+    }
+
+    /**
+     * Returns the row of the {@link PositionsModel} that is displayed as the given item of the series.
+     *
+     * @param item the index of the item of the series
+     * @return the row of the {@link PositionsModel}
+     */
+    public int getRow(int item) {
+        return rows[item];
+    }
 
-        getSeries().setFireSeriesChanged(true);
-        getSeries().fireSeriesChanged();
+    /**
+     * Returns the distance from the start of the given row in the current {@link Unit}.
+     *
+     * @param row the row of the {@link PositionsModel}
+     * @return the distance from the start of the given row in the current {@link Unit}
+     */
+    public double getDistance(int row) {
+        return row < distances.length ? distances[row] : 0.0;
+    }
+
+    public void setThreshold(int threshold) {
+        if (this.threshold == threshold)
+            return;
+        this.threshold = threshold;
+        loadSeries();
+    }
+
+    public void setVisibleDistances(double lowerDistance, double upperDistance) {
+        if (this.lowerDistance == lowerDistance && this.upperDistance == upperDistance)
+            return;
+        this.lowerDistance = lowerDistance;
+        this.upperDistance = upperDistance;
+        loadSeries();
+    }
+
+    public void clearVisibleDistances() {
+        if (Double.isNaN(lowerDistance))
+            return;
+        this.lowerDistance = Double.NaN;
+        this.upperDistance = Double.NaN;
+        loadSeries();
     }
 
-    private Double formatValue(BaseNavigationPosition position) {
+    private double formatValue(BaseNavigationPosition position) {
+        Double value;
         switch(profileMode) {
             case Elevation:
-                return formatElevation(position.getElevation());
+                value = formatElevation(position.getElevation());
+                break;
             case Speed:
-                return formatSpeed(position.getSpeed());
+                value = formatSpeed(position.getSpeed());
+                break;
             default:
                 throw new IllegalArgumentException(format("Profile mode %s is not supported", profileMode));
         }
+        return value != null ? value : Double.NaN;
     }
 
     public double formatDistance(double distance) {
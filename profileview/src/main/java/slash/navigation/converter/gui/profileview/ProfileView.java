@@ -22,6 +22,9 @@ package slash.navigation.converter.gui.profileview;
 
 import org.jfree.chart.*;
 import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
 import org.jfree.chart.entity.ChartEntity;
 import org.jfree.chart.entity.XYItemEntity;
 import org.jfree.chart.labels.StandardXYToolTipGenerator;
@@ -38,6 +41,8 @@ import slash.navigation.util.Unit;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.util.ResourceBundle;
 import java.util.prefs.Preferences;
 
@@ -61,12 +66,10 @@ public class ProfileView implements PositionsSelectionModel {
 
     private ChartPanel chartPanel;
     private XYPlot plot;
-    private PositionsModel positionsModel;
     private ProfileModel profileModel;
 
     public void initialize(PositionsModel positionsModel, final PositionsSelectionModel positionsSelectionModel,
                            Unit unit, ProfileMode profileMode) {
-        this.positionsModel = positionsModel;
         PatchedXYSeries series = new PatchedXYSeries("Profile");
         this.profileModel = new ProfileModel(positionsModel, series, unit, profileMode);
         XYSeriesCollection dataset = new XYSeriesCollection(series);
@@ -79,13 +82,28 @@ public class ProfileView implements PositionsSelectionModel {
                 ChartEntity entity = e.getEntity();
                 if (!(entity instanceof XYItemEntity))
                     return;
-                int row = ((XYItemEntity) entity).getItem();
+                int row = profileModel.getRow(((XYItemEntity) entity).getItem());
                 positionsSelectionModel.setSelectedPositions(new int[]{row}, true);
             }
 
             public void chartMouseMoved(ChartMouseEvent e) {
             }
         });
+        chartPanel.addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                // two points per pixel are enough to display the profile
+                profileModel.setThreshold(Math.max(2 * chartPanel.getWidth(), 100));
+            }
+        });
+        plot.getDomainAxis().addChangeListener(new AxisChangeListener() {
+            public void axisChanged(AxisChangeEvent event) {
+                ValueAxis axis = plot.getDomainAxis();
+                if (axis.isAutoRange())
+                    profileModel.clearVisibleDistances();
+                else
+                    profileModel.setVisibleDistances(axis.getLowerBound(), axis.getUpperBound());
+            }
+        });
 
         updateAxis();
     }
@@ -151,9 +169,8 @@ public class ProfileView implements PositionsSelectionModel {
         if (replaceSelection)
             plot.clearDomainMarkers();
 
-        double[] distances = positionsModel.getRoute().getDistancesFromStart(selectPositions);
-        for (double distance : distances) {
-            plot.addDomainMarker(0, new ValueMarker(profileModel.formatDistance(distance)), FOREGROUND, false);
+        for (int row : selectPositions) {
+            plot.addDomainMarker(0, new ValueMarker(profileModel.getDistance(row)), FOREGROUND, false);
         }
         // make sure the protected fireChangeEvent() is called without any side effects
         plot.setWeight(plot.getWeight());
@@ -0,0 +1,67 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.converter.gui.models.LargestTriangleThreeBuckets.downsample;
+
+public class LargestTriangleThreeBucketsTest {
+    @Test
+    public void testKeepsAllPointsBelowThreshold() {
+        double[] x = {0.0, 1.0, 2.0, 3.0};
+        double[] y = {1.0, Double.NaN, 3.0, 4.0};
+        assertArrayEquals(new int[]{0, 1, 2, 3}, downsample(x, y, 0, 3, 10));
+        assertArrayEquals(new int[]{1, 2}, downsample(x, y, 1, 2, 10));
+    }
+
+    @Test
+    public void testKeepsPeaks() {
+        int count = 1000000;
+        double[] x = new double[count], y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i * 0.01;
+            y[i] = Math.sin(i / 1000.0) * 10.0;
+        }
+        y[123456] = 1000.0;
+        y[654321] = -1000.0;
+
+        long start = System.currentTimeMillis();
+        int[] selected = downsample(x, y, 0, count - 1, 2000);
+        long end = System.currentTimeMillis();
+        assertTrue("took " + (end - start), end - start < 1000);
+
+        assertEquals(2000, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(count - 1, selected[selected.length - 1]);
+        boolean maximum = false, minimum = false;
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i - 1] < selected[i]);
+            maximum |= selected[i] == 123456;
+            minimum |= selected[i] == 654321;
+        }
+        assertTrue(maximum);
+        assertTrue(minimum);
+    }
+}
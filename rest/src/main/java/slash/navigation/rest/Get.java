@@ -19,7 +19,6 @@
 */
 package slash.navigation.rest;
 
-import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.methods.GetMethod;
 
 import java.util.regex.Matcher;
@@ -42,9 +41,24 @@ public class Get extends HttpRequest {
         super(new GetMethod(url));
     }
 
+    public void setIfNoneMatch(String eTag) {
+        method.setRequestHeader("If-None-Match", eTag);
+    }
+
+    public void setIfModifiedSince(String lastModified) {
+        method.setRequestHeader("If-Modified-Since", lastModified);
+    }
+
+    public String getETag() {
+        return getResponseHeader("ETag");
+    }
+
+    public String getLastModified() {
+        return getResponseHeader("Last-Modified");
+    }
+
     public String getContentDisposition() {
-        Header header = method.getResponseHeader("Content-Disposition");
-        return header != null ? header.getValue() : null;
+        return getResponseHeader("Content-Disposition");
     }
 
     public String getAttachmentFileName() {
@@ -101,7 +101,7 @@ public abstract class HttpRequest {
             if (isUnAuthorized())
                 return null;
             String body = method.getResponseBodyAsString();
-            if (!isSuccessful() && logUnsuccessful)
+            if (!isSuccessful() && !isNotModified() && logUnsuccessful)
                 log.warning(body);
             return body;
         } finally {
@@ -120,6 +120,11 @@ public abstract class HttpRequest {
         return body;
     }
 
+    String getResponseHeader(String name) {
+        Header header = method.getResponseHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
     void release() {
         method.releaseConnection();
     }
@@ -130,6 +135,10 @@ public abstract class HttpRequest {
         return statusCode;
     }
 
+    public boolean isNotModified() throws IOException {
+        return getResult() == HttpStatus.SC_NOT_MODIFIED;
+    }
+
     public boolean isSuccessful() throws IOException {
         return getResult() >= HttpStatus.SC_OK && getResult() < HttpStatus.SC_MULTIPLE_CHOICES;
     }
@@ -23,6 +23,7 @@ package slash.navigation.converter.gui;
 import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.core.GridLayoutManager;
 import slash.common.io.CompactCalendar;
+import slash.common.io.Externalization;
 import slash.common.io.Files;
 import slash.common.io.Platform;
 import slash.common.io.Version;
@@ -30,6 +31,7 @@ import slash.common.log.LoggingHelper;
 import slash.navigation.babel.BabelException;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.ParsedRouteCache;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.Wgs84Position;
 import slash.navigation.converter.gui.actions.AboutAction;
@@ -181,11 +183,13 @@ public class RouteConverter extends SingleFrameApplication {
     private static final String PASSWORD_PREFERENCE = "userAuthentication";
     private static final String CATEGORY_PREFERENCE = "category";
     private static final String UPLOAD_ROUTE_PREFERENCE = "uploadRoute";
+    private static final String PARSED_ROUTE_CACHE_SIZE_PREFERENCE = "parsedRouteCacheSize";
 
     private RouteFeedback routeFeedback;
     private RouteServiceOperator routeServiceOperator;
     private UpdateChecker updateChecker;
     private UnitModel unitModel = new UnitModel();
+    private ParsedRouteCache parsedRouteCache;
 
     protected JPanel contentPane;
     private JSplitPane mapSplitPane, profileSplitPane;
@@ -553,6 +557,13 @@ public class RouteConverter extends SingleFrameApplication {
         return unitModel;
     }
 
+    public synchronized ParsedRouteCache getParsedRouteCache() {
+        if (parsedRouteCache == null)
+            parsedRouteCache = new ParsedRouteCache(new File(Externalization.getTempDirectory(), "routes"),
+                    preferences.getLong(PARSED_ROUTE_CACHE_SIZE_PREFERENCE, 64 * 1024 * 1024));
+        return parsedRouteCache;
+    }
+
     // dialogs for external components
 
     public void handleBabelError(final BabelException e) {
@@ -28,6 +28,8 @@ import slash.navigation.gui.FrameAction;
 
 import javax.swing.*;
 
+import static slash.navigation.converter.gui.dnd.PositionSelection.copy;
+
 /**
  * {@link Action} that cuts the selected rows of a {@link JTable}.
  *
@@ -48,7 +50,7 @@ public class CutAction extends FrameAction {
     public void run() {
         int[] selectedRows = table.getSelectedRows();
         if (selectedRows.length > 0) {
-            clipboardInteractor.putIntoClipboard(new PositionSelection(positionsModel.getPositions(selectedRows),
+            clipboardInteractor.putIntoClipboard(new PositionSelection(copy(positionsModel.getPositions(selectedRows)),
                     positionsModel.getRoute().getFormat()));
 
             positionsModel.remove(selectedRows);
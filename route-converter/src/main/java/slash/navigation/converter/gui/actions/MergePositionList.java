@@ -29,6 +29,7 @@ import slash.navigation.gui.FrameAction;
 import javax.swing.*;
 import javax.swing.event.ListDataEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 
 /**
  * {@link ActionListener} that inserts the position list of a {@link PositionsModel} at
@@ -50,18 +51,16 @@ public class MergePositionList extends FrameAction {
     }
 
     protected void initialize() {
-        setEnabled(!sourceRoute.equals(formatAndRoutesModel.getSelectedRoute()));
+        setEnabled(sourceRoute != formatAndRoutesModel.getSelectedRoute());
         formatAndRoutesModel.addListDataListener(new AbstractListDataListener() {
             public void process(ListDataEvent e) {
-                setEnabled(!sourceRoute.equals(formatAndRoutesModel.getSelectedRoute()));
+                setEnabled(sourceRoute != formatAndRoutesModel.getSelectedRoute());
             }
         });
     }
 
-    @SuppressWarnings("unchecked")
     public void run() {
         int selectedRow = Math.min(table.getSelectedRow() + 1, table.getRowCount());
-        formatAndRoutesModel.getPositionsModel().add(selectedRow, sourceRoute.getPositions());
-        formatAndRoutesModel.removeRoute(sourceRoute);
+        formatAndRoutesModel.mergeRoutes(selectedRow, Arrays.asList(sourceRoute));
     }
 }
\ No newline at end of file
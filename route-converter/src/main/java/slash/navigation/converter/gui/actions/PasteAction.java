@@ -24,19 +24,25 @@ import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.BaseRoute;
 import slash.navigation.base.NavigationFileParser;
+import slash.navigation.base.SimpleRoute;
 import slash.navigation.converter.gui.dnd.ClipboardInteractor;
 import slash.navigation.converter.gui.dnd.PositionSelection;
 import slash.navigation.converter.gui.helper.JTableHelper;
 import slash.navigation.converter.gui.models.PositionsModel;
 import slash.navigation.gui.FrameAction;
+import slash.navigation.nmn.NavigatingPoiWarnerFormat;
+import slash.navigation.util.RouteComments;
 
 import javax.swing.*;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.List;
 
+import static slash.navigation.base.BaseNavigationFormat.DEFAULT_ENCODING;
 import static slash.navigation.base.NavigationFormats.asFormat;
 
 /**
@@ -67,7 +73,7 @@ public class PasteAction extends FrameAction {
                 Object selection = transferable.getTransferData(PositionSelection.positionFlavor);
                 if (selection != null) {
                     PositionSelection positionsSelection = (PositionSelection) selection;
-                    paste(positionsSelection.getPositions());
+                    paste(positionsSelection.takePositions());
                 }
             } else if (transferable.isDataFlavorSupported(PositionSelection.stringFlavor)) {
                 Object string = transferable.getTransferData(PositionSelection.stringFlavor);
@@ -98,7 +104,33 @@ public class PasteAction extends FrameAction {
         });
     }
 
+    @SuppressWarnings("unchecked")
+    private List<BaseNavigationPosition> readSelectionText(String string) {
+        // the text of a PositionSelection is read directly without detecting its format
+        try {
+            List<SimpleRoute> routes = new NavigatingPoiWarnerFormat().read(new BufferedReader(new StringReader(string)), null, DEFAULT_ENCODING);
+            if (routes != null && routes.size() > 0) {
+                List<BaseNavigationPosition> positions = routes.get(0).getPositions();
+                RouteComments.commentPositions(positions);
+                return positions;
+            }
+        } catch (IOException e) {
+            // intentionally left empty
+        }
+        return null;
+    }
+
     protected void paste(String string) {
+        List<BaseNavigationPosition> positions = readSelectionText(string);
+        if (positions != null) {
+            try {
+                paste(positions);
+            } catch (IOException e) {
+                // intentionally left empty
+            }
+            return;
+        }
+
         NavigationFileParser parser = new NavigationFileParser();
         try {
             if (parser.read(new ByteArrayInputStream(string.getBytes()))) {
@@ -20,17 +20,12 @@
 
 package slash.navigation.converter.gui.actions;
 
-import slash.navigation.base.BaseNavigationFormat;
-import slash.navigation.base.BaseNavigationPosition;
-import slash.navigation.base.BaseRoute;
-import slash.navigation.base.NavigationFormat;
 import slash.navigation.converter.gui.models.FormatAndRoutesModel;
 import slash.navigation.converter.gui.models.PositionsModel;
 import slash.navigation.gui.FrameAction;
 
 import javax.swing.*;
 import java.awt.event.ActionListener;
-import java.util.List;
 
 /**
  * {@link ActionListener} that splits the position list of a {@link PositionsModel} at
@@ -54,25 +49,7 @@ public class SplitPositionList extends FrameAction {
     public void run() {
         int[] selectedRows = table.getSelectedRows();
         if (selectedRows.length > 0) {
-            BaseRoute selectedRoute = formatAndRoutesModel.getSelectedRoute();
-            int routeInsertIndex = formatAndRoutesModel.getSize();
-
-            for (int i = selectedRows.length - 1; i >= 0; i--) {
-                int fromIndex = selectedRows[i];
-                fromIndex = Math.max(fromIndex, 0);
-                int toIndex = i + 1 < selectedRows.length ? selectedRows[i + 1] : positionsModel.getRowCount();
-                toIndex = Math.max(toIndex, 0);
-                if (fromIndex == 0 && toIndex == 0)
-                    break;
-
-                List<BaseNavigationPosition> positions = positionsModel.getPositions(fromIndex, toIndex);
-                positionsModel.remove(fromIndex, toIndex);
-                NavigationFormat format = formatAndRoutesModel.getFormat();
-                @SuppressWarnings({"unchecked"})
-                BaseRoute<BaseNavigationPosition, BaseNavigationFormat> target =
-                        format.createRoute(selectedRoute.getCharacteristics(), selectedRoute.getName() + "(" + (i + 1) + ")", positions);
-                formatAndRoutesModel.addRoute(routeInsertIndex, target);
-            }
+            formatAndRoutesModel.splitRoute(selectedRows);
 
             final int selectedRow = Math.max(selectedRows[selectedRows.length - 1] - 1, 0);
             SwingUtilities.invokeLater(new Runnable() {
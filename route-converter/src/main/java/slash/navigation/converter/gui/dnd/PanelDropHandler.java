@@ -31,10 +31,13 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
+import static slash.navigation.base.NavigationFormats.getReadFormatExtensions;
+
 /**
  * Reacts on drop operations on a panel to open a file or add it to the catalog.
  *
@@ -44,10 +47,52 @@ import java.util.logging.Logger;
 public class PanelDropHandler extends TransferHandler {
     private static final Logger log = Logger.getLogger(PanelDropHandler.class.getName());
 
-    protected void openOrAdd(List<File> files) {
-        if (RouteConverter.getInstance().isConvertPanelSelected())
+    private boolean containsDirectory(List<File> files) {
+        for (File file : files) {
+            if (file.isDirectory())
+                return true;
+        }
+        return false;
+    }
+
+    private List<File> collectFiles(List<File> files) {
+        String[] extensions = getReadFormatExtensions();
+        List<File> result = new ArrayList<File>();
+        for (File file : files) {
+            // explicitly dropped files are kept, only the files below directories are filtered
+            if (file.isDirectory())
+                result.addAll(Files.collectFiles(Arrays.asList(file), extensions));
+            else
+                result.add(file);
+        }
+        return result;
+    }
+
+    private void open(List<File> files) {
+        if (files.size() > 0)
             RouteConverter.getInstance().openPositionList(Files.toUrls(files.toArray(new File[files.size()])));
-        else if (RouteConverter.getInstance().isBrowsePanelSelected())
+    }
+
+    protected void openOrAdd(final List<File> files) {
+        if (RouteConverter.getInstance().isConvertPanelSelected()) {
+            if (!containsDirectory(files)) {
+                open(files);
+                return;
+            }
+
+            // scanning dropped directories may take a while
+            new Thread(new Runnable() {
+                public void run() {
+                    final List<File> collected = collectFiles(files);
+                    log.info("Collected " + collected.size() + " files below " + files);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            open(collected);
+                        }
+                    });
+                }
+            }, "FileCollector").start();
+        } else if (RouteConverter.getInstance().isBrowsePanelSelected())
             RouteConverter.getInstance().addFilesToCatalog(files);
     }
 
@@ -24,6 +24,7 @@ import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.SimpleRoute;
+import slash.navigation.gpx.GpxPosition;
 import slash.navigation.nmn.NavigatingPoiWarnerFormat;
 
 import java.awt.datatransfer.DataFlavor;
@@ -36,10 +37,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
+import static java.lang.Math.min;
 import static slash.navigation.base.NavigationFormats.asFormat;
 
 /**
  * Acts as a container for drag and drop operations with {@link BaseNavigationPosition}s.
+ * <p/>
+ * The text representation is only created once another application asks for it.
  *
  * @author Christian Pesch
  */
@@ -48,36 +52,69 @@ public class PositionSelection implements Transferable {
     private static final Logger log = Logger.getLogger(PositionSelection.class.getName());
     public static final DataFlavor positionFlavor = new DataFlavor(PositionSelection.class, "List of Positions");
     public static final DataFlavor stringFlavor = DataFlavor.stringFlavor;
+    private static final int CHUNK_SIZE = 1000;
 
     private final List<BaseNavigationPosition> positions;
     private final BaseNavigationFormat format;
-    private final String string;
+    private String string;
 
     public PositionSelection(List<BaseNavigationPosition> positions, BaseNavigationFormat format) {
         this.positions = positions;
         this.format = format;
-        this.string = createStringFor(positions);
     }
 
-    private String createStringFor(List<BaseNavigationPosition> sourcePositions) {
-        NavigatingPoiWarnerFormat targetFormat = new NavigatingPoiWarnerFormat();
-        List<BaseNavigationPosition> targetPositions = new ArrayList<BaseNavigationPosition>();
-        try {
-            targetPositions = asFormat(sourcePositions, targetFormat);
-        } catch (IOException e) {
-            log.severe("Cannot convert " + sourcePositions + " for selection: " + e.getMessage());
+    public static List<BaseNavigationPosition> copy(List<BaseNavigationPosition> positions) {
+        List<BaseNavigationPosition> result = new ArrayList<BaseNavigationPosition>(positions.size());
+        for (BaseNavigationPosition position : positions) {
+            // TODO should copy extra properties, too
+            result.add(new GpxPosition(position.getLongitude(), position.getLatitude(), position.getElevation(),
+                    position.getSpeed(), position.getTime(), position.getComment()));
         }
-        SimpleRoute targetRoute = targetFormat.createRoute(RouteCharacteristics.Waypoints, null, targetPositions);
+        return result;
+    }
 
+    private String createStringFor(List<BaseNavigationPosition> sourcePositions) {
+        NavigatingPoiWarnerFormat targetFormat = new NavigatingPoiWarnerFormat();
         StringWriter writer = new StringWriter();
-        targetFormat.write(targetRoute, new PrintWriter(writer), 0, targetPositions.size());
+        PrintWriter printWriter = new PrintWriter(writer);
+        // convert in chunks to avoid holding a converted copy of all positions;
+        // the format has neither header nor footer
+        for (int i = 0; i < sourcePositions.size(); i += CHUNK_SIZE) {
+            List<BaseNavigationPosition> chunk = sourcePositions.subList(i, min(i + CHUNK_SIZE, sourcePositions.size()));
+            List<BaseNavigationPosition> targetPositions = new ArrayList<BaseNavigationPosition>();
+            try {
+                targetPositions = asFormat(chunk, targetFormat);
+            } catch (IOException e) {
+                log.severe("Cannot convert " + chunk + " for selection: " + e.getMessage());
+            }
+            SimpleRoute targetRoute = targetFormat.createRoute(RouteCharacteristics.Waypoints, null, targetPositions);
+            targetFormat.write(targetRoute, printWriter, 0, targetPositions.size());
+        }
+        printWriter.flush();
         return writer.toString();
     }
 
+    private synchronized String getString() {
+        if (string == null)
+            string = createStringFor(positions);
+        return string;
+    }
+
     public List<BaseNavigationPosition> getPositions() {
         return positions;
     }
 
+    /**
+     * Returns a copy of the positions to paste them into a position list. The positions
+     * of the selection are never handed out since the text representation is created
+     * from them later and every further paste has to receive them unchanged.
+     *
+     * @return the positions to paste
+     */
+    public List<BaseNavigationPosition> takePositions() {
+        return copy(positions);
+    }
+
     public BaseNavigationFormat getFormat() {
         return format;
     }
@@ -99,7 +136,7 @@ public class PositionSelection implements Transferable {
         if (positionFlavor.equals(flavor))
             return this;
         if (stringFlavor.equals(flavor))
-            return string;
+            return getString();
         throw new UnsupportedFlavorException(flavor);
     }
 }
\ No newline at end of file
@@ -24,18 +24,32 @@ import slash.common.io.ContinousRange;
 import slash.common.io.RangeOperation;
 import slash.common.io.Transfer;
 import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.completer.BatchLookup;
+import slash.navigation.completer.BatchLookupCallback;
 import slash.navigation.completer.CompletePositionService;
+import slash.navigation.completer.Coordinates;
+import slash.navigation.completer.Lookup;
+import slash.navigation.completer.RateLimiter;
 import slash.navigation.converter.gui.RouteConverter;
 import slash.navigation.converter.gui.models.PositionsModel;
 import slash.navigation.geonames.GeoNamesService;
 import slash.navigation.googlemaps.GoogleMapsPosition;
 import slash.navigation.googlemaps.GoogleMapsService;
+import slash.navigation.gui.Application;
 import slash.navigation.gui.Constants;
+import slash.navigation.gui.UndoManager;
 import slash.navigation.util.NumberPattern;
 
 import javax.swing.*;
+import javax.swing.undo.CompoundEdit;
+import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 import java.util.logging.Logger;
+import java.util.prefs.Preferences;
 
 import static java.lang.String.format;
 import static javax.swing.JOptionPane.ERROR_MESSAGE;
@@ -52,6 +66,8 @@ import static slash.navigation.util.RouteComments.getNumberedPosition;
 
 public class BatchPositionAugmenter {
     private static final Logger log = Logger.getLogger(BatchPositionAugmenter.class.getName());
+    private static final Preferences preferences = Preferences.userNodeForPackage(BatchPositionAugmenter.class);
+    private static final int LOOKUP_BATCH_SIZE = 100;
     private JFrame frame;
     private static final Object mutex = new Object();
     private boolean running = true;
@@ -87,11 +103,30 @@ public class BatchPositionAugmenter {
     private interface Operation {
         String getName();
         int getColumnIndex();
-        boolean run(int index, BaseNavigationPosition position) throws Exception;
+        Object run(int index, BaseNavigationPosition position) throws Exception;
         String getErrorMessage();
         void postRunning();
     }
 
+    private static void recordEdits(final UndoManager undoManager, final CompoundEdit edit, final Runnable runnable) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                undoManager.record(edit, runnable);
+            }
+        });
+    }
+
+    private static void addEdits(final UndoManager undoManager, final CompoundEdit edit) {
+        // runs after all edits of the batch since invokeLater keeps the order
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                edit.end();
+                if (edit.isSignificant())
+                    undoManager.addEdit(edit);
+            }
+        });
+    }
+
     private void executeOperation(final JTable positionsTable,
                                   final PositionsModel positionsModel,
                                   final int[] rows,
@@ -104,6 +139,9 @@ public class BatchPositionAugmenter {
 
         Constants.startWaitCursor(frame.getRootPane());
         final ProgressMonitor progress = new ProgressMonitor(frame, "", RouteConverter.getBundle().getString("progress-started"), 0, 100);
+        final UndoManager undoManager = Application.getInstance().getContext().getUndoManager();
+        // undo and redo all changes of the batch at once
+        final CompoundEdit compoundEdit = undoManager.createCompoundEdit();
         new Thread(new Runnable() {
             public void run() {
                 try {
@@ -118,9 +156,14 @@ public class BatchPositionAugmenter {
                             BaseNavigationPosition position = positionsModel.getPosition(index);
                             if (predicate.shouldOverwrite(position)) {
                                 try {
-                                    // ignoring the result since the performance boost of the continous
-                                    // range operations outweights the possible optimization
-                                    operation.run(index, position);
+                                    // the value is computed here but edited on the event dispatch thread
+                                    final Object value = operation.run(index, position);
+                                    if (value != null)
+                                        recordEdits(undoManager, compoundEdit, new Runnable() {
+                                            public void run() {
+                                                positionsModel.edit(value, index, operation.getColumnIndex(), false, true);
+                                            }
+                                        });
                                 } catch (Exception e) {
                                     log.warning(format("Error while running operation %s on position %d: %s", operation, index, e));
                                     e.printStackTrace();
@@ -161,6 +204,118 @@ public class BatchPositionAugmenter {
                                 MessageFormat.format(operation.getErrorMessage(), lastException[0].getMessage()),
                                 frame.getTitle(), ERROR_MESSAGE);
                 } finally {
+                    addEdits(undoManager, compoundEdit);
+                    operation.postRunning();
+
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            Constants.stopWaitCursor(frame.getRootPane());
+                            progress.setNote(RouteConverter.getBundle().getString("progress-finished"));
+                            progress.setProgress(progress.getMaximum());
+                        }
+                    });
+                }
+            }
+        }, operation.getName()).start();
+    }
+
+
+    private interface LookupOperation<K, V> {
+        String getName();
+        int getColumnIndex();
+        BatchLookup<K, V> createLookup();
+        K getKey(BaseNavigationPosition position);
+        void apply(int index, V value);
+        String getErrorMessage();
+        void postRunning();
+    }
+
+    private static <K, V> BatchLookup<K, V> newLookup(String name, Lookup<K, V> localLookup, Lookup<K, V> remoteLookup,
+                                                         int concurrency, double requestsPerSecond) {
+        concurrency = preferences.getInt(name + "Concurrency", concurrency);
+        requestsPerSecond = preferences.getDouble(name + "RequestsPerSecond", requestsPerSecond);
+        return new BatchLookup<K, V>(name, localLookup, remoteLookup, concurrency,
+                new RateLimiter(requestsPerSecond, concurrency));
+    }
+
+    private <K, V> void executeLookup(final JTable positionsTable,
+                                      final PositionsModel positionsModel,
+                                      final int[] rows,
+                                      final OverwritePredicate predicate,
+                                      final LookupOperation<K, V> operation) {
+        synchronized (mutex) {
+            this.running = true;
+        }
+
+        Constants.startWaitCursor(frame.getRootPane());
+        final ProgressMonitor progress = new ProgressMonitor(frame, "", RouteConverter.getBundle().getString("progress-started"), 0, 100);
+        final UndoManager undoManager = Application.getInstance().getContext().getUndoManager();
+        // undo and redo all changes of the batch at once
+        final CompoundEdit compoundEdit = undoManager.createCompoundEdit();
+        new Thread(new Runnable() {
+            public void run() {
+                try {
+                    final Throwable[] lastThrowable = new Throwable[1];
+                    lastThrowable[0] = null;
+
+                    List<K> keys = new ArrayList<K>(rows.length);
+                    for (int row : rows) {
+                        BaseNavigationPosition position = positionsModel.getPosition(row);
+                        keys.add(predicate.shouldOverwrite(position) ? operation.getKey(position) : null);
+                    }
+
+                    operation.createLookup().lookup(keys, LOOKUP_BATCH_SIZE, new BatchLookupCallback<V>() {
+                        private int count = 0;
+
+                        public void resolved(final SortedMap<Integer, V> results) {
+                            int firstIndex = Integer.MAX_VALUE, lastIndex = Integer.MIN_VALUE;
+                            for (Integer key : results.keySet()) {
+                                int index = rows[key];
+                                firstIndex = Math.min(firstIndex, index);
+                                lastIndex = Math.max(lastIndex, index);
+                            }
+                            count += results.size();
+
+                            // the results are edited on the event dispatch thread
+                            recordEdits(undoManager, compoundEdit, new Runnable() {
+                                public void run() {
+                                    for (Map.Entry<Integer, V> entry : results.entrySet())
+                                        operation.apply(rows[entry.getKey()], entry.getValue());
+                                }
+                            });
+
+                            final int first = firstIndex, last = lastIndex, percent = count * 100 / rows.length;
+                            SwingUtilities.invokeLater(new Runnable() {
+                                public void run() {
+                                    positionsModel.fireTableRowsUpdated(first, last, operation.getColumnIndex());
+                                    if (positionsTable != null)
+                                        JTableHelper.scrollToPosition(positionsTable, Math.min(last, positionsModel.getRowCount()));
+                                    progress.setNote(MessageFormat.format(
+                                            RouteConverter.getBundle().getString("progress-processing-position"),
+                                            last, percent));
+                                    progress.setProgress(percent);
+                                }
+                            });
+                        }
+
+                        public void failed(Throwable throwable) {
+                            log.warning(format("Error while running operation %s: %s", operation.getName(), throwable));
+                            lastThrowable[0] = throwable;
+                        }
+
+                        public boolean isInterrupted() {
+                            synchronized (mutex) {
+                                return progress.isCanceled() || !running;
+                            }
+                        }
+                    });
+
+                    if (lastThrowable[0] != null)
+                        JOptionPane.showMessageDialog(frame,
+                                MessageFormat.format(operation.getErrorMessage(), lastThrowable[0].getMessage()),
+                                frame.getTitle(), ERROR_MESSAGE);
+                } finally {
+                    addEdits(undoManager, compoundEdit);
                     operation.postRunning();
 
                     SwingUtilities.invokeLater(new Runnable() {
@@ -180,10 +335,8 @@ public class BatchPositionAugmenter {
                                     final PositionsModel positionsModel,
                                     final int[] rows,
                                     final OverwritePredicate predicate) {
-        executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
-                    private GoogleMapsService googleMapsService = new GoogleMapsService();
-
+        executeLookup(positionsTable, positionsModel, rows, predicate,
+                new LookupOperation<String, GoogleMapsPosition>() {
                     public String getName() {
                         return "CoordinatesPositionAugmenter";
                     }
@@ -192,13 +345,22 @@ public class BatchPositionAugmenter {
                         return LONGITUDE_COLUMN_INDEX;  // + PositionColumns.LATITUDE_COLUMN_INDEX
                     }
 
-                    public boolean run(int index, BaseNavigationPosition position) throws Exception {
-                        GoogleMapsPosition coordinates = googleMapsService.getPositionFor(position.getComment());
-                        if (coordinates != null) {
-                            positionsModel.edit(coordinates.getLongitude(), index, LONGITUDE_COLUMN_INDEX, false, true);
-                            positionsModel.edit(coordinates.getLatitude(), index, LATITUDE_COLUMN_INDEX, false, true);
-                        }
-                        return coordinates != null;
+                    public BatchLookup<String, GoogleMapsPosition> createLookup() {
+                        final GoogleMapsService googleMapsService = new GoogleMapsService();
+                        return newLookup(getName(), null, new Lookup<String, GoogleMapsPosition>() {
+                            public GoogleMapsPosition lookup(String address) throws IOException {
+                                return googleMapsService.getPositionFor(address);
+                            }
+                        }, 2, 5.0);
+                    }
+
+                    public String getKey(BaseNavigationPosition position) {
+                        return position.getComment();
+                    }
+
+                    public void apply(int index, GoogleMapsPosition coordinates) {
+                        positionsModel.edit(coordinates.getLongitude(), index, LONGITUDE_COLUMN_INDEX, false, true);
+                        positionsModel.edit(coordinates.getLatitude(), index, LATITUDE_COLUMN_INDEX, false, true);
                     }
 
                     public String getErrorMessage() {
@@ -220,8 +382,8 @@ public class BatchPositionAugmenter {
                                    final PositionsModel positionsModel,
                                    final int[] rows,
                                    final OverwritePredicate predicate) {
-        executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
+        executeLookup(positionsTable, positionsModel, rows, predicate,
+                new LookupOperation<Coordinates, Double>() {
                     private CompletePositionService completePositionService = new CompletePositionService();
 
                     public String getName() {
@@ -232,11 +394,24 @@ public class BatchPositionAugmenter {
                         return ELEVATION_COLUMN_INDEX;
                     }
 
-                    public boolean run(int index, BaseNavigationPosition position) throws Exception {
-                        Double elevation = completePositionService.getElevationFor(position.getLongitude(), position.getLatitude());
-                        if (elevation != null)
-                            positionsModel.edit(elevation, index, ELEVATION_COLUMN_INDEX, false, true);
-                        return elevation != null;
+                    public BatchLookup<Coordinates, Double> createLookup() {
+                        return newLookup(getName(), new Lookup<Coordinates, Double>() {
+                            public Double lookup(Coordinates coordinates) throws IOException {
+                                return completePositionService.getElevationFromHgtFilesFor(coordinates.getLongitude(), coordinates.getLatitude());
+                            }
+                        }, new Lookup<Coordinates, Double>() {
+                            public Double lookup(Coordinates coordinates) throws IOException {
+                                return completePositionService.getElevationFromServicesFor(coordinates.getLongitude(), coordinates.getLatitude());
+                            }
+                        }, 4, 10.0);
+                    }
+
+                    public Coordinates getKey(BaseNavigationPosition position) {
+                        return new Coordinates(position.getLongitude(), position.getLatitude());
+                    }
+
+                    public void apply(int index, Double elevation) {
+                        positionsModel.edit(elevation, index, ELEVATION_COLUMN_INDEX, false, true);
                     }
 
                     public String getErrorMessage() {
@@ -259,10 +434,8 @@ public class BatchPositionAugmenter {
                                     final PositionsModel positionsModel,
                                     final int[] rows,
                                     final OverwritePredicate predicate) {
-        executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
-                    private GeoNamesService geonamesService = new GeoNamesService();
-
+        executeLookup(positionsTable, positionsModel, rows, predicate,
+                new LookupOperation<Coordinates, String>() {
                     public String getName() {
                         return "PopulatedPlacePositionAugmenter";
                     }
@@ -271,11 +444,21 @@ public class BatchPositionAugmenter {
                         return DESCRIPTION_COLUMN_INDEX;
                     }
 
-                    public boolean run(int index, BaseNavigationPosition position) throws Exception {
-                        String comment = geonamesService.getNearByFor(position.getLongitude(), position.getLatitude());
-                        if (comment != null)
-                            positionsModel.edit(comment, index, DESCRIPTION_COLUMN_INDEX, false, true);
-                        return comment != null;
+                    public BatchLookup<Coordinates, String> createLookup() {
+                        final GeoNamesService geonamesService = new GeoNamesService();
+                        return newLookup(getName(), null, new Lookup<Coordinates, String>() {
+                            public String lookup(Coordinates coordinates) throws IOException {
+                                return geonamesService.getNearByFor(coordinates.getLongitude(), coordinates.getLatitude());
+                            }
+                        }, 2, 4.0);
+                    }
+
+                    public Coordinates getKey(BaseNavigationPosition position) {
+                        return new Coordinates(position.getLongitude(), position.getLatitude());
+                    }
+
+                    public void apply(int index, String comment) {
+                        positionsModel.edit(comment, index, DESCRIPTION_COLUMN_INDEX, false, true);
                     }
 
                     public String getErrorMessage() {
@@ -297,10 +480,8 @@ public class BatchPositionAugmenter {
                                     final PositionsModel positionsModel,
                                     final int[] rows,
                                     final OverwritePredicate predicate) {
-        executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
-                    private GoogleMapsService googleMapsService = new GoogleMapsService();
-
+        executeLookup(positionsTable, positionsModel, rows, predicate,
+                new LookupOperation<Coordinates, String>() {
                     public String getName() {
                         return "PostalAddressPositionAugmenter";
                     }
@@ -309,11 +490,21 @@ public class BatchPositionAugmenter {
                         return DESCRIPTION_COLUMN_INDEX;
                     }
 
-                    public boolean run(int index, BaseNavigationPosition position) throws Exception {
-                        String comment = googleMapsService.getLocationFor(position.getLongitude(), position.getLatitude());
-                        if (comment != null)
-                            positionsModel.edit(comment, index, DESCRIPTION_COLUMN_INDEX, false, true);
-                        return comment != null;
+                    public BatchLookup<Coordinates, String> createLookup() {
+                        final GoogleMapsService googleMapsService = new GoogleMapsService();
+                        return newLookup(getName(), null, new Lookup<Coordinates, String>() {
+                            public String lookup(Coordinates coordinates) throws IOException {
+                                return googleMapsService.getLocationFor(coordinates.getLongitude(), coordinates.getLatitude());
+                            }
+                        }, 2, 5.0);
+                    }
+
+                    public Coordinates getKey(BaseNavigationPosition position) {
+                        return new Coordinates(position.getLongitude(), position.getLatitude());
+                    }
+
+                    public void apply(int index, String comment) {
+                        positionsModel.edit(comment, index, DESCRIPTION_COLUMN_INDEX, false, true);
                     }
 
                     public String getErrorMessage() {
@@ -345,17 +536,15 @@ public class BatchPositionAugmenter {
                         return SPEED_COLUMN_INDEX;
                     }
 
-                    public boolean run(int index, BaseNavigationPosition position) throws Exception {
+                    public Object run(int index, BaseNavigationPosition position) throws Exception {
                         BaseNavigationPosition predecessor = index > 0 && index < positionsModel.getRowCount() ? positionsModel.getPosition(index - 1) : null;
                         if (predecessor != null) {
                             Double previousSpeed = position.getSpeed();
                             Double nextSpeed = position.calculateSpeed(predecessor);
                             boolean changed = nextSpeed != null && !nextSpeed.equals(previousSpeed);
-                            if (changed)
-                                positionsModel.edit(nextSpeed, index, SPEED_COLUMN_INDEX, false, true);
-                            return changed;
+                            return changed ? nextSpeed : null;
                         }
-                        return false;
+                        return null;
                     }
 
                     public String getErrorMessage() {
@@ -389,13 +578,11 @@ public class BatchPositionAugmenter {
                         return DESCRIPTION_COLUMN_INDEX;
                     }
 
-                    public boolean run(int index, BaseNavigationPosition position) throws Exception {
+                    public Object run(int index, BaseNavigationPosition position) throws Exception {
                         String previousComment = position.getComment();
                         String nextComment = getNumberedPosition(position, index, digitCount, numberPattern);
                         boolean changed = nextComment != null && !nextComment.equals(previousComment);
-                        if (changed)
-                            positionsModel.edit(nextComment, index, DESCRIPTION_COLUMN_INDEX, false, true);
-                        return changed;
+                        return changed ? nextComment : null;
                     }
 
                     public String getErrorMessage() {
@@ -39,6 +39,7 @@ public class FrameMenu {
         fileMenu.add(createItem("new-file"));
         fileMenu.add(createItem("open"));
         fileMenu.add(createMenu("reopen"));
+        fileMenu.add(createItem("follow-nmea"));
         fileMenu.add(createItem("save"));
         fileMenu.add(createItem("save-as"));
         JMenu printMenu = createMenu("print");
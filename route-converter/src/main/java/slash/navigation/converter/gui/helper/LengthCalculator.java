@@ -20,25 +20,34 @@
 
 package slash.navigation.converter.gui.helper;
 
-import slash.common.io.CompactCalendar;
+import slash.common.io.CoalescingScheduler;
 import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.BaseRoute;
 import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.converter.gui.RouteConverter;
 import slash.navigation.converter.gui.mapview.AbstractMapViewListener;
 import slash.navigation.converter.gui.models.CharacteristicsModel;
-import slash.navigation.converter.gui.models.PositionColumns;
 import slash.navigation.converter.gui.models.PositionsModel;
 
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
-import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
+import static javax.swing.event.TableModelEvent.*;
+import static slash.navigation.converter.gui.helper.JTableHelper.isFirstToLastRow;
+import static slash.navigation.converter.gui.models.PositionColumns.*;
+
 /**
- * Helps to calculate the length of position list of type route and track.
+ * Helps to calculate the length, duration, elevation ascend and descend of
+ * position list of type route and track.
+ * <p/>
+ * Changes of the positions update a {@link RouteStatistics} incrementally; only
+ * complete changes of the position list recalculate it in the background.
  *
  * @author Christian Pesch
  */
@@ -47,13 +56,12 @@ public class LengthCalculator {
     private static final Logger log = Logger.getLogger(LengthCalculator.class.getName());
 
     private PositionsModel positionsModel;
-    private Thread lengthCalculator;
+    private static final String RECALCULATE = "recalculate";
+    private static final long RECALCULATE_WINDOW = 100;
+    private final CoalescingScheduler scheduler = new CoalescingScheduler("LengthCalculator");
     private final Object notificationMutex = new Object();
-    private boolean running = true, recalculate = false;
-
-    public LengthCalculator() {
-        initialize();
-    }
+    private RouteStatistics statistics;
+    private List<BaseNavigationPosition> recalculate;
 
     private RouteCharacteristics getCharacteristics() {
         return positionsModel.getRoute().getCharacteristics();
@@ -64,14 +72,16 @@ public class LengthCalculator {
 
         positionsModel.addTableModelListener(new TableModelListener() {
             public void tableChanged(TableModelEvent e) {
-                // ignored updates on columns not relevant for length calculation
-                if (e.getType() == TableModelEvent.UPDATE &&
-                        !(e.getColumn() == PositionColumns.LONGITUDE_COLUMN_INDEX ||
-                                e.getColumn() == PositionColumns.LATITUDE_COLUMN_INDEX ||
-                                e.getColumn() == TableModelEvent.ALL_COLUMNS))
+                // ignored updates on columns not relevant for the statistics
+                if (e.getType() == UPDATE &&
+                        !(e.getColumn() == LONGITUDE_COLUMN_INDEX ||
+                                e.getColumn() == LATITUDE_COLUMN_INDEX ||
+                                e.getColumn() == ELEVATION_COLUMN_INDEX ||
+                                e.getColumn() == TIME_COLUMN_INDEX ||
+                                e.getColumn() == ALL_COLUMNS))
                     return;
 
-                calculateDistance();
+                updateStatistics(e);
             }
         });
 
@@ -80,7 +90,7 @@ public class LengthCalculator {
                 // ignore events following setRoute()
                 if (e.getType() == ListDataEvent.CONTENTS_CHANGED && e.getIndex0() == CharacteristicsModel.IGNORE && e.getIndex1() == CharacteristicsModel.IGNORE)
                     return;
-                calculateDistance();
+                fireStatistics();
             }
         });
 
@@ -103,98 +113,110 @@ public class LengthCalculator {
         }
     }
 
-    private void calculateDistance() {
-        if (getCharacteristics().equals(RouteCharacteristics.Waypoints)) {
-            fireCalculatedDistance(0, 0);
-            return;
+    private void fireCalculatedElevation(double ascend, double descend) {
+        for (LengthCalculatorListener listener : lengthCalculatorListeners) {
+            listener.calculatedElevation(ascend, descend);
         }
+    }
 
-        if (getCharacteristics().equals(RouteCharacteristics.Route) && RouteConverter.getInstance().isMapViewAvailable())
-            return;
+    @SuppressWarnings("unchecked")
+    private List<BaseNavigationPosition> getPositions() {
+        BaseRoute route = positionsModel.getRoute();
+        return route != null ? route.getPositions() : new ArrayList<BaseNavigationPosition>();
+    }
 
+    private void updateStatistics(TableModelEvent e) {
+        List<BaseNavigationPosition> positions = getPositions();
         synchronized (notificationMutex) {
-            recalculate = true;
-            notificationMutex.notifyAll();
+            if (!applyIncrementally(e, positions)) {
+                statistics = null;
+                // copy the positions since the model changes them on the event dispatch thread
+                recalculate = new ArrayList<BaseNavigationPosition>(positions);
+                scheduler.schedule(RECALCULATE, RECALCULATE_WINDOW, new Runnable() {
+                    public void run() {
+                        recalculate();
+                    }
+                });
+                return;
+            }
         }
+        fireStatistics();
     }
 
-    private void recalculateDistance() {
-        fireCalculatedDistance(0, 0);
-
-        double distanceMeters = 0.0;
-        long totalTimeMilliSeconds = 0;
-        Calendar minimumTime = null, maximumTime = null;
-        BaseNavigationPosition previous = null;
-        for (int i = 0; i < positionsModel.getRowCount(); i++) {
-            BaseNavigationPosition next = positionsModel.getPosition(i);
-            if (previous != null) {
-                Double distance = previous.calculateDistance(next);
-                if (distance != null)
-                    distanceMeters += distance;
-                Long time = previous.calculateTime(next);
-                if (time != null && time > 0)
-                    totalTimeMilliSeconds += time;
-            }
+    private boolean applyIncrementally(TableModelEvent e, List<BaseNavigationPosition> positions) {
+        if (statistics == null || isFirstToLastRow(e) || e.getFirstRow() < 0 || e.getLastRow() == Integer.MAX_VALUE)
+            return false;
+
+        int first = e.getFirstRow(), last = e.getLastRow(), count = last - first + 1;
+        switch (e.getType()) {
+            case INSERT:
+                if (statistics.size() + count != positions.size())
+                    return false;
+                statistics.inserted(positions, first, last);
+                return true;
+            case DELETE:
+                if (statistics.size() - count != positions.size())
+                    return false;
+                statistics.removed(positions, first, last);
+                return true;
+            default:
+                // the positions may have been changed in between
+                if (statistics.size() != positions.size() || last >= positions.size())
+                    return false;
+                statistics.updated(positions, first, last);
+                return true;
+        }
+    }
 
-            CompactCalendar time = next.getTime();
-            if (time != null) {
-                Calendar calendar = time.getCalendar();
-                if (minimumTime == null || calendar.before(minimumTime))
-                    minimumTime = calendar;
-                if (maximumTime == null || calendar.after(maximumTime))
-                    maximumTime = calendar;
-            }
+    private void fireStatistics() {
+        double distance, ascend, descend;
+        long time;
+        synchronized (notificationMutex) {
+            if (statistics == null)
+                return;
+            distance = statistics.getDistance();
+            time = statistics.getTime();
+            ascend = statistics.getElevationAscend();
+            descend = statistics.getElevationDescend();
+        }
 
-            if (i > 0 && i % 100 == 0)
-                fireCalculatedDistance((int) distanceMeters, totalTimeMilliSeconds > 0 ? (int) (totalTimeMilliSeconds / 1000) : 0);
+        fireCalculatedElevation(ascend, descend);
 
-            previous = next;
+        if (positionsModel.getRoute() == null || getCharacteristics().equals(RouteCharacteristics.Waypoints)) {
+            fireCalculatedDistance(0, 0);
+            return;
         }
 
-        int summedUp = totalTimeMilliSeconds > 0 ? (int) totalTimeMilliSeconds / 1000 : 0;
-        int maxMinusMin = minimumTime != null ? (int) ((maximumTime.getTimeInMillis() - minimumTime.getTimeInMillis()) / 1000) : 0;
-        fireCalculatedDistance((int) distanceMeters, Math.max(maxMinusMin, summedUp));
-    }
+        // the map view calculates the distance of routes
+        if (getCharacteristics().equals(RouteCharacteristics.Route) && RouteConverter.getInstance().isMapViewAvailable())
+            return;
 
-    private void initialize() {
-        lengthCalculator = new Thread(new Runnable() {
-            public void run() {
-                while (true) {
-                    synchronized (notificationMutex) {
-                        try {
-                            notificationMutex.wait(1000);
-                        } catch (InterruptedException e) {
-                            // ignore this
-                        }
-
-                        if (!running)
-                            return;
-                        if (!recalculate)
-                            continue;
-                        recalculate = false;
-                    }
-                    recalculateDistance();
-                }
-            }
-        }, "LengthCalculator");
-        lengthCalculator.start();
+        fireCalculatedDistance((int) distance, (int) (time / 1000));
     }
 
-    public void dispose() {
-        long start = System.currentTimeMillis();
+    private void recalculate() {
+        List<BaseNavigationPosition> positions;
         synchronized (notificationMutex) {
-            running = false;
-            notificationMutex.notifyAll();
+            if (recalculate == null)
+                return;
+            positions = recalculate;
         }
 
-        if (lengthCalculator != null) {
-            try {
-                lengthCalculator.join();
-            } catch (InterruptedException e) {
-                // intentionally left empty
-            }
-            long end = System.currentTimeMillis();
-            log.info("LengthCalculator stopped after " + (end - start) + " ms");
+        RouteStatistics recalculated = new RouteStatistics(positions);
+        synchronized (notificationMutex) {
+            // discard the result if the positions have changed in the meantime
+            if (recalculate != positions)
+                return;
+            recalculate = null;
+            statistics = recalculated;
         }
+        fireStatistics();
+    }
+
+    public void dispose() {
+        long start = System.currentTimeMillis();
+        scheduler.shutdown();
+        long end = System.currentTimeMillis();
+        log.info("LengthCalculator stopped after " + (end - start) + " ms");
     }
 }
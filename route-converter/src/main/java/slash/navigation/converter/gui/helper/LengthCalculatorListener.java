@@ -28,4 +28,5 @@ package slash.navigation.converter.gui.helper;
 
 public interface LengthCalculatorListener {
     void calculatedDistance(int meters, int seconds);
+    void calculatedElevation(double ascend, double descend);
 }
\ No newline at end of file
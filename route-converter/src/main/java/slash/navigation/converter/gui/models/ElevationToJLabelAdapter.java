@@ -20,12 +20,12 @@
 
 package slash.navigation.converter.gui.models;
 
-import slash.navigation.base.BaseRoute;
+import slash.navigation.converter.gui.helper.LengthCalculator;
+import slash.navigation.converter.gui.helper.LengthCalculatorListener;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 
-import static slash.navigation.converter.gui.helper.JTableHelper.isFirstToLastRow;
 import static slash.navigation.converter.gui.helper.PositionHelper.formatElevation;
 
 /**
@@ -40,14 +40,24 @@ public class ElevationToJLabelAdapter extends PositionsModelToDocumentAdapter {
     private final JLabel labelDescend;
 
     public ElevationToJLabelAdapter(PositionsModel positionsModel,
+                                    LengthCalculator lengthCalculator,
                                     JLabel labelAscend, JLabel labelDescend) {
         super(positionsModel);
         this.labelAscend = labelAscend;
         this.labelDescend = labelDescend;
-    }
 
-    public void initialize() {
-        updateAdapterFromDelegate(new TableModelEvent(getDelegate()));
+        lengthCalculator.addLengthCalculatorListener(new LengthCalculatorListener() {
+            public void calculatedDistance(int meters, int seconds) {
+            }
+
+            public void calculatedElevation(final double ascend, final double descend) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        updateLabel(ascend, descend);
+                    }
+                });
+            }
+        });
     }
 
     protected String getDelegateValue() {
@@ -60,18 +70,6 @@ public class ElevationToJLabelAdapter extends PositionsModelToDocumentAdapter {
     }
 
     protected void updateAdapterFromDelegate(TableModelEvent e) {
-        // ignored updates on columns not relevant for ascend and descent calculation
-        if (e.getType() == TableModelEvent.UPDATE &&
-                !isFirstToLastRow(e) &&
-                !(e.getColumn() == PositionColumns.ELEVATION_COLUMN_INDEX))
-            return;
-
-        BaseRoute route = getDelegate().getRoute();
-        if (route != null) {
-            updateLabel(route.getElevationAscend(0, route.getPositionCount() - 1),
-                        route.getElevationDescend(0, route.getPositionCount() - 1));
-        } else {
-            updateLabel(0, 0);
-        }
+        // the length calculator pushes the elevation ascend and descend
     }
-}
\ No newline at end of file
+}
@@ -53,4 +53,7 @@ public interface FormatAndRoutesModel extends ComboBoxModel {
     void renameRoute(String name);
     void addRoute(int index, BaseRoute route);
     void removeRoute(BaseRoute route);
+
+    List<BaseRoute> splitRoute(int[] rowIndices);
+    void mergeRoutes(int rowIndex, List<BaseRoute> routes);
 }
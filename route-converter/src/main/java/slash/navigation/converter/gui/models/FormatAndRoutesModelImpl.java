@@ -26,6 +26,8 @@ import slash.navigation.converter.gui.helper.JTableHelper;
 
 import javax.swing.*;
 import javax.swing.event.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -128,6 +130,80 @@ public class FormatAndRoutesModelImpl extends AbstractListModel implements Forma
         }
     }
 
+    public void addRoutes(int index, List<BaseRoute> routes) {
+        if (routes.size() == 0)
+            return;
+        getRoutes().addAll(index, routes);
+        fireIntervalAdded(this, index, index + routes.size() - 1);
+    }
+
+    /**
+     * Splits the selected route before each of the given rows into new routes that are
+     * added after the last route. The positions are partitioned in a single pass.
+     *
+     * @param rowIndices the rows to split the selected route at
+     * @return the new routes in the order of their positions
+     */
+    @SuppressWarnings("unchecked")
+    public List<BaseRoute> splitRoute(int[] rowIndices) {
+        BaseRoute route = getSelectedRoute();
+        List<BaseNavigationPosition> positions = route.getPositions();
+        int[] rows = rowIndices.clone();
+        Arrays.sort(rows);
+
+        List<BaseRoute> routes = new ArrayList<BaseRoute>();
+        for (int i = 0; i < rows.length; i++) {
+            int fromIndex = Math.max(rows[i], 0);
+            int toIndex = i + 1 < rows.length ? rows[i + 1] : positions.size();
+            if (fromIndex >= toIndex)
+                continue;
+
+            List<BaseNavigationPosition> segment = new ArrayList<BaseNavigationPosition>(positions.subList(fromIndex, toIndex));
+            routes.add(getFormat().createRoute(route.getCharacteristics(), route.getName() + "(" + (i + 1) + ")", segment));
+        }
+        splitRoute(getSize(), routes);
+        return routes;
+    }
+
+    /**
+     * Removes the positions of the given routes from the end of the selected route
+     * and adds the routes at the given index.
+     *
+     * @param index the index to add the routes at
+     * @param routes the routes holding the last positions of the selected route
+     */
+    public void splitRoute(int index, List<BaseRoute> routes) {
+        int count = 0;
+        for (BaseRoute route : routes)
+            count += route.getPositionCount();
+        if (count > 0) {
+            int lastIndex = getPositionsModel().getRowCount();
+            getSelectedRoute().removeRange(lastIndex - count, lastIndex);
+            getPositionsModel().fireTableRowsDeleted(lastIndex - count, lastIndex - 1);
+        }
+        addRoutes(index, routes);
+    }
+
+    /**
+     * Inserts the positions of the given routes at the given row of the selected route
+     * and removes the routes. The positions are inserted in a single pass.
+     *
+     * @param rowIndex the row to insert the positions at
+     * @param routes the routes to merge into the selected route
+     */
+    @SuppressWarnings("unchecked")
+    public void mergeRoutes(int rowIndex, List<BaseRoute> routes) {
+        List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        for (BaseRoute route : routes)
+            positions.addAll(route.getPositions());
+        if (positions.size() > 0) {
+            getSelectedRoute().addAll(rowIndex, positions);
+            getPositionsModel().fireTableRowsInserted(rowIndex, rowIndex + positions.size() - 1);
+        }
+        for (BaseRoute route : routes)
+            removeRoute(route);
+    }
+
     public void renameRoute(String name) {
         BaseRoute route = getSelectedRoute();
         route.setName(name);
@@ -198,8 +274,7 @@ public class FormatAndRoutesModelImpl extends AbstractListModel implements Forma
 
     @SuppressWarnings("unchecked")
     public void setSelectedRoute(BaseRoute route) {
-        if ((getSelectedRoute() != null && !getSelectedRoute().equals(route)) ||
-                getSelectedRoute() == null && route != null) {
+        if (getSelectedRoute() != route) {
             getPositionsModel().setRoute(route);
             getCharacteristicsModel().setRoute(route);
             fireContentsChanged(this, -1, -1);
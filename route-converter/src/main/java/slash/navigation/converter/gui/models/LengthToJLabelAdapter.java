@@ -60,6 +60,9 @@ public class LengthToJLabelAdapter extends PositionsModelToDocumentAdapter {
                     }
                 });
             }
+
+            public void calculatedElevation(double ascend, double descend) {
+            }
         });
     }
 
@@ -49,6 +49,11 @@ import static slash.navigation.converter.gui.models.PositionColumns.*;
 
 public class PositionsModelImpl extends AbstractTableModel implements PositionsModel {
     private BaseRoute route;
+    private final TableModelEventCoalescer coalescer = new TableModelEventCoalescer(this) {
+        protected void deliver(TableModelEvent e) {
+            PositionsModelImpl.super.fireTableChanged(e);
+        }
+    };
 
     public BaseRoute getRoute() {
         return route;
@@ -252,23 +257,16 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
 
     @SuppressWarnings({"unchecked"})
     public void add(int rowIndex, List<BaseNavigationPosition> positions) {
-        for (int i = positions.size() - 1; i >= 0; i--) {
-            BaseNavigationPosition position = positions.get(i);
-            getRoute().add(rowIndex, position);
-        }
+        getRoute().addAll(rowIndex, positions);
         fireTableRowsInserted(rowIndex, rowIndex - 1 + positions.size());
     }
 
-    public int[] createRowIndices(int from, int to) {
-        int[] rows = new int[to - from];
-        int count = 0;
-        for (int i = to - 1; i >= from; i--)
-            rows[count++] = i;
-        return rows;
-    }
-
     public void remove(int firstIndex, int lastIndex) {
-        remove(createRowIndices(firstIndex, lastIndex));
+        if (firstIndex >= lastIndex)
+            return;
+
+        getRoute().removeRange(firstIndex, lastIndex);
+        fireTableRowsDeleted(firstIndex, lastIndex - 1);
     }
 
     public void remove(int[] rowIndices) {
@@ -276,18 +274,23 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     }
 
     public void remove(int[] rows, final boolean fireEvent) {
-        new ContinousRange(rows, new RangeOperation() {
-            public void performOnIndex(int index) {
-                getRoute().remove(index);
-            }
-            public void performOnRange(int firstIndex, int lastIndex) {
-                if (fireEvent)
-                    fireTableRowsDeleted(firstIndex, lastIndex);
-            }
-            public boolean isInterrupted() {
-                return false;
-            }
-        }).performMonotonicallyDecreasing();
+        beginBatch();
+        try {
+            new ContinousRange(rows, new RangeOperation() {
+                public void performOnIndex(int index) {
+                    getRoute().remove(index);
+                }
+                public void performOnRange(int firstIndex, int lastIndex) {
+                    if (fireEvent)
+                        fireTableRowsDeleted(firstIndex, lastIndex);
+                }
+                public boolean isInterrupted() {
+                    return false;
+                }
+            }).performMonotonicallyDecreasing();
+        } finally {
+            endBatch();
+        }
     }
 
     public void revert() {
@@ -317,27 +320,42 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     public void up(int[] rowIndices, int delta) {
         Arrays.sort(rowIndices);
 
-        for (int row : rowIndices) {
-            getRoute().up(row, row - delta);
-            fireTableRowsUpdated(row - delta, row);
+        beginBatch();
+        try {
+            for (int row : rowIndices) {
+                getRoute().up(row, row - delta);
+                fireTableRowsUpdated(row - delta, row);
+            }
+        } finally {
+            endBatch();
         }
     }
 
     public void down(int[] rowIndices, int delta) {
         int[] reverted = Range.revert(rowIndices);
 
-        for (int row : reverted) {
-            getRoute().down(row, row + delta);
-            fireTableRowsUpdated(row, row + delta);
+        beginBatch();
+        try {
+            for (int row : reverted) {
+                getRoute().down(row, row + delta);
+                fireTableRowsUpdated(row, row + delta);
+            }
+        } finally {
+            endBatch();
         }
     }
 
     public void bottom(int[] rowIndices) {
         int[] reverted = Range.revert(rowIndices);
 
-        for (int i = 0; i < reverted.length; i++) {
-            getRoute().bottom(reverted[i], i);
-            fireTableRowsUpdated(reverted[i], getRowCount() - 1 - i);
+        beginBatch();
+        try {
+            for (int i = 0; i < reverted.length; i++) {
+                getRoute().bottom(reverted[i], i);
+                fireTableRowsUpdated(reverted[i], getRowCount() - 1 - i);
+            }
+        } finally {
+            endBatch();
         }
     }
 
@@ -353,4 +371,21 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     public void fireTableRowsUpdated(int firstIndex, int lastIndex, int columnIndex) {
         fireTableChanged(new TableModelEvent(this, firstIndex, lastIndex, columnIndex, TableModelEvent.UPDATE));
     }
+
+    public void fireTableChanged(TableModelEvent e) {
+        if (!coalescer.coalesce(e))
+            super.fireTableChanged(e);
+    }
+
+    /**
+     * Starts a bulk operation: the events fired until the matching {@link #endBatch()}
+     * are merged and delivered when the outermost bulk operation ends.
+     */
+    public void beginBatch() {
+        coalescer.beginBatch();
+    }
+
+    public void endBatch() {
+        coalescer.endBatch();
+    }
 }
\ No newline at end of file
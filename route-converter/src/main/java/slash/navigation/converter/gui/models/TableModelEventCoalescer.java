@@ -0,0 +1,229 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.models;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableModel;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static javax.swing.event.TableModelEvent.*;
+
+/**
+ * Coalesces the {@link TableModelEvent}s of a {@link TableModel}.
+ * <p/>
+ * Row updates fired on the event dispatch thread are merged into as few ranges as
+ * possible and delivered at most once per frame. Between {@link #beginBatch()} and
+ * {@link #endBatch()} inserts and deletes are merged, too, and delivered when the
+ * outermost batch ends; if they do not form a single range, they are delivered as one
+ * delete and one insert of the changed rows.
+ *
+ * @author Christian Pesch
+ */
+
+abstract class TableModelEventCoalescer {
+    static final int FRAME_DELAY = 25;
+    private static final int MAXIMUM_PENDING_UPDATES = 8;
+
+    private final TableModel model;
+    private final Timer timer;
+    private int batchDepth = 0;
+    private final List<TableModelEvent> updates = new ArrayList<TableModelEvent>();
+    private TableModelEvent structural;
+    private boolean collapsed;
+    private int rowCountBefore, unchangedPrefix, unchangedSuffix;
+
+    TableModelEventCoalescer(TableModel model) {
+        this.model = model;
+        this.timer = new Timer(FRAME_DELAY, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (batchDepth == 0)
+                    flushUpdates();
+            }
+        });
+        timer.setRepeats(false);
+    }
+
+    protected abstract void deliver(TableModelEvent e);
+
+    void beginBatch() {
+        batchDepth++;
+    }
+
+    void endBatch() {
+        if (batchDepth == 0)
+            throw new IllegalStateException("no batch to end");
+        if (--batchDepth == 0)
+            flush();
+    }
+
+    /**
+     * Takes over the given event if it may be coalesced.
+     *
+     * @param e the event to coalesce
+     * @return true if the event is delivered later, false if it has to be delivered now
+     */
+    boolean coalesce(TableModelEvent e) {
+        if (isRowUpdate(e)) {
+            if (batchDepth == 0 && !SwingUtilities.isEventDispatchThread()) {
+                flush();
+                return false;
+            }
+            flushStructural();
+            mergeUpdate(e);
+            if (batchDepth == 0 && !timer.isRunning())
+                timer.start();
+            return true;
+        }
+
+        if (isRowInsertOrDelete(e) && batchDepth > 0) {
+            flushUpdates();
+            mergeStructural(e);
+            return true;
+        }
+
+        // a complete update makes pending updates obsolete
+        if (e.getType() == UPDATE)
+            updates.clear();
+        flush();
+        return false;
+    }
+
+    void flush() {
+        flushStructural();
+        flushUpdates();
+    }
+
+    private boolean isRowUpdate(TableModelEvent e) {
+        return e.getType() == UPDATE && e.getFirstRow() >= 0 && e.getLastRow() != MAX_VALUE;
+    }
+
+    private boolean isRowInsertOrDelete(TableModelEvent e) {
+        return (e.getType() == INSERT || e.getType() == DELETE) && e.getFirstRow() >= 0;
+    }
+
+    private void mergeUpdate(TableModelEvent e) {
+        for (int i = updates.size() - 1; i >= 0; i--) {
+            TableModelEvent pending = updates.get(i);
+            if (pending.getColumn() == e.getColumn() &&
+                    e.getFirstRow() <= pending.getLastRow() + 1 && e.getLastRow() + 1 >= pending.getFirstRow()) {
+                updates.set(i, new TableModelEvent(model, min(pending.getFirstRow(), e.getFirstRow()),
+                        max(pending.getLastRow(), e.getLastRow()), e.getColumn(), UPDATE));
+                return;
+            }
+        }
+        updates.add(e);
+
+        if (updates.size() > MAXIMUM_PENDING_UPDATES) {
+            int firstRow = MAX_VALUE, lastRow = 0, column = updates.get(0).getColumn();
+            for (TableModelEvent pending : updates) {
+                firstRow = min(firstRow, pending.getFirstRow());
+                lastRow = max(lastRow, pending.getLastRow());
+                if (pending.getColumn() != column)
+                    column = ALL_COLUMNS;
+            }
+            updates.clear();
+            updates.add(new TableModelEvent(model, firstRow, lastRow, column, UPDATE));
+        }
+    }
+
+    private void flushUpdates() {
+        timer.stop();
+        if (updates.size() == 0)
+            return;
+
+        List<TableModelEvent> events = new ArrayList<TableModelEvent>(updates);
+        updates.clear();
+        // rows may have been removed in the meantime
+        int lastRowIndex = model.getRowCount() - 1;
+        for (TableModelEvent e : events) {
+            int lastRow = min(e.getLastRow(), lastRowIndex);
+            if (e.getFirstRow() <= lastRow)
+                deliver(lastRow == e.getLastRow() ? e :
+                        new TableModelEvent(model, e.getFirstRow(), lastRow, e.getColumn(), UPDATE));
+        }
+    }
+
+    private void mergeStructural(TableModelEvent e) {
+        boolean insert = e.getType() == INSERT;
+        int count = e.getLastRow() - e.getFirstRow() + 1;
+        // events are fired after the model has been changed
+        int rowCountBeforeEvent = model.getRowCount() + (insert ? -count : count);
+
+        if (structural == null && !collapsed) {
+            rowCountBefore = rowCountBeforeEvent;
+            unchangedPrefix = MAX_VALUE;
+            unchangedSuffix = MAX_VALUE;
+        }
+        unchangedPrefix = min(unchangedPrefix, e.getFirstRow());
+        unchangedSuffix = min(unchangedSuffix, rowCountBeforeEvent - (insert ? e.getFirstRow() : e.getLastRow() + 1));
+
+        if (collapsed)
+            return;
+        if (structural == null)
+            structural = e;
+        else {
+            structural = merge(structural, e);
+            collapsed = structural == null;
+        }
+    }
+
+    private TableModelEvent merge(TableModelEvent pending, TableModelEvent e) {
+        if (pending.getType() != e.getType())
+            return null;
+
+        int count = e.getLastRow() - e.getFirstRow() + 1;
+        int pendingCount = pending.getLastRow() - pending.getFirstRow() + 1;
+        if (e.getType() == INSERT) {
+            // inserted into or right after the pending range
+            if (pending.getFirstRow() <= e.getFirstRow() && e.getFirstRow() <= pending.getLastRow() + 1)
+                return new TableModelEvent(model, pending.getFirstRow(), pending.getLastRow() + count, ALL_COLUMNS, INSERT);
+        } else {
+            // deleted right before or around the pending range
+            if (e.getFirstRow() <= pending.getFirstRow() && pending.getFirstRow() <= e.getLastRow() + 1)
+                return new TableModelEvent(model, e.getFirstRow(), e.getLastRow() + pendingCount, ALL_COLUMNS, DELETE);
+        }
+        return null;
+    }
+
+    private void flushStructural() {
+        if (collapsed) {
+            collapsed = false;
+            int lastDeletedRow = rowCountBefore - unchangedSuffix - 1;
+            if (lastDeletedRow >= unchangedPrefix)
+                deliver(new TableModelEvent(model, unchangedPrefix, lastDeletedRow, ALL_COLUMNS, DELETE));
+            int lastInsertedRow = model.getRowCount() - unchangedSuffix - 1;
+            if (lastInsertedRow >= unchangedPrefix)
+                deliver(new TableModelEvent(model, unchangedPrefix, lastInsertedRow, ALL_COLUMNS, INSERT));
+
+        } else if (structural != null) {
+            TableModelEvent e = structural;
+            structural = null;
+            deliver(e);
+        }
+    }
+}
@@ -206,14 +206,15 @@ public class BrowsePanel {
                 // do the loading in a separate thread since treeCategories.setModel(categoryTreeModel)
                 // would do it in the AWT EventQueue
                 categoryTreeModel.getChildCount(root);
+                String selected = RouteConverter.getInstance().getCategoryPreference();
+                final TreePath selectedTreePath = TreePathStringConversion.fromString(root, selected);
 
                 SwingUtilities.invokeLater(new Runnable() {
                     public void run() {
                         Constants.startWaitCursor(RouteConverter.getInstance().getFrame().getRootPane());
                         try {
                             treeCategories.setModel(categoryTreeModel);
-                            String selected = RouteConverter.getInstance().getCategoryPreference();
-                            selectTreePath(TreePathStringConversion.fromString(root, selected));
+                            selectTreePath(selectedTreePath);
                         } finally {
                             Constants.stopWaitCursor(RouteConverter.getInstance().getFrame().getRootPane());
                         }
@@ -244,7 +245,9 @@ public class BrowsePanel {
         TreePath[] treePaths = treeCategories.getSelectionPaths();
         List<CategoryTreeNode> treeNodes = new ArrayList<CategoryTreeNode>();
         for (TreePath treePath : treePaths) {
-            treeNodes.add((CategoryTreeNode) treePath.getLastPathComponent());
+            Object treeNode = treePath.getLastPathComponent();
+            if (treeNode instanceof CategoryTreeNode)
+                treeNodes.add((CategoryTreeNode) treeNode);
         }
         return treeNodes;
     }
@@ -668,7 +671,18 @@ public class BrowsePanel {
             return new CategorySelection(getSelectedTreeNodes());
         }
 
+        private CategoryTreeNode getDropTarget(TransferSupport support) {
+            // placeholder and loading nodes cannot take a drop
+            if (!support.isDrop())
+                return null;
+            TreePath path = ((JTree.DropLocation) support.getDropLocation()).getPath();
+            Object target = path != null ? path.getLastPathComponent() : null;
+            return target instanceof CategoryTreeNode ? (CategoryTreeNode) target : null;
+        }
+
         public boolean canImport(TransferSupport support) {
+            if (getDropTarget(support) == null)
+                return false;
             return support.isDataFlavorSupported(CategorySelection.categoryFlavor) ||
                     support.isDataFlavorSupported(RouteSelection.routeFlavor) ||
                     support.isDataFlavorSupported(DataFlavor.javaFileListFlavor) ||
@@ -677,9 +691,9 @@ public class BrowsePanel {
 
         @SuppressWarnings("unchecked")
         public boolean importData(TransferSupport support) {
-            JTree.DropLocation dropLocation = (JTree.DropLocation) support.getDropLocation();
-            TreePath path = dropLocation.getPath();
-            CategoryTreeNode target = (CategoryTreeNode) path.getLastPathComponent();
+            CategoryTreeNode target = getDropTarget(support);
+            if (target == null)
+                return false;
             try {
                 Transferable t = support.getTransferable();
                 if (support.isDataFlavorSupported(CategorySelection.categoryFlavor)) {
@@ -43,6 +43,11 @@ import slash.navigation.gopal.GoPal3RouteFormat;
 import slash.navigation.gpx.Gpx11Format;
 import slash.navigation.gpx.GpxRoute;
 import slash.navigation.gui.*;
+import slash.navigation.nmea.LiveNmeaSource;
+import slash.navigation.nmea.LiveNmeaSourceListener;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.nmea.NmeaPosition;
+import slash.navigation.nmea.NmeaRoute;
 import slash.navigation.nmn.Nmn7Format;
 import slash.navigation.nmn.NmnFormat;
 
@@ -58,6 +63,7 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.util.*;
@@ -71,6 +77,7 @@ import static javax.swing.JFileChooser.FILES_ONLY;
 import static javax.swing.JOptionPane.*;
 import static javax.swing.event.TableModelEvent.ALL_COLUMNS;
 import static slash.common.io.Files.*;
+import static slash.common.io.Transfer.trim;
 import static slash.navigation.base.NavigationFileParser.getNumberOfFilesToWriteFor;
 import static slash.navigation.base.NavigationFormats.getReadFormatsPreferredByExtension;
 import static slash.navigation.base.NavigationFormats.getReadFormatsWithPreferredFormat;
@@ -96,6 +103,8 @@ public class ConvertPanel {
     private PositionsSelectionModel positionsSelectionModel;
     private LengthCalculator lengthCalculator;
     private BatchPositionAugmenter positionAugmenter;
+    private LiveNmeaSource liveNmeaSource;
+    private BatchNavigationFileParser appendBatch;
 
     private JPanel convertPanel;
     private JLabel labelFormat;
@@ -158,7 +167,7 @@ public class ConvertPanel {
         new PositionListsToJLabelAdapter(formatAndRoutesModel, labelPositionLists);
         new PositionsCountToJLabelAdapter(getPositionsModel(), labelPositions);
         new LengthToJLabelAdapter(getPositionsModel(), lengthCalculator, labelLength, labelDuration);
-        new ElevationToJLabelAdapter(getPositionsModel(), labelOverallAscend, labelOverallDescend);
+        new ElevationToJLabelAdapter(getPositionsModel(), lengthCalculator, labelOverallAscend, labelOverallDescend);
 
         JMenuHelper.registerAction(buttonNewPositionList, "new-positionlist");
         JMenuHelper.registerAction(buttonRenamePositionList, "rename-positionlist");
@@ -268,6 +277,7 @@ public class ConvertPanel {
         actionManager.register("new-position", new NewPositionAction(getPositionsView(), getPositionsModel(), getPositionsSelectionModel()));
         actionManager.register("new-file", new NewFileAction(this));
         actionManager.register("open", new OpenAction(this));
+        actionManager.register("follow-nmea", new FollowNmeaAction(this));
         actionManager.register("paste", new PasteAction(getPositionsView(), getPositionsModel(), clipboardInteractor));
         actionManager.register("save", new SaveAction(this));
         actionManager.register("save-as", new SaveAsAction(this));
@@ -331,6 +341,8 @@ public class ConvertPanel {
 
     public void dispose() {
         lengthCalculator.dispose();
+        stopFollowingNmea();
+        cancelAppendingPositionLists();
     }
 
     public Component getRootComponent() {
@@ -406,6 +418,61 @@ public class ConvertPanel {
         openPositionList(urls, formats);
     }
 
+    private boolean stopFollowingNmea() {
+        if (liveNmeaSource == null)
+            return false;
+        liveNmeaSource.stop();
+        liveNmeaSource = null;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void followNmea() {
+        if (stopFollowingNmea())
+            return;
+        if (!confirmDiscard())
+            return;
+
+        final RouteConverter r = RouteConverter.getInstance();
+        final String source = JOptionPane.showInputDialog(r.getFrame(), RouteConverter.getBundle().getString("follow-nmea-source"));
+        if (trim(source) == null)
+            return;
+
+        UndoManager undoManager = Application.getInstance().getContext().getUndoManager();
+        undoManager.discardAllEdits();
+
+        cancelAppendingPositionLists();
+        NmeaFormat format = new NmeaFormat();
+        final NmeaRoute route = new NmeaRoute(format, Track, new ArrayList<NmeaPosition>());
+        formatAndRoutesModel.setRoutes(new FormatAndRoutes(format, route));
+        urlModel.clear();
+
+        liveNmeaSource = LiveNmeaSource.createLiveNmeaSource(trim(source), format);
+        liveNmeaSource.addLiveNmeaSourceListener(new LiveNmeaSourceListener() {
+            public void received(final List<NmeaPosition> positions) {
+                try {
+                    // waiting for the event dispatch thread blocks the source until the table caught up
+                    SwingUtilities.invokeAndWait(new Runnable() {
+                        public void run() {
+                            if (getPositionsModel().getRoute() == route)
+                                getPositionsModel().add(getPositionsModel().getRowCount(), new ArrayList<BaseNavigationPosition>(positions));
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    // intentionally left empty
+                } catch (InvocationTargetException e) {
+                    log.severe("Cannot add followed positions: " + e.getMessage());
+                }
+            }
+
+            public void stopped(Exception cause) {
+                if (cause != null)
+                    r.handleOpenError(cause, source);
+            }
+        });
+        liveNmeaSource.start();
+    }
+
     public void openPositionList(final List<URL> urls) {
         UndoManager undoManager = Application.getInstance().getContext().getUndoManager();
         undoManager.discardAllEdits();
@@ -415,6 +482,7 @@ public class ConvertPanel {
     @SuppressWarnings("unchecked")
     public void openPositionList(final List<URL> urls, final List<NavigationFormat> formats) {
         final RouteConverter r = RouteConverter.getInstance();
+        cancelAppendingPositionLists();
 
         final URL url = urls.get(0);
         final String path = createReadablePath(url);
@@ -433,7 +501,8 @@ public class ConvertPanel {
                     });
 
                     final NavigationFileParser parser = new NavigationFileParser();
-                    parser.addNavigationFileParserListener(new NavigationFileParserListener() {
+                    parser.setParsedRouteCache(r.getParsedRouteCache());
+                    parser.addNavigationFileParserListener(new NavigationFileParserAdapter() {
                         public void reading(final NavigationFormat<BaseRoute> format) {
                             SwingUtilities.invokeLater(new Runnable() {
                                 public void run() {
@@ -490,45 +559,78 @@ public class ConvertPanel {
         }, "UrlOpener").start();
     }
 
+    private void cancelAppendingPositionLists() {
+        if (appendBatch != null) {
+            appendBatch.cancel();
+            appendBatch = null;
+        }
+    }
+
     private void appendPositionList(final int row, final List<URL> urls) {
         final RouteConverter r = RouteConverter.getInstance();
 
-        new Thread(new Runnable() {
-            public void run() {
-                try {
-                    for (URL url : urls) {
-                        String path = createReadablePath(url);
+        cancelAppendingPositionLists();
+        final BatchNavigationFileParser batch = new BatchNavigationFileParser(urls);
+        batch.addNavigationFileParserListener(new NavigationFileParserAdapter() {
+            public void progress(URL url, int processed, int total) {
+                log.fine("Appended " + processed + " of " + total + " files");
+            }
 
-                        final NavigationFileParser parser = new NavigationFileParser();
-                        if (parser.read(url)) {
-                            log.info("Appended: " + path);
+            public void cancelled(int processed, int total) {
+                log.info("Cancelled appending after " + processed + " of " + total + " files");
+            }
+        });
+        appendBatch = batch;
 
-                            final String finalPath = path;
-                            final int finalRow = row > 0 ? row : getPositionsModel().getRowCount();
-                            SwingUtilities.invokeLater(new Runnable() {
+        new Thread(new Runnable() {
+            public void run() {
+                batch.read(new BatchNavigationFileParserCallback() {
+                    public void parsed(URL url, final NavigationFileParser parser) {
+                        final String path = createReadablePath(url);
+                        log.info("Appended: " + path);
+
+                        try {
+                            // waiting for the event dispatch thread keeps the parsed routes in memory bounded
+                            SwingUtilities.invokeAndWait(new Runnable() {
                                 public void run() {
+                                    if (batch.isCancelled())
+                                        return;
                                     try {
+                                        int finalRow = row > 0 ? row : getPositionsModel().getRowCount();
                                         getPositionsModel().add(finalRow, parser.getTheRoute());
                                     } catch (FileNotFoundException e) {
-                                        r.handleFileNotFound(finalPath);
+                                        r.handleFileNotFound(path);
                                     } catch (IOException e) {
-                                        r.handleOpenError(e, finalPath);
+                                        r.handleOpenError(e, path);
                                     }
                                 }
                             });
+                        } catch (InterruptedException e) {
+                            batch.cancel();
+                        } catch (InvocationTargetException e) {
+                            log.severe("Append error: " + e.getMessage());
+                            r.handleOpenError(e.getCause(), path);
+                        }
+                    }
 
-                        } else {
-                            r.handleUnsupportedFormat(path);
+                    public void unsupported(URL url) {
+                        r.handleUnsupportedFormat(createReadablePath(url));
+                    }
+
+                    public void failed(URL url, Throwable throwable) {
+                        String path = createReadablePath(url);
+                        if (throwable instanceof BabelException)
+                            r.handleBabelError((BabelException) throwable);
+                        else if (throwable instanceof OutOfMemoryError)
+                            r.handleOutOfMemoryError();
+                        else if (throwable instanceof FileNotFoundException)
+                            r.handleFileNotFound(path);
+                        else {
+                            log.severe("Append error: " + throwable.getMessage());
+                            r.handleOpenError(throwable, path);
                         }
                     }
-                } catch (BabelException e) {
-                    r.handleBabelError(e);
-                } catch (OutOfMemoryError e) {
-                    r.handleOutOfMemoryError();
-                } catch (Throwable t) {
-                    log.severe("Append error: " + t.getMessage());
-                    r.handleOpenError(t, urls);
-                }
+                });
             }
         }, "UrlAppender").start();
     }
@@ -538,6 +640,7 @@ public class ConvertPanel {
         if (!confirmDiscard())
             return;
 
+        cancelAppendingPositionLists();
         startWaitCursor(RouteConverter.getInstance().getFrame().getRootPane());
         try {
             Gpx11Format gpxFormat = new Gpx11Format();
@@ -22,6 +22,7 @@ package slash.navigation.converter.gui.undo;
 
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -35,7 +36,7 @@ import java.util.List;
  * @author Christian Pesch
  */
 
-class AddPositions extends AbstractUndoableEdit {
+class AddPositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private int row;
     private List<BaseNavigationPosition> positions;
@@ -54,6 +55,10 @@ class AddPositions extends AbstractUndoableEdit {
         return "add-position-redo";
     }
 
+    public long getEstimatedSize() {
+        return EditSizes.EDIT_SIZE + EditSizes.ofPositions(positions);
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
         positionsModel.remove(row, row + positions.size(), true, false);
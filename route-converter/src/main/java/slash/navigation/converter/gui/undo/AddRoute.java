@@ -21,6 +21,7 @@
 package slash.navigation.converter.gui.undo;
 
 import slash.navigation.base.BaseRoute;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -33,7 +34,7 @@ import javax.swing.undo.UndoableEdit;
  * @author Christian Pesch
  */
 
-class AddRoute extends AbstractUndoableEdit {
+class AddRoute extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoFormatAndRoutesModel formatAndRoutesModel;
     private int index;
     private BaseRoute route;
@@ -52,6 +53,10 @@ class AddRoute extends AbstractUndoableEdit {
         return "add-route-redo";
     }
 
+    public long getEstimatedSize() {
+        return EditSizes.ofRoute(route);
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
         formatAndRoutesModel.removeRoute(route, false);
@@ -21,6 +21,7 @@
 package slash.navigation.converter.gui.undo;
 
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -34,7 +35,7 @@ import javax.swing.undo.UndoableEdit;
  * @author Christian Pesch
  */
 
-class BottomPositions extends AbstractUndoableEdit {
+class BottomPositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private int[] rows;
 
@@ -51,6 +52,10 @@ class BottomPositions extends AbstractUndoableEdit {
         return "bottom-position-redo";
     }
 
+    public long getEstimatedSize() {
+        return EditSizes.ofRows(rows);
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
         positionsModel.bottomUp(rows);
@@ -21,6 +21,7 @@
 package slash.navigation.converter.gui.undo;
 
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -33,7 +34,7 @@ import javax.swing.undo.UndoableEdit;
  * @author Christian Pesch
  */
 
-class EditPosition extends AbstractUndoableEdit {
+class EditPosition extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private int row, column;
     private Object previousValue, nextValue;
@@ -55,6 +56,10 @@ class EditPosition extends AbstractUndoableEdit {
         return "edit-position-redo";
     }
 
+    public long getEstimatedSize() {
+        return EditSizes.EDIT_SIZE + EditSizes.ofValue(previousValue) + EditSizes.ofValue(nextValue);
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
         positionsModel.edit(previousValue, row, column, true, false);
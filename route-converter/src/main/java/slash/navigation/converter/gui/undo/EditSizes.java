@@ -0,0 +1,65 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.undo;
+
+import slash.navigation.base.BaseRoute;
+import slash.navigation.gui.SizedUndoableEdit;
+
+import java.util.List;
+
+/**
+ * Estimates the memory retained by the {@link SizedUndoableEdit}s of this package.
+ *
+ * @author Christian Pesch
+ */
+
+class EditSizes {
+    static final long EDIT_SIZE = 32;
+    static final long POSITION_SIZE = 160;
+
+    private EditSizes() {
+    }
+
+    static long ofRows(int[] rows) {
+        return EDIT_SIZE + rows.length * 4;
+    }
+
+    static long ofValue(Object value) {
+        if (value instanceof String)
+            return 40 + ((String) value).length() * 2;
+        return 24;
+    }
+
+    static long ofPositions(List<?> positions) {
+        return positions.size() * POSITION_SIZE;
+    }
+
+    static long ofRoute(BaseRoute route) {
+        return EDIT_SIZE + route.getPositionCount() * POSITION_SIZE;
+    }
+
+    static long ofRoutes(List<BaseRoute> routes) {
+        long size = 0;
+        for (BaseRoute route : routes)
+            size += ofRoute(route);
+        return size;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.undo;
+
+import slash.navigation.base.BaseRoute;
+import slash.navigation.gui.SizedUndoableEdit;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acts as a {@link UndoableEdit} for merging routes into the selected route of a {@link UndoFormatAndRoutesModel}.
+ *
+ * @author Christian Pesch
+ */
+
+class MergeRoutes extends AbstractUndoableEdit implements SizedUndoableEdit {
+    private UndoFormatAndRoutesModel formatAndRoutesModel;
+    private BaseRoute route;
+    private int rowIndex;
+    private List<BaseRoute> routes;
+    private List<Integer> indices;
+
+    public MergeRoutes(UndoFormatAndRoutesModel formatAndRoutesModel, BaseRoute route, int rowIndex,
+                       List<BaseRoute> routes, List<Integer> indices) {
+        this.formatAndRoutesModel = formatAndRoutesModel;
+        this.route = route;
+        this.rowIndex = rowIndex;
+        this.routes = routes;
+        this.indices = indices;
+    }
+
+    public String getUndoPresentationName() {
+        return "merge-route-undo";
+    }
+
+    public String getRedoPresentationName() {
+        return "merge-route-redo";
+    }
+
+    public long getEstimatedSize() {
+        return EditSizes.EDIT_SIZE + EditSizes.ofRoutes(routes) + indices.size() * 4;
+    }
+
+    public void undo() throws CannotUndoException {
+        super.undo();
+        formatAndRoutesModel.setSelectedRoute(route, false);
+        int count = 0;
+        for (BaseRoute r : routes)
+            count += r.getPositionCount();
+        formatAndRoutesModel.removePositions(rowIndex, rowIndex + count);
+        // add the routes in ascending order of their former indices
+        Map<Integer, BaseRoute> indexToRoute = new TreeMap<Integer, BaseRoute>();
+        for (int i = 0; i < routes.size(); i++)
+            indexToRoute.put(indices.get(i), routes.get(i));
+        for (Map.Entry<Integer, BaseRoute> entry : indexToRoute.entrySet())
+            formatAndRoutesModel.addRoute(entry.getKey(), entry.getValue(), false);
+    }
+
+    public void redo() throws CannotRedoException {
+        super.redo();
+        formatAndRoutesModel.setSelectedRoute(route, false);
+        formatAndRoutesModel.mergeRoutes(rowIndex, routes, false);
+    }
+}
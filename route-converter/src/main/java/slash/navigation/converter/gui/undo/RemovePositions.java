@@ -22,6 +22,7 @@ package slash.navigation.converter.gui.undo;
 
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -36,10 +37,11 @@ import java.util.List;
  * @author Christian Pesch
  */
 
-class RemovePositions extends AbstractUndoableEdit {
+class RemovePositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private List<Integer> rowList = new ArrayList<Integer>();
     private List<List<BaseNavigationPosition>> positionsList = new ArrayList<List<BaseNavigationPosition>>();
+    private long estimatedSize = EditSizes.EDIT_SIZE;
 
     public RemovePositions(UndoPositionsModel positionsModel) {
         this.positionsModel = positionsModel;
@@ -48,6 +50,7 @@ class RemovePositions extends AbstractUndoableEdit {
     public void add(int row, List<BaseNavigationPosition> positions) {
         rowList.add(0, row);
         positionsList.add(0, positions);
+        estimatedSize += 4 + EditSizes.ofPositions(positions);
     }
 
     public String getUndoPresentationName() {
@@ -58,21 +61,35 @@ class RemovePositions extends AbstractUndoableEdit {
         return "remove-position-redo";
     }
 
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
-        for (int i = 0; i < rowList.size(); i++) {
-            int row = rowList.get(i);
-            List<BaseNavigationPosition> positions = positionsList.get(i);
-            positionsModel.add(row, positions, true, false);
+        positionsModel.beginBatch();
+        try {
+            for (int i = 0; i < rowList.size(); i++) {
+                int row = rowList.get(i);
+                List<BaseNavigationPosition> positions = positionsList.get(i);
+                positionsModel.add(row, positions, true, false);
+            }
+        } finally {
+            positionsModel.endBatch();
         }
     }
 
     public void redo() throws CannotRedoException {
         super.redo();
-        for (int i = rowList.size() - 1; i >= 0; i--) {
-            int row = rowList.get(i);
-            List<BaseNavigationPosition> positions = positionsList.get(i);
-            positionsModel.remove(row, row + positions.size(), true, false);
+        positionsModel.beginBatch();
+        try {
+            for (int i = rowList.size() - 1; i >= 0; i--) {
+                int row = rowList.get(i);
+                List<BaseNavigationPosition> positions = positionsList.get(i);
+                positionsModel.remove(row, row + positions.size(), true, false);
+            }
+        } finally {
+            positionsModel.endBatch();
         }
     }
 }
\ No newline at end of file
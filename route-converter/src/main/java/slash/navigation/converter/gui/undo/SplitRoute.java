@@ -0,0 +1,74 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.undo;
+
+import slash.navigation.base.BaseRoute;
+import slash.navigation.gui.SizedUndoableEdit;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.util.List;
+
+/**
+ * Acts as a {@link UndoableEdit} for splitting the selected route of a {@link UndoFormatAndRoutesModel}.
+ *
+ * @author Christian Pesch
+ */
+
+class SplitRoute extends AbstractUndoableEdit implements SizedUndoableEdit {
+    private UndoFormatAndRoutesModel formatAndRoutesModel;
+    private BaseRoute route;
+    private int index;
+    private List<BaseRoute> routes;
+
+    public SplitRoute(UndoFormatAndRoutesModel formatAndRoutesModel, BaseRoute route, int index, List<BaseRoute> routes) {
+        this.formatAndRoutesModel = formatAndRoutesModel;
+        this.route = route;
+        this.index = index;
+        this.routes = routes;
+    }
+
+    public String getUndoPresentationName() {
+        return "split-route-undo";
+    }
+
+    public String getRedoPresentationName() {
+        return "split-route-redo";
+    }
+
+    public long getEstimatedSize() {
+        return EditSizes.EDIT_SIZE + EditSizes.ofRoutes(routes);
+    }
+
+    public void undo() throws CannotUndoException {
+        super.undo();
+        formatAndRoutesModel.setSelectedRoute(route, false);
+        formatAndRoutesModel.mergeRoutes(route.getPositionCount(), routes, false);
+    }
+
+    public void redo() throws CannotRedoException {
+        super.redo();
+        formatAndRoutesModel.setSelectedRoute(route, false);
+        formatAndRoutesModel.splitRoute(index, routes);
+    }
+}
@@ -21,6 +21,7 @@
 package slash.navigation.converter.gui.undo;
 
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -33,7 +34,7 @@ import javax.swing.undo.UndoableEdit;
  * @author Christian Pesch
  */
 
-class TopPositions extends AbstractUndoableEdit {
+class TopPositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private int[] rows;
 
@@ -50,6 +51,10 @@ class TopPositions extends AbstractUndoableEdit {
         return "top-position-redo";
     }
 
+    public long getEstimatedSize() {
+        return EditSizes.ofRows(rows);
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
         positionsModel.topDown(rows);
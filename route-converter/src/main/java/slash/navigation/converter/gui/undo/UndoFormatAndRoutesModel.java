@@ -29,6 +29,7 @@ import slash.navigation.gui.UndoManager;
 
 import javax.swing.event.ChangeListener;
 import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,11 +40,13 @@ import java.util.List;
 
 public class UndoFormatAndRoutesModel implements FormatAndRoutesModel {
     private FormatAndRoutesModelImpl delegate;
+    private UndoPositionsModel positionsModel;
     private UndoManager undoManager;
 
     public UndoFormatAndRoutesModel(UndoManager undoManager) {
         this.undoManager = undoManager;
-        delegate = new FormatAndRoutesModelImpl(new UndoPositionsModel(undoManager));
+        positionsModel = new UndoPositionsModel(undoManager);
+        delegate = new FormatAndRoutesModelImpl(positionsModel);
     }
 
     // ListModel
@@ -123,8 +126,7 @@ public class UndoFormatAndRoutesModel implements FormatAndRoutesModel {
     }
 
     public void setSelectedRoute(BaseRoute route, boolean trackUndo) {
-        if ((getSelectedRoute() != null && !getSelectedRoute().equals(route)) ||
-                getSelectedRoute() == null && route != null) {
+        if (getSelectedRoute() != route) {
             BaseRoute previousRoute = trackUndo ? getSelectedRoute() : null;
             delegate.setSelectedRoute(route);
             if (trackUndo)
@@ -171,4 +173,35 @@ public class UndoFormatAndRoutesModel implements FormatAndRoutesModel {
         if (trackUndo)
             undoManager.addEdit(new RemoveRoute(this, index, route));
     }
+
+    public List<BaseRoute> splitRoute(int[] rowIndices) {
+        BaseRoute route = getSelectedRoute();
+        int index = getSize();
+        List<BaseRoute> routes = delegate.splitRoute(rowIndices);
+        if (routes.size() > 0)
+            undoManager.addEdit(new SplitRoute(this, route, index, routes));
+        return routes;
+    }
+
+    void splitRoute(int index, List<BaseRoute> routes) {
+        delegate.splitRoute(index, routes);
+    }
+
+    void removePositions(int firstIndex, int lastIndex) {
+        positionsModel.remove(firstIndex, lastIndex, true, false);
+    }
+
+    public void mergeRoutes(int rowIndex, List<BaseRoute> routes) {
+        mergeRoutes(rowIndex, routes, true);
+    }
+
+    void mergeRoutes(int rowIndex, List<BaseRoute> routes, boolean trackUndo) {
+        List<Integer> indices = new ArrayList<Integer>(routes.size());
+        for (BaseRoute route : routes)
+            indices.add(getIndex(route));
+        BaseRoute route = getSelectedRoute();
+        delegate.mergeRoutes(rowIndex, routes);
+        if (trackUndo)
+            undoManager.addEdit(new MergeRoutes(this, route, rowIndex, routes, indices));
+    }
 }
@@ -103,10 +103,26 @@ public class UndoPositionsModel implements PositionsModel {
         delegate.removeTableModelListener(l);
     }
 
+    public void fireTableRowsInserted(int firstIndex, int lastIndex) {
+        delegate.fireTableRowsInserted(firstIndex, lastIndex);
+    }
+
     public void fireTableRowsUpdated(int firstIndex, int lastIndex, int columnIndex) {
         delegate.fireTableRowsUpdated(firstIndex, lastIndex, columnIndex);
     }
 
+    public void fireTableRowsDeleted(int firstIndex, int lastIndex) {
+        delegate.fireTableRowsDeleted(firstIndex, lastIndex);
+    }
+
+    public void beginBatch() {
+        delegate.beginBatch();
+    }
+
+    public void endBatch() {
+        delegate.endBatch();
+    }
+
     // PositionsModel
 
     public BaseRoute getRoute() {
@@ -168,10 +184,7 @@ public class UndoPositionsModel implements PositionsModel {
 
     @SuppressWarnings("unchecked")
     void add(int row, List<BaseNavigationPosition> positions, boolean fireEvent, boolean trackUndo) {
-        for (int i = positions.size() - 1; i >= 0; i--) {
-            BaseNavigationPosition position = positions.get(i);
-            getRoute().add(row, position);
-        }
+        getRoute().addAll(row, positions);
         if (fireEvent)
             delegate.fireTableRowsInserted(row, row - 1 + positions.size());
         if (trackUndo)
@@ -186,31 +199,46 @@ public class UndoPositionsModel implements PositionsModel {
         remove(rowIndices, true, true);
     }
 
+    @SuppressWarnings("unchecked")
     void remove(int from, int to, boolean fireEvent, boolean trackUndo) {
-        int[] rows = delegate.createRowIndices(from, to);
-        remove(rows, fireEvent, trackUndo);
+        if (from >= to)
+            return;
+
+        List<BaseNavigationPosition> removed = getRoute().removeRange(from, to);
+        if (fireEvent)
+            delegate.fireTableRowsDeleted(from, to - 1);
+        if (trackUndo) {
+            RemovePositions edit = new RemovePositions(this);
+            edit.add(from, removed);
+            undoManager.addEdit(edit);
+        }
     }
 
     void remove(int[] rows, final boolean fireEvent, final boolean trackUndo) {
         final RemovePositions edit = new RemovePositions(this);
 
-        new ContinousRange(rows, new RangeOperation() {
-            private List<BaseNavigationPosition> removed = new ArrayList<BaseNavigationPosition>();
-
-            public void performOnIndex(int index) {
-                removed.add(0, getRoute().remove(index));
-            }
-            public void performOnRange(int firstIndex, int lastIndex) {
-                if (fireEvent)
-                    delegate.fireTableRowsDeleted(firstIndex, lastIndex);
-                if (trackUndo)
-                    edit.add(firstIndex, new ArrayList<BaseNavigationPosition>(removed));
-                removed.clear();
-            }
-            public boolean isInterrupted() {
-                return false;
-            }
-        }).performMonotonicallyDecreasing();
+        beginBatch();
+        try {
+            new ContinousRange(rows, new RangeOperation() {
+                private List<BaseNavigationPosition> removed = new ArrayList<BaseNavigationPosition>();
+
+                public void performOnIndex(int index) {
+                    removed.add(0, getRoute().remove(index));
+                }
+                public void performOnRange(int firstIndex, int lastIndex) {
+                    if (fireEvent)
+                        delegate.fireTableRowsDeleted(firstIndex, lastIndex);
+                    if (trackUndo)
+                        edit.add(firstIndex, new ArrayList<BaseNavigationPosition>(removed));
+                    removed.clear();
+                }
+                public boolean isInterrupted() {
+                    return false;
+                }
+            }).performMonotonicallyDecreasing();
+        } finally {
+            endBatch();
+        }
 
         if (trackUndo)
             undoManager.addEdit(edit);
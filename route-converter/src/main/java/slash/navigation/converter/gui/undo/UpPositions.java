@@ -22,6 +22,7 @@ package slash.navigation.converter.gui.undo;
 
 import slash.common.io.Range;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -34,7 +35,7 @@ import javax.swing.undo.UndoableEdit;
  * @author Christian Pesch
  */
 
-class UpPositions extends AbstractUndoableEdit {
+class UpPositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private int[] rows;
     private int delta;
@@ -53,6 +54,10 @@ class UpPositions extends AbstractUndoableEdit {
         return "up-position-redo";
     }
 
+    public long getEstimatedSize() {
+        return EditSizes.ofRows(rows);
+    }
+
     public void undo() throws CannotUndoException {
         super.undo();
         positionsModel.down(Range.increment(rows, -delta), delta, false);
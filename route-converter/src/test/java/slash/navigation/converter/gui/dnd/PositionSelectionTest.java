@@ -0,0 +1,84 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.dnd;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.gpx.Gpx10Format;
+import slash.navigation.gpx.GpxPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PositionSelectionTest {
+
+    private List<BaseNavigationPosition> createPositions(int count) {
+        List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        for (int i = 0; i < count; i++)
+            positions.add(new GpxPosition(10.0 + i * 0.001, 50.0 + i * 0.001, null, null, null, "Position " + i));
+        return positions;
+    }
+
+    @Test
+    public void testTakePositions() {
+        List<BaseNavigationPosition> positions = createPositions(3);
+        PositionSelection selection = new PositionSelection(positions, new Gpx10Format());
+        for (int run = 0; run < 2; run++) {
+            List<BaseNavigationPosition> taken = selection.takePositions();
+            assertNotSame(positions, taken);
+            assertEquals(positions.size(), taken.size());
+            for (int i = 0; i < positions.size(); i++) {
+                assertNotSame(positions.get(i), taken.get(i));
+                assertEquals(positions.get(i).getComment(), taken.get(i).getComment());
+            }
+        }
+    }
+
+    @Test
+    public void testEditingPastedPositionsKeepsString() throws Exception {
+        PositionSelection selection = new PositionSelection(createPositions(3), new Gpx10Format());
+        List<BaseNavigationPosition> pasted = selection.takePositions();
+        pasted.get(0).setComment("Edited");
+
+        String string = (String) selection.getTransferData(PositionSelection.stringFlavor);
+        assertTrue(string.contains("Position 0"));
+        assertFalse(string.contains("Edited"));
+        assertEquals("Position 0", selection.takePositions().get(0).getComment());
+    }
+
+    @Test
+    public void testStringInChunks() throws Exception {
+        List<BaseNavigationPosition> positions = createPositions(2500);
+        PositionSelection selection = new PositionSelection(positions, new Gpx10Format());
+        String string = (String) selection.getTransferData(PositionSelection.stringFlavor);
+        String[] lines = string.trim().split("\r?\n");
+        assertEquals(2500, lines.length);
+        assertTrue(lines[0].contains("Position 0"));
+        assertTrue(lines[2499].contains("Position 2499"));
+        assertSame(string, selection.getTransferData(PositionSelection.stringFlavor));
+    }
+}
@@ -26,9 +26,13 @@ import slash.navigation.bcr.BcrPosition;
 import slash.navigation.bcr.BcrRoute;
 import slash.navigation.bcr.MTP0607Format;
 
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import java.util.ArrayList;
 import java.util.List;
 
+import static javax.swing.event.TableModelEvent.*;
 import static org.junit.Assert.assertEquals;
 
 public class PositionsModelTest {
@@ -82,4 +86,136 @@ public class PositionsModelTest {
         assertEquals("a", model.getPosition(0).getComment());
         assertEquals("e", model.getPosition(1).getComment());
     }
+
+    private static class EventRecorder implements TableModelListener {
+        private final List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+
+        public void tableChanged(TableModelEvent e) {
+            events.add(e);
+        }
+    }
+
+    private void assertEvent(TableModelEvent e, int type, int firstRow, int lastRow) {
+        assertEquals(type, e.getType());
+        assertEquals(firstRow, e.getFirstRow());
+        assertEquals(lastRow, e.getLastRow());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initialize(int count) {
+        List<BcrPosition> positions = route.getPositions();
+        positions.clear();
+        for (int i = 0; i < count; i++)
+            positions.add(new BcrPosition(i, i, 0, Integer.toString(i)));
+        model.setRoute(route);
+    }
+
+    @Test
+    public void testRemoveContinousRangesFiresOneEvent() {
+        initialize(10000);
+        EventRecorder recorder = new EventRecorder();
+        model.addTableModelListener(recorder);
+
+        int[] rows = new int[5000];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = 2500 + i;
+        model.remove(rows);
+
+        assertEquals(5000, model.getRowCount());
+        assertEquals(1, recorder.events.size());
+        assertEvent(recorder.events.get(0), DELETE, 2500, 7499);
+    }
+
+    @Test
+    public void testRemoveScatteredRowsFiresConstantNumberOfEvents() {
+        initialize(10000);
+        EventRecorder recorder = new EventRecorder();
+        model.addTableModelListener(recorder);
+
+        int[] rows = new int[4990];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = 10 + i * 2;
+        model.remove(rows);
+
+        assertEquals(5010, model.getRowCount());
+        assertEquals("9", model.getPosition(9).getComment());
+        assertEquals("11", model.getPosition(10).getComment());
+        assertEquals("9989", model.getPosition(4999).getComment());
+        assertEquals(2, recorder.events.size());
+        assertEvent(recorder.events.get(0), DELETE, 10, 9988);
+        assertEvent(recorder.events.get(1), INSERT, 10, 4998);
+    }
+
+    @Test
+    public void testMoveUpFiresOneEvent() {
+        initialize(10000);
+        EventRecorder recorder = new EventRecorder();
+        model.addTableModelListener(recorder);
+
+        int[] rows = new int[1000];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = 100 + i;
+        model.up(rows, 1);
+
+        assertEquals("100", model.getPosition(99).getComment());
+        assertEquals("99", model.getPosition(1099).getComment());
+        assertEquals(1, recorder.events.size());
+        assertEvent(recorder.events.get(0), UPDATE, 99, 1099);
+    }
+
+    @Test
+    public void testNestedBatches() {
+        initialize(100);
+        EventRecorder recorder = new EventRecorder();
+        model.addTableModelListener(recorder);
+
+        model.beginBatch();
+        model.remove(new int[]{50, 51});
+        model.remove(new int[]{48, 49});
+        assertEquals(0, recorder.events.size());
+        model.endBatch();
+
+        assertEquals(1, recorder.events.size());
+        assertEvent(recorder.events.get(0), DELETE, 48, 51);
+    }
+
+    @Test
+    public void testUpdatesOnEventDispatchThreadAreDeliveredOncePerFrame() throws Exception {
+        initialize(10000);
+        final EventRecorder recorder = new EventRecorder();
+        model.addTableModelListener(recorder);
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                for (int i = 0; i < 10000; i++)
+                    model.fireTableRowsUpdated(i, i, 1);
+                assertEquals(0, recorder.events.size());
+            }
+        });
+        Thread.sleep(TableModelEventCoalescer.FRAME_DELAY * 4);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                assertEquals(1, recorder.events.size());
+                assertEvent(recorder.events.get(0), UPDATE, 0, 9999);
+                assertEquals(1, recorder.events.get(0).getColumn());
+            }
+        });
+    }
+
+    @Test
+    public void testStructuralEventFlushesPendingUpdates() throws Exception {
+        initialize(10);
+        final EventRecorder recorder = new EventRecorder();
+        model.addTableModelListener(recorder);
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                model.fireTableRowsUpdated(8, 9, ALL_COLUMNS);
+                model.remove(new int[]{9});
+                assertEquals(2, recorder.events.size());
+                assertEvent(recorder.events.get(0), UPDATE, 8, 8);
+                assertEvent(recorder.events.get(1), DELETE, 9, 9);
+            }
+        });
+    }
 }
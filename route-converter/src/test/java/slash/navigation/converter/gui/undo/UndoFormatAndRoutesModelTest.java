@@ -0,0 +1,127 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.undo;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationFormat;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.FormatAndRoutes;
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.gui.UndoManager;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class UndoFormatAndRoutesModelTest {
+    private UndoManager undoManager = new UndoManager();
+    private UndoFormatAndRoutesModel model = new UndoFormatAndRoutesModel(undoManager);
+
+    private GpxRoute createRoute(String name, int count) {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < count; i++)
+            positions.add(new GpxPosition((double) i, (double) i, null, null, null, name + i));
+        return new GpxRoute(new Gpx11Format(), RouteCharacteristics.Track, name, null, positions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private GpxRoute initialize(GpxRoute... routes) {
+        model.setRoutes(new FormatAndRoutes<BaseNavigationFormat, BaseRoute, BaseNavigationPosition>(
+                (NavigationFormat) new Gpx11Format(), new ArrayList(Arrays.asList(routes))));
+        return routes[0];
+    }
+
+    private List<TableModelEvent> recordEvents() {
+        final List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        model.getPositionsModel().addTableModelListener(new TableModelListener() {
+            public void tableChanged(TableModelEvent e) {
+                events.add(e);
+            }
+        });
+        return events;
+    }
+
+    @Test
+    public void testSplitRoute() {
+        GpxRoute route = initialize(createRoute("a", 10));
+        List<TableModelEvent> events = recordEvents();
+
+        List<BaseRoute> routes = model.splitRoute(new int[]{3, 7});
+        assertEquals(2, routes.size());
+        assertEquals(3, model.getSize());
+        assertEquals(3, route.getPositionCount());
+        assertEquals(4, routes.get(0).getPositionCount());
+        assertEquals("a3", ((BaseNavigationPosition) routes.get(0).getPositions().get(0)).getComment());
+        assertEquals(3, routes.get(1).getPositionCount());
+        assertEquals("a7", ((BaseNavigationPosition) routes.get(1).getPositions().get(0)).getComment());
+        assertSame(routes.get(0), model.getRoute(1));
+        assertSame(routes.get(1), model.getRoute(2));
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+        assertEquals(3, events.get(0).getFirstRow());
+        assertEquals(9, events.get(0).getLastRow());
+
+        undoManager.undo();
+        assertEquals(1, model.getSize());
+        assertEquals(10, route.getPositionCount());
+        assertEquals("a9", route.getPosition(9).getComment());
+
+        undoManager.redo();
+        assertEquals(3, model.getSize());
+        assertEquals(3, route.getPositionCount());
+        assertSame(routes.get(1), model.getRoute(2));
+    }
+
+    @Test
+    public void testMergeRoutes() {
+        GpxRoute route = initialize(createRoute("a", 4), createRoute("b", 3));
+        BaseRoute source = model.getRoute(1);
+        List<TableModelEvent> events = recordEvents();
+
+        model.mergeRoutes(2, Arrays.asList(source));
+        assertEquals(1, model.getSize());
+        assertEquals(7, route.getPositionCount());
+        assertEquals("b0", route.getPosition(2).getComment());
+        assertEquals("a2", route.getPosition(5).getComment());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+
+        undoManager.undo();
+        assertEquals(2, model.getSize());
+        assertSame(source, model.getRoute(1));
+        assertEquals(4, route.getPositionCount());
+        assertEquals("a2", route.getPosition(2).getComment());
+
+        undoManager.redo();
+        assertEquals(1, model.getSize());
+        assertEquals(7, route.getPositionCount());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.undo;
+
+import org.junit.Test;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.gui.UndoManager;
+
+import javax.swing.undo.CompoundEdit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.converter.gui.models.PositionColumns.DESCRIPTION_COLUMN_INDEX;
+
+public class UndoPositionsModelTest {
+    private GpxRoute createRoute(int count) {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < count; i++)
+            positions.add(new GpxPosition((double) i, (double) i, null, null, null, "a" + i));
+        return new GpxRoute(new Gpx11Format(), RouteCharacteristics.Track, "a", null, positions);
+    }
+
+    private UndoPositionsModel createModel(UndoManager undoManager, GpxRoute route) {
+        UndoPositionsModel model = new UndoPositionsModel(undoManager);
+        model.setRoute(route);
+        return model;
+    }
+
+    @Test
+    public void testMemoryLimitEvictsOldestEdits() {
+        long limit = 10 * EditSizes.POSITION_SIZE;
+        UndoManager undoManager = new UndoManager(-1, limit);
+        GpxRoute route = createRoute(100);
+        UndoPositionsModel model = createModel(undoManager, route);
+
+        for (int i = 0; i < 20; i++)
+            model.remove(new int[]{0, 1});
+        assertEquals(60, route.getPositionCount());
+        assertTrue(undoManager.getEstimatedSize() <= limit);
+
+        int undone = 0;
+        while (undoManager.canUndo()) {
+            undoManager.undo();
+            undone++;
+        }
+        assertTrue(undone < 20);
+        assertEquals(60 + 2 * undone, route.getPositionCount());
+        assertEquals("a" + (40 - 2 * undone), route.getPosition(0).getComment());
+    }
+
+    @Test
+    public void testCompoundEditIsUndoneAtOnce() {
+        UndoManager undoManager = new UndoManager();
+        GpxRoute route = createRoute(5);
+        UndoPositionsModel model = createModel(undoManager, route);
+
+        undoManager.beginCompoundEdit();
+        for (int i = 0; i < 5; i++)
+            model.edit("b" + i, i, DESCRIPTION_COLUMN_INDEX, false, true);
+        assertFalse(undoManager.canUndo());
+        undoManager.endCompoundEdit();
+        assertEquals("b4", route.getPosition(4).getComment());
+
+        undoManager.undo();
+        assertFalse(undoManager.canUndo());
+        for (int i = 0; i < 5; i++)
+            assertEquals("a" + i, route.getPosition(i).getComment());
+
+        undoManager.redo();
+        for (int i = 0; i < 5; i++)
+            assertEquals("b" + i, route.getPosition(i).getComment());
+    }
+
+    @Test
+    public void testRecordedEditsAreAddedAtOnce() {
+        UndoManager undoManager = new UndoManager();
+        GpxRoute route = createRoute(6);
+        final UndoPositionsModel model = createModel(undoManager, route);
+        CompoundEdit compoundEdit = undoManager.createCompoundEdit();
+
+        for (int i = 0; i < 5; i++) {
+            final int index = i;
+            undoManager.record(compoundEdit, new Runnable() {
+                public void run() {
+                    model.edit("b" + index, index, DESCRIPTION_COLUMN_INDEX, false, true);
+                }
+            });
+            // an edit of the user between the recorded edits stays separate
+            if (i == 2)
+                model.edit("c", 5, DESCRIPTION_COLUMN_INDEX, false, true);
+        }
+        compoundEdit.end();
+        undoManager.addEdit(compoundEdit);
+        assertEquals("b4", route.getPosition(4).getComment());
+
+        undoManager.undo();
+        for (int i = 0; i < 5; i++)
+            assertEquals("a" + i, route.getPosition(i).getComment());
+        assertEquals("c", route.getPosition(5).getComment());
+
+        undoManager.undo();
+        assertFalse(undoManager.canUndo());
+        assertEquals("a5", route.getPosition(5).getComment());
+    }
+}